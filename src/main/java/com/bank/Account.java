@@ -2,41 +2,339 @@ package com.bank;
 
 import java.math.BigDecimal;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 /**
  * Conta bancária simples.
  * Regras principais:
  *  - Depósitos e saques devem ser > 0
  *  - Saque não pode exceder o saldo
+ *  - Saque não pode violar as regras de velocidade da conta (se houver)
+ *
+ * As operações são serializadas pelo monitor da própria conta; contas distintas não se bloqueiam.
+ * Uma conta quente pode ser dividida em sub-saldos ({@link HotAccountDetector}): créditos
+ * passam a travar só um sub-saldo, e o saldo visto continua exato.
+ * <p>
+ * Saldo e versão só mudam por CAS, mesmo com o monitor: a perna de crédito de uma transferência
+ * otimista ({@link #casCredit}) é publicada sem travar a conta.
  */
 
 public class Account {
-  private BigDecimal balance = BigDecimal.ZERO;
+  private static final AtomicLong LOCK_ORDER = new AtomicLong();
+  private static final AtomicReferenceFieldUpdater<Account, BigDecimal> BALANCE =
+      AtomicReferenceFieldUpdater.newUpdater(Account.class, BigDecimal.class, "balance");
+  private static final AtomicLongFieldUpdater<Account> VERSION =
+      AtomicLongFieldUpdater.newUpdater(Account.class, "version");
 
-  public BigDecimal getBalance() { return balance; }
+  private final long id;
+  /** Ordem global de travamento entre contas (única, inclusive para contas avulsas). */
+  private final long lockOrder = LOCK_ORDER.incrementAndGet();
+  private final AccountRegistry registry;
+  private volatile BigDecimal balance = BigDecimal.ZERO;
+  /** Incrementada a cada mudança de saldo; permite ler sem lock e validar depois. */
+  private volatile long version;
+  /** Conflitos recentes em transferências otimistas (ver {@link OptimisticTransferService}). */
+  volatile int contention;
+  /** Média móvel da espera amostrada pelo monitor, em ns (ver {@link HotAccountDetector}). */
+  volatile long hotScore;
+  /** Sub-saldos enquanto a conta está dividida; {@code null} no caso comum. */
+  private volatile SplitBalance split;
+  /** Posição densa no cadastro, atribuída na abertura; -1 em contas avulsas. */
+  int slot = -1;
+  private final VelocityLimiter velocity;
+
+  public Account() {
+    this(0, null, null);
+  }
+
+  /** Conta cujos saques são limitados pelas regras de {@code policy}. */
+  public Account(VelocityPolicy policy) {
+    this(0, Objects.requireNonNull(policy, "Política nula"), null);
+  }
+
+  Account(long id, VelocityPolicy policy, AccountRegistry registry) {
+    this.id = id;
+    this.registry = registry;
+    this.velocity = policy == null ? null : policy.newLimiter();
+  }
+
+  /** Conta recriada pelo {@link AccountPager} na mesma posição, com o saldo lido do armazenamento. */
+  Account(long id, AccountRegistry registry, int slot, BigDecimal balance) {
+    this(id, null, registry);
+    this.slot = slot;
+    this.balance = balance;
+  }
+
+  /** Id no cadastro de origem; 0 para contas avulsas. */
+  public long getId() { return id; }
+
+  public synchronized BigDecimal getBalance() { return settled(); }
 
   public void deposit(BigDecimal amount) {
+    deposit(amount, true);
+  }
+
+  public void withdraw(BigDecimal amount) {
+    withdraw(amount, true);
+  }
+
+  /**
+   * @param external {@code true} se o dinheiro entra no sistema; {@code false} quando é a
+   *                 perna de crédito de uma transferência dentro do mesmo cadastro
+   */
+  void deposit(BigDecimal amount, boolean external) {
+    deposit(amount, external, null);
+  }
+
+  /**
+   * @param from conta de origem quando é a perna de crédito de uma transferência; {@code null} num depósito
+   */
+  void deposit(BigDecimal amount, boolean external, Account from) {
     require(amount, "Depósito inválido");
     if (amount.compareTo(BigDecimal.ZERO) <= 0) {
       throw new IllegalArgumentException("Valor deve ser > 0");
     }
-    balance = balance.add(amount);
+    if (split != null && !Thread.holdsLock(this) && creditSplit(amount, external, from)) {
+      HotAccountDetector detector = registry == null ? null : registry.hotAccounts();
+      if (detector != null && detector.sample()) detector.credited(this);
+      return;
+    }
+    synchronized (this) {
+      add(amount);
+      changed();
+      if (from == null) onEvent(AccountEvent.Kind.DEPOSITED, 0, amount);
+      else onEvent(AccountEvent.Kind.TRANSFERRED_IN, from.getId(), amount);
+      if (external && registry != null) registry.deposited(this, amount);
+    }
   }
 
-  public void withdraw(BigDecimal amount) {
+  /**
+   * Credita num sub-saldo sem travar a conta; com {@code from} o débito na origem (que o
+   * chamador já travou) acontece com o sub-saldo travado, junto com o lançamento da
+   * transferência. Retorna {@code false}, sem efeito, se a conta não estiver dividida.
+   */
+  boolean creditSplit(BigDecimal amount, boolean external, Account from) {
+    SplitBalance current = split;
+    if (current == null) return false;
+    SplitBalance.Cell cell = current.cell();
+    synchronized (cell) {
+      if (cell.retired) return false;
+      if (from != null) from.withdraw(amount, external, this);
+      cell.balance = cell.balance.add(amount);
+      // a versão só anda com o monitor; contas divididas não passam pelo caminho otimista
+      if (registry != null) registry.changed(this);
+      if (from == null) onEvent(AccountEvent.Kind.DEPOSITED, 0, amount);
+      else onEvent(AccountEvent.Kind.TRANSFERRED_IN, from.getId(), amount);
+      if (external) {
+        if (registry != null) registry.deposited(this, amount);
+      } else {
+        registry.transferred(from, this, amount);
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @param external {@code true} se o dinheiro sai do sistema; {@code false} quando é a
+   *                 perna de débito de uma transferência dentro do mesmo cadastro
+   */
+  synchronized void withdraw(BigDecimal amount, boolean external) {
+    withdraw(amount, external, null);
+  }
+
+  /**
+   * @param to conta de destino quando é a perna de débito de uma transferência; {@code null} num saque
+   */
+  synchronized void withdraw(BigDecimal amount, boolean external, Account to) {
     require(amount, "Saque inválido");
     if (amount.compareTo(BigDecimal.ZERO) <= 0) {
       throw new IllegalArgumentException("Valor deve ser > 0");
     }
-    if (balance.compareTo(amount) < 0) {
+    limitRate(1);
+    if (settled().compareTo(amount) < 0) {
       throw new IllegalStateException("Saldo insuficiente");
     }
-    balance = balance.subtract(amount);
+    if (velocity != null) {
+      VelocityResult result = velocity.tryAcquire(Money.toMinorUnitsCeiling(amount));
+      if (result != VelocityResult.ACCEPTED) {
+        throw new VelocityLimitExceededException(result);
+      }
+    }
+    add(amount.negate());
+    changed();
+    if (to == null) onEvent(AccountEvent.Kind.WITHDRAWN, 0, amount);
+    else onEvent(AccountEvent.Kind.TRANSFERRED_OUT, to.getId(), amount);
+    if (external && registry != null) registry.withdrawn(this, amount);
+  }
+
+  /**
+   * Verifica, sem registrar, se {@code count} saques somando {@code total} passam pelas regras
+   * de velocidade. O chamador deve ter a conta travada e depois chamar {@link #recordVelocity}.
+   */
+  VelocityResult checkVelocity(int count, BigDecimal total) {
+    if (velocity == null) return VelocityResult.ACCEPTED;
+    return velocity.check(count, Money.toMinorUnitsCeiling(total));
+  }
+
+  void recordVelocity(int count, BigDecimal total) {
+    if (velocity != null) velocity.record(count, Money.toMinorUnitsCeiling(total));
+  }
+
+  /**
+   * Consome {@code count} tentativas de débito no limitador de taxa do cadastro, se houver;
+   * chamado com a conta travada, antes de olhar o saldo.
+   */
+  void limitRate(int count) {
+    if (registry != null) registry.limitRate(slot, count);
+  }
+
+  /**
+   * Soma {@code delta} ao saldo sem validação; usado por transferências de várias pernas,
+   * que já validaram o efeito combinado com todas as contas travadas. Só para contas em que
+   * {@link #guardedByMonitor()}: quem chama confere antes de travar.
+   */
+  void adjust(BigDecimal delta) {
+    add(delta);
+    changed();
+  }
+
+  /**
+   * Troca {@code expected} por um saldo já validado pelo chamador, que tem a conta travada.
+   * Retorna {@code false}, sem efeito, se um {@link #casCredit} mudou o saldo nesse meio tempo.
+   * Como {@link #adjust}, só para contas em que {@link #guardedByMonitor()}.
+   */
+  boolean replaceBalance(BigDecimal expected, BigDecimal newBalance) {
+    if (!BALANCE.compareAndSet(this, expected, newBalance)) return false;
+    changed();
+    return true;
+  }
+
+  /**
+   * Credita sem travar a conta: o saldo é publicado por CAS e a versão anda em seguida, então
+   * leituras otimistas da conta percebem o crédito. Só para contas em que
+   * {@link #creditsWithoutLock()}; eventos e lançamentos ficam com o chamador.
+   * @return CASes perdidos para outras escritas no saldo
+   */
+  int casCredit(BigDecimal amount) {
+    int lost = 0;
+    while (true) {
+      BigDecimal current = balance;
+      if (BALANCE.compareAndSet(this, current, current.add(amount))) break;
+      lost++;
+    }
+    changed();
+    return lost;
+  }
+
+  private void add(BigDecimal delta) {
+    while (true) {
+      BigDecimal current = balance;
+      if (BALANCE.compareAndSet(this, current, current.add(delta))) return;
+    }
+  }
+
+  /**
+   * Chamado com a conta travada logo depois de cada mudança de saldo. Transferências que mexem
+   * no saldo direto ({@link #adjust}, {@link #replaceBalance}) avisam pelo
+   * {@link TransferService}. A conta comum não guarda eventos.
+   */
+  void onEvent(AccountEvent.Kind kind, long counterparty, BigDecimal amount) { }
+
+  /** Chamado a cada mudança de saldo, com a conta travada ou depois de um {@link #casCredit}. */
+  private void changed() {
+    VERSION.incrementAndGet(this);
+    if (registry != null) registry.changed(this);
+  }
+
+  /**
+   * Divide a conta em {@code stripes} sub-saldos; {@code false} se já estiver dividida ou não
+   * puder ser. O saldo não muda, mas a versão anda para derrubar leituras otimistas em curso.
+   */
+  synchronized boolean split(int stripes) {
+    if (split != null || !creditsWithoutLock()) return false;
+    split = new SplitBalance(stripes);
+    VERSION.incrementAndGet(this);
+    return true;
+  }
+
+  /** Junta os sub-saldos de volta no saldo principal; {@code false} se não estava dividida. */
+  synchronized boolean merge() {
+    SplitBalance current = split;
+    if (current == null) return false;
+    current.drains++;
+    add(current.drain(true));
+    current.drains++;
+    split = null;
+    VERSION.incrementAndGet(this);
+    return true;
+  }
+
+  boolean isSplit() { return split != null; }
+
+  SplitBalance splitBalance() { return split; }
+
+  /**
+   * Se a conta aceita créditos sem o monitor (sub-saldos, {@link #casCredit}). Contas cujos
+   * eventos dependem do monitor para sair em ordem não aceitam; a conta comum aceita.
+   */
+  boolean creditsWithoutLock() { return true; }
+
+  /**
+   * Se o saldo só muda com o monitor da conta (ou por {@link #casCredit}), de modo que validar com
+   * a conta travada e gravar depois é seguro. {@link TransferService#transferAll} e o caminho
+   * otimista dependem disso.
+   */
+  boolean guardedByMonitor() { return true; }
+
+  /** Saldo exato, com os sub-saldos juntados no principal. Chamado com a conta travada. */
+  private BigDecimal settled() {
+    SplitBalance current = split;
+    if (current != null) {
+      current.drains++;
+      add(current.drain(false));
+      current.drains++;
+    }
+    return balance;
   }
 
+  /**
+   * Saldo lido sem lock; só tem valor junto com {@link #version()} validada depois. Numa conta
+   * dividida trava a conta para juntar os sub-saldos.
+   */
+  BigDecimal peekBalance() { return split == null ? balance : getBalance(); }
+
+  /**
+   * Último saldo publicado, sem travar a conta nem os sub-saldos: numa conta dividida soma o
+   * principal e os sub-saldos e confere que nenhuma junção aconteceu no meio. Para leituras que
+   * aceitam ficar atrás dos créditos em curso, como o fallback de {@link BalanceProjection}.
+   */
+  BigDecimal publishedBalance() {
+    SplitBalance current = split;
+    if (current == null) return peekBalance();
+    for (int attempt = 0; attempt < 4; attempt++) {
+      int drains = current.drains;
+      if ((drains & 1) != 0) continue;
+      BigDecimal total = balance.add(current.sum());
+      if (current.drains == drains) return total;
+    }
+    // junções seguidas: lê travado, como antes
+    return getBalance();
+  }
+
+  long version() { return version; }
+
+  /** Saldo principal, sem os sub-saldos e sem lock; só tem valor junto com {@link #version()}. */
+  BigDecimal mainBalance() { return balance; }
+
+  AccountRegistry registry() { return registry; }
+
+  long lockOrder() { return lockOrder; }
+
   private void require(BigDecimal amount, String msg) {
     if (Objects.isNull(amount)) {
       throw new NullPointerException(msg);
     }
   }
-}
\ No newline at end of file
+}
@@ -0,0 +1,56 @@
+package com.bank;
+
+import java.math.BigDecimal;
+
+/**
+ * Fato ocorrido numa conta. O saldo de uma {@link EventSourcedAccount} é a dobra
+ * ({@link EventSourcedAccount#fold}) dos seus eventos.
+ */
+public final class AccountEvent {
+  /** Tipos de evento e o sentido em que mexem no saldo. */
+  public enum Kind {
+    DEPOSITED(1),
+    WITHDRAWN(-1),
+    TRANSFERRED_IN(1),
+    TRANSFERRED_OUT(-1);
+
+    private final int sign;
+
+    Kind(int sign) { this.sign = sign; }
+  }
+
+  private final long account;
+  private final Kind kind;
+  private final long counterparty;
+  private final BigDecimal amount;
+
+  /**
+   * @param counterparty outra conta em transferências; 0 em depósitos e saques
+   */
+  public AccountEvent(long account, Kind kind, long counterparty, BigDecimal amount) {
+    if (kind == null) throw new NullPointerException("Tipo nulo");
+    if (amount == null || amount.signum() <= 0) throw new IllegalArgumentException("Valor inválido");
+    this.account = account;
+    this.kind = kind;
+    this.counterparty = counterparty;
+    this.amount = amount;
+  }
+
+  public long getAccount() { return account; }
+
+  public Kind getKind() { return kind; }
+
+  public long getCounterparty() { return counterparty; }
+
+  public BigDecimal getAmount() { return amount; }
+
+  /** Saldo depois deste evento. */
+  public BigDecimal applyTo(BigDecimal balance) {
+    return kind.sign > 0 ? balance.add(amount) : balance.subtract(amount);
+  }
+
+  @Override
+  public String toString() {
+    return account + " " + kind + " " + amount.toPlainString() + (counterparty != 0 ? " (" + counterparty + ")" : "");
+  }
+}
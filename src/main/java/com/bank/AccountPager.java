@@ -0,0 +1,245 @@
+package com.bank;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.math.BigDecimal;
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Paginação das contas de um {@link AccountRegistry} ({@link AccountRegistry#enablePaging}).
+ * <p>
+ * Só as contas do conjunto de trabalho ficam presas em memória, até {@code residentAccounts};
+ * as demais têm o saldo num {@link PagedBalanceStore}, na posição da conta no cadastro, e voltam
+ * como objeto {@link Account} quando alguém as busca. Para abrir espaço, um ponteiro de relógio
+ * percorre as posições residentes dando segunda chance às usadas desde a última volta (busca ou
+ * mudança de saldo) e rebaixa a primeira sem uso: grava o saldo no armazenamento e troca a
+ * referência forte por uma fraca.
+ * <p>
+ * O rebaixamento não trava a conta e não muda a identidade dela. Enquanto alguém tiver o objeto,
+ * a busca devolve esse mesmo objeto, e qualquer mudança de saldo o prende de volta. Uma conta só
+ * é recriada a partir do armazenamento depois que o coletor descartou o objeto, quando ninguém
+ * mais pode mudá-lo, então o saldo gravado é o último. Depois de soltar a referência forte o
+ * rebaixamento confere a versão e prende a conta de novo se o saldo mudou no meio.
+ * <p>
+ * Contas divididas ou com frações de centavo não são rebaixadas. Por conta parada ficam em
+ * memória só a entrada do índice de ids e alguns bytes por posição. As buscas de contas
+ * residentes não travam nada; carga e rebaixamento são serializados pelo monitor do paginador,
+ * que nunca trava uma conta.
+ */
+final class AccountPager {
+  private final AccountRegistry registry;
+  private final PagedBalanceStore store;
+  private final int residentLimit;
+  private final ConcurrentMap<Long, Integer> index = new ConcurrentHashMap<>();
+  private final long[] ids;
+  /** Referência forte das contas residentes, por posição. */
+  private final AtomicReferenceArray<Account> resident;
+  /** Referência fraca das contas rebaixadas, enquanto o objeto viver. */
+  private final AtomicReferenceArray<SlotReference> demoted;
+  /** Marca de uso do relógio; heurística, sem lock. */
+  private final boolean[] referenced;
+  private final ReferenceQueue<Account> collected = new ReferenceQueue<>();
+  private volatile int count;
+  private int residentCount;
+  private int hand;
+  private long pageIns;
+  private long evictions;
+
+  AccountPager(AccountRegistry registry, PagedBalanceStore store, int residentLimit) {
+    this.registry = registry;
+    this.store = store;
+    this.residentLimit = residentLimit;
+    int capacity = store.capacity();
+    ids = new long[capacity];
+    resident = new AtomicReferenceArray<>(capacity);
+    demoted = new AtomicReferenceArray<>(capacity);
+    referenced = new boolean[capacity];
+  }
+
+  /** Atribui a posição da conta recém-aberta e a prende; chamado com a conta travada. */
+  void register(Account account) {
+    synchronized (this) {
+      int slot = count;
+      if (slot == ids.length) throw new IllegalStateException("Armazenamento de saldos cheio");
+      if (index.putIfAbsent(account.getId(), slot) != null) {
+        throw new IllegalArgumentException("Conta já existe: " + account.getId());
+      }
+      ids[slot] = account.getId();
+      account.slot = slot;
+      pin(slot, account);
+      count = slot + 1;
+    }
+  }
+
+  Account find(long id) {
+    Integer slot = index.get(id);
+    return slot == null ? null : bySlot(slot);
+  }
+
+  /** Conta na posição, carregada do armazenamento se preciso; {@code null} se não existir. */
+  Account bySlot(int slot) {
+    if (slot < 0 || slot >= ids.length) return null;
+    Account account = resident.get(slot);
+    if (account != null) {
+      referenced[slot] = true;
+      return account;
+    }
+    account = load(slot);
+    if (account != null) evict();
+    return account;
+  }
+
+  /**
+   * Chamado a cada mudança de saldo, com a conta travada ou depois de um CAS: marca o uso e
+   * prende de volta a conta rebaixada, que não pode ser descartada com o saldo novo fora do
+   * armazenamento.
+   */
+  void touched(Account account) {
+    int slot = account.slot;
+    referenced[slot] = true;
+    if (resident.get(slot) == account) return;
+    synchronized (this) {
+      if (resident.get(slot) == null) pin(slot, account);
+    }
+  }
+
+  /** Rebaixa contas sem uso recente até caber no limite; desiste depois de duas voltas. */
+  synchronized void evict() {
+    expunge();
+    int slots = count;
+    for (int steps = 2 * slots; residentCount > residentLimit && steps > 0; steps--) {
+      int slot = hand;
+      hand = slot + 1 < slots ? slot + 1 : 0;
+      Account account = resident.get(slot);
+      if (account == null) continue;
+      if (referenced[slot]) {
+        referenced[slot] = false;
+        continue;
+      }
+      demote(slot, account);
+    }
+  }
+
+  int size() { return index.size(); }
+
+  int count() { return count; }
+
+  Set<Long> ids() { return Collections.unmodifiableSet(index.keySet()); }
+
+  /** Todas as contas, na ordem das posições; as paradas são carregadas uma a uma. */
+  Collection<Account> accounts() {
+    return new AbstractCollection<Account>() {
+      @Override
+      public Iterator<Account> iterator() {
+        final int end = count;
+        return new Iterator<Account>() {
+          private int next;
+
+          @Override
+          public boolean hasNext() { return next < end; }
+
+          @Override
+          public Account next() {
+            if (next >= end) throw new NoSuchElementException();
+            return bySlot(next++);
+          }
+        };
+      }
+
+      @Override
+      public int size() { return count; }
+    };
+  }
+
+  /** Aplica {@code action} às contas que estão em memória, sem carregar as paradas. */
+  void forEachLoaded(Consumer<Account> action) {
+    int slots = count;
+    for (int slot = 0; slot < slots; slot++) {
+      Account account = resident.get(slot);
+      if (account == null) {
+        SlotReference ref = demoted.get(slot);
+        account = ref == null ? null : ref.get();
+      }
+      if (account != null) action.accept(account);
+    }
+  }
+
+  synchronized int residentAccounts() { return residentCount; }
+
+  /** Contas recriadas a partir do armazenamento. */
+  synchronized long pageIns() { return pageIns; }
+
+  /** Contas rebaixadas. */
+  synchronized long evictions() { return evictions; }
+
+  private synchronized Account load(int slot) {
+    if (slot >= count) return null;
+    Account account = resident.get(slot);
+    if (account != null) return account;
+    SlotReference ref = demoted.get(slot);
+    account = ref == null ? null : ref.get();
+    if (account == null) {
+      account = new Account(ids[slot], registry, slot, store.balance(slot));
+      pageIns++;
+    }
+    pin(slot, account);
+    return account;
+  }
+
+  /** Chamado com o monitor. */
+  private void pin(int slot, Account account) {
+    resident.set(slot, account);
+    residentCount++;
+    referenced[slot] = true;
+  }
+
+  /** Chamado com o monitor; não trava a conta (ver a classe). */
+  private void demote(int slot, Account account) {
+    long version = account.version();
+    if (account.isSplit()) return;
+    long cents;
+    try {
+      cents = Money.toMinorUnits(account.mainBalance());
+    } catch (ArithmeticException e) {
+      return;
+    }
+    store.put(slot, cents);
+    demoted.set(slot, new SlotReference(account, slot, collected));
+    resident.set(slot, null);
+    residentCount--;
+    // uma mudança que viu a conta ainda residente não a prende: volta aqui
+    if (account.version() != version || account.isSplit()) {
+      pin(slot, account);
+      return;
+    }
+    evictions++;
+  }
+
+  /** Limpa as referências de contas já descartadas pelo coletor; chamado com o monitor. */
+  private void expunge() {
+    Reference<? extends Account> ref;
+    while ((ref = collected.poll()) != null) {
+      SlotReference slotRef = (SlotReference) ref;
+      demoted.compareAndSet(slotRef.slot, slotRef, null);
+    }
+  }
+
+  private static final class SlotReference extends WeakReference<Account> {
+    final int slot;
+
+    SlotReference(Account account, int slot, ReferenceQueue<Account> queue) {
+      super(account, queue);
+      this.slot = slot;
+    }
+  }
+}
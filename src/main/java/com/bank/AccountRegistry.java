@@ -0,0 +1,271 @@
+package com.bank;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Cadastro das contas do banco, indexadas por id.
+ * Contas abertas aqui informam depósitos e saques externos ao {@link LiquidityTracker}
+ * do cadastro, que mantém o total do sistema sem precisar somar todos os saldos.
+ * Se houver um {@link OperationJournal}, toda operação é registrada nele enquanto as contas
+ * envolvidas estão travadas.
+ * <p>
+ * Com {@link #enablePaging} só o conjunto de trabalho fica em memória; as contas paradas são
+ * recarregadas do disco nas buscas, transparentemente (ver {@link AccountPager}).
+ */
+public class AccountRegistry {
+  private final ConcurrentMap<Long, Account> accounts = new ConcurrentHashMap<>();
+  private final LiquidityTracker liquidity = new LiquidityTracker();
+  private final VelocityPolicy velocity;
+  private final OperationJournal journal;
+  /** Contas por posição, na ordem de abertura. */
+  private volatile Account[] slots = new Account[64];
+  private int slotCount;
+  /** Contas alteradas desde a última drenagem; {@code null} enquanto ninguém acompanha. */
+  private volatile ConcurrentBitSet changes;
+  /** Filtro que recebe os ids abertos; consultado por {@link #find} só depois de carregado. */
+  private volatile BloomFilter idFilter;
+  private volatile BloomFilter idLookup;
+  private volatile TokenBucketLimiter rateLimiter;
+  private volatile HotAccountDetector hotAccounts;
+  /** Paginação das contas paradas; {@code null} com todas as contas em memória. */
+  private volatile AccountPager pager;
+
+  public AccountRegistry() {
+    this(null, null);
+  }
+
+  /** Cadastro cujas contas seguem as regras de velocidade de {@code velocity}. */
+  public AccountRegistry(VelocityPolicy velocity) {
+    this(Objects.requireNonNull(velocity, "Política nula"), null);
+  }
+
+  /**
+   * @param velocity regras de velocidade das contas ({@code null} = sem limites)
+   * @param journal  diário que recebe todas as operações ({@code null} = sem diário)
+   */
+  public AccountRegistry(VelocityPolicy velocity, OperationJournal journal) {
+    this.velocity = velocity;
+    this.journal = journal;
+  }
+
+  /** Abre uma conta com saldo zero. */
+  public Account open(long id) {
+    Account account = new Account(id, velocity, this);
+    AccountPager paged = pager;
+    // a abertura entra no diário antes de qualquer operação na conta
+    synchronized (account) {
+      if (paged != null) {
+        paged.register(account);
+      } else if (accounts.putIfAbsent(id, account) != null) {
+        throw new IllegalArgumentException("Conta já existe: " + id);
+      }
+      // depois do put: quem carrega o filtro em massa já enxerga a conta, ou ela entra aqui
+      BloomFilter filter = idFilter;
+      if (filter != null) filter.add(id);
+      if (paged == null) assignSlot(account);
+      changed(account);
+      if (journal != null) journal.append(OperationType.OPEN, id, 0, BigDecimal.ZERO);
+    }
+    if (paged != null) paged.evict();
+    return account;
+  }
+
+  /**
+   * Abre uma conta já com saldo inicial; o saldo conta como entrada externa de dinheiro.
+   */
+  public Account open(long id, BigDecimal openingBalance) {
+    Objects.requireNonNull(openingBalance, "Saldo inicial nulo");
+    if (openingBalance.signum() < 0) throw new IllegalArgumentException("Saldo inicial negativo: " + id);
+    Account account = open(id);
+    if (openingBalance.signum() > 0) account.deposit(openingBalance);
+    return account;
+  }
+
+  /**
+   * Conta com o id informado ou {@code null} se não existir. Com o filtro de ids ligado, ids
+   * desconhecidos são recusados pelo filtro, sem consultar o mapa.
+   */
+  public Account find(long id) {
+    BloomFilter filter = idLookup;
+    if (filter != null && !filter.mightContain(id)) return null;
+    AccountPager paged = pager;
+    return paged == null ? accounts.get(id) : paged.find(id);
+  }
+
+  /** Conta com o id informado; lança {@link IllegalArgumentException} se não existir. */
+  public Account get(long id) {
+    Account account = find(id);
+    if (account == null) throw new IllegalArgumentException("Conta inexistente: " + id);
+    return account;
+  }
+
+  public int size() {
+    AccountPager paged = pager;
+    return paged == null ? accounts.size() : paged.size();
+  }
+
+  /**
+   * Passa a manter em memória só cerca de {@code residentAccounts} contas; as demais ficam com o
+   * saldo em {@code store}, na posição da conta, e são recarregadas por {@link #find} e
+   * {@link #get}. A capacidade de {@code store} limita o número de contas do cadastro. Deve ser
+   * chamado antes da primeira abertura; cadastros com regras de velocidade não são paginados,
+   * porque o estado das regras vive no objeto da conta.
+   */
+  public synchronized void enablePaging(PagedBalanceStore store, int residentAccounts) {
+    Objects.requireNonNull(store, "Armazenamento nulo");
+    if (residentAccounts <= 0) throw new IllegalArgumentException("Contas residentes devem ser > 0");
+    if (velocity != null) throw new IllegalStateException("Cadastro com regras de velocidade não é paginado");
+    if (pager != null || slotCount > 0) {
+      throw new IllegalStateException("Paginação deve ser ligada com o cadastro vazio");
+    }
+    pager = new AccountPager(this, store, residentAccounts);
+  }
+
+  /** Paginação em uso, ou {@code null}. */
+  AccountPager pager() { return pager; }
+
+  /**
+   * Liga um {@link BloomFilter} de ids na frente de {@link #find}, carregado em massa com as
+   * contas já abertas e atualizado a cada abertura. Pode ser chamado com o cadastro em uso: o
+   * filtro recebe as novas aberturas antes da carga e só passa a ser consultado depois dela.
+   * @param expectedAccounts contas esperadas ao todo (acima disso a taxa de falso positivo sobe)
+   */
+  public synchronized void enableIdFilter(long expectedAccounts, double falsePositiveRate) {
+    BloomFilter filter = new BloomFilter(Math.max(expectedAccounts, accounts.size()), falsePositiveRate);
+    idFilter = filter;
+    AccountPager paged = pager;
+    for (Long id : paged == null ? accounts.keySet() : paged.ids()) filter.add(id);
+    idLookup = filter;
+  }
+
+  /** Filtro de ids em uso, ou {@code null}. */
+  BloomFilter idFilter() { return idLookup; }
+
+  /** Visão somente leitura das contas cadastradas; com paginação, as paradas são carregadas ao percorrer. */
+  public Collection<Account> accounts() {
+    AccountPager paged = pager;
+    return Collections.unmodifiableCollection(paged == null ? accounts.values() : paged.accounts());
+  }
+
+  /** Quantidade de posições atribuídas (contas abertas até agora). */
+  int slots() {
+    AccountPager paged = pager;
+    if (paged != null) return paged.count();
+    synchronized (this) {
+      return slotCount;
+    }
+  }
+
+  /** Conta na posição {@code slot}, ou {@code null} se a posição ainda não foi publicada. */
+  Account bySlot(int slot) {
+    AccountPager paged = pager;
+    if (paged != null) return paged.bySlot(slot);
+    Account[] dir = slots;
+    return slot < dir.length ? dir[slot] : null;
+  }
+
+  private synchronized void assignSlot(Account account) {
+    Account[] dir = slots;
+    if (slotCount == dir.length) {
+      Account[] grown = new Account[dir.length * 2];
+      System.arraycopy(dir, 0, grown, 0, dir.length);
+      dir = grown;
+    }
+    account.slot = slotCount;
+    dir[slotCount++] = account;
+    slots = dir;
+  }
+
+  /**
+   * Passa a marcar as posições das contas alteradas (abertura ou saldo) no conjunto devolvido,
+   * que o chamador drena. Antes disso nada é marcado.
+   */
+  synchronized ConcurrentBitSet trackChanges() {
+    if (changes == null) changes = new ConcurrentBitSet();
+    return changes;
+  }
+
+  /** Chamado com a conta travada depois de cada mudança (ou depois de um {@link Account#casCredit}). */
+  void changed(Account account) {
+    ConcurrentBitSet tracked = changes;
+    if (tracked != null) tracked.set(account.slot);
+    AccountPager paged = pager;
+    if (paged != null) paged.touched(account);
+  }
+
+  /**
+   * Limita a taxa de tentativas de débito (saques e pernas de débito de transferências) de cada
+   * conta do cadastro; tentativas acima da taxa são recusadas com
+   * {@link VelocityResult#RATE_LIMITED}, mesmo que fossem falhar por saldo. {@code null} desliga.
+   */
+  public void setRateLimiter(TokenBucketLimiter limiter) {
+    this.rateLimiter = limiter;
+  }
+
+  /** Consome {@code count} tentativas da conta em {@code slot}, se houver limitador. */
+  void limitRate(int slot, int count) {
+    TokenBucketLimiter limiter = rateLimiter;
+    if (limiter != null && !limiter.tryAcquire(slot, count)) {
+      throw new VelocityLimitExceededException(VelocityResult.RATE_LIMITED);
+    }
+  }
+
+  /**
+   * Liga a divisão automática de contas quentes do cadastro; {@code null} desliga e junta de
+   * volta as contas que estavam divididas. Chamado sem contas travadas.
+   */
+  public void setHotAccountDetector(HotAccountDetector detector) {
+    this.hotAccounts = detector;
+    if (detector == null) {
+      AccountPager paged = pager;
+      if (paged != null) {
+        paged.forEachLoaded(Account::merge);
+      } else {
+        for (Account account : accounts.values()) account.merge();
+      }
+    }
+  }
+
+  /** Detector de contas quentes ou {@code null}. */
+  HotAccountDetector hotAccounts() { return hotAccounts; }
+
+  public LiquidityTracker liquidity() { return liquidity; }
+
+  /** Diário de operações ou {@code null} se o cadastro não tiver um. */
+  public OperationJournal journal() { return journal; }
+
+  void deposited(Account account, BigDecimal amount) {
+    liquidity.credited(amount);
+    if (journal != null) journal.append(OperationType.DEPOSIT, account.getId(), 0, amount);
+  }
+
+  void withdrawn(Account account, BigDecimal amount) {
+    liquidity.debited(amount);
+    if (journal != null) journal.append(OperationType.WITHDRAW, account.getId(), 0, amount);
+  }
+
+  /**
+   * Lançamentos de uma transferência de várias pernas, como um lote atômico no diário.
+   * Chamado com todas as contas travadas, depois de aplicados os saldos.
+   */
+  void recorded(OperationJournal.Batch batch) {
+    for (int i = 0; i < batch.size(); i++) {
+      if (batch.type(i) == OperationType.DEPOSIT) liquidity.credited(batch.amount(i));
+      else if (batch.type(i) == OperationType.WITHDRAW) liquidity.debited(batch.amount(i));
+    }
+    if (journal != null) journal.append(batch);
+  }
+
+  /**
+   * Chamado com a origem travada, após o débito; o crédito já foi aplicado com o destino travado
+   * ou num sub-saldo, ou é publicado logo depois por {@link Account#casCredit}.
+   */
+  void transferred(Account from, Account to, BigDecimal amount) {
+    if (journal != null) journal.append(OperationType.TRANSFER, from.getId(), to.getId(), amount);
+  }
+}
@@ -0,0 +1,82 @@
+package com.bank;
+
+import java.math.BigDecimal;
+
+/**
+ * {@link Account} peso-mosca: em vez de guardar o saldo, aponta para uma posição de um
+ * {@link BalanceStore} ({@link BalanceTable} em memória, {@link PagedBalanceStore} em disco)
+ * e pode ser reposicionada com {@link #moveTo}. Uma varredura por milhões
+ * de contas usa uma única visão:
+ * <pre>
+ *   AccountView view = new AccountView(table);
+ *   for (int slot = 0; slot &lt; table.capacity(); slot++) view.moveTo(slot).deposit(juros);
+ * </pre>
+ * Depósito, saque e saldo têm as regras de {@link Account}; os valores precisam ser em centavos
+ * inteiros. Cada operação é atômica na posição do armazenamento, não no monitor da visão; a
+ * visão em si é um cursor e não deve ser compartilhada entre threads. Funciona com
+ * {@link TransferService#transfer} (saque e depósito, cada um atômico) e com
+ * {@link OptimisticTransferService}, que a manda pelo caminho com lock. Já
+ * {@link TransferService#transferAll} valida com as contas travadas e grava depois, o que o
+ * monitor da visão não protege: visões são recusadas antes de qualquer efeito.
+ */
+public class AccountView extends Account {
+  private final BalanceStore table;
+  private int position;
+
+  public AccountView(BalanceStore table) {
+    super(0, null, null);
+    if (table == null) throw new NullPointerException("Armazenamento nulo");
+    this.table = table;
+  }
+
+  /** Aponta a visão para {@code position}; retorna a própria visão. */
+  public AccountView moveTo(int position) {
+    if (position < 0 || position >= table.capacity()) {
+      throw new IndexOutOfBoundsException("Posição inválida: " + position);
+    }
+    this.position = position;
+    return this;
+  }
+
+  public int position() { return position; }
+
+  /** A posição atual serve de id. */
+  @Override
+  public long getId() { return position; }
+
+  @Override
+  public BigDecimal getBalance() { return table.balance(position); }
+
+  @Override
+  void deposit(BigDecimal amount, boolean external, Account from) {
+    table.credit(position, cents(amount, "Depósito inválido"));
+  }
+
+  @Override
+  void withdraw(BigDecimal amount, boolean external, Account to) {
+    if (!table.tryDebit(position, cents(amount, "Saque inválido"))) {
+      throw new IllegalStateException("Saldo insuficiente");
+    }
+  }
+
+  @Override
+  BigDecimal peekBalance() { return table.balance(position); }
+
+  /** O saldo já é atômico na posição do armazenamento. */
+  @Override
+  boolean creditsWithoutLock() { return false; }
+
+  /** Outras visões mudam a mesma posição sem passar por este monitor. */
+  @Override
+  boolean guardedByMonitor() { return false; }
+
+  private static long cents(BigDecimal amount, String msg) {
+    if (amount == null) throw new NullPointerException(msg);
+    if (amount.signum() <= 0) throw new IllegalArgumentException("Valor deve ser > 0");
+    try {
+      return Money.toMinorUnits(amount);
+    } catch (ArithmeticException e) {
+      throw new IllegalArgumentException("Valor deve ser em centavos inteiros");
+    }
+  }
+}
@@ -0,0 +1,72 @@
+package com.bank;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * {@link TransferService} com um {@link AdmissionController} na frente: cada transferência
+ * precisa de uma permissão antes de travar contas. Sob sobrecarga, o excesso recebe
+ * {@link AdmissionRejectedException} em vez de se acumular nos locks das contas.
+ */
+public class AdmissionControlledTransferService extends TransferService {
+  private final TransferService delegate;
+  private final AdmissionController controller;
+
+  public AdmissionControlledTransferService(AdmissionController controller) {
+    this(new TransferService(), controller);
+  }
+
+  /** Controla a admissão de outro serviço (por exemplo, {@link OptimisticTransferService}). */
+  public AdmissionControlledTransferService(TransferService delegate, AdmissionController controller) {
+    if (delegate == null) throw new NullPointerException("Serviço nulo");
+    if (controller == null) throw new NullPointerException("Controlador nulo");
+    this.delegate = delegate;
+    this.controller = controller;
+  }
+
+  public AdmissionController controller() { return controller; }
+
+  @Override
+  public void transfer(Account from, Account to, BigDecimal amount) {
+    validate(from, to, amount);
+    AdmissionController.Permit permit = acquire();
+    try {
+      delegate.transfer(from, to, amount);
+    } finally {
+      permit.release();
+    }
+  }
+
+  /**
+   * Como {@link #transfer}, mas nunca espera na fila: sem vaga imediata recusa com
+   * {@link AdmissionRejectedException}. Para quem não pode bloquear, como uma thread de seletor.
+   */
+  public void tryTransfer(Account from, Account to, BigDecimal amount) {
+    validate(from, to, amount);
+    AdmissionController.Permit permit = controller.tryAcquire();
+    try {
+      delegate.transfer(from, to, amount);
+    } finally {
+      permit.release();
+    }
+  }
+
+  @Override
+  public void transferAll(List<TransferLeg> legs) {
+    AdmissionController.Permit permit = acquire();
+    try {
+      delegate.transferAll(legs);
+    } finally {
+      permit.release();
+    }
+  }
+
+  private AdmissionController.Permit acquire() {
+    try {
+      return controller.acquire();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new AdmissionRejectedException("Interrompido na fila", controller.retryAfterMillis());
+    }
+  }
+}
@@ -0,0 +1,218 @@
+package com.bank;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Controle de admissão com limite de concorrência adaptativo e fila limitada.
+ * <p>
+ * Até {@link #limit()} requisições executam ao mesmo tempo; as excedentes esperam numa fila
+ * FIFO de no máximo {@code maxQueue} posições e por no máximo {@code maxWait}. Fila cheia ou
+ * espera vencida recusam na hora com {@link AdmissionRejectedException}, com uma sugestão de
+ * nova tentativa baseada na vazão medida. A latência de quem entra fica limitada pela espera
+ * máxima mais o tempo de serviço, em vez de crescer com a fila.
+ * <p>
+ * O limite se ajusta ao tempo de serviço medido em cada {@link Permit#release()}:
+ * <ul>
+ *   <li>{@link Algorithm#AIMD}: amostra acima de {@code targetNanos} (ou descarte) multiplica o
+ *       limite por 0,9; abaixo, com o limite em uso, soma {@code 1/limite} (≈ +1 por janela).</li>
+ *   <li>{@link Algorithm#VEGAS}: estima a fila como {@code limite × (1 − rttMin/rtt)}; abaixo de
+ *       3 o limite sobe 1, acima de 6 desce 1. O {@code rttMin} é reavaliado periodicamente.</li>
+ * </ul>
+ */
+public final class AdmissionController {
+
+  public enum Algorithm { AIMD, VEGAS }
+
+  private static final double BACKOFF = 0.9;
+  private static final int VEGAS_ALPHA = 3;
+  private static final int VEGAS_BETA = 6;
+  /** Amostras entre reavaliações do menor tempo de serviço no Vegas. */
+  private static final int MIN_RTT_WINDOW = 1_000;
+
+  private final Algorithm algorithm;
+  private final int maxLimit;
+  private final long targetNanos;
+  private final int maxQueue;
+  private final long maxWaitNanos;
+  private final LongSupplier clock;
+  private final ArrayDeque<Waiter> queue = new ArrayDeque<>();
+
+  private double limit;
+  private int inFlight;
+  private long minRtt = Long.MAX_VALUE;
+  private long nextMinRtt = Long.MAX_VALUE;
+  private int samples;
+  private double avgRtt;
+  private long admitted;
+  private long rejected;
+
+  /**
+   * @param initialLimit limite inicial de concorrência
+   * @param maxLimit     teto do limite (o piso é 1)
+   * @param targetNanos  tempo de serviço alvo do AIMD (ignorado no Vegas)
+   * @param maxQueue     posições na fila de espera (0 = sem fila)
+   * @param maxWaitNanos maior espera na fila
+   */
+  public AdmissionController(Algorithm algorithm, int initialLimit, int maxLimit, long targetNanos,
+                             int maxQueue, long maxWaitNanos) {
+    this(algorithm, initialLimit, maxLimit, targetNanos, maxQueue, maxWaitNanos, System::nanoTime);
+  }
+
+  AdmissionController(Algorithm algorithm, int initialLimit, int maxLimit, long targetNanos,
+                      int maxQueue, long maxWaitNanos, LongSupplier clock) {
+    if (algorithm == null) throw new NullPointerException("Algoritmo nulo");
+    if (initialLimit < 1 || maxLimit < initialLimit) throw new IllegalArgumentException("Limites inválidos");
+    if (targetNanos <= 0) throw new IllegalArgumentException("Alvo deve ser > 0");
+    if (maxQueue < 0 || maxWaitNanos < 0) throw new IllegalArgumentException("Fila inválida");
+    this.algorithm = algorithm;
+    this.limit = initialLimit;
+    this.maxLimit = maxLimit;
+    this.targetNanos = targetNanos;
+    this.maxQueue = maxQueue;
+    this.maxWaitNanos = maxWaitNanos;
+    this.clock = clock;
+  }
+
+  /** Autorização de uma requisição admitida; deve ser liberada exatamente uma vez. */
+  public final class Permit {
+    private final long start = clock.getAsLong();
+    private boolean released;
+
+    /** Fim normal: o tempo de serviço entra no ajuste do limite. */
+    public void release() {
+      finish(false);
+    }
+
+    /** Fim por tempo esgotado ou sobrecarga a jusante: conta como congestionamento. */
+    public void dropped() {
+      finish(true);
+    }
+
+    private void finish(boolean drop) {
+      synchronized (AdmissionController.this) {
+        if (released) throw new IllegalStateException("Permissão já liberada");
+        released = true;
+        onSample(clock.getAsLong() - start, drop);
+        inFlight--;
+        admitWaiters();
+      }
+    }
+  }
+
+  private static final class Waiter {
+    boolean admitted;
+    boolean abandoned;
+  }
+
+  /**
+   * Admite na hora, espera na fila ou recusa.
+   * @throws AdmissionRejectedException se a fila estiver cheia ou a espera vencer
+   */
+  public synchronized Permit acquire() throws InterruptedException {
+    if (queue.isEmpty() && inFlight < (int) limit) return admit();
+    if (queue.size() >= maxQueue) throw reject("Fila cheia");
+    Waiter waiter = new Waiter();
+    queue.addLast(waiter);
+    long deadline = System.nanoTime() + maxWaitNanos;
+    try {
+      while (!waiter.admitted) {
+        long left = deadline - System.nanoTime();
+        if (left <= 0) {
+          waiter.abandoned = true;
+          queue.remove(waiter);
+          throw reject("Espera esgotada");
+        }
+        TimeUnit.NANOSECONDS.timedWait(this, left);
+      }
+    } catch (InterruptedException e) {
+      if (waiter.admitted) {
+        inFlight--;
+        admitWaiters();
+      } else {
+        queue.remove(waiter);
+      }
+      throw e;
+    }
+    admitted++;
+    return new Permit();
+  }
+
+  /** Admite só se houver vaga imediata; nunca espera. */
+  public synchronized Permit tryAcquire() {
+    if (queue.isEmpty() && inFlight < (int) limit) return admit();
+    throw reject("Limite de concorrência atingido");
+  }
+
+  private Permit admit() {
+    inFlight++;
+    admitted++;
+    return new Permit();
+  }
+
+  private void admitWaiters() {
+    boolean any = false;
+    while (!queue.isEmpty() && inFlight < (int) limit) {
+      Waiter waiter = queue.pollFirst();
+      if (waiter.abandoned) continue;
+      waiter.admitted = true;
+      inFlight++;
+      any = true;
+    }
+    if (any) notifyAll();
+  }
+
+  private AdmissionRejectedException reject(String reason) {
+    rejected++;
+    return new AdmissionRejectedException(reason, retryAfterMillis());
+  }
+
+  /**
+   * Sugestão de espera antes de tentar de novo: o tempo para escoar a fila atual com a vazão
+   * medida (limite / tempo médio de serviço), no mínimo 1 ms.
+   */
+  public synchronized long retryAfterMillis() {
+    double rtt = avgRtt > 0 ? avgRtt : targetNanos;
+    double nanos = (queue.size() + 1) * rtt / Math.max(1, limit);
+    return Math.max(1, (long) Math.ceil(nanos / 1e6));
+  }
+
+  private void onSample(long rtt, boolean drop) {
+    avgRtt = avgRtt == 0 ? rtt : avgRtt * 0.9 + rtt * 0.1;
+    if (algorithm == Algorithm.AIMD) {
+      if (drop || rtt > targetNanos) {
+        limit = Math.max(1, limit * BACKOFF);
+      } else if (inFlight >= limit / 2) {
+        limit = Math.min(maxLimit, limit + 1 / limit);
+      }
+      return;
+    }
+    // Vegas
+    nextMinRtt = Math.min(nextMinRtt, rtt);
+    minRtt = Math.min(minRtt, rtt);
+    if (++samples >= MIN_RTT_WINDOW) {
+      minRtt = nextMinRtt;
+      nextMinRtt = Long.MAX_VALUE;
+      samples = 0;
+    }
+    if (drop) {
+      limit = Math.max(1, limit * BACKOFF);
+      return;
+    }
+    double queued = limit * (1 - (double) minRtt / Math.max(1, rtt));
+    if (queued < VEGAS_ALPHA) limit = Math.min(maxLimit, limit + 1);
+    else if (queued > VEGAS_BETA) limit = Math.max(1, limit - 1);
+  }
+
+  /** Limite de concorrência atual. */
+  public synchronized int limit() { return (int) limit; }
+
+  public synchronized int inFlight() { return inFlight; }
+
+  public synchronized int queued() { return queue.size(); }
+
+  public synchronized long admitted() { return admitted; }
+
+  public synchronized long rejected() { return rejected; }
+}
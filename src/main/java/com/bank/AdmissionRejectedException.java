@@ -0,0 +1,19 @@
+package com.bank;
+
+/**
+ * Requisição recusada pelo {@link AdmissionController} por sobrecarga, sem ter sido executada.
+ * Não é uma {@link IllegalStateException}: quem trata saldo insuficiente não deve confundir as
+ * duas coisas. {@link #getRetryAfterMillis()} sugere quando tentar de novo.
+ */
+public class AdmissionRejectedException extends RuntimeException {
+  private static final long serialVersionUID = 1L;
+
+  private final long retryAfterMillis;
+
+  public AdmissionRejectedException(String message, long retryAfterMillis) {
+    super(message);
+    this.retryAfterMillis = retryAfterMillis;
+  }
+
+  public long getRetryAfterMillis() { return retryAfterMillis; }
+}
@@ -0,0 +1,175 @@
+package com.bank;
+
+import java.io.Closeable;
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Modelo de leitura (CQRS) dos saldos, projetado de forma assíncrona a partir do
+ * {@link OperationJournal} de um {@link AccountRegistry}.
+ * <p>
+ * Uma thread acompanha o prefixo publicado do diário e aplica depósitos, saques e
+ * transferências numa visão própria, um mapa de id para saldo com um único escritor. Consultas
+ * leem esse mapa sem travar nenhuma {@link Account}, então não disputam com o caminho de escrita.
+ * Como cada prefixo publicado é um estado consistente do cadastro, a visão sempre mostra um
+ * estado que o cadastro teve em {@link #projected()}, só que possivelmente atrasado.
+ * <p>
+ * O atraso é exposto em lançamentos ({@link #lag()}) e em tempo ({@link #stalenessNanos()}).
+ * A projeção tem um atraso máximo: se a visão estiver atrasada há mais tempo que isso, a
+ * consulta lê o último saldo publicado da própria conta, sem travá-la. Quem precisa ler a
+ * própria escrita espera com {@link #awaitProjected}.
+ * A projeção precisa acompanhar o diário desde o início (sequência 0).
+ */
+public final class BalanceProjection implements Closeable {
+  private static final int MAX_BATCH = 4096;
+  private static final long IDLE_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+  private final AccountRegistry registry;
+  private final OperationJournal journal;
+  private final long maxStalenessNanos;
+  private final ConcurrentHashMap<Long, BigDecimal> balances = new ConcurrentHashMap<>();
+  private final Thread projector;
+  private volatile boolean closed;
+  private volatile long projected;
+  /** Último instante em que a visão alcançou o diário (lag zero). */
+  private volatile long caughtUpAt = System.nanoTime();
+  private volatile long maxLag;
+  /**
+   * Saldos de um lote atômico do diário em aplicação; só entram na visão no fim do lote, para
+   * nenhuma consulta ver uma perna sem as outras.
+   */
+  private Map<Long, BigDecimal> pending;
+
+  /** Projeção com atraso máximo de 50 ms. */
+  public BalanceProjection(AccountRegistry registry) {
+    this(registry, TimeUnit.MILLISECONDS.toNanos(50));
+  }
+
+  /**
+   * @param maxStalenessNanos atraso tolerado antes de recorrer à conta ({@code Long.MAX_VALUE} = sem limite)
+   */
+  public BalanceProjection(AccountRegistry registry, long maxStalenessNanos) {
+    if (registry == null) throw new NullPointerException("Cadastro nulo");
+    if (registry.journal() == null) throw new IllegalArgumentException("Cadastro sem diário");
+    if (maxStalenessNanos < 0) throw new IllegalArgumentException("Atraso máximo negativo");
+    this.registry = registry;
+    this.maxStalenessNanos = maxStalenessNanos;
+    this.journal = registry.journal();
+    projector = new Thread(this::run, "balance-projection");
+    projector.setDaemon(true);
+    projector.start();
+  }
+
+  /** Saldo respeitando o atraso máximo da projeção, ou {@code null} se a conta não existir. */
+  public BigDecimal balance(long account) {
+    return balance(account, maxStalenessNanos);
+  }
+
+  /**
+   * Saldo com atraso de no máximo {@code maxStalenessNanos}; além disso, ou se a conta ainda não
+   * chegou à visão, lê o último saldo publicado da conta. {@code null} se a conta não existir.
+   */
+  public BigDecimal balance(long account, long maxStalenessNanos) {
+    BigDecimal projectedBalance = balances.get(account);
+    if (projectedBalance != null && stalenessNanos() <= maxStalenessNanos) return projectedBalance;
+    Account source = registry.find(account);
+    return source == null ? null : source.publishedBalance();
+  }
+
+  /** Saldo como está na visão, sem limite de atraso; {@code null} se ainda não projetado. */
+  public BigDecimal projectedBalance(long account) {
+    return balances.get(account);
+  }
+
+  /** Sequência exclusiva até onde o diário foi projetado. */
+  public long projected() { return projected; }
+
+  /** Lançamentos publicados e ainda não projetados. */
+  public long lag() { return Math.max(0, journal.committed() - projected); }
+
+  /** Maior atraso observado, em lançamentos. */
+  public long maxLag() { return maxLag; }
+
+  /** Há quanto tempo a visão não alcança o diário; 0 se está em dia. */
+  public long stalenessNanos() {
+    return lag() == 0 ? 0 : System.nanoTime() - caughtUpAt;
+  }
+
+  /**
+   * Espera a visão incluir tudo antes de {@code seq} (por exemplo, {@code journal.committed()}
+   * logo depois de uma escrita, para ler a própria escrita).
+   */
+  public boolean awaitProjected(long seq, long timeout, TimeUnit unit) throws InterruptedException {
+    long deadline = System.nanoTime() + unit.toNanos(timeout);
+    while (projected < seq) {
+      if (System.nanoTime() - deadline >= 0 || closed) return false;
+      if (Thread.interrupted()) throw new InterruptedException();
+      LockSupport.parkNanos(IDLE_PARK_NANOS);
+    }
+    return true;
+  }
+
+  private void run() {
+    while (!closed) {
+      if (catchUp() == 0) LockSupport.parkNanos(IDLE_PARK_NANOS);
+    }
+  }
+
+  /** Aplica o que houver de novo no diário, em lotes; retorna quantos lançamentos aplicou. */
+  synchronized long catchUp() {
+    long from = projected;
+    long committed = journal.committed();
+    long lag = committed - from;
+    if (lag > maxLag) maxLag = lag;
+    while (projected < committed) {
+      long to = journal.batchEnd(Math.min(committed, projected + MAX_BATCH) - 1);
+      journal.read(projected, to, this::apply);
+      projected = to;
+    }
+    if (journal.committed() == projected) caughtUpAt = System.nanoTime();
+    return projected - from;
+  }
+
+  private void apply(long seq, OperationType type, long account, long counterparty, BigDecimal amount) {
+    long end = seq + journal.span(seq);
+    if (end > seq + 1 && pending == null) pending = new HashMap<>();
+    switch (type) {
+      case OPEN: set(account, BigDecimal.ZERO); break;
+      case DEPOSIT: set(account, current(account).add(amount)); break;
+      case WITHDRAW: set(account, current(account).subtract(amount)); break;
+      case TRANSFER:
+        set(account, current(account).subtract(amount));
+        set(counterparty, current(counterparty).add(amount));
+        break;
+      default: throw new IllegalStateException("Tipo desconhecido: " + type);
+    }
+    if (pending != null && end == seq + 1) {
+      balances.putAll(pending);
+      pending = null;
+    }
+  }
+
+  private BigDecimal current(long account) {
+    BigDecimal value = pending == null ? null : pending.get(account);
+    return value != null ? value : balances.get(account);
+  }
+
+  private void set(long account, BigDecimal balance) {
+    if (pending != null) pending.put(account, balance);
+    else balances.put(account, balance);
+  }
+
+  @Override
+  public void close() {
+    closed = true;
+    try {
+      projector.join(TimeUnit.SECONDS.toMillis(5));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,32 @@
+package com.bank;
+
+import java.math.BigDecimal;
+
+/**
+ * Saldos em centavos indexados por posição, acessados por um {@link AccountView}.
+ * Cada operação é atômica na sua posição.
+ */
+public abstract class BalanceStore {
+  BalanceStore() { }
+
+  /** Quantidade de posições. */
+  public abstract int capacity();
+
+  public BigDecimal balance(int slot) {
+    return Money.fromMinorUnits(cents(slot));
+  }
+
+  /** Soma de todos os saldos; não é uma fotografia se houver escritas concorrentes. */
+  public BigDecimal total() {
+    long sum = 0;
+    for (int i = 0; i < capacity(); i++) sum = Math.addExact(sum, cents(i));
+    return Money.fromMinorUnits(sum);
+  }
+
+  abstract long cents(int slot);
+
+  abstract void credit(int slot, long amount);
+
+  /** Debita se houver saldo; {@code false} caso contrário. */
+  abstract boolean tryDebit(int slot, long amount);
+}
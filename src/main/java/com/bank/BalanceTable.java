@@ -0,0 +1,47 @@
+package com.bank;
+
+import java.math.BigDecimal;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * {@link BalanceStore} em memória: saldos de muitas contas num único array de {@code long}.
+ * <p>
+ * Um milhão de contas ocupa 8 MB contíguos em vez de um milhão de objetos {@link Account} com
+ * seus {@link BigDecimal}s. As contas são acessadas por um {@link AccountView} reposicionável;
+ * cada posição muda por CAS, sem lock, então várias visões (em threads diferentes) podem apontar
+ * para a mesma posição.
+ */
+public final class BalanceTable extends BalanceStore {
+  private final AtomicLongArray cents;
+
+  public BalanceTable(int capacity) {
+    if (capacity <= 0) throw new IllegalArgumentException("Capacidade deve ser > 0");
+    this.cents = new AtomicLongArray(capacity);
+  }
+
+  @Override
+  public int capacity() { return cents.length(); }
+
+  @Override
+  long cents(int slot) {
+    return cents.get(slot);
+  }
+
+  @Override
+  void credit(int slot, long amount) {
+    long current;
+    do {
+      current = cents.get(slot);
+    } while (!cents.compareAndSet(slot, current, Math.addExact(current, amount)));
+  }
+
+  @Override
+  boolean tryDebit(int slot, long amount) {
+    long current;
+    do {
+      current = cents.get(slot);
+      if (current < amount) return false;
+    } while (!cents.compareAndSet(slot, current, current - amount));
+    return true;
+  }
+}
@@ -0,0 +1,105 @@
+package com.bank;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+import static com.bank.BankProtocol.*;
+
+/**
+ * Cliente bloqueante do {@link BankServer}.
+ * <p>
+ * Os métodos {@code request*} só acumulam a requisição e devolvem o seu id; {@link #flush()}
+ * envia o lote e {@link #read()} lê as respostas na mesma ordem. Os métodos sem prefixo fazem
+ * uma ida e volta completa. Não é thread-safe. Enviar lotes muito grandes sem ler as respostas
+ * pode travar os dois lados (o servidor para de ler quando o cliente não consome).
+ */
+public final class BankClient implements Closeable {
+  private final SocketChannel channel;
+  private final ByteBuffer out = ByteBuffer.allocateDirect(64 * 1024).order(ORDER);
+  private final ByteBuffer in = ByteBuffer.allocateDirect(RESPONSE_SIZE).order(ORDER);
+  private long nextId = 1;
+
+  public BankClient(InetSocketAddress address) throws IOException {
+    channel = SocketChannel.open(address);
+    channel.socket().setTcpNoDelay(true);
+  }
+
+  public long requestDeposit(long account, long cents) throws IOException {
+    return request(DEPOSIT, account, cents, 0, 2);
+  }
+
+  public long requestWithdraw(long account, long cents) throws IOException {
+    return request(WITHDRAW, account, cents, 0, 2);
+  }
+
+  public long requestTransfer(long from, long to, long cents) throws IOException {
+    return request(TRANSFER, from, to, cents, 3);
+  }
+
+  public long requestBalance(long account) throws IOException {
+    return request(BALANCE, account, 0, 0, 1);
+  }
+
+  private long request(byte op, long a, long b, long c, int fields) throws IOException {
+    if (out.remaining() < 4 + bodySize(op)) flush();
+    long id = nextId++;
+    out.putInt(bodySize(op)).put(op).putLong(id).putLong(a);
+    if (fields > 1) out.putLong(b);
+    if (fields > 2) out.putLong(c);
+    return id;
+  }
+
+  public void flush() throws IOException {
+    out.flip();
+    while (out.hasRemaining()) channel.write(out);
+    out.clear();
+  }
+
+  public BankResponse read() throws IOException {
+    in.clear();
+    while (in.hasRemaining()) {
+      if (channel.read(in) < 0) throw new EOFException("Conexão encerrada");
+    }
+    in.flip();
+    int length = in.getInt();
+    if (length != RESPONSE_BODY) throw new IOException("Resposta inválida: " + length);
+    return new BankResponse(in.getLong(), BankStatus.of(in.get()), in.getLong());
+  }
+
+  public BankStatus deposit(long account, long cents) throws IOException {
+    requestDeposit(account, cents);
+    return roundTrip().getStatus();
+  }
+
+  public BankStatus withdraw(long account, long cents) throws IOException {
+    requestWithdraw(account, cents);
+    return roundTrip().getStatus();
+  }
+
+  public BankStatus transfer(long from, long to, long cents) throws IOException {
+    requestTransfer(from, to, cents);
+    return roundTrip().getStatus();
+  }
+
+  /** Saldo em centavos; lança {@link IllegalArgumentException} se a conta não existir. */
+  public long balance(long account) throws IOException {
+    requestBalance(account);
+    BankResponse response = roundTrip();
+    if (response.getStatus() != BankStatus.OK) throw new IllegalArgumentException("Conta inexistente: " + account);
+    return response.getValue();
+  }
+
+  private BankResponse roundTrip() throws IOException {
+    flush();
+    return read();
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+}
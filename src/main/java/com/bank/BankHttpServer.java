@@ -0,0 +1,345 @@
+package com.bank;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * API HTTP/JSON sobre o servidor embutido do JDK ({@code com.sun.net.httpserver}).
+ * <pre>
+ *   GET  /accounts/{id}/balance    -> {"account":1,"balance":100.00}
+ *   POST /accounts/{id}/deposit    {"amount":"10.00"}
+ *   POST /accounts/{id}/withdraw   {"amount":"10.00"}
+ *   POST /transfers                {"from":1,"to":2,"amount":"10.00"}
+ *   POST /transfers/batch          [{"from":1,"to":2,"amount":"10.00"}, ...]
+ *   POST /transfers/batch?atomic=true   mesmas pernas, todas ou nenhuma
+ * </pre>
+ * Valores podem vir como número ou string e precisam ser exatos em centavos. As respostas
+ * trazem {@code "status"} com um {@link BankStatus}; o código HTTP segue o status
+ * (404 conta inexistente, 409 saldo insuficiente, 429 limite de velocidade, 400 inválido,
+ * 503 com {@code Retry-After} quando o controle de admissão recusa).
+ * <p>
+ * O lote vale por várias chamadas numa ida e volta: cada transferência é independente e tem
+ * o seu resultado na mesma posição de {@code "results"}, escrito em fluxo. Com
+ * {@code atomic=true} o lote é executado por {@link TransferService#transferAll}.
+ * JSON malformado rejeita o lote inteiro antes de qualquer efeito.
+ */
+public final class BankHttpServer implements Closeable {
+  private static final String JSON = "application/json; charset=utf-8";
+  /** Maior lote aceito numa requisição. */
+  static final int MAX_BATCH = 10_000;
+
+  private final AccountRegistry registry;
+  private final TransferService transfers;
+  private final BankOperations operations;
+  private final HttpServer server;
+
+  /**
+   * @param executor executor das requisições ({@code null} = a thread do próprio servidor)
+   */
+  public BankHttpServer(AccountRegistry registry, TransferService transfers, InetSocketAddress address,
+                        Executor executor) throws IOException {
+    this(registry, transfers, null, address, executor);
+  }
+
+  /**
+   * @param projection modelo de leitura que atende as consultas de saldo ({@code null} = lê as contas)
+   * @param executor   executor das requisições ({@code null} = a thread do próprio servidor)
+   */
+  public BankHttpServer(AccountRegistry registry, TransferService transfers, BalanceProjection projection,
+                        InetSocketAddress address, Executor executor) throws IOException {
+    this.operations = new BankOperations(registry, transfers, projection);
+    this.registry = registry;
+    this.transfers = transfers;
+    this.server = HttpServer.create(address, 1024);
+    server.createContext("/accounts/", this::handleAccount);
+    server.createContext("/transfers", this::handleTransfer);
+    server.createContext("/transfers/batch", this::handleBatch);
+    server.setExecutor(executor);
+    server.start();
+  }
+
+  public InetSocketAddress address() {
+    return server.getAddress();
+  }
+
+  private void handleAccount(HttpExchange exchange) throws IOException {
+    try {
+      String[] parts = exchange.getRequestURI().getPath().split("/");
+      // "", "accounts", id, ação
+      if (parts.length != 4) {
+        sendStatus(exchange, 404, BankStatus.INVALID_REQUEST);
+        return;
+      }
+      long id;
+      try {
+        id = Long.parseLong(parts[2]);
+      } catch (NumberFormatException e) {
+        sendStatus(exchange, 400, BankStatus.INVALID_REQUEST);
+        return;
+      }
+      String action = parts[3];
+      if ("balance".equals(action)) {
+        if (!method(exchange, "GET")) return;
+        BigDecimal balance = operations.balanceOf(id);
+        if (balance == null) {
+          sendStatus(exchange, 404, BankStatus.UNKNOWN_ACCOUNT);
+          return;
+        }
+        try (JsonOut out = new JsonOut(exchange, 200, false)) {
+          out.json.beginObject().name("status").value(BankStatus.OK.name())
+              .name("account").value(id).name("balance").value(balance).endObject();
+        }
+      } else if ("deposit".equals(action) || "withdraw".equals(action)) {
+        if (!method(exchange, "POST")) return;
+        JsonReader in = reader(exchange);
+        BigDecimal amount = null;
+        in.beginObject();
+        while (in.hasNext()) {
+          if ("amount".equals(in.nextName())) amount = in.nextDecimal();
+          else in.skipValue();
+        }
+        in.endObject();
+        long cents = cents(amount);
+        BankStatus status = cents <= 0 ? BankStatus.INVALID_REQUEST
+            : "deposit".equals(action) ? operations.deposit(id, cents) : operations.withdraw(id, cents);
+        sendStatus(exchange, httpStatus(status), status);
+      } else {
+        sendStatus(exchange, 404, BankStatus.INVALID_REQUEST);
+      }
+    } catch (JsonReader.JsonException e) {
+      sendError(exchange, e);
+    } finally {
+      exchange.close();
+    }
+  }
+
+  private void handleTransfer(HttpExchange exchange) throws IOException {
+    try {
+      if (!"/transfers".equals(exchange.getRequestURI().getPath())) {
+        sendStatus(exchange, 404, BankStatus.INVALID_REQUEST);
+        return;
+      }
+      if (!method(exchange, "POST")) return;
+      JsonReader in = reader(exchange);
+      long[] transfer = readTransfer(in);
+      in.peek();
+      BankStatus status = execute(transfer);
+      if (status == BankStatus.OVERLOADED) retryAfter(exchange);
+      sendStatus(exchange, httpStatus(status), status);
+    } catch (JsonReader.JsonException e) {
+      sendError(exchange, e);
+    } finally {
+      exchange.close();
+    }
+  }
+
+  private void handleBatch(HttpExchange exchange) throws IOException {
+    try {
+      if (!method(exchange, "POST")) return;
+      boolean atomic = "true".equals(queryParameter(exchange.getRequestURI().getQuery(), "atomic"));
+      JsonReader in = reader(exchange);
+      List<long[]> batch = new ArrayList<>();
+      in.beginArray();
+      while (in.hasNext()) {
+        if (batch.size() == MAX_BATCH) throw new JsonReader.JsonException("Lote maior que " + MAX_BATCH);
+        batch.add(readTransfer(in));
+      }
+      in.endArray();
+      in.peek();
+
+      BankStatus atomicStatus = atomic ? executeAtomically(batch) : null;
+      try (JsonOut out = new JsonOut(exchange, 200, true)) {
+        out.json.beginObject().name("results").beginArray();
+        int ok = 0;
+        for (long[] transfer : batch) {
+          BankStatus status = atomic ? atomicStatus : execute(transfer);
+          if (status == BankStatus.OK) ok++;
+          out.json.beginObject().name("status").value(status.name()).endObject();
+        }
+        out.json.endArray().name("ok").value(ok).endObject();
+      }
+    } catch (JsonReader.JsonException e) {
+      sendError(exchange, e);
+    } finally {
+      exchange.close();
+    }
+  }
+
+  /** {from, to, centavos}; centavos 0 se o valor for inválido. */
+  private static long[] readTransfer(JsonReader in) throws IOException {
+    long from = 0;
+    long to = 0;
+    BigDecimal amount = null;
+    in.beginObject();
+    while (in.hasNext()) {
+      switch (in.nextName()) {
+        case "from": from = in.nextLong(); break;
+        case "to": to = in.nextLong(); break;
+        case "amount": amount = in.nextDecimal(); break;
+        default: in.skipValue();
+      }
+    }
+    in.endObject();
+    return new long[] {from, to, cents(amount)};
+  }
+
+  private BankStatus execute(long[] transfer) {
+    if (transfer[2] <= 0) return BankStatus.INVALID_REQUEST;
+    try {
+      return operations.transfer(transfer[0], transfer[1], transfer[2]);
+    } catch (RuntimeException e) {
+      return BankStatus.ERROR;
+    }
+  }
+
+  private BankStatus executeAtomically(List<long[]> batch) {
+    if (batch.isEmpty()) return BankStatus.OK;
+    List<TransferLeg> legs = new ArrayList<>(batch.size());
+    for (long[] transfer : batch) {
+      Account from = registry.find(transfer[0]);
+      Account to = registry.find(transfer[1]);
+      if (from == null || to == null) return BankStatus.UNKNOWN_ACCOUNT;
+      if (transfer[2] <= 0 || from == to) return BankStatus.INVALID_REQUEST;
+      legs.add(new TransferLeg(from, to, Money.fromMinorUnits(transfer[2])));
+    }
+    try {
+      transfers.transferAll(legs);
+      return BankStatus.OK;
+    } catch (AdmissionRejectedException e) {
+      return BankStatus.OVERLOADED;
+    } catch (VelocityLimitExceededException e) {
+      return BankStatus.LIMIT_EXCEEDED;
+    } catch (IllegalStateException e) {
+      return BankStatus.INSUFFICIENT_FUNDS;
+    }
+  }
+
+  /**
+   * Centavos exatos; 0 se ausente, não positivo, com frações de centavo ou com mais de 18 dígitos
+   * inteiros. A escala é conferida antes de converter: um expoente como {@code 1e999999999}
+   * custaria um número de bilhões de dígitos.
+   */
+  private static long cents(BigDecimal amount) {
+    if (amount == null || amount.signum() <= 0) return 0;
+    if (amount.precision() - amount.scale() > 18 || amount.scale() > 2) return 0;
+    try {
+      return Money.toMinorUnits(amount);
+    } catch (ArithmeticException e) {
+      return 0;
+    }
+  }
+
+  /** Valor de {@code name} na query ({@code a=1&b=2}); {@code null} se ausente. */
+  static String queryParameter(String query, String name) {
+    if (query == null) return null;
+    for (String pair : query.split("&")) {
+      int eq = pair.indexOf('=');
+      String key = eq < 0 ? pair : pair.substring(0, eq);
+      if (key.equals(name)) return eq < 0 ? "" : pair.substring(eq + 1);
+    }
+    return null;
+  }
+
+  static int httpStatus(BankStatus status) {
+    switch (status) {
+      case OK: return 200;
+      case INSUFFICIENT_FUNDS: return 409;
+      case LIMIT_EXCEEDED: return 429;
+      case UNKNOWN_ACCOUNT: return 404;
+      case INVALID_REQUEST: return 400;
+      case OVERLOADED: return 503;
+      default: return 500;
+    }
+  }
+
+  /** {@code Retry-After} em segundos inteiros, arredondado para cima. */
+  private void retryAfter(HttpExchange exchange) {
+    long seconds = (operations.retryAfterMillis() + 999) / 1000;
+    exchange.getResponseHeaders().set("Retry-After", Long.toString(Math.max(1, seconds)));
+  }
+
+  private static JsonReader reader(HttpExchange exchange) {
+    return new JsonReader(new BufferedReader(new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8)));
+  }
+
+  private static boolean method(HttpExchange exchange, String expected) throws IOException {
+    if (expected.equals(exchange.getRequestMethod())) return true;
+    exchange.getResponseHeaders().set("Allow", expected);
+    sendStatus(exchange, 405, BankStatus.INVALID_REQUEST);
+    return false;
+  }
+
+  private static void sendStatus(HttpExchange exchange, int code, BankStatus status) throws IOException {
+    try (JsonOut out = new JsonOut(exchange, code, false)) {
+      out.json.beginObject().name("status").value(status.name()).endObject();
+    }
+  }
+
+  private static void sendError(HttpExchange exchange, JsonReader.JsonException e) throws IOException {
+    try (JsonOut out = new JsonOut(exchange, 400, false)) {
+      out.json.beginObject().name("status").value(BankStatus.INVALID_REQUEST.name())
+          .name("error").value(e.getMessage()).endObject();
+    }
+  }
+
+  /**
+   * Corpo de resposta JSON. Respostas pequenas são montadas em memória para mandar o tamanho;
+   * as de lote vão em fluxo (chunked).
+   */
+  private static final class JsonOut implements Closeable {
+    private final HttpExchange exchange;
+    private final int code;
+    private final boolean streaming;
+    private final StringWriter small;
+    private final Writer writer;
+    final JsonWriter json;
+
+    JsonOut(HttpExchange exchange, int code, boolean streaming) throws IOException {
+      this.exchange = exchange;
+      this.code = code;
+      this.streaming = streaming;
+      exchange.getResponseHeaders().set("Content-Type", JSON);
+      if (streaming) {
+        exchange.sendResponseHeaders(code, 0);
+        small = null;
+        writer = new BufferedWriter(new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8), 8192);
+      } else {
+        small = new StringWriter();
+        writer = small;
+      }
+      json = new JsonWriter(writer);
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (streaming) {
+        writer.close();
+        return;
+      }
+      byte[] body = small.toString().getBytes(StandardCharsets.UTF_8);
+      exchange.sendResponseHeaders(code, body.length);
+      exchange.getResponseBody().write(body);
+      exchange.getResponseBody().close();
+    }
+  }
+
+  @Override
+  public void close() {
+    server.stop(0);
+  }
+}
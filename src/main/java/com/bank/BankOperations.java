@@ -0,0 +1,102 @@
+package com.bank;
+
+import java.math.BigDecimal;
+
+/**
+ * Operações expostas pelos servidores de rede sobre um {@link AccountRegistry}, com
+ * valores em centavos e exceções traduzidas para {@link BankStatus}.
+ */
+final class BankOperations {
+  /** Saldo devolvido por {@link #balance} quando a conta não existe. */
+  static final long NO_ACCOUNT = Long.MIN_VALUE;
+
+  private final AccountRegistry registry;
+  private final TransferService transfers;
+  private final BalanceProjection projection;
+  private final boolean blocking;
+
+  /**
+   * @param projection modelo de leitura dos saldos ({@code null} = consultas leem as contas)
+   */
+  BankOperations(AccountRegistry registry, TransferService transfers, BalanceProjection projection) {
+    this(registry, transfers, projection, true);
+  }
+
+  /**
+   * @param blocking {@code false} para threads que não podem esperar: o controle de admissão
+   *                 recusa na hora em vez de pôr a transferência na fila
+   */
+  BankOperations(AccountRegistry registry, TransferService transfers, BalanceProjection projection,
+                 boolean blocking) {
+    if (registry == null) throw new NullPointerException("Cadastro nulo");
+    if (transfers == null) throw new NullPointerException("Serviço nulo");
+    this.registry = registry;
+    this.transfers = transfers;
+    this.projection = projection;
+    this.blocking = blocking;
+  }
+
+  BankStatus deposit(long account, long cents) {
+    Account target = registry.find(account);
+    if (target == null) return BankStatus.UNKNOWN_ACCOUNT;
+    if (cents <= 0) return BankStatus.INVALID_REQUEST;
+    target.deposit(Money.fromMinorUnits(cents));
+    return BankStatus.OK;
+  }
+
+  BankStatus withdraw(long account, long cents) {
+    Account source = registry.find(account);
+    if (source == null) return BankStatus.UNKNOWN_ACCOUNT;
+    if (cents <= 0) return BankStatus.INVALID_REQUEST;
+    try {
+      source.withdraw(Money.fromMinorUnits(cents));
+      return BankStatus.OK;
+    } catch (IllegalStateException e) {
+      return rejection(e);
+    }
+  }
+
+  BankStatus transfer(long from, long to, long cents) {
+    Account source = registry.find(from);
+    Account target = registry.find(to);
+    if (source == null || target == null) return BankStatus.UNKNOWN_ACCOUNT;
+    if (cents <= 0 || source == target) return BankStatus.INVALID_REQUEST;
+    try {
+      BigDecimal amount = Money.fromMinorUnits(cents);
+      if (!blocking && transfers instanceof AdmissionControlledTransferService) {
+        ((AdmissionControlledTransferService) transfers).tryTransfer(source, target, amount);
+      } else {
+        transfers.transfer(source, target, amount);
+      }
+      return BankStatus.OK;
+    } catch (AdmissionRejectedException e) {
+      return BankStatus.OVERLOADED;
+    } catch (IllegalStateException e) {
+      return rejection(e);
+    }
+  }
+
+  /** Espera sugerida (ms) após {@link BankStatus#OVERLOADED}; 0 sem controle de admissão. */
+  long retryAfterMillis() {
+    return transfers instanceof AdmissionControlledTransferService
+        ? ((AdmissionControlledTransferService) transfers).controller().retryAfterMillis()
+        : 0;
+  }
+
+  /** Saldo em centavos (frações truncadas) ou {@link #NO_ACCOUNT}. */
+  long balance(long account) {
+    BigDecimal balance = balanceOf(account);
+    return balance == null ? NO_ACCOUNT : Money.toMinorUnitsFloor(balance);
+  }
+
+  /** Saldo vindo da projeção, se houver, ou da conta; {@code null} se a conta não existir. */
+  BigDecimal balanceOf(long account) {
+    if (projection != null) return projection.balance(account);
+    Account target = registry.find(account);
+    return target == null ? null : target.getBalance();
+  }
+
+  private static BankStatus rejection(IllegalStateException e) {
+    return e instanceof VelocityLimitExceededException ? BankStatus.LIMIT_EXCEEDED : BankStatus.INSUFFICIENT_FUNDS;
+  }
+}
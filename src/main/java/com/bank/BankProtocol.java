@@ -0,0 +1,44 @@
+package com.bank;
+
+import java.nio.ByteOrder;
+
+/**
+ * Protocolo binário do {@link BankServer} (big-endian). Cada quadro começa com {@code int}
+ * tamanho do corpo; valores em centavos.
+ * <pre>
+ *   requisição: byte op, long requestId, campos
+ *     DEPOSIT  conta, valor        WITHDRAW conta, valor
+ *     TRANSFER origem, destino, valor
+ *     BALANCE  conta
+ *   resposta:   long requestId, byte status ({@link BankStatus}), long valor
+ *               (saldo em BALANCE, espera sugerida em ms em OVERLOADED, 0 nas demais)
+ * </pre>
+ * Requisições podem ser enviadas em sequência sem esperar resposta; as respostas saem
+ * na ordem das requisições de cada conexão.
+ */
+final class BankProtocol {
+  static final ByteOrder ORDER = ByteOrder.BIG_ENDIAN;
+
+  static final byte DEPOSIT = 1;
+  static final byte WITHDRAW = 2;
+  static final byte TRANSFER = 3;
+  static final byte BALANCE = 4;
+
+  /** Maior corpo de requisição aceito; acima disso a conexão é encerrada. */
+  static final int MAX_BODY = 64;
+  static final int RESPONSE_BODY = 8 + 1 + 8;
+  static final int RESPONSE_SIZE = 4 + RESPONSE_BODY;
+
+  private BankProtocol() { }
+
+  /** Tamanho do corpo de uma requisição {@code op}, ou -1 se a operação não existir. */
+  static int bodySize(byte op) {
+    switch (op) {
+      case DEPOSIT:
+      case WITHDRAW: return 1 + 8 + 8 + 8;
+      case TRANSFER: return 1 + 8 + 8 + 8 + 8;
+      case BALANCE: return 1 + 8 + 8;
+      default: return -1;
+    }
+  }
+}
@@ -0,0 +1,28 @@
+package com.bank;
+
+/**
+ * Resposta do {@link BankServer} lida por {@link BankClient}.
+ */
+public final class BankResponse {
+  private final long requestId;
+  private final BankStatus status;
+  private final long value;
+
+  BankResponse(long requestId, BankStatus status, long value) {
+    this.requestId = requestId;
+    this.status = status;
+    this.value = value;
+  }
+
+  public long getRequestId() { return requestId; }
+
+  public BankStatus getStatus() { return status; }
+
+  /** Saldo em centavos nas consultas; 0 nas demais operações. */
+  public long getValue() { return value; }
+
+  @Override
+  public String toString() {
+    return "#" + requestId + " " + status + (value != 0 ? " " + value : "");
+  }
+}
@@ -0,0 +1,302 @@
+package com.bank;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.bank.BankProtocol.*;
+
+/**
+ * Servidor de rede não bloqueante para o protocolo de {@link BankProtocol}.
+ * <p>
+ * Uma thread aceita conexões e as distribui em rodízio entre {@code selectors} threads, cada
+ * uma com o seu {@link Selector} e o seu {@link BufferPool}. A thread de seletor lê tudo o
+ * que chegou, executa todas as requisições completas do buffer (pipelining) e escreve as
+ * respostas acumuladas de uma vez. Se o cliente não consome as respostas, a conexão para de
+ * ser lida até o buffer de saída esvaziar.
+ * <p>
+ * As operações rodam na própria thread de seletor: são curtas e só travam as contas envolvidas.
+ * Por isso o controle de admissão nunca põe uma transferência na fila aqui: sem vaga imediata
+ * a resposta é {@link BankStatus#OVERLOADED}.
+ */
+public final class BankServer implements Closeable {
+  private static final int BUFFER_SIZE = 16 * 1024;
+  private static final int MAX_POOLED = 1024;
+
+  private final BankOperations operations;
+  private final ServerSocketChannel server;
+  private final Worker[] workers;
+  private final Thread acceptor;
+  private final LongAdder requests = new LongAdder();
+  private final LongAdder connections = new LongAdder();
+  private volatile boolean closed;
+
+  /**
+   * @param address   endereço de escuta (porta 0 = livre)
+   * @param selectors threads de seletor
+   */
+  public BankServer(AccountRegistry registry, TransferService transfers, InetSocketAddress address, int selectors)
+      throws IOException {
+    this(registry, transfers, null, address, selectors);
+  }
+
+  /**
+   * @param projection modelo de leitura que atende as consultas de saldo ({@code null} = lê as contas)
+   */
+  public BankServer(AccountRegistry registry, TransferService transfers, BalanceProjection projection,
+                    InetSocketAddress address, int selectors) throws IOException {
+    if (selectors <= 0) throw new IllegalArgumentException("Seletores devem ser > 0");
+    this.operations = new BankOperations(registry, transfers, projection, false);
+    this.server = ServerSocketChannel.open();
+    server.bind(address, 4096);
+    workers = new Worker[selectors];
+    for (int i = 0; i < selectors; i++) {
+      workers[i] = new Worker(Selector.open());
+      Thread thread = new Thread(workers[i], "bank-selector-" + i);
+      thread.setDaemon(true);
+      workers[i].thread = thread;
+      thread.start();
+    }
+    acceptor = new Thread(this::accept, "bank-accept");
+    acceptor.setDaemon(true);
+    acceptor.start();
+  }
+
+  public InetSocketAddress address() throws IOException {
+    return (InetSocketAddress) server.getLocalAddress();
+  }
+
+  /** Requisições atendidas desde o início. */
+  public long requests() { return requests.sum(); }
+
+  /** Conexões abertas no momento. */
+  public long connections() { return connections.sum(); }
+
+  private void accept() {
+    int next = 0;
+    while (!closed) {
+      try {
+        SocketChannel channel = server.accept();
+        channel.configureBlocking(false);
+        channel.socket().setTcpNoDelay(true);
+        workers[next].handOff(channel);
+        next = (next + 1) % workers.length;
+      } catch (IOException e) {
+        // servidor fechado ou conexão abortada antes do aceite
+      }
+    }
+  }
+
+  /** Estado de uma conexão; buffers só enquanto há dados pendentes. */
+  private static final class Connection {
+    final SocketChannel channel;
+    SelectionKey key;
+    ByteBuffer in;
+    ByteBuffer out;
+
+    Connection(SocketChannel channel) { this.channel = channel; }
+  }
+
+  private final class Worker implements Runnable {
+    private final Selector selector;
+    private final BufferPool pool = new BufferPool(BUFFER_SIZE, MAX_POOLED);
+    private final ConcurrentLinkedQueue<SocketChannel> incoming = new ConcurrentLinkedQueue<>();
+    Thread thread;
+
+    Worker(Selector selector) { this.selector = selector; }
+
+    void handOff(SocketChannel channel) {
+      incoming.add(channel);
+      selector.wakeup();
+    }
+
+    @Override
+    public void run() {
+      try {
+        while (!closed) {
+          selector.select();
+          SocketChannel channel;
+          while ((channel = incoming.poll()) != null) register(channel);
+          Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+          while (keys.hasNext()) {
+            SelectionKey key = keys.next();
+            keys.remove();
+            Connection connection = (Connection) key.attachment();
+            try {
+              if (key.isValid() && key.isWritable()) onWritable(connection);
+              if (key.isValid() && key.isReadable()) onReadable(connection);
+            } catch (IOException | RuntimeException e) {
+              close(connection);
+            }
+          }
+        }
+      } catch (IOException | ClosedSelectorException e) {
+        // servidor fechado
+      } finally {
+        if (selector.isOpen()) {
+          for (SelectionKey key : new ArrayList<>(selector.keys())) close((Connection) key.attachment());
+        }
+      }
+    }
+
+    private void register(SocketChannel channel) {
+      Connection connection = new Connection(channel);
+      try {
+        connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+        connections.increment();
+      } catch (ClosedChannelException e) {
+        // cliente já desistiu
+      }
+    }
+
+    private void onReadable(Connection connection) throws IOException {
+      if (connection.in == null) connection.in = pool.acquire();
+      int read = connection.channel.read(connection.in);
+      if (read < 0) {
+        close(connection);
+        return;
+      }
+      process(connection);
+    }
+
+    private void onWritable(Connection connection) throws IOException {
+      if (flush(connection)) process(connection);
+    }
+
+    /**
+     * Executa as requisições completas do buffer de entrada e envia as respostas, até faltar
+     * entrada ou o envio bloquear.
+     */
+    private void process(Connection connection) throws IOException {
+      boolean outputFull;
+      do {
+        outputFull = execute(connection);
+        if (!flush(connection)) return;
+      } while (outputFull);
+    }
+
+    /** @return {@code true} se parou por falta de espaço na saída */
+    private boolean execute(Connection connection) throws IOException {
+      ByteBuffer in = connection.in;
+      if (in == null) return false;
+      boolean outputFull = false;
+      in.flip();
+      while (in.remaining() >= 4) {
+        int length = in.getInt(in.position());
+        if (length <= 0 || length > MAX_BODY) throw new IOException("Quadro inválido: " + length);
+        if (in.remaining() < 4 + length) break;
+        if (connection.out == null) connection.out = pool.acquire();
+        if (connection.out.remaining() < RESPONSE_SIZE) {
+          outputFull = true;
+          break;
+        }
+        in.position(in.position() + 4);
+        int end = in.position() + length;
+        handle(in, length, connection.out);
+        in.position(end);
+        requests.increment();
+      }
+      in.compact();
+      if (in.position() == 0) {
+        pool.release(in);
+        connection.in = null;
+      }
+      return outputFull;
+    }
+
+    private void handle(ByteBuffer in, int length, ByteBuffer out) {
+      byte op = in.get();
+      long requestId = length >= 9 ? in.getLong() : 0;
+      BankStatus status;
+      long value = 0;
+      if (bodySize(op) != length) {
+        status = BankStatus.INVALID_REQUEST;
+      } else {
+        try {
+          switch (op) {
+            case DEPOSIT: status = operations.deposit(in.getLong(), in.getLong()); break;
+            case WITHDRAW: status = operations.withdraw(in.getLong(), in.getLong()); break;
+            case TRANSFER:
+              status = operations.transfer(in.getLong(), in.getLong(), in.getLong());
+              if (status == BankStatus.OVERLOADED) value = operations.retryAfterMillis();
+              break;
+            case BALANCE:
+              value = operations.balance(in.getLong());
+              status = value == BankOperations.NO_ACCOUNT ? BankStatus.UNKNOWN_ACCOUNT : BankStatus.OK;
+              if (status != BankStatus.OK) value = 0;
+              break;
+            default: status = BankStatus.INVALID_REQUEST;
+          }
+        } catch (RuntimeException e) {
+          status = BankStatus.ERROR;
+        }
+      }
+      out.putInt(RESPONSE_BODY).putLong(requestId).put((byte) status.ordinal()).putLong(value);
+    }
+
+    /**
+     * Envia o que houver no buffer de saída.
+     * @return {@code true} se tudo foi enviado; senão a conexão passa a esperar escrita
+     */
+    private boolean flush(Connection connection) throws IOException {
+      ByteBuffer out = connection.out;
+      if (out == null) return true;
+      out.flip();
+      connection.channel.write(out);
+      if (out.hasRemaining()) {
+        out.compact();
+        connection.key.interestOps(SelectionKey.OP_WRITE);
+        return false;
+      }
+      pool.release(out);
+      connection.out = null;
+      connection.key.interestOps(SelectionKey.OP_READ);
+      return true;
+    }
+
+    private void close(Connection connection) {
+      if (connection == null) return;
+      if (connection.key != null && connection.key.isValid()) {
+        connection.key.cancel();
+        connections.decrement();
+      }
+      try {
+        connection.channel.close();
+      } catch (IOException ignored) {
+        // já fechada
+      }
+      if (connection.in != null) pool.release(connection.in);
+      if (connection.out != null) pool.release(connection.out);
+      connection.in = null;
+      connection.out = null;
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    closed = true;
+    server.close();
+    for (Worker worker : workers) worker.selector.wakeup();
+    try {
+      acceptor.join(TimeUnit.SECONDS.toMillis(5));
+      for (Worker worker : workers) {
+        worker.thread.join(TimeUnit.SECONDS.toMillis(5));
+        worker.selector.close();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
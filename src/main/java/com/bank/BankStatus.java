@@ -0,0 +1,25 @@
+package com.bank;
+
+/**
+ * Resultado de uma requisição ao {@link BankServer}.
+ */
+public enum BankStatus {
+  OK,
+  /** Saldo insuficiente. */
+  INSUFFICIENT_FUNDS,
+  /** Recusada pelas regras de velocidade da conta. */
+  LIMIT_EXCEEDED,
+  UNKNOWN_ACCOUNT,
+  /** Requisição malformada, valor inválido ou mesma conta na transferência. */
+  INVALID_REQUEST,
+  /** Falha inesperada no servidor. */
+  ERROR,
+  /** Recusada pelo controle de admissão; o valor da resposta sugere a espera em ms. */
+  OVERLOADED;
+
+  private static final BankStatus[] VALUES = values();
+
+  static BankStatus of(int code) {
+    return code >= 0 && code < VALUES.length ? VALUES[code] : ERROR;
+  }
+}
@@ -0,0 +1,78 @@
+package com.bank;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Filtro de Bloom de ids {@code long}, sem lock: responde "talvez exista" ou "com certeza não
+ * existe".
+ * <p>
+ * Dimensionado para {@code expectedItems} itens com taxa de falso positivo
+ * {@code falsePositiveRate}: {@code m = -n ln p / (ln 2)^2} bits e {@code k = (m / n) ln 2}
+ * funções de hash, derivadas de um único hash de 64 bits (h1 + i * h2). Os bits ficam num
+ * {@link AtomicLongArray}; {@link #add} liga bits por CAS e {@link #mightContain} só lê, então
+ * consultas e inserções concorrentes nunca se bloqueiam. Passar de {@code expectedItems} não
+ * quebra o filtro, só aumenta os falsos positivos.
+ */
+public final class BloomFilter {
+  private final AtomicLongArray words;
+  private final long bits;
+  private final int hashes;
+
+  public BloomFilter(long expectedItems, double falsePositiveRate) {
+    if (expectedItems <= 0) throw new IllegalArgumentException("Quantidade esperada deve ser > 0");
+    if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+      throw new IllegalArgumentException("Taxa de falso positivo deve estar em (0, 1)");
+    }
+    double ln2 = Math.log(2);
+    long m = (long) Math.ceil(-expectedItems * Math.log(falsePositiveRate) / (ln2 * ln2));
+    long words = Math.max(1, (m + 63) >>> 6);
+    if (words > Integer.MAX_VALUE - 8) throw new IllegalArgumentException("Filtro grande demais");
+    this.words = new AtomicLongArray((int) words);
+    this.bits = words << 6;
+    this.hashes = Math.max(1, (int) Math.round((double) bits / expectedItems * ln2));
+  }
+
+  /** Tamanho do filtro em bits. */
+  public long bitSize() { return bits; }
+
+  /** Funções de hash por item. */
+  public int hashCount() { return hashes; }
+
+  public void add(long id) {
+    long hash = mix(id);
+    long h1 = hash;
+    long h2 = (hash >>> 32) | (hash << 32) | 1;
+    for (int i = 0; i < hashes; i++) {
+      long bit = ((h1 + i * h2) & Long.MAX_VALUE) % bits;
+      int word = (int) (bit >>> 6);
+      long mask = 1L << bit;
+      long current;
+      do {
+        current = words.get(word);
+        if ((current & mask) != 0) break;
+      } while (!words.compareAndSet(word, current, current | mask));
+    }
+  }
+
+  /** {@code false} se {@code id} certamente nunca foi adicionado. */
+  public boolean mightContain(long id) {
+    long hash = mix(id);
+    long h1 = hash;
+    long h2 = (hash >>> 32) | (hash << 32) | 1;
+    for (int i = 0; i < hashes; i++) {
+      long bit = ((h1 + i * h2) & Long.MAX_VALUE) % bits;
+      if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) return false;
+    }
+    return true;
+  }
+
+  /** Finalizador do MurmurHash3: espalha ids sequenciais por todos os bits. */
+  private static long mix(long x) {
+    x ^= x >>> 33;
+    x *= 0xff51afd7ed558ccdL;
+    x ^= x >>> 33;
+    x *= 0xc4ceb9fe1a85ec53L;
+    x ^= x >>> 33;
+    return x;
+  }
+}
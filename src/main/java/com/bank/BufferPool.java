@@ -0,0 +1,38 @@
+package com.bank;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+
+/**
+ * Pool de buffers diretos de tamanho fixo. Não é thread-safe: cada thread de seletor do
+ * {@link BankServer} tem o seu. Conexões só seguram buffers enquanto têm dados pendentes,
+ * então conexões ociosas não ocupam memória direta.
+ */
+final class BufferPool {
+  private final int bufferSize;
+  private final int maxPooled;
+  private final ArrayDeque<ByteBuffer> free = new ArrayDeque<>();
+  private long allocated;
+
+  BufferPool(int bufferSize, int maxPooled) {
+    this.bufferSize = bufferSize;
+    this.maxPooled = maxPooled;
+  }
+
+  ByteBuffer acquire() {
+    ByteBuffer buffer = free.poll();
+    if (buffer != null) return buffer;
+    allocated++;
+    return ByteBuffer.allocateDirect(bufferSize).order(BankProtocol.ORDER);
+  }
+
+  void release(ByteBuffer buffer) {
+    buffer.clear();
+    if (free.size() < maxPooled) free.push(buffer);
+  }
+
+  /** Buffers criados desde o início (os descartados por excesso também contam). */
+  long allocated() { return allocated; }
+
+  int pooled() { return free.size(); }
+}
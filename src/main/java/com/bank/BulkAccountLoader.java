@@ -0,0 +1,259 @@
+package com.bank;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Carga em massa de saldos iniciais a partir de um CSV {@code id,saldo}.
+ * <p>
+ * O arquivo é mapeado em memória e dividido em faixas alinhadas em quebras de linha, processadas
+ * em paralelo. Ids e valores são lidos direto dos bytes, sem {@code String} intermediária; valores
+ * com mais de 18 dígitos usam um {@code char[]} reaproveitado. A primeira linha pode ser um
+ * cabeçalho; linhas vazias e iniciadas por {@code #} são ignoradas. Saldos com frações de
+ * centavo são recusados, já que a exportação colunar e a visão em centavos não os representam.
+ * <p>
+ * A carga é feita em duas passadas: a primeira só valida o arquivo inteiro (formato, ids
+ * repetidos no arquivo e ids já cadastrados) e a segunda abre as contas. Um arquivo inválido é
+ * recusado antes de qualquer abertura, sem tocar no cadastro, no diário ou na liquidez. Só uma
+ * abertura concorrente do mesmo id, por outra thread entre as duas passadas, ainda falha no meio.
+ */
+public final class BulkAccountLoader {
+  /** Tamanho máximo de cada faixa mapeada (limite de um {@link MappedByteBuffer}). */
+  private static final long MAX_RANGE = 1L << 30;
+  private static final int MAX_LONG_DIGITS = 18;
+
+  private final AccountRegistry registry;
+  private final int parallelism;
+
+  public BulkAccountLoader(AccountRegistry registry) {
+    this(registry, Runtime.getRuntime().availableProcessors());
+  }
+
+  public BulkAccountLoader(AccountRegistry registry, int parallelism) {
+    if (parallelism <= 0) throw new IllegalArgumentException("Paralelismo deve ser > 0");
+    this.registry = Objects.requireNonNull(registry, "Cadastro nulo");
+    this.parallelism = parallelism;
+  }
+
+  /**
+   * Abre no cadastro uma conta por linha do arquivo.
+   * @return número de contas carregadas
+   * @throws IllegalArgumentException se o arquivo for inválido; nesse caso nenhuma conta é aberta
+   */
+  public long load(Path csv) throws IOException {
+    Objects.requireNonNull(csv, "Arquivo nulo");
+    try (FileChannel channel = FileChannel.open(csv, StandardOpenOption.READ)) {
+      long size = channel.size();
+      if (size == 0) return 0;
+      long[] bounds = ranges(channel, size);
+      IdList[] ids = new IdList[bounds.length - 1];
+      forEachRange(ids.length, i -> {
+        ids[i] = new IdList();
+        return loadRange(channel, bounds[i], bounds[i + 1], ids[i]);
+      });
+      checkIds(ids);
+      return forEachRange(ids.length, i -> loadRange(channel, bounds[i], bounds[i + 1], null));
+    }
+  }
+
+  private interface RangeTask {
+    long run(int range) throws IOException;
+  }
+
+  /** Executa {@code task} em cada faixa, em paralelo se houver mais de uma; soma os resultados. */
+  private long forEachRange(int ranges, RangeTask task) throws IOException {
+    if (ranges == 1) return task.run(0);
+    ExecutorService pool = Executors.newFixedThreadPool(Math.min(parallelism, ranges));
+    try {
+      List<Future<Long>> parts = new ArrayList<>();
+      for (int i = 0; i < ranges; i++) {
+        final int range = i;
+        parts.add(pool.submit(() -> task.run(range)));
+      }
+      long total = 0;
+      for (Future<Long> part : parts) total += part.get();
+      return total;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Carga interrompida", e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) throw (IOException) cause;
+      if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+      throw new IllegalStateException(cause);
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  /** Recusa ids repetidos no arquivo ou já presentes no cadastro. */
+  private void checkIds(IdList[] parts) {
+    int total = 0;
+    for (IdList part : parts) total += part.size;
+    long[] all = new long[total];
+    int n = 0;
+    for (IdList part : parts) {
+      System.arraycopy(part.ids, 0, all, n, part.size);
+      n += part.size;
+    }
+    Arrays.sort(all);
+    for (int i = 0; i < all.length; i++) {
+      if (i > 0 && all[i] == all[i - 1]) throw new IllegalArgumentException("Id repetido no arquivo: " + all[i]);
+      if (registry.find(all[i]) != null) throw new IllegalArgumentException("Conta já existe: " + all[i]);
+    }
+  }
+
+  /** Ids lidos por uma faixa na passada de validação. */
+  private static final class IdList {
+    long[] ids = new long[1024];
+    int size;
+
+    void add(long id) {
+      if (size == ids.length) ids = Arrays.copyOf(ids, size * 2);
+      ids[size++] = id;
+    }
+  }
+
+  /** Offsets das faixas, cada uma começando no início de uma linha. */
+  private long[] ranges(FileChannel channel, long size) throws IOException {
+    int count = (int) Math.max(parallelism, (size + MAX_RANGE - 1) / MAX_RANGE);
+    List<Long> bounds = new ArrayList<>();
+    bounds.add(0L);
+    ByteBuffer probe = ByteBuffer.allocate(4096);
+    for (int i = 1; i < count; i++) {
+      long cut = lineStartAtOrAfter(channel, size, size * i / count, probe);
+      if (cut > bounds.get(bounds.size() - 1) && cut < size) bounds.add(cut);
+    }
+    bounds.add(size);
+    long[] result = new long[bounds.size()];
+    for (int i = 0; i < result.length; i++) result[i] = bounds.get(i);
+    return result;
+  }
+
+  private static long lineStartAtOrAfter(FileChannel channel, long size, long pos, ByteBuffer probe) throws IOException {
+    long p = pos - 1;
+    while (p < size) {
+      probe.clear();
+      int n = channel.read(probe, p);
+      if (n <= 0) break;
+      for (int i = 0; i < n; i++) {
+        if (probe.get(i) == '\n') return p + i + 1;
+      }
+      p += n;
+    }
+    return size;
+  }
+
+  /** Com {@code ids} só valida e anota os ids; sem, abre as contas. */
+  private long loadRange(FileChannel channel, long start, long end, IdList ids) throws IOException {
+    long loaded = 0;
+    char[] scratch = new char[64];
+    for (long chunk = start; chunk < end; ) {
+      // faixas maiores que MAX_RANGE são mapeadas em pedaços, sempre cortados em fim de linha
+      long chunkEnd = end - chunk <= MAX_RANGE ? end : lastLineEnd(channel.map(FileChannel.MapMode.READ_ONLY, chunk, MAX_RANGE), chunk);
+      MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, chunk, chunkEnd - chunk);
+      loaded += parse(buf, chunk, scratch, ids);
+      chunk = chunkEnd;
+    }
+    return loaded;
+  }
+
+  private static long lastLineEnd(MappedByteBuffer buf, long base) {
+    for (int i = buf.limit() - 1; i >= 0; i--) {
+      if (buf.get(i) == '\n') return base + i + 1;
+    }
+    throw new IllegalArgumentException("Linha maior que " + MAX_RANGE + " bytes no offset " + base);
+  }
+
+  private long parse(ByteBuffer buf, long base, char[] scratch, IdList ids) {
+    long loaded = 0;
+    int limit = buf.limit();
+    int pos = 0;
+    while (pos < limit) {
+      int end = pos;
+      while (end < limit && buf.get(end) != '\n') end++;
+      int from = pos;
+      int to = end;
+      while (from < to && isBlank(buf.get(from))) from++;
+      while (to > from && isBlank(buf.get(to - 1))) to--;
+      if (from < to && buf.get(from) != '#') {
+        byte first = buf.get(from);
+        boolean header = base + pos == 0 && first != '-' && (first < '0' || first > '9');
+        if (!header) {
+          parseLine(buf, from, to, base + pos, scratch, ids);
+          loaded++;
+        }
+      }
+      pos = end + 1;
+    }
+    return loaded;
+  }
+
+  private void parseLine(ByteBuffer buf, int from, int to, long offset, char[] scratch, IdList ids) {
+    int i = from;
+    boolean negative = buf.get(i) == '-';
+    if (negative) i++;
+    long id = 0;
+    int digits = 0;
+    while (i < to && buf.get(i) >= '0' && buf.get(i) <= '9') {
+      id = id * 10 + (buf.get(i++) - '0');
+      digits++;
+    }
+    if (digits == 0 || digits > MAX_LONG_DIGITS) throw invalid(offset);
+    while (i < to && isBlank(buf.get(i))) i++;
+    if (i >= to || buf.get(i) != ',') throw invalid(offset);
+    i++;
+    while (i < to && isBlank(buf.get(i))) i++;
+    BigDecimal amount = parseAmount(buf, i, to, offset, scratch);
+    if (amount.scale() > Money.MINOR_SCALE && amount.stripTrailingZeros().scale() > Money.MINOR_SCALE) {
+      throw new IllegalArgumentException("Fração de centavo no offset " + offset);
+    }
+    if (ids != null) ids.add(negative ? -id : id);
+    else registry.open(negative ? -id : id, amount);
+  }
+
+  private static BigDecimal parseAmount(ByteBuffer buf, int from, int to, long offset, char[] scratch) {
+    long unscaled = 0;
+    int digits = 0;
+    int scale = -1;
+    for (int i = from; i < to; i++) {
+      byte b = buf.get(i);
+      if (b == '.' && scale < 0) {
+        scale = 0;
+      } else if (b >= '0' && b <= '9') {
+        unscaled = unscaled * 10 + (b - '0');
+        digits++;
+        if (scale >= 0) scale++;
+      } else {
+        throw invalid(offset);
+      }
+    }
+    if (digits == 0) throw invalid(offset);
+    if (digits <= MAX_LONG_DIGITS) return BigDecimal.valueOf(unscaled, Math.max(scale, 0));
+    int length = to - from;
+    if (length > scratch.length) scratch = new char[length];
+    for (int i = 0; i < length; i++) scratch[i] = (char) buf.get(from + i);
+    return new BigDecimal(scratch, 0, length);
+  }
+
+  private static boolean isBlank(byte b) {
+    return b == ' ' || b == '\t' || b == '\r';
+  }
+
+  private static IllegalArgumentException invalid(long offset) {
+    return new IllegalArgumentException("Linha inválida no offset " + offset);
+  }
+}
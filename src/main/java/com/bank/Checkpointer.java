@@ -0,0 +1,389 @@
+package com.bank;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.CRC32;
+
+/**
+ * Checkpoints dos saldos de um {@link AccountRegistry} num diretório.
+ * <p>
+ * Um checkpoint incremental grava só as contas alteradas desde o anterior; a cada
+ * {@code fullEvery} checkpoints (e no primeiro) um checkpoint completo grava todas as contas e
+ * apaga os arquivos anteriores, que ele consolida. Assim a escrita acompanha o volume de
+ * mudanças, não o total de contas.
+ * <p>
+ * Com um {@link OperationJournal} no cadastro o checkpoint é um corte consistente: os saldos não
+ * são lidos das contas, e sim dobrados do diário até {@link OperationJournal#committed()}, que
+ * fica sempre na fronteira de um lote. O arquivo guarda essa posição, e
+ * {@link #restore(Path, OperationJournal, AccountRegistry)} refaz o diário a partir dela. Nada é
+ * travado: o checkpoint só lê o diário, e em troca guarda em memória uma cópia dos saldos.
+ * <p>
+ * Sem diário, o cadastro marca num {@link ConcurrentBitSet} a posição de cada conta alterada e
+ * cada conta é lida com a própria trava só pelo tempo de copiar o estado. Depósitos e saques
+ * nunca param, mas o checkpoint é "difuso": cada conta é consistente, mas contas diferentes
+ * podem ter sido lidas em momentos diferentes, e não há posição de onde refazer.
+ * <pre>
+ *   arquivo:  int MAGIC, byte tipo (0 completo, 1 incremental), long sequência,
+ *             long posição no diário (-1 = difuso),
+ *             contas no formato de {@link BinaryCodec}, long quantidade, int CRC32 das contas
+ * </pre>
+ * Arquivos são gravados com outro nome, forçados ao disco e renomeados; um checkpoint
+ * interrompido nunca aparece.
+ */
+public final class Checkpointer implements Closeable {
+  static final int MAGIC = 0x43484b50; // "CHKP"
+  static final byte FULL = 0;
+  static final byte INCREMENTAL = 1;
+  private static final int HEADER_SIZE = 4 + 1 + 8 + 8;
+  private static final int FOOTER_SIZE = 8 + 4;
+  private static final String PREFIX = "checkpoint-";
+
+  private final AccountRegistry registry;
+  private final Path directory;
+  private final int fullEvery;
+  private final ConcurrentBitSet changes;
+  private final OperationJournal journal;
+  /** Saldos dobrados do diário até {@link #journaled}, por id; só com diário. */
+  private final Map<Long, Image> image = new HashMap<>();
+  private final List<Image> dirty = new ArrayList<>();
+  private long journaled;
+  private final Thread writer;
+  private ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+  private long sequence;
+  private int sinceFull = -1;
+  private volatile boolean closed;
+  private volatile IOException failure;
+  private volatile long checkpoints;
+  private volatile long fullCheckpoints;
+  private volatile long accountsWritten;
+  private volatile long bytesWritten;
+
+  /**
+   * @param intervalMillis intervalo entre checkpoints em segundo plano (0 = só {@link #checkpoint()})
+   * @param fullEvery      checkpoints entre dois completos (1 = todos completos)
+   */
+  public Checkpointer(AccountRegistry registry, Path directory, long intervalMillis, int fullEvery)
+      throws IOException {
+    if (registry == null) throw new NullPointerException("Cadastro nulo");
+    if (intervalMillis < 0) throw new IllegalArgumentException("Intervalo negativo");
+    if (fullEvery <= 0) throw new IllegalArgumentException("Intervalo de consolidação deve ser > 0");
+    this.registry = registry;
+    this.directory = Files.createDirectories(directory);
+    this.fullEvery = fullEvery;
+    this.journal = registry.journal();
+    this.changes = journal == null ? registry.trackChanges() : null;
+    List<Path> existing = files(directory);
+    if (!existing.isEmpty()) sequence = sequenceOf(existing.get(existing.size() - 1));
+    if (intervalMillis > 0) {
+      long interval = TimeUnit.MILLISECONDS.toNanos(intervalMillis);
+      writer = new Thread(() -> run(interval), "checkpointer");
+      writer.setDaemon(true);
+      writer.start();
+    } else {
+      writer = null;
+    }
+  }
+
+  /** Grava o próximo checkpoint, completo ou incremental; retorna quantas contas gravou. */
+  public synchronized int checkpoint() throws IOException {
+    boolean full = sinceFull < 0 || sinceFull + 1 >= fullEvery;
+    long seq = ++sequence;
+    Path target = directory.resolve(name(seq, full));
+    Path temp = directory.resolve(target.getFileName() + ".tmp");
+    int written;
+    try {
+      try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+          StandardOpenOption.TRUNCATE_EXISTING)) {
+        Output out = new Output(channel);
+        buffer.clear();
+        long position = journal == null ? -1 : fold();
+        buffer.putInt(MAGIC).put(full ? FULL : INCREMENTAL).putLong(seq).putLong(position);
+        out.mark();
+        if (journal != null) {
+          for (Image account : full ? image.values() : dirty) out.write(account.id, account.balance, account.seq);
+          for (Image account : dirty) account.dirty = false;
+          dirty.clear();
+        } else if (full) {
+          // marcas feitas depois da drenagem voltam no próximo incremental
+          changes.drain(slot -> { });
+          int slots = registry.slots();
+          for (int slot = 0; slot < slots; slot++) out.write(registry.bySlot(slot));
+        } else {
+          changes.drain(slot -> out.write(registry.bySlot(slot)));
+        }
+        if (out.error != null) throw out.error;
+        written = out.count;
+        out.finish();
+        channel.force(true);
+      }
+      Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      // as marcas drenadas se perderam com o arquivo: o próximo checkpoint precisa ser completo
+      sinceFull = -1;
+      for (Image account : dirty) account.dirty = false;
+      dirty.clear();
+      Files.deleteIfExists(temp);
+      throw e;
+    }
+    checkpoints++;
+    accountsWritten += written;
+    if (full) {
+      fullCheckpoints++;
+      sinceFull = 0;
+      for (Path old : files(directory)) {
+        if (sequenceOf(old) < seq) Files.deleteIfExists(old);
+      }
+    } else {
+      sinceFull++;
+    }
+    return written;
+  }
+
+  /**
+   * Aplica à imagem os lançamentos publicados desde o último checkpoint e retorna a nova
+   * posição. {@code committed()} nunca corta um lote, então a imagem é um estado real do cadastro.
+   */
+  private long fold() {
+    long to = journal.committed();
+    journal.read(journaled, to, (seq, type, account, counterparty, amount) -> {
+      switch (type) {
+        case OPEN: touch(account, seq); break;
+        case DEPOSIT: touch(account, seq).add(amount); break;
+        case WITHDRAW: touch(account, seq).add(amount.negate()); break;
+        case TRANSFER:
+          touch(account, seq).add(amount.negate());
+          touch(counterparty, seq).add(amount);
+          break;
+      }
+    });
+    journaled = to;
+    return to;
+  }
+
+  private Image touch(long id, long seq) {
+    Image account = image.get(id);
+    if (account == null) image.put(id, account = new Image(id));
+    account.seq = seq;
+    if (!account.dirty) {
+      account.dirty = true;
+      dirty.add(account);
+    }
+    return account;
+  }
+
+  /** Saldo de uma conta na imagem dobrada do diário. */
+  private static final class Image {
+    final long id;
+    BigDecimal balance = BigDecimal.ZERO;
+    /** Último lançamento que mexeu na conta; gravado no lugar da versão. */
+    long seq;
+    boolean dirty;
+
+    Image(long id) { this.id = id; }
+
+    void add(BigDecimal delta) { balance = balance.add(delta); }
+  }
+
+  public long checkpoints() { return checkpoints; }
+
+  public long fullCheckpoints() { return fullCheckpoints; }
+
+  /** Contas gravadas somando todos os checkpoints. */
+  public long accountsWritten() { return accountsWritten; }
+
+  public long bytesWritten() { return bytesWritten; }
+
+  /** Erro do último checkpoint em segundo plano, ou {@code null}. */
+  public IOException failure() { return failure; }
+
+  /**
+   * Abre em {@code into} as contas do último checkpoint completo de {@code directory} com os
+   * incrementais seguintes aplicados em ordem; retorna quantas contas abriu.
+   */
+  public static int restore(Path directory, AccountRegistry into) throws IOException {
+    return restore(directory, null, into);
+  }
+
+  /**
+   * Como {@link #restore(Path, AccountRegistry)}, e em seguida refaz os lançamentos de
+   * {@code journal} da posição gravada no checkpoint até {@link OperationJournal#committed()}.
+   * Exige checkpoints gravados com diário.
+   * @param journal diário do cadastro de origem, ou uma réplica dele ({@code null} = não refaz)
+   */
+  public static int restore(Path directory, OperationJournal journal, AccountRegistry into) throws IOException {
+    List<Path> files = files(directory);
+    int base = -1;
+    for (int i = files.size() - 1; i >= 0 && base < 0; i--) {
+      if (files.get(i).getFileName().toString().endsWith(".full")) base = i;
+    }
+    if (base < 0) return 0;
+    Map<Long, BigDecimal> balances = new LinkedHashMap<>();
+    long position = -1;
+    BinaryCodec.AccountState state = new BinaryCodec.AccountState();
+    for (int i = base; i < files.size(); i++) {
+      ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(files.get(i)));
+      if (data.remaining() < HEADER_SIZE + FOOTER_SIZE || data.getInt() != MAGIC) {
+        throw new IOException("Checkpoint inválido: " + files.get(i));
+      }
+      data.get();
+      data.getLong();
+      position = data.getLong();
+      int end = data.limit() - FOOTER_SIZE;
+      long count = data.getLong(end);
+      int crc = data.getInt(end + 8);
+      CRC32 check = new CRC32();
+      check.update(data.array(), HEADER_SIZE, end - HEADER_SIZE);
+      if ((int) check.getValue() != crc) throw new IOException("Checkpoint corrompido: " + files.get(i));
+      data.limit(end);
+      for (long n = 0; n < count; n++) {
+        BinaryCodec.decodeAccount(data, state);
+        balances.put(state.getId(), state.getBalance());
+      }
+    }
+    if (journal != null) {
+      if (position < 0) throw new IOException("Checkpoint difuso não pode ser completado pelo diário");
+      long to = journal.committed();
+      if (position > to) throw new IOException("Diário termina antes do checkpoint: " + to + " < " + position);
+      journal.read(position, to, (seq, type, account, counterparty, amount) -> {
+        switch (type) {
+          case OPEN: balances.putIfAbsent(account, BigDecimal.ZERO); break;
+          case DEPOSIT: balances.merge(account, amount, BigDecimal::add); break;
+          case WITHDRAW: balances.merge(account, amount.negate(), BigDecimal::add); break;
+          case TRANSFER:
+            balances.merge(account, amount.negate(), BigDecimal::add);
+            balances.merge(counterparty, amount, BigDecimal::add);
+            break;
+        }
+      });
+    }
+    for (Map.Entry<Long, BigDecimal> entry : balances.entrySet()) into.open(entry.getKey(), entry.getValue());
+    return balances.size();
+  }
+
+  private void run(long intervalNanos) {
+    while (!closed) {
+      LockSupport.parkNanos(intervalNanos);
+      if (closed) return;
+      try {
+        checkpoint();
+      } catch (IOException e) {
+        failure = e;
+      }
+    }
+  }
+
+  /** Acumula contas no buffer, gravando no canal quando enche e calculando o CRC. */
+  private final class Output {
+    final FileChannel channel;
+    final CRC32 crc = new CRC32();
+    int count;
+    int mark;
+    IOException error;
+
+    Output(FileChannel channel) { this.channel = channel; }
+
+    void mark() { mark = buffer.position(); }
+
+    void write(Account account) {
+      if (account == null) return;
+      long version;
+      BigDecimal balance;
+      synchronized (account) {
+        version = account.version();
+        balance = account.peekBalance();
+      }
+      write(account.getId(), balance, version);
+    }
+
+    void write(long id, BigDecimal balance, long version) {
+      if (error != null) return;
+      try {
+        while (true) {
+          try {
+            BinaryCodec.encodeAccount(buffer, id, balance, version);
+            count++;
+            return;
+          } catch (BufferOverflowException e) {
+            if (buffer.position() == 0) {
+              buffer = ByteBuffer.allocateDirect(buffer.capacity() * 2);
+            } else {
+              flush();
+            }
+          }
+        }
+      } catch (IOException e) {
+        error = e;
+      }
+    }
+
+    void flush() throws IOException {
+      buffer.flip();
+      ByteBuffer records = buffer.duplicate();
+      records.position(mark);
+      crc.update(records);
+      mark = 0;
+      while (buffer.hasRemaining()) bytesWritten += channel.write(buffer);
+      buffer.clear();
+    }
+
+    void finish() throws IOException {
+      if (buffer.remaining() < FOOTER_SIZE) flush();
+      ByteBuffer records = buffer.duplicate();
+      records.flip().position(mark);
+      crc.update(records);
+      buffer.putLong(count).putInt((int) crc.getValue());
+      mark = buffer.position();
+      buffer.flip();
+      while (buffer.hasRemaining()) bytesWritten += channel.write(buffer);
+    }
+  }
+
+  private static String name(long seq, boolean full) {
+    return String.format("%s%016d.%s", PREFIX, seq, full ? "full" : "incr");
+  }
+
+  private static long sequenceOf(Path file) {
+    String name = file.getFileName().toString();
+    return Long.parseLong(name.substring(PREFIX.length(), name.indexOf('.')));
+  }
+
+  /** Checkpoints do diretório em ordem de sequência. */
+  private static List<Path> files(Path directory) throws IOException {
+    List<Path> files = new ArrayList<>();
+    if (!Files.isDirectory(directory)) return files;
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, PREFIX + "*.{full,incr}")) {
+      for (Path file : stream) files.add(file);
+    }
+    Collections.sort(files);
+    return files;
+  }
+
+  @Override
+  public void close() {
+    closed = true;
+    if (writer == null) return;
+    LockSupport.unpark(writer);
+    try {
+      writer.join(TimeUnit.SECONDS.toMillis(30));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,250 @@
+package com.bank;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+import static com.bank.ColumnarFormat.*;
+
+/**
+ * Exporta para análise um snapshot consistente do cadastro em formato colunar ({@link ColumnarFormat}).
+ * <p>
+ * O snapshot é o prefixo publicado do {@link OperationJournal}: os saldos são a dobra das
+ * operações até esse ponto e o histórico são as próprias operações. Nada é lido das contas,
+ * então o tráfego de {@link TransferService} segue sem pausa durante a exportação.
+ * <p>
+ * Tabelas geradas:
+ * <ul>
+ *   <li>{@code balances}: {@code account}, {@code balance} (centavos), ordenada por conta;</li>
+ *   <li>{@code operations}: {@code seq}, {@code type} (ordinal de {@link OperationType}),
+ *       {@code account}, {@code counterparty}, {@code amount} (centavos).</li>
+ * </ul>
+ * Valores com frações de centavo não são representáveis e interrompem a exportação
+ * com {@link ArithmeticException}. O arquivo é gravado ao lado do destino e só substitui
+ * {@code out} quando completo, então uma exportação interrompida não deixa arquivo truncado.
+ */
+public final class ColumnarExporter {
+  static final String BALANCES = "balances";
+  static final String OPERATIONS = "operations";
+  static final String[] BALANCE_COLUMNS = {"account", "balance"};
+  static final String[] OPERATION_COLUMNS = {"seq", "type", "account", "counterparty", "amount"};
+
+  private final int rowGroupSize;
+
+  public ColumnarExporter() {
+    this(1 << 16);
+  }
+
+  public ColumnarExporter(int rowGroupSize) {
+    if (rowGroupSize <= 0) throw new IllegalArgumentException("Grupo de linhas deve ser > 0");
+    this.rowGroupSize = rowGroupSize;
+  }
+
+  /**
+   * Grava o snapshot do diário em {@code out}.
+   * @return sequência exclusiva até onde o snapshot vai
+   */
+  public long export(OperationJournal journal, Path out) throws IOException {
+    Objects.requireNonNull(journal, "Diário nulo");
+    Objects.requireNonNull(out, "Arquivo nulo");
+    long watermark = journal.committed();
+    Path temp = out.resolveSibling(out.getFileName() + ".tmp");
+    try {
+      write(journal, watermark, temp);
+      Files.move(temp, out, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException | RuntimeException e) {
+      Files.deleteIfExists(temp);
+      throw e;
+    }
+    return watermark;
+  }
+
+  private void write(OperationJournal journal, long watermark, Path out) throws IOException {
+    try (CountingOutput file = new CountingOutput(new BufferedOutputStream(Files.newOutputStream(out), 1 << 16))) {
+      DataOutputStream data = new DataOutputStream(file);
+      data.writeInt(MAGIC);
+      data.writeShort(VERSION);
+
+      Map<Long, BigDecimal> balances = new TreeMap<>();
+      TableWriter operations = new TableWriter(OPERATIONS, OPERATION_COLUMNS, file);
+      TableWriter balanceTable = new TableWriter(BALANCES, BALANCE_COLUMNS, file);
+      try {
+        journal.read(0, watermark, (seq, type, account, counterparty, amount) -> {
+          switch (type) {
+            case OPEN:
+              balances.putIfAbsent(account, BigDecimal.ZERO);
+              break;
+            case DEPOSIT:
+              balances.merge(account, amount, BigDecimal::add);
+              break;
+            case WITHDRAW:
+              balances.merge(account, amount.negate(), BigDecimal::add);
+              break;
+            case TRANSFER:
+              balances.merge(account, amount.negate(), BigDecimal::add);
+              balances.merge(counterparty, amount, BigDecimal::add);
+              break;
+            default:
+              throw new IllegalStateException("Tipo desconhecido: " + type);
+          }
+          operations.row(seq, type.ordinal(), account, counterparty, Money.toMinorUnits(amount));
+        });
+        operations.finish();
+        for (Map.Entry<Long, BigDecimal> e : balances.entrySet()) {
+          balanceTable.row(e.getKey(), Money.toMinorUnits(e.getValue()));
+        }
+        balanceTable.finish();
+      } catch (UncheckedIOException e) {
+        throw e.getCause();
+      }
+
+      long footer = file.count;
+      ByteArrayOutputStream varints = new ByteArrayOutputStream();
+      writeVarLong(varints, watermark);
+      writeVarLong(varints, 2);
+      varints.writeTo(data);
+      operations.writeMetadata(data);
+      balanceTable.writeMetadata(data);
+      data.writeLong(footer);
+      data.writeInt(MAGIC);
+      data.flush();
+    }
+  }
+
+  /** Acumula linhas de uma tabela e grava um bloco por coluna a cada grupo completo. */
+  private final class TableWriter {
+    private final String name;
+    private final String[] columns;
+    private final CountingOutput out;
+    private final long[][] buffer;
+    private int rows;
+    private final List<long[]> groupMeta = new ArrayList<>();
+    private final List<Integer> groupRows = new ArrayList<>();
+
+    TableWriter(String name, String[] columns, CountingOutput out) {
+      this.name = name;
+      this.columns = columns;
+      this.out = out;
+      this.buffer = new long[columns.length][rowGroupSize];
+    }
+
+    void row(long... values) {
+      for (int c = 0; c < columns.length; c++) buffer[c][rows] = values[c];
+      if (++rows == rowGroupSize) flushGroup();
+    }
+
+    void finish() {
+      if (rows > 0) flushGroup();
+    }
+
+    private void flushGroup() {
+      try {
+        long[] meta = new long[columns.length * 5];
+        for (int c = 0; c < columns.length; c++) {
+          long offset = out.count;
+          byte encoding = writeChunk(buffer[c], rows, out);
+          long min = Long.MAX_VALUE;
+          long max = Long.MIN_VALUE;
+          for (int r = 0; r < rows; r++) {
+            min = Math.min(min, buffer[c][r]);
+            max = Math.max(max, buffer[c][r]);
+          }
+          meta[c * 5] = offset;
+          meta[c * 5 + 1] = out.count - offset;
+          meta[c * 5 + 2] = encoding;
+          meta[c * 5 + 3] = min;
+          meta[c * 5 + 4] = max;
+        }
+        groupMeta.add(meta);
+        groupRows.add(rows);
+        rows = 0;
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+
+    void writeMetadata(DataOutputStream data) throws IOException {
+      data.writeUTF(name);
+      ByteArrayOutputStream varints = new ByteArrayOutputStream();
+      writeVarLong(varints, columns.length);
+      varints.writeTo(data);
+      for (String column : columns) data.writeUTF(column);
+      varints.reset();
+      writeVarLong(varints, groupMeta.size());
+      varints.writeTo(data);
+      for (int g = 0; g < groupMeta.size(); g++) {
+        varints.reset();
+        writeVarLong(varints, groupRows.get(g));
+        varints.writeTo(data);
+        long[] meta = groupMeta.get(g);
+        for (int c = 0; c < columns.length; c++) {
+          data.writeLong(meta[c * 5]);
+          data.writeInt((int) meta[c * 5 + 1]);
+          data.writeByte((int) meta[c * 5 + 2]);
+          data.writeLong(meta[c * 5 + 3]);
+          data.writeLong(meta[c * 5 + 4]);
+        }
+      }
+    }
+  }
+
+  /** Codifica um bloco: dicionário se houver até 256 valores distintos, senão delta. */
+  static byte writeChunk(long[] values, int n, OutputStream out) throws IOException {
+    ByteArrayOutputStream chunk = new ByteArrayOutputStream(n * 2 + 16);
+    long[] sorted = Arrays.copyOf(values, n);
+    Arrays.sort(sorted);
+    int distinct = 0;
+    for (int i = 0; i < n; i++) {
+      if (i == 0 || sorted[i] != sorted[i - 1]) sorted[distinct++] = sorted[i];
+    }
+    byte encoding;
+    if (distinct <= MAX_DICTIONARY) {
+      encoding = DICTIONARY;
+      writeVarLong(chunk, distinct);
+      long previous = 0;
+      for (int i = 0; i < distinct; i++) {
+        writeVarLong(chunk, sorted[i] - previous);
+        previous = sorted[i];
+      }
+      for (int r = 0; r < n; r++) chunk.write(Arrays.binarySearch(sorted, 0, distinct, values[r]));
+    } else {
+      encoding = DELTA;
+      long previous = 0;
+      for (int r = 0; r < n; r++) {
+        writeVarLong(chunk, values[r] - previous);
+        previous = values[r];
+      }
+    }
+    chunk.writeTo(out);
+    return encoding;
+  }
+
+  /** Stream que conta os bytes gravados, para registrar os offsets dos blocos. */
+  private static final class CountingOutput extends OutputStream {
+    private final OutputStream out;
+    long count;
+
+    CountingOutput(OutputStream out) { this.out = out; }
+
+    @Override public void write(int b) throws IOException { out.write(b); count++; }
+
+    @Override public void write(byte[] b, int off, int len) throws IOException { out.write(b, off, len); count += len; }
+
+    @Override public void flush() throws IOException { out.flush(); }
+
+    @Override public void close() throws IOException { out.close(); }
+  }
+}
@@ -0,0 +1,52 @@
+package com.bank;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Formato colunar do {@link ColumnarExporter}.
+ * <pre>
+ * cabeçalho: magic int | versão short
+ * blocos de coluna (um por coluna por grupo de linhas)
+ * rodapé:    watermark varint | nº de tabelas varint
+ *            por tabela: nome UTF | nº de colunas varint | nomes UTF | nº de grupos varint
+ *              por grupo: linhas varint | por coluna: offset long, tamanho int, codificação byte, mín long, máx long
+ * final:     offset do rodapé long | magic int
+ * </pre>
+ * Campos de tamanho fixo em big-endian.
+ * Blocos {@link #DELTA}: diferenças sucessivas em varint zig-zag.
+ * Blocos {@link #DICTIONARY}: dicionário ordenado (tamanho e valores em delta) e um índice de 1 byte por linha.
+ */
+final class ColumnarFormat {
+  static final int MAGIC = 0x42434F4C; // "BCOL"
+  static final short VERSION = 1;
+  static final int TRAILER_SIZE = 12;
+
+  static final byte DELTA = 0;
+  static final byte DICTIONARY = 1;
+  static final int MAX_DICTIONARY = 256;
+
+  private ColumnarFormat() { }
+
+  static void writeVarLong(ByteArrayOutputStream out, long value) {
+    long v = (value << 1) ^ (value >> 63);
+    while ((v & ~0x7FL) != 0) {
+      out.write((int) ((v & 0x7F) | 0x80));
+      v >>>= 7;
+    }
+    out.write((int) v);
+  }
+
+  static long readVarLong(ByteBuffer in) {
+    long v = 0;
+    int shift = 0;
+    while (true) {
+      byte b = in.get();
+      v |= (long) (b & 0x7F) << shift;
+      if (b >= 0) break;
+      shift += 7;
+      if (shift > 63) throw new IllegalArgumentException("Varint inválido");
+    }
+    return (v >>> 1) ^ -(v & 1);
+  }
+}
@@ -0,0 +1,174 @@
+package com.bank;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.LongConsumer;
+
+import static com.bank.ColumnarFormat.*;
+
+/**
+ * Leitura de arquivos gerados pelo {@link ColumnarExporter}.
+ * Só o rodapé é lido na abertura; os blocos de coluna são decodificados sob demanda e
+ * as estatísticas de mínimo/máximo permitem pular grupos de linhas inteiros numa varredura.
+ * O arquivo é mapeado de uma vez, o que limita o tamanho a 2 GB.
+ */
+public final class ColumnarReader implements Closeable {
+  private final FileChannel channel;
+  private final MappedByteBuffer file;
+  private final long watermark;
+  private final Map<String, Table> tables = new LinkedHashMap<>();
+
+  public ColumnarReader(Path path) throws IOException {
+    this.channel = FileChannel.open(path, StandardOpenOption.READ);
+    try {
+      long size = channel.size();
+      if (size < 6 + TRAILER_SIZE) throw new IllegalArgumentException("Arquivo colunar truncado");
+      this.file = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+      if (file.getInt(0) != MAGIC || file.getInt((int) size - 4) != MAGIC) {
+        throw new IllegalArgumentException("Arquivo não é colunar");
+      }
+      if (file.getShort(4) != VERSION) throw new IllegalArgumentException("Versão não suportada: " + file.getShort(4));
+      ByteBuffer footer = file.duplicate();
+      footer.position((int) file.getLong((int) size - TRAILER_SIZE));
+      footer.limit((int) size - TRAILER_SIZE);
+      this.watermark = readVarLong(footer);
+      long tableCount = readVarLong(footer);
+      for (long t = 0; t < tableCount; t++) {
+        Table table = new Table(footer);
+        tables.put(table.name, table);
+      }
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  /** Sequência exclusiva do diário até onde o snapshot vai. */
+  public long watermark() { return watermark; }
+
+  public Set<String> tables() { return Collections.unmodifiableSet(tables.keySet()); }
+
+  public long rowCount(String table) {
+    long rows = 0;
+    for (int r : table(table).groupRows) rows += r;
+    return rows;
+  }
+
+  public int rowGroups(String table) { return table(table).groupRows.size(); }
+
+  public long min(String table, int rowGroup, String column) { return table(table).meta(rowGroup, column)[3]; }
+
+  public long max(String table, int rowGroup, String column) { return table(table).meta(rowGroup, column)[4]; }
+
+  /** Decodifica uma coluna de um grupo de linhas. */
+  public long[] read(String table, int rowGroup, String column) {
+    Table t = table(table);
+    long[] meta = t.meta(rowGroup, column);
+    int rows = t.groupRows.get(rowGroup);
+    ByteBuffer chunk = file.duplicate();
+    chunk.position((int) meta[0]);
+    chunk.limit((int) (meta[0] + meta[1]));
+    long[] values = new long[rows];
+    if (meta[2] == DICTIONARY) {
+      int size = (int) readVarLong(chunk);
+      long[] dictionary = new long[size];
+      long previous = 0;
+      for (int i = 0; i < size; i++) dictionary[i] = previous += readVarLong(chunk);
+      for (int r = 0; r < rows; r++) values[r] = dictionary[chunk.get() & 0xFF];
+    } else if (meta[2] == DELTA) {
+      long previous = 0;
+      for (int r = 0; r < rows; r++) values[r] = previous += readVarLong(chunk);
+    } else {
+      throw new IllegalArgumentException("Codificação desconhecida: " + meta[2]);
+    }
+    return values;
+  }
+
+  /** Grupos de linhas cujas estatísticas admitem valores de {@code column} em {@code [min, max]}. */
+  public int[] candidateRowGroups(String table, String column, long min, long max) {
+    Table t = table(table);
+    int[] candidates = new int[t.groupRows.size()];
+    int n = 0;
+    for (int g = 0; g < candidates.length; g++) {
+      long[] meta = t.meta(g, column);
+      if (meta[4] >= min && meta[3] <= max) candidates[n++] = g;
+    }
+    return java.util.Arrays.copyOf(candidates, n);
+  }
+
+  /**
+   * Entrega os valores de {@code column} em {@code [min, max]}, lendo apenas os grupos candidatos.
+   * @return quantidade de valores entregues
+   */
+  public long scan(String table, String column, long min, long max, LongConsumer consumer) {
+    long matched = 0;
+    for (int g : candidateRowGroups(table, column, min, max)) {
+      for (long v : read(table, g, column)) {
+        if (v >= min && v <= max) {
+          consumer.accept(v);
+          matched++;
+        }
+      }
+    }
+    return matched;
+  }
+
+  private Table table(String name) {
+    Table table = tables.get(name);
+    if (table == null) throw new IllegalArgumentException("Tabela inexistente: " + name);
+    return table;
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+
+  private static String readUtf(ByteBuffer in) {
+    byte[] bytes = new byte[in.getShort() & 0xFFFF];
+    in.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private static final class Table {
+    final String name;
+    final Map<String, Integer> columns = new LinkedHashMap<>();
+    final List<Integer> groupRows = new ArrayList<>();
+    /** Por grupo: offset, tamanho, codificação, mín e máx de cada coluna. */
+    final List<long[][]> groups = new ArrayList<>();
+
+    Table(ByteBuffer footer) {
+      this.name = readUtf(footer);
+      long columnCount = readVarLong(footer);
+      for (int c = 0; c < columnCount; c++) columns.put(readUtf(footer), c);
+      long groupCount = readVarLong(footer);
+      for (long g = 0; g < groupCount; g++) {
+        groupRows.add((int) readVarLong(footer));
+        long[][] meta = new long[(int) columnCount][];
+        for (int c = 0; c < columnCount; c++) {
+          meta[c] = new long[] {footer.getLong(), footer.getInt(), footer.get(), footer.getLong(), footer.getLong()};
+        }
+        groups.add(meta);
+      }
+    }
+
+    long[] meta(int group, String column) {
+      Integer c = columns.get(column);
+      if (c == null) throw new IllegalArgumentException("Coluna inexistente: " + column);
+      if (group < 0 || group >= groups.size()) throw new IndexOutOfBoundsException("Grupo " + group);
+      return groups.get(group)[c];
+    }
+  }
+}
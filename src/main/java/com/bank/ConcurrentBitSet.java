@@ -0,0 +1,98 @@
+package com.bank;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.IntConsumer;
+
+/**
+ * Conjunto de inteiros não negativos marcados concorrentemente e drenados por um leitor.
+ * <p>
+ * Os bits ficam em páginas de 4096 ({@code 64} palavras), cada uma com uma palavra-resumo que
+ * diz quais palavras podem ter bits. {@link #set} é um OR atômico (e mais um no resumo só quando
+ * o bit era novo); {@link #drain} visita só as palavras marcadas no resumo, então o custo segue
+ * a quantidade de marcas e não o tamanho do conjunto. Uma marca feita durante a drenagem é
+ * entregue nela ou na próxima, nunca perdida.
+ */
+final class ConcurrentBitSet {
+  private static final int PAGE_BITS = 12;
+  private static final int PAGE_MASK = (1 << PAGE_BITS) - 1;
+  private static final int WORDS = 1 << (PAGE_BITS - 6);
+
+  private volatile Page[] pages = new Page[16];
+
+  void set(int index) {
+    if (index < 0) throw new IllegalArgumentException("Índice negativo: " + index);
+    Page page = page(index >>> PAGE_BITS);
+    int bit = index & PAGE_MASK;
+    int word = bit >>> 6;
+    long mask = 1L << bit;
+    long prev;
+    do {
+      prev = page.words.get(word);
+      if ((prev & mask) != 0) return;
+    } while (!page.words.compareAndSet(word, prev, prev | mask));
+    // o resumo vem depois da palavra: quem limpa o resumo antes de ler a palavra não perde o bit
+    long summary;
+    do {
+      summary = page.summary.get();
+      if ((summary & (1L << word)) != 0) return;
+    } while (!page.summary.compareAndSet(summary, summary | (1L << word)));
+  }
+
+  boolean get(int index) {
+    Page[] dir = pages;
+    int p = index >>> PAGE_BITS;
+    if (index < 0 || p >= dir.length || dir[p] == null) return false;
+    int bit = index & PAGE_MASK;
+    return (dir[p].words.get(bit >>> 6) & (1L << bit)) != 0;
+  }
+
+  /** Limpa e entrega cada índice marcado, em ordem crescente; retorna quantos entregou. */
+  int drain(IntConsumer consumer) {
+    int drained = 0;
+    Page[] dir = pages;
+    for (int p = 0; p < dir.length; p++) {
+      Page page = dir[p];
+      if (page == null) continue;
+      long summary = page.summary.getAndSet(0);
+      while (summary != 0) {
+        int word = Long.numberOfTrailingZeros(summary);
+        summary &= summary - 1;
+        long bits = page.words.getAndSet(word, 0);
+        while (bits != 0) {
+          int bit = Long.numberOfTrailingZeros(bits);
+          bits &= bits - 1;
+          consumer.accept((p << PAGE_BITS) | (word << 6) | bit);
+          drained++;
+        }
+      }
+    }
+    return drained;
+  }
+
+  private Page page(int index) {
+    Page[] dir = pages;
+    if (index < dir.length) {
+      Page page = dir[index];
+      if (page != null) return page;
+    }
+    return createPage(index);
+  }
+
+  private synchronized Page createPage(int index) {
+    Page[] dir = pages;
+    if (index >= dir.length) {
+      Page[] grown = new Page[Math.max(dir.length * 2, index + 1)];
+      System.arraycopy(dir, 0, grown, 0, dir.length);
+      dir = grown;
+    }
+    if (dir[index] == null) dir[index] = new Page();
+    pages = dir;
+    return dir[index];
+  }
+
+  private static final class Page {
+    final AtomicLongArray words = new AtomicLongArray(WORDS);
+    final AtomicLong summary = new AtomicLong();
+  }
+}
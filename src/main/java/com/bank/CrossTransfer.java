@@ -0,0 +1,41 @@
+package com.bank;
+
+import java.math.BigDecimal;
+
+/**
+ * Transferência entre contas que podem estar em partições diferentes, executada por
+ * {@link TwoPhaseCoordinator}. Contas são identificadas por partição e id no cadastro.
+ */
+public final class CrossTransfer {
+  private final int fromPartition;
+  private final long fromAccount;
+  private final int toPartition;
+  private final long toAccount;
+  private final long amount;
+
+  public CrossTransfer(int fromPartition, long fromAccount, int toPartition, long toAccount, BigDecimal amount) {
+    if (fromPartition == toPartition && fromAccount == toAccount) throw new IllegalArgumentException("Mesma conta");
+    if (amount == null || amount.signum() <= 0) throw new IllegalArgumentException("Valor inválido");
+    try {
+      this.amount = Money.toMinorUnits(amount);
+    } catch (ArithmeticException e) {
+      throw new IllegalArgumentException("Valor inválido", e);
+    }
+    this.fromPartition = fromPartition;
+    this.fromAccount = fromAccount;
+    this.toPartition = toPartition;
+    this.toAccount = toAccount;
+  }
+
+  public int getFromPartition() { return fromPartition; }
+
+  public long getFromAccount() { return fromAccount; }
+
+  public int getToPartition() { return toPartition; }
+
+  public long getToAccount() { return toAccount; }
+
+  public BigDecimal getAmount() { return Money.fromMinorUnits(amount); }
+
+  long amountCents() { return amount; }
+}
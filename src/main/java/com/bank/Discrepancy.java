@@ -0,0 +1,53 @@
+package com.bank;
+
+import java.math.BigDecimal;
+
+/**
+ * Divergência encontrada na conciliação entre o extrato externo e o diário de operações.
+ */
+public final class Discrepancy {
+
+  public enum Type {
+    /** Mesmo lançamento nos dois lados, com valores diferentes. */
+    AMOUNT_MISMATCH,
+    /** Lançamento do extrato sem correspondente no diário. */
+    MISSING_IN_JOURNAL,
+    /** Lançamento do diário sem correspondente no extrato. */
+    MISSING_IN_STATEMENT,
+    /** Mesma chave (conta, id) repetida no extrato. */
+    DUPLICATE_IN_STATEMENT,
+    /** Mesma chave (conta, id) repetida no diário. */
+    DUPLICATE_IN_JOURNAL
+  }
+
+  private final Type type;
+  private final long account;
+  private final long id;
+  private final BigDecimal statementAmount;
+  private final BigDecimal journalAmount;
+
+  Discrepancy(Type type, long account, long id, BigDecimal statementAmount, BigDecimal journalAmount) {
+    this.type = type;
+    this.account = account;
+    this.id = id;
+    this.statementAmount = statementAmount;
+    this.journalAmount = journalAmount;
+  }
+
+  public Type getType() { return type; }
+
+  public long getAccount() { return account; }
+
+  public long getId() { return id; }
+
+  /** Valor no extrato ou {@code null} se ausente. */
+  public BigDecimal getStatementAmount() { return statementAmount; }
+
+  /** Valor no diário ou {@code null} se ausente. */
+  public BigDecimal getJournalAmount() { return journalAmount; }
+
+  @Override
+  public String toString() {
+    return type + "[conta=" + account + ", id=" + id + ", extrato=" + statementAmount + ", diário=" + journalAmount + "]";
+  }
+}
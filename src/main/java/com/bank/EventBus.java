@@ -0,0 +1,303 @@
+package com.bank;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Barramento de {@link AccountEvent}s para assinantes (notificações, análise, fraude).
+ * <p>
+ * Publicar nunca espera: o evento recebe um offset num log em memória só de acréscimo e é
+ * oferecido ao buffer limitado de cada assinatura, sem lock. Buffer cheio não segura o
+ * publicador (que pode estar dentro de {@link TransferService#transfer} com contas travadas):
+ * o evento fica só no log e a assinatura o busca de lá quando chegar nele. Cada assinatura tem
+ * sua thread, que entrega em lotes e em ordem de offset, exatamente uma vez; um assinante lento
+ * atrasa apenas a si mesmo. Uma assinatura pode começar em qualquer offset ainda retido e
+ * reprocessar o histórico a partir dele.
+ * <p>
+ * O log não é podado sozinho: quem o mantém chama {@link #trim} com o offset a partir do qual
+ * precisa do histórico (por exemplo, o do último checkpoint). A poda libera segmentos inteiros
+ * e nunca passa da posição da assinatura mais atrasada.
+ */
+public final class EventBus implements Closeable {
+  private static final int SEGMENT_BITS = 12;
+  private static final int SEGMENT_SIZE = 1 << SEGMENT_BITS;
+  private static final int SEGMENT_MASK = SEGMENT_SIZE - 1;
+  private static final long IDLE_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+  /** Recebe lotes de eventos com offsets consecutivos a partir de {@code firstOffset}. */
+  public interface Subscriber {
+    /** A lista só vale durante a chamada. */
+    void onEvents(long firstOffset, List<AccountEvent> events);
+  }
+
+  private final AtomicLong next = new AtomicLong();
+  private volatile long watermark;
+  private volatile AtomicReferenceArray<AccountEvent>[] segments = newDirectory(16);
+  /** Primeiro offset retido; sempre no início de um segmento. */
+  private volatile long start;
+  private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+
+  /** Grava o evento no log e o oferece às assinaturas; retorna o offset. */
+  long publish(AccountEvent event) {
+    long offset = next.getAndIncrement();
+    segment(offset >>> SEGMENT_BITS).lazySet((int) (offset & SEGMENT_MASK), event);
+    for (Subscription subscription : subscriptions) subscription.offer(offset, event);
+    return offset;
+  }
+
+  /** Offset exclusivo até onde todos os eventos estão publicados. */
+  public long published() {
+    long w = watermark;
+    long limit = next.get();
+    while (w < limit) {
+      // o offset pode estar reservado num segmento que o diretório ainda não alcançou
+      AtomicReferenceArray<AccountEvent>[] dir = segments;
+      long index = w >>> SEGMENT_BITS;
+      AtomicReferenceArray<AccountEvent> segment = index < dir.length ? dir[(int) index] : null;
+      if (segment == null || segment.get((int) (w & SEGMENT_MASK)) == null) break;
+      w++;
+    }
+    synchronized (this) {
+      if (w > watermark) watermark = w;
+    }
+    return w;
+  }
+
+  /** Primeiro offset ainda no log (ver {@link #trim}). */
+  public long start() { return start; }
+
+  /**
+   * Descarta os segmentos inteiros anteriores a {@code offset}, sem passar de {@link #published()}
+   * nem da posição de nenhuma assinatura ativa; retorna o novo {@link #start()}.
+   */
+  public synchronized long trim(long offset) {
+    long limit = Math.min(offset, published());
+    for (Subscription subscription : subscriptions) limit = Math.min(limit, subscription.position);
+    long segmentsBefore = limit >>> SEGMENT_BITS;
+    if (segmentsBefore <= start >>> SEGMENT_BITS) return start;
+    AtomicReferenceArray<AccountEvent>[] dir = segments;
+    AtomicReferenceArray<AccountEvent>[] trimmed = newDirectory(dir.length);
+    System.arraycopy(dir, (int) segmentsBefore, trimmed, (int) segmentsBefore, dir.length - (int) segmentsBefore);
+    // start antes do diretório: quem vê o diretório novo também vê o start novo
+    start = segmentsBefore << SEGMENT_BITS;
+    segments = trimmed;
+    return start;
+  }
+
+  /**
+   * Acrescenta a {@code out} os eventos em {@code [from, to)}; {@code from} não pode ser anterior a
+   * {@link #start()} nem {@code to} passar de {@link #published()}.
+   */
+  public void read(long from, long to, List<? super AccountEvent> out) {
+    if (from < 0 || to < from) throw new IllegalArgumentException("Intervalo inválido");
+    if (to > published()) throw new IllegalArgumentException("Intervalo além do publicado");
+    AtomicReferenceArray<AccountEvent>[] dir = segments;
+    if (from < start) throw new IllegalArgumentException("Intervalo já podado: " + from);
+    for (long offset = from; offset < to; offset++) {
+      out.add(dir[(int) (offset >>> SEGMENT_BITS)].get((int) (offset & SEGMENT_MASK)));
+    }
+  }
+
+  /** Assina a partir do próximo evento, com buffer de 1024 e lotes de até 256. */
+  public Subscription subscribe(Subscriber subscriber) {
+    return subscribe(subscriber, published(), 1024, 256);
+  }
+
+  /**
+   * @param fromOffset     primeiro offset entregue; pode ser anterior ao atual, desde {@link #start()}
+   * @param bufferCapacity eventos guardados para o assinante (arredondado para potência de 2)
+   * @param maxBatch       maior lote entregue de uma vez
+   */
+  public Subscription subscribe(Subscriber subscriber, long fromOffset, int bufferCapacity, int maxBatch) {
+    if (subscriber == null) throw new NullPointerException("Assinante nulo");
+    if (bufferCapacity <= 0) throw new IllegalArgumentException("Capacidade deve ser > 0");
+    if (maxBatch <= 0) throw new IllegalArgumentException("Lote deve ser > 0");
+    Subscription subscription = new Subscription(subscriber, fromOffset, bufferCapacity, maxBatch);
+    synchronized (this) {
+      // sob o monitor de trim: a poda não passa da posição de uma assinatura já aceita
+      if (fromOffset < start || fromOffset > published()) {
+        throw new IllegalArgumentException("Offset inválido: " + fromOffset);
+      }
+      subscriptions.add(subscription);
+    }
+    subscription.thread.start();
+    return subscription;
+  }
+
+  @Override
+  public void close() {
+    for (Subscription subscription : subscriptions) subscription.close();
+  }
+
+  private AtomicReferenceArray<AccountEvent> segment(long index) {
+    AtomicReferenceArray<AccountEvent>[] dir = segments;
+    if (index < dir.length) {
+      AtomicReferenceArray<AccountEvent> segment = dir[(int) index];
+      if (segment != null) return segment;
+    }
+    return createSegment((int) index);
+  }
+
+  private synchronized AtomicReferenceArray<AccountEvent> createSegment(int index) {
+    AtomicReferenceArray<AccountEvent>[] dir = segments;
+    if (index >= dir.length) {
+      AtomicReferenceArray<AccountEvent>[] grown = newDirectory(Math.max(dir.length * 2, index + 1));
+      System.arraycopy(dir, 0, grown, 0, dir.length);
+      dir = grown;
+    }
+    if (dir[index] == null) dir[index] = new AtomicReferenceArray<>(SEGMENT_SIZE);
+    segments = dir;
+    return dir[index];
+  }
+
+  @SuppressWarnings("unchecked")
+  private static AtomicReferenceArray<AccountEvent>[] newDirectory(int size) {
+    return (AtomicReferenceArray<AccountEvent>[]) new AtomicReferenceArray<?>[size];
+  }
+
+  /**
+   * Assinatura com buffer circular limitado (vários produtores, um consumidor): o produtor
+   * reserva uma posição por CAS em {@code tail} só se houver espaço; a thread da assinatura
+   * consome em ordem e libera a posição avançando {@code head}.
+   */
+  public final class Subscription implements Closeable {
+    private final Subscriber subscriber;
+    private final int maxBatch;
+    private final AtomicReferenceArray<AccountEvent> slots;
+    private final long[] offsets;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;
+    private volatile long position;
+    private final LongAdder overflows = new LongAdder();
+    private volatile long replayed;
+    private volatile boolean closed;
+    private volatile RuntimeException failure;
+    private final Thread thread;
+
+    private Subscription(Subscriber subscriber, long fromOffset, int bufferCapacity, int maxBatch) {
+      int capacity = Integer.highestOneBit(Math.max(1, bufferCapacity - 1)) << 1;
+      this.subscriber = subscriber;
+      this.maxBatch = maxBatch;
+      this.slots = new AtomicReferenceArray<>(capacity);
+      this.offsets = new long[capacity];
+      this.mask = capacity - 1;
+      this.position = fromOffset;
+      this.thread = new Thread(this::run, "event-subscription");
+      thread.setDaemon(true);
+    }
+
+    /** Próximo offset a entregar. */
+    public long position() { return position; }
+
+    /** Eventos publicados e ainda não entregues. */
+    public long lag() { return Math.max(0, published() - position); }
+
+    /** Eventos que não couberam no buffer. */
+    public long overflows() { return overflows.sum(); }
+
+    /** Eventos entregues a partir do log em vez do buffer. */
+    public long replayed() { return replayed; }
+
+    /** Exceção que encerrou a assinatura, ou {@code null}. */
+    public RuntimeException failure() { return failure; }
+
+    /** Espera até {@code offset} ter sido entregue (exclusivo). */
+    public boolean awaitPosition(long offset, long timeout, TimeUnit unit) throws InterruptedException {
+      long deadline = System.nanoTime() + unit.toNanos(timeout);
+      while (position < offset) {
+        if (System.nanoTime() - deadline >= 0 || closed) return false;
+        if (Thread.interrupted()) throw new InterruptedException();
+        LockSupport.parkNanos(IDLE_PARK_NANOS);
+      }
+      return true;
+    }
+
+    private void offer(long offset, AccountEvent event) {
+      if (closed) return;
+      long t;
+      do {
+        t = tail.get();
+        if (t - head > mask) {
+          overflows.increment();
+          return;
+        }
+      } while (!tail.compareAndSet(t, t + 1));
+      int i = (int) (t & mask);
+      offsets[i] = offset;
+      slots.lazySet(i, event);
+    }
+
+    private void run() {
+      List<AccountEvent> batch = new ArrayList<>(maxBatch);
+      List<AccountEvent> view = Collections.unmodifiableList(batch);
+      while (!closed) {
+        long first = position;
+        long next = fill(batch, first);
+        if (batch.isEmpty()) {
+          LockSupport.parkNanos(IDLE_PARK_NANOS);
+          continue;
+        }
+        try {
+          subscriber.onEvents(first, view);
+        } catch (RuntimeException e) {
+          failure = e;
+          closed = true;
+          subscriptions.remove(this);
+          return;
+        }
+        batch.clear();
+        position = next;
+      }
+    }
+
+    /**
+     * Monta o próximo lote a partir de {@code next}: do buffer enquanto ele seguir em ordem,
+     * do log para cobrir lacunas (eventos que não couberam, ou anteriores à assinatura).
+     * Eventos do buffer já entregues pelo log são descartados.
+     */
+    private long fill(List<AccountEvent> batch, long next) {
+      while (batch.size() < maxBatch) {
+        long h = head;
+        int i = (int) (h & mask);
+        AccountEvent event = slots.get(i);
+        long offset = event == null ? Long.MAX_VALUE : offsets[i];
+        if (offset <= next) {
+          if (offset == next) {
+            batch.add(event);
+            next++;
+          }
+          slots.lazySet(i, null);
+          head = h + 1;
+          continue;
+        }
+        long limit = Math.min(Math.min(published(), offset), next + maxBatch - batch.size());
+        if (limit <= next) break;
+        read(next, limit, batch);
+        replayed += limit - next;
+        next = limit;
+      }
+      return next;
+    }
+
+    @Override
+    public void close() {
+      closed = true;
+      subscriptions.remove(this);
+      if (Thread.currentThread() == thread) return;
+      try {
+        thread.join(TimeUnit.SECONDS.toMillis(5));
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+}
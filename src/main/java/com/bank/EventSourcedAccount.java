@@ -0,0 +1,80 @@
+package com.bank;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Conta cujo estado é a dobra dos seus eventos: {@link AccountEvent.Kind#DEPOSITED},
+ * {@link AccountEvent.Kind#WITHDRAWN}, {@link AccountEvent.Kind#TRANSFERRED_IN} e
+ * {@link AccountEvent.Kind#TRANSFERRED_OUT}.
+ * <p>
+ * As regras e a sincronização são as de {@link Account}; cada mudança de saldo vira um evento,
+ * guardado no histórico da conta e publicado no {@link EventBus} (se houver) com a conta ainda
+ * travada, então a ordem dos offsets respeita a ordem dos eventos de cada conta. O saldo da
+ * conta é só o resultado acumulado da dobra; {@link #replay} reconstrói uma conta a partir do
+ * histórico.
+ */
+public class EventSourcedAccount extends Account {
+  private final EventBus bus;
+  private final List<AccountEvent> history = new ArrayList<>();
+
+  /**
+   * @param bus barramento que recebe os eventos ({@code null} = só o histórico da conta)
+   */
+  public EventSourcedAccount(EventBus bus) {
+    this(0, null, bus);
+  }
+
+  /**
+   * @param id     id gravado nos eventos
+   * @param policy regras de velocidade ({@code null} = sem limites)
+   * @param bus    barramento que recebe os eventos ({@code null} = só o histórico da conta)
+   */
+  public EventSourcedAccount(long id, VelocityPolicy policy, EventBus bus) {
+    super(id, policy, null);
+    this.bus = bus;
+  }
+
+  /**
+   * Reconstrói a conta dobrando {@code events}, que não são republicados no barramento.
+   * O estado das regras de velocidade não faz parte dos eventos e recomeça vazio.
+   */
+  public static EventSourcedAccount replay(long id, VelocityPolicy policy, EventBus bus, List<AccountEvent> events) {
+    if (events == null) throw new NullPointerException("Eventos nulos");
+    EventSourcedAccount account = new EventSourcedAccount(id, policy, bus);
+    for (AccountEvent event : events) {
+      if (event.getAccount() != id) throw new IllegalArgumentException("Evento de outra conta: " + event);
+    }
+    BigDecimal balance = fold(events);
+    if (balance.signum() < 0) throw new IllegalArgumentException("Histórico com saldo negativo");
+    synchronized (account) {
+      account.history.addAll(events);
+      account.replaceBalance(account.peekBalance(), balance);
+    }
+    return account;
+  }
+
+  /** Saldo resultante de aplicar {@code events} em ordem a partir de zero. */
+  public static BigDecimal fold(List<AccountEvent> events) {
+    BigDecimal balance = BigDecimal.ZERO;
+    for (AccountEvent event : events) balance = event.applyTo(balance);
+    return balance;
+  }
+
+  /** Cópia do histórico de eventos, em ordem. */
+  public synchronized List<AccountEvent> events() {
+    return new ArrayList<>(history);
+  }
+
+  /** O histórico depende do monitor para sair na ordem das mudanças. */
+  @Override
+  boolean creditsWithoutLock() { return false; }
+
+  @Override
+  void onEvent(AccountEvent.Kind kind, long counterparty, BigDecimal amount) {
+    AccountEvent event = new AccountEvent(getId(), kind, counterparty, amount);
+    history.add(event);
+    if (bus != null) bus.publish(event);
+  }
+}
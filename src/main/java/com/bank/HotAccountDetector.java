@@ -0,0 +1,167 @@
+package com.bank;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Divide automaticamente as contas quentes de um cadastro
+ * ({@link AccountRegistry#setHotAccountDetector}).
+ * <p>
+ * Uma em cada {@code sampleEvery} transferências mede quanto esperou pelo monitor da conta de
+ * destino; cada CAS perdido por {@link OptimisticTransferService} ao creditá-la conta como
+ * uma espera de {@code 2 * promoteWaitNanos}. As medidas entram numa média móvel por conta
+ * (peso 1/8) e, quando ela passa de {@code promoteWaitNanos}, a conta é dividida em
+ * {@code stripes} sub-saldos: créditos passam a travar só um sub-saldo, e a transferência trava
+ * só a origem.
+ * <p>
+ * Numa conta dividida os créditos amostrados são contados em janelas de {@code windowMillis};
+ * se a taxa estimada cair abaixo de {@code coolCreditsPerSecond} a conta é juntada de novo.
+ * A janela é fechada pelo próximo crédito amostrado ou por uma varredura das contas divididas
+ * ({@link #sweep()}), que roda a cada janela junto com a amostragem de esperas de qualquer conta;
+ * assim uma conta que deixou de receber tráfego também volta a ficar inteira.
+ * Saques, leituras de saldo e transferências de várias pernas juntam os sub-saldos no saldo
+ * principal antes de olhar, então o saldo e as regras continuam exatos; o que fica mais caro
+ * numa conta dividida são os débitos, que travam todos os sub-saldos. A projeção de saldos não
+ * junta nada: soma principal e sub-saldos sem lock ({@link BalanceProjection}).
+ * <p>
+ * {@link TransferService}, {@link OptimisticTransferService} e o depósito avisam o detector só
+ * depois de soltar todas as contas e sub-saldos; a divisão e a junção travam apenas a própria
+ * conta. A média e a janela são heurísticas, atualizadas sem lock: perder uma atualização não
+ * afeta a correção.
+ */
+public final class HotAccountDetector {
+  private final int sampleMask;
+  private final long promoteWaitNanos;
+  private final long coolCreditsPerSecond;
+  private final long windowNanos;
+  private final int stripes;
+  private final LongSupplier clock;
+  private final LongAdder promotions = new LongAdder();
+  private final LongAdder demotions = new LongAdder();
+  private final Set<Account> splitAccounts = ConcurrentHashMap.newKeySet();
+  private final AtomicLong lastSweep;
+
+  public HotAccountDetector() {
+    this(16, 10_000, 1_000, 100, 2 * Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * @param sampleEvery          uma amostra a cada tantas operações (potência de dois)
+   * @param promoteWaitNanos     espera média pelo monitor a partir da qual a conta é dividida
+   * @param coolCreditsPerSecond créditos por segundo abaixo dos quais a conta é juntada
+   * @param windowMillis         janela de medida da taxa de créditos
+   * @param stripes              sub-saldos de uma conta dividida
+   */
+  public HotAccountDetector(int sampleEvery, long promoteWaitNanos, long coolCreditsPerSecond,
+                            long windowMillis, int stripes) {
+    this(sampleEvery, promoteWaitNanos, coolCreditsPerSecond, windowMillis, stripes, System::nanoTime);
+  }
+
+  HotAccountDetector(int sampleEvery, long promoteWaitNanos, long coolCreditsPerSecond,
+                     long windowMillis, int stripes, LongSupplier nanoClock) {
+    if (sampleEvery <= 0 || Integer.bitCount(sampleEvery) != 1) {
+      throw new IllegalArgumentException("Amostragem deve ser potência de dois");
+    }
+    if (promoteWaitNanos <= 0) throw new IllegalArgumentException("Limiar deve ser > 0");
+    if (coolCreditsPerSecond < 0) throw new IllegalArgumentException("Taxa negativa");
+    if (windowMillis <= 0) throw new IllegalArgumentException("Janela deve ser > 0");
+    if (stripes < 2) throw new IllegalArgumentException("Sub-saldos devem ser >= 2");
+    this.sampleMask = sampleEvery - 1;
+    this.promoteWaitNanos = promoteWaitNanos;
+    this.coolCreditsPerSecond = coolCreditsPerSecond;
+    this.windowNanos = windowMillis * 1_000_000L;
+    this.stripes = stripes;
+    this.clock = nanoClock;
+    this.lastSweep = new AtomicLong(nanoClock.getAsLong());
+  }
+
+  /** Contas divididas desde o início. */
+  public long promotions() { return promotions.sum(); }
+
+  /** Contas juntadas de volta desde o início. */
+  public long demotions() { return demotions.sum(); }
+
+  /** Sorteia se a operação atual é amostrada. */
+  boolean sample() {
+    return (ThreadLocalRandom.current().nextInt() & sampleMask) == 0;
+  }
+
+  long now() { return clock.getAsLong(); }
+
+  /** Espera amostrada pelo monitor de {@code account}; pode dividir a conta. */
+  void waited(Account account, long nanos) {
+    long now = now();
+    long last = lastSweep.get();
+    if (now - last >= windowNanos && lastSweep.compareAndSet(last, now)) sweep(now);
+    long score = account.hotScore;
+    score += (nanos - score) >> 3;
+    account.hotScore = score;
+    if (score < promoteWaitNanos) return;
+    account.hotScore = 0;
+    if (account.split(stripes)) {
+      SplitBalance split = account.splitBalance();
+      if (split != null) split.windowStart = now();
+      splitAccounts.add(account);
+      promotions.increment();
+    }
+  }
+
+  /** CAS perdido no crédito otimista em {@code account}. */
+  void conflicted(Account account) {
+    waited(account, promoteWaitNanos << 1);
+  }
+
+  /** Crédito amostrado numa conta dividida; pode juntá-la de volta. */
+  void credited(Account account) {
+    SplitBalance split = account.splitBalance();
+    if (split == null) return;
+    long now = now();
+    if (now - split.windowStart < windowNanos) {
+      split.windowCredits++;
+      return;
+    }
+    closeWindow(account, split, now);
+  }
+
+  /**
+   * Fecha a janela de créditos das contas divididas cuja janela já terminou, juntando as que
+   * esfriaram. Roda sozinha a cada janela enquanto houver tráfego amostrado; quem precisar de
+   * junção também com o cadastro ocioso pode chamá-la periodicamente.
+   * @return contas juntadas nesta varredura
+   */
+  public int sweep() {
+    return sweep(now());
+  }
+
+  private int sweep(long now) {
+    int merged = 0;
+    for (Account account : splitAccounts) {
+      SplitBalance split = account.splitBalance();
+      if (split == null) {
+        splitAccounts.remove(account);
+      } else if (now - split.windowStart >= windowNanos && closeWindow(account, split, now)) {
+        merged++;
+      }
+    }
+    return merged;
+  }
+
+  /** Estima a taxa de créditos da janela; junta a conta se esfriou ou abre nova janela. */
+  private boolean closeWindow(Account account, SplitBalance split, long now) {
+    long elapsed = Math.max(1, now - split.windowStart);
+    long rate = (split.windowCredits + 1L) * (sampleMask + 1) * 1_000_000_000L / elapsed;
+    if (rate >= coolCreditsPerSecond) {
+      split.windowStart = now;
+      split.windowCredits = 0;
+      return false;
+    }
+    splitAccounts.remove(account);
+    if (!account.merge()) return false;
+    demotions.increment();
+    return true;
+  }
+}
@@ -0,0 +1,201 @@
+package com.bank;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static com.bank.ReplicationProtocol.*;
+
+/**
+ * Lado primário da replicação: envia o {@link OperationJournal} publicado, em lotes, a um
+ * {@link ReplicaFollower} por socket, e acompanha as confirmações.
+ * <p>
+ * Ao conectar, o seguidor informa até onde já aplicou e o envio continua dali; uma reconexão
+ * não reenvia o diário inteiro.
+ * <ul>
+ *   <li>{@link Mode#SYNC}: cada lote espera a confirmação antes do próximo. Quem precisa que
+ *       uma operação esteja no standby antes de responder usa {@link #awaitReplicated}.</li>
+ *   <li>{@link Mode#ASYNC}: os lotes seguem em sequência sem esperar; as confirmações são lidas
+ *       por outra thread e o atraso aparece em {@link #lag()} e {@link #lastAckNanos()}.</li>
+ * </ul>
+ */
+public final class JournalReplicator implements Closeable {
+
+  public enum Mode { SYNC, ASYNC }
+
+  private static final long IDLE_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+  private final OperationJournal journal;
+  private final SocketChannel channel;
+  private final Mode mode;
+  private final int maxBatch;
+  private final ByteBuffer ack = ByteBuffer.allocateDirect(8).order(ORDER);
+  private ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024).order(ORDER);
+  /** Fim (exclusivo) e instante de envio de cada lote ainda não confirmado. */
+  private final ConcurrentLinkedQueue<long[]> inFlight = new ConcurrentLinkedQueue<>();
+  private final Thread shipper;
+  private final Thread ackReader;
+  private volatile boolean closed;
+  private volatile long acked;
+  private volatile long lastAckNanos;
+  private volatile long maxAckNanos;
+  private volatile Throwable failure;
+  private long sent;
+
+  public JournalReplicator(OperationJournal journal, InetSocketAddress follower, Mode mode, int maxBatch)
+      throws IOException {
+    if (journal == null) throw new NullPointerException("Diário nulo");
+    if (mode == null) throw new NullPointerException("Modo nulo");
+    if (maxBatch <= 0) throw new IllegalArgumentException("Lote deve ser > 0");
+    this.journal = journal;
+    this.mode = mode;
+    this.maxBatch = maxBatch;
+    this.channel = SocketChannel.open(follower);
+    channel.socket().setTcpNoDelay(true);
+    sent = readAck();
+    acked = sent;
+    shipper = new Thread(this::ship, "replicator-ship");
+    shipper.setDaemon(true);
+    ackReader = mode == Mode.ASYNC ? new Thread(this::readAcks, "replicator-ack") : null;
+    if (ackReader != null) {
+      ackReader.setDaemon(true);
+      ackReader.start();
+    }
+    shipper.start();
+  }
+
+  /** Sequência exclusiva até onde o seguidor confirmou a aplicação. */
+  public long acked() { return acked; }
+
+  /** Lançamentos publicados no primário e ainda não confirmados pelo seguidor. */
+  public long lag() { return Math.max(0, journal.committed() - acked); }
+
+  /** Tempo entre o envio e a confirmação do último lote confirmado. */
+  public long lastAckNanos() { return lastAckNanos; }
+
+  public long maxAckNanos() { return maxAckNanos; }
+
+  /** Falha que interrompeu a replicação, ou {@code null}. */
+  public Throwable failure() { return failure; }
+
+  /**
+   * Espera o seguidor confirmar tudo antes de {@code seq} (exclusivo).
+   * @return {@code false} se o tempo acabar ou a replicação falhar antes
+   */
+  public boolean awaitReplicated(long seq, long timeout, TimeUnit unit) throws InterruptedException {
+    long deadline = System.nanoTime() + unit.toNanos(timeout);
+    synchronized (this) {
+      while (acked < seq) {
+        long left = deadline - System.nanoTime();
+        if (left <= 0 || failure != null || closed) return false;
+        TimeUnit.NANOSECONDS.timedWait(this, left);
+      }
+    }
+    return true;
+  }
+
+  private void ship() {
+    try {
+      while (!closed) {
+        long committed = journal.committed();
+        if (sent == committed) {
+          LockSupport.parkNanos(IDLE_PARK_NANOS);
+          continue;
+        }
+        // lotes atômicos do diário não são cortados entre duas remessas
+        long end = journal.batchEnd(Math.min(committed, sent + maxBatch) - 1);
+        encode(sent, end);
+        long now = System.nanoTime();
+        inFlight.add(new long[] {end, now});
+        writeFully(channel, buffer);
+        sent = end;
+        if (mode == Mode.SYNC) {
+          long confirmed = readAck();
+          acknowledge(confirmed);
+          // o seguidor só confirma menos do que recebeu quando não conseguiu aplicar um lote
+          if (confirmed < end) throw new IOException("Seguidor parou em " + confirmed + " de " + end);
+        }
+      }
+    } catch (IOException | RuntimeException e) {
+      fail(e);
+    }
+  }
+
+  private void readAcks() {
+    try {
+      while (!closed) acknowledge(readAck());
+    } catch (IOException | RuntimeException e) {
+      fail(e);
+    }
+  }
+
+  private long readAck() throws IOException {
+    ack.clear();
+    readFully(channel, ack);
+    ack.flip();
+    return ack.getLong();
+  }
+
+  private void acknowledge(long seq) {
+    long now = System.nanoTime();
+    long[] batch;
+    while ((batch = inFlight.peek()) != null && batch[0] <= seq) {
+      inFlight.poll();
+      long latency = now - batch[1];
+      lastAckNanos = latency;
+      if (latency > maxAckNanos) maxAckNanos = latency;
+    }
+    synchronized (this) {
+      acked = seq;
+      notifyAll();
+    }
+  }
+
+  private void encode(long from, long to) {
+    buffer.clear();
+    buffer.position(BATCH_HEADER);
+    journal.read(from, to, (seq, type, account, counterparty, amount) -> {
+      int span = journal.span(seq);
+      int size = BinaryCodec.varLongSize(span) + BinaryCodec.operationSize(account, counterparty, amount);
+      if (buffer.remaining() < size) {
+        ByteBuffer grown = ByteBuffer.allocateDirect(Math.max(buffer.capacity() * 2, buffer.position() + size))
+            .order(ORDER);
+        buffer.flip();
+        grown.put(buffer);
+        buffer = grown;
+      }
+      BinaryCodec.putVarLong(buffer, span);
+      BinaryCodec.encodeOperation(buffer, type, account, counterparty, amount);
+    });
+    buffer.putInt(0, buffer.position() - 4).putLong(4, from).putInt(12, (int) (to - from));
+    buffer.flip();
+  }
+
+  private void fail(Throwable e) {
+    if (closed) return;
+    failure = e;
+    synchronized (this) {
+      notifyAll();
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    closed = true;
+    channel.close();
+    synchronized (this) {
+      notifyAll();
+    }
+    try {
+      shipper.join(TimeUnit.SECONDS.toMillis(5));
+      if (ackReader != null) ackReader.join(TimeUnit.SECONDS.toMillis(5));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,261 @@
+package com.bank;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+
+/**
+ * Leitor JSON de fluxo (pull), sem árvore em memória: o chamador pede o próximo token.
+ * Números saem como {@link BigDecimal} exatos. Aninhamento e tamanho de strings são limitados
+ * para que uma requisição hostil não consuma memória sem fim; erros de sintaxe saem como
+ * {@link JsonException}.
+ */
+final class JsonReader {
+  enum Token { BEGIN_OBJECT, END_OBJECT, BEGIN_ARRAY, END_ARRAY, NAME, STRING, NUMBER, TRUE, FALSE, NULL, END }
+
+  /** JSON malformado ou com tipo inesperado. */
+  static final class JsonException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    JsonException(String message) { super(message); }
+  }
+
+  private static final int MAX_DEPTH = 64;
+  private static final int MAX_STRING = 64 * 1024;
+
+  private static final int EMPTY_DOCUMENT = 0;
+  private static final int NONEMPTY_DOCUMENT = 1;
+  private static final int EMPTY_ARRAY = 2;
+  private static final int NONEMPTY_ARRAY = 3;
+  private static final int EMPTY_OBJECT = 4;
+  private static final int DANGLING_NAME = 5;
+  private static final int NONEMPTY_OBJECT = 6;
+
+  private final Reader in;
+  private final int[] stack = new int[MAX_DEPTH + 1];
+  private int depth = 1;
+  private int pushback = -2;
+  private Token peeked;
+  private String text;
+  private final StringBuilder buffer = new StringBuilder();
+
+  JsonReader(Reader in) {
+    this.in = in;
+    stack[0] = EMPTY_DOCUMENT;
+  }
+
+  Token peek() throws IOException {
+    if (peeked != null) return peeked;
+    int c;
+    switch (stack[depth - 1]) {
+      case EMPTY_DOCUMENT:
+        stack[depth - 1] = NONEMPTY_DOCUMENT;
+        return peeked = value(nextNonWhitespace());
+      case NONEMPTY_DOCUMENT:
+        if (nextNonWhitespace() != -1) throw new JsonException("Conteúdo após o fim do documento");
+        return peeked = Token.END;
+      case EMPTY_ARRAY:
+        stack[depth - 1] = NONEMPTY_ARRAY;
+        c = nextNonWhitespace();
+        return peeked = c == ']' ? Token.END_ARRAY : value(c);
+      case NONEMPTY_ARRAY:
+        c = nextNonWhitespace();
+        if (c == ']') return peeked = Token.END_ARRAY;
+        if (c != ',') throw unexpected(c);
+        return peeked = value(nextNonWhitespace());
+      case EMPTY_OBJECT:
+      case NONEMPTY_OBJECT:
+        c = nextNonWhitespace();
+        if (c == '}') return peeked = Token.END_OBJECT;
+        if (stack[depth - 1] == NONEMPTY_OBJECT) {
+          if (c != ',') throw unexpected(c);
+          c = nextNonWhitespace();
+        }
+        if (c != '"') throw unexpected(c);
+        text = readString();
+        stack[depth - 1] = DANGLING_NAME;
+        return peeked = Token.NAME;
+      case DANGLING_NAME:
+        c = nextNonWhitespace();
+        if (c != ':') throw unexpected(c);
+        stack[depth - 1] = NONEMPTY_OBJECT;
+        return peeked = value(nextNonWhitespace());
+      default:
+        throw new IllegalStateException();
+    }
+  }
+
+  void beginObject() throws IOException { open(Token.BEGIN_OBJECT, EMPTY_OBJECT); }
+
+  void endObject() throws IOException { close(Token.END_OBJECT); }
+
+  void beginArray() throws IOException { open(Token.BEGIN_ARRAY, EMPTY_ARRAY); }
+
+  void endArray() throws IOException { close(Token.END_ARRAY); }
+
+  /** Há mais elementos no array ou membros no objeto atual. */
+  boolean hasNext() throws IOException {
+    Token token = peek();
+    return token != Token.END_OBJECT && token != Token.END_ARRAY && token != Token.END;
+  }
+
+  String nextName() throws IOException {
+    expect(Token.NAME);
+    return text;
+  }
+
+  String nextString() throws IOException {
+    expect(Token.STRING);
+    return text;
+  }
+
+  /** Aceita número ou string com número. */
+  BigDecimal nextDecimal() throws IOException {
+    Token token = peek();
+    if (token != Token.NUMBER && token != Token.STRING) throw new JsonException("Esperado número, encontrado " + token);
+    peeked = null;
+    try {
+      return new BigDecimal(text);
+    } catch (NumberFormatException e) {
+      throw new JsonException("Número inválido: " + text);
+    }
+  }
+
+  long nextLong() throws IOException {
+    BigDecimal value = nextDecimal();
+    try {
+      return value.longValueExact();
+    } catch (ArithmeticException e) {
+      throw new JsonException("Inteiro inválido: " + value);
+    }
+  }
+
+  boolean nextBoolean() throws IOException {
+    Token token = peek();
+    if (token != Token.TRUE && token != Token.FALSE) throw new JsonException("Esperado booleano, encontrado " + token);
+    peeked = null;
+    return token == Token.TRUE;
+  }
+
+  /** Pula o próximo valor, inteiro (objetos e arrays inclusive). */
+  void skipValue() throws IOException {
+    int nested = 0;
+    do {
+      Token token = peek();
+      if (token == Token.BEGIN_OBJECT) { beginObject(); nested++; }
+      else if (token == Token.BEGIN_ARRAY) { beginArray(); nested++; }
+      else if (token == Token.END_OBJECT) { endObject(); nested--; }
+      else if (token == Token.END_ARRAY) { endArray(); nested--; }
+      else if (token == Token.END) throw new JsonException("Fim inesperado");
+      else peeked = null;
+    } while (nested > 0);
+  }
+
+  private void open(Token token, int context) throws IOException {
+    expect(token);
+    if (depth == MAX_DEPTH) throw new JsonException("Aninhamento excessivo");
+    stack[depth++] = context;
+  }
+
+  private void close(Token token) throws IOException {
+    expect(token);
+    depth--;
+  }
+
+  private void expect(Token token) throws IOException {
+    Token actual = peek();
+    if (actual != token) throw new JsonException("Esperado " + token + ", encontrado " + actual);
+    peeked = null;
+  }
+
+  private Token value(int c) throws IOException {
+    switch (c) {
+      case '{': return Token.BEGIN_OBJECT;
+      case '[': return Token.BEGIN_ARRAY;
+      case '"':
+        text = readString();
+        return Token.STRING;
+      case 't': literal("rue"); return Token.TRUE;
+      case 'f': literal("alse"); return Token.FALSE;
+      case 'n': literal("ull"); return Token.NULL;
+      default:
+        if (c == '-' || (c >= '0' && c <= '9')) {
+          text = readNumber(c);
+          return Token.NUMBER;
+        }
+        throw unexpected(c);
+    }
+  }
+
+  private void literal(String rest) throws IOException {
+    for (int i = 0; i < rest.length(); i++) {
+      if (read() != rest.charAt(i)) throw new JsonException("Literal inválido");
+    }
+  }
+
+  private String readNumber(int first) throws IOException {
+    buffer.setLength(0);
+    buffer.append((char) first);
+    int c;
+    while ((c = read()) != -1 && ((c >= '0' && c <= '9') || c == '.' || c == 'e' || c == 'E' || c == '+' || c == '-')) {
+      if (buffer.length() == 64) throw new JsonException("Número longo demais");
+      buffer.append((char) c);
+    }
+    pushback = c;
+    return buffer.toString();
+  }
+
+  private String readString() throws IOException {
+    buffer.setLength(0);
+    while (true) {
+      int c = read();
+      if (c == -1) throw new JsonException("String não terminada");
+      if (c == '"') return buffer.toString();
+      if (c < 0x20) throw new JsonException("Caractere de controle em string");
+      if (c == '\\') {
+        c = read();
+        switch (c) {
+          case '"': case '\\': case '/': break;
+          case 'b': c = '\b'; break;
+          case 'f': c = '\f'; break;
+          case 'n': c = '\n'; break;
+          case 'r': c = '\r'; break;
+          case 't': c = '\t'; break;
+          case 'u':
+            int code = 0;
+            for (int i = 0; i < 4; i++) {
+              int digit = Character.digit(read(), 16);
+              if (digit < 0) throw new JsonException("Escape unicode inválido");
+              code = code * 16 + digit;
+            }
+            c = code;
+            break;
+          default: throw new JsonException("Escape inválido");
+        }
+      }
+      if (buffer.length() == MAX_STRING) throw new JsonException("String longa demais");
+      buffer.append((char) c);
+    }
+  }
+
+  private int nextNonWhitespace() throws IOException {
+    int c;
+    do {
+      c = read();
+    } while (c == ' ' || c == '\n' || c == '\r' || c == '\t');
+    return c;
+  }
+
+  private int read() throws IOException {
+    if (pushback != -2) {
+      int c = pushback;
+      pushback = -2;
+      return c;
+    }
+    return in.read();
+  }
+
+  private static JsonException unexpected(int c) {
+    return new JsonException(c == -1 ? "Fim inesperado" : "Caractere inesperado: '" + (char) c + "'");
+  }
+}
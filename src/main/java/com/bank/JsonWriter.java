@@ -0,0 +1,120 @@
+package com.bank;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+
+/**
+ * Escritor JSON de fluxo: cada chamada escreve direto no {@link Writer}, sem montar o
+ * documento em memória. Vírgulas e dois-pontos são colocados automaticamente.
+ */
+final class JsonWriter {
+  private static final int MAX_DEPTH = 64;
+
+  private final Writer out;
+  /** Por nível: já houve algum elemento (precisa de vírgula antes do próximo). */
+  private final boolean[] nonEmpty = new boolean[MAX_DEPTH + 1];
+  private int depth;
+  private boolean afterName;
+
+  JsonWriter(Writer out) {
+    this.out = out;
+  }
+
+  JsonWriter beginObject() throws IOException { return open('{'); }
+
+  JsonWriter endObject() throws IOException { return close('}'); }
+
+  JsonWriter beginArray() throws IOException { return open('['); }
+
+  JsonWriter endArray() throws IOException { return close(']'); }
+
+  JsonWriter name(String name) throws IOException {
+    separator();
+    string(name);
+    out.write(':');
+    afterName = true;
+    return this;
+  }
+
+  JsonWriter value(String value) throws IOException {
+    if (value == null) return nullValue();
+    separator();
+    string(value);
+    return this;
+  }
+
+  JsonWriter value(long value) throws IOException {
+    separator();
+    out.write(Long.toString(value));
+    return this;
+  }
+
+  JsonWriter value(BigDecimal value) throws IOException {
+    if (value == null) return nullValue();
+    separator();
+    out.write(value.toPlainString());
+    return this;
+  }
+
+  JsonWriter value(boolean value) throws IOException {
+    separator();
+    out.write(value ? "true" : "false");
+    return this;
+  }
+
+  JsonWriter nullValue() throws IOException {
+    separator();
+    out.write("null");
+    return this;
+  }
+
+  void flush() throws IOException {
+    out.flush();
+  }
+
+  private JsonWriter open(char c) throws IOException {
+    if (depth == MAX_DEPTH) throw new IllegalStateException("Aninhamento excessivo");
+    separator();
+    out.write(c);
+    nonEmpty[++depth] = false;
+    return this;
+  }
+
+  private JsonWriter close(char c) throws IOException {
+    if (depth == 0) throw new IllegalStateException("Nada a fechar");
+    depth--;
+    out.write(c);
+    return this;
+  }
+
+  private void separator() throws IOException {
+    if (afterName) {
+      afterName = false;
+      return;
+    }
+    if (nonEmpty[depth]) out.write(',');
+    nonEmpty[depth] = true;
+  }
+
+  private void string(String value) throws IOException {
+    out.write('"');
+    int start = 0;
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      String escape;
+      if (c == '"') escape = "\\\"";
+      else if (c == '\\') escape = "\\\\";
+      else if (c == '\n') escape = "\\n";
+      else if (c == '\r') escape = "\\r";
+      else if (c == '\t') escape = "\\t";
+      else if (c < 0x20) escape = String.format("\\u%04x", (int) c);
+      else continue;
+      out.write(value, start, i - start);
+      out.write(escape);
+      start = i + 1;
+    }
+    out.write(value, start, value.length() - start);
+    out.write('"');
+  }
+}
@@ -0,0 +1,64 @@
+package com.bank;
+
+/**
+ * Histograma log-linear de latências em nanossegundos, com erro relativo abaixo de 1%.
+ * Valores até 255 ficam em baldes exatos; acima disso, cada potência de dois é dividida em
+ * 128 baldes. Registrar um valor é um incremento num array: sem alocação.
+ * Não é thread-safe: cada thread mantém o seu e eles são somados com {@link #add}.
+ */
+public final class LatencyHistogram {
+  private static final int SUB_BITS = 8;
+  private static final int SUB = 1 << SUB_BITS;
+  private static final int HALF = SUB >> 1;
+  private static final int BUCKETS = SUB + (64 - SUB_BITS) * HALF;
+
+  private final long[] counts = new long[BUCKETS];
+  private long total;
+  private long max;
+
+  public void record(long value) {
+    if (value < 0) value = 0;
+    counts[index(value)]++;
+    total++;
+    if (value > max) max = value;
+  }
+
+  /** Soma as contagens de {@code other} neste histograma. */
+  public void add(LatencyHistogram other) {
+    for (int i = 0; i < BUCKETS; i++) counts[i] += other.counts[i];
+    total += other.total;
+    max = Math.max(max, other.max);
+  }
+
+  public long count() { return total; }
+
+  public long max() { return max; }
+
+  /**
+   * Valor abaixo do qual estão {@code percentile}% das amostras (limite superior do balde).
+   */
+  public long percentile(double percentile) {
+    if (percentile < 0 || percentile > 100) throw new IllegalArgumentException("Percentil fora de [0, 100]");
+    if (total == 0) return 0;
+    long target = Math.max(1, (long) Math.ceil(percentile / 100.0 * total));
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += counts[i];
+      if (seen >= target) return Math.min(highestEquivalent(i), max);
+    }
+    return max;
+  }
+
+  static int index(long value) {
+    if (value < SUB) return (int) value;
+    int exp = 63 - Long.numberOfLeadingZeros(value) - (SUB_BITS - 1);
+    return SUB + (exp - 1) * HALF + (int) (value >>> exp) - HALF;
+  }
+
+  static long highestEquivalent(int index) {
+    if (index < SUB) return index;
+    int exp = (index - SUB) / HALF + 1;
+    long mantissa = (index - SUB) % HALF + HALF;
+    return ((mantissa + 1) << exp) - 1;
+  }
+}
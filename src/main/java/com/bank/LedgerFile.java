@@ -0,0 +1,163 @@
+package com.bank;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Arquivo de lançamentos no formato {@code conta,id,valor}, uma linha por lançamento,
+ * ordenado por conta e depois por id. Linhas vazias e iniciadas por {@code #} são ignoradas.
+ * <p>
+ * Permite posicionar a leitura na primeira linha de uma conta por busca binária nos bytes,
+ * de modo que faixas de contas possam ser lidas em paralelo sem carregar o arquivo.
+ */
+final class LedgerFile implements Closeable {
+  /** Maior prefixo de linha lido para extrair a conta. */
+  private static final int PROBE = 128;
+
+  private final Path path;
+  private final FileChannel channel;
+  private final long size;
+  private final ByteBuffer probe = ByteBuffer.allocate(PROBE);
+
+  private LedgerFile(Path path) throws IOException {
+    this.path = path;
+    this.channel = FileChannel.open(path, StandardOpenOption.READ);
+    this.size = channel.size();
+  }
+
+  static LedgerFile open(Path path) throws IOException {
+    return new LedgerFile(path);
+  }
+
+  long size() { return size; }
+
+  /** Offset da primeira linha cuja conta é >= {@code account} (ou o tamanho do arquivo). */
+  long seek(long account) throws IOException {
+    long lo = 0;
+    long hi = size;
+    while (lo < hi) {
+      long mid = (lo + hi) >>> 1;
+      if (accountAtOrAfter(mid) >= account) hi = mid; else lo = mid + 1;
+    }
+    return lineStartAtOrAfter(lo);
+  }
+
+  /** Conta da primeira linha de dados que começa em {@code offset} ou depois; {@code Long.MAX_VALUE} no fim. */
+  long accountAtOrAfter(long offset) throws IOException {
+    long start = lineStartAtOrAfter(offset);
+    while (start < size) {
+      probe.clear();
+      int n = channel.read(probe, start);
+      int i = 0;
+      while (i < n && (probe.get(i) == ' ' || probe.get(i) == '\t')) i++;
+      if (i < n && probe.get(i) != '\n' && probe.get(i) != '\r' && probe.get(i) != '#') {
+        return parseAccount(probe, i, n, start);
+      }
+      start = lineStartAtOrAfter(start + 1);
+    }
+    return Long.MAX_VALUE;
+  }
+
+  /** Cursor que lê a partir de {@code offset} até a primeira conta >= {@code endAccount}. */
+  Cursor cursor(long offset, long endAccount) throws IOException {
+    return new Cursor(offset, endAccount, true);
+  }
+
+  /** Cursor que lê a partir de {@code offset} até o fim do arquivo, inclusive a conta {@code Long.MAX_VALUE}. */
+  Cursor cursor(long offset) throws IOException {
+    return new Cursor(offset, Long.MAX_VALUE, false);
+  }
+
+  private long lineStartAtOrAfter(long pos) throws IOException {
+    if (pos <= 0) return 0;
+    long p = pos - 1;
+    while (p < size) {
+      probe.clear();
+      int n = channel.read(probe, p);
+      if (n <= 0) break;
+      for (int i = 0; i < n; i++) {
+        if (probe.get(i) == '\n') return p + i + 1;
+      }
+      p += n;
+    }
+    return size;
+  }
+
+  private static long parseAccount(ByteBuffer buf, int from, int limit, long lineStart) {
+    boolean negative = buf.get(from) == '-';
+    int i = negative ? from + 1 : from;
+    long value = 0;
+    int digits = 0;
+    for (; i < limit; i++) {
+      byte b = buf.get(i);
+      if (b < '0' || b > '9') break;
+      value = value * 10 + (b - '0');
+      digits++;
+    }
+    if (digits == 0 || i >= limit || buf.get(i) != ',') {
+      throw new IllegalArgumentException("Linha inválida no offset " + lineStart);
+    }
+    return negative ? -value : value;
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+
+  /** Leitura sequencial de uma faixa de contas; memória limitada ao buffer de leitura. */
+  final class Cursor implements Closeable {
+    private final FileChannel own;
+    private final BufferedReader reader;
+    private final long endAccount;
+    private final boolean bounded;
+    long account;
+    long id;
+    BigDecimal amount;
+
+    private Cursor(long offset, long endAccount, boolean bounded) throws IOException {
+      this.own = FileChannel.open(path, StandardOpenOption.READ);
+      own.position(offset);
+      this.reader = new BufferedReader(new InputStreamReader(Channels.newInputStream(own), StandardCharsets.UTF_8), 1 << 16);
+      this.endAccount = endAccount;
+      this.bounded = bounded;
+    }
+
+    /** Avança para o próximo lançamento da faixa; {@code false} ao terminar. */
+    boolean next() throws IOException {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        line = line.trim();
+        if (line.isEmpty() || line.charAt(0) == '#') continue;
+        int c1 = line.indexOf(',');
+        int c2 = c1 < 0 ? -1 : line.indexOf(',', c1 + 1);
+        if (c2 < 0) throw new IllegalArgumentException("Linha inválida: " + line);
+        try {
+          long nextAccount = Long.parseLong(line.substring(0, c1).trim());
+          if (bounded && nextAccount >= endAccount) return false;
+          account = nextAccount;
+          id = Long.parseLong(line.substring(c1 + 1, c2).trim());
+          amount = new BigDecimal(line.substring(c2 + 1).trim());
+        } catch (NumberFormatException e) {
+          throw new IllegalArgumentException("Linha inválida: " + line, e);
+        }
+        return true;
+      }
+      return false;
+    }
+
+    @Override
+    public void close() throws IOException {
+      reader.close();
+    }
+  }
+}
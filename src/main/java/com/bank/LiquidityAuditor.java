@@ -0,0 +1,109 @@
+package com.bank;
+
+import java.math.BigDecimal;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Auditor de liquidez: compara o total incremental do {@link LiquidityTracker} com a soma
+ * paralela dos saldos de todas as contas do cadastro.
+ * <p>
+ * Como a soma não é atômica em relação às operações em andamento, uma diferença só vira
+ * alerta quando o mesmo desvio é observado em {@code confirmations} rodadas seguidas.
+ * <p>
+ * Na auditoria periódica, uma rodada que lança exceção (por exemplo, vinda do listener) é
+ * contada em {@link #failures()} e não interrompe as rodadas seguintes.
+ */
+public final class LiquidityAuditor implements AutoCloseable {
+
+  /** Recebe os alertas de desvio. */
+  public interface DriftListener {
+    void onDrift(BigDecimal expected, BigDecimal actual);
+  }
+
+  private final AccountRegistry registry;
+  private final int confirmations;
+  private final DriftListener listener;
+  private ScheduledExecutorService scheduler;
+  private BigDecimal lastDrift = BigDecimal.ZERO;
+  private int streak;
+  private long alerts;
+  private long failures;
+  private volatile RuntimeException lastFailure;
+
+  public LiquidityAuditor(AccountRegistry registry, DriftListener listener) {
+    this(registry, 2, listener);
+  }
+
+  public LiquidityAuditor(AccountRegistry registry, int confirmations, DriftListener listener) {
+    if (confirmations <= 0) throw new IllegalArgumentException("Confirmações devem ser > 0");
+    this.registry = Objects.requireNonNull(registry, "Cadastro nulo");
+    this.listener = Objects.requireNonNull(listener, "Listener nulo");
+    this.confirmations = confirmations;
+  }
+
+  /**
+   * Executa uma rodada de auditoria.
+   * @return desvio observado (soma dos saldos menos total esperado)
+   */
+  public synchronized BigDecimal audit() {
+    BigDecimal expected = registry.liquidity().expectedTotal();
+    BigDecimal actual = registry.accounts().parallelStream()
+        .map(Account::getBalance)
+        .reduce(BigDecimal.ZERO, BigDecimal::add);
+    BigDecimal drift = actual.subtract(expected);
+    if (drift.signum() == 0) {
+      streak = 0;
+    } else {
+      streak = drift.compareTo(lastDrift) == 0 ? streak + 1 : 1;
+      if (streak == confirmations) {
+        alerts++;
+        listener.onDrift(expected, actual);
+      }
+    }
+    lastDrift = drift;
+    return drift;
+  }
+
+  /** Número de alertas emitidos. */
+  public synchronized long alerts() { return alerts; }
+
+  /** Rodadas periódicas que terminaram em exceção. */
+  public synchronized long failures() { return failures; }
+
+  /** Exceção da última rodada periódica que falhou, ou {@code null}. */
+  public RuntimeException lastFailure() { return lastFailure; }
+
+  /** Inicia auditorias periódicas numa thread daemon. */
+  public synchronized void start(long period, TimeUnit unit) {
+    if (scheduler != null) throw new IllegalStateException("Auditor já iniciado");
+    scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread t = new Thread(r, "liquidity-auditor");
+      t.setDaemon(true);
+      return t;
+    });
+    scheduler.scheduleWithFixedDelay(this::scheduledAudit, period, period, unit);
+  }
+
+  // Uma exceção que escapasse daqui cancelaria o agendamento sem aviso.
+  private void scheduledAudit() {
+    try {
+      audit();
+    } catch (RuntimeException e) {
+      synchronized (this) {
+        failures++;
+      }
+      lastFailure = e;
+    }
+  }
+
+  @Override
+  public synchronized void close() {
+    if (scheduler != null) {
+      scheduler.shutdownNow();
+      scheduler = null;
+    }
+  }
+}
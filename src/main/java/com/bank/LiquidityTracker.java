@@ -0,0 +1,47 @@
+package com.bank;
+
+import java.math.BigDecimal;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Total de dinheiro do sistema mantido de forma incremental:
+ * depósitos externos somam, saques externos subtraem, transferências internas não tocam.
+ * <p>
+ * O total é um somador listrado: cada thread soma na sua célula (espalhadas para não
+ * dividir linha de cache), e só a leitura percorre todas as células.
+ */
+public final class LiquidityTracker {
+  private static final int STRIPES = 16;
+  /** Distância entre células no array, em referências, para evitar falso compartilhamento. */
+  private static final int SPACING = 16;
+
+  private final AtomicReferenceArray<BigDecimal> cells = new AtomicReferenceArray<>(STRIPES * SPACING);
+
+  public LiquidityTracker() {
+    for (int i = 0; i < STRIPES; i++) cells.set(i * SPACING, BigDecimal.ZERO);
+  }
+
+  void credited(BigDecimal amount) { add(amount); }
+
+  void debited(BigDecimal amount) { add(amount.negate()); }
+
+  /** Total esperado: soma líquida de entradas e saídas externas. */
+  public BigDecimal expectedTotal() {
+    BigDecimal sum = BigDecimal.ZERO;
+    for (int i = 0; i < STRIPES; i++) sum = sum.add(cells.get(i * SPACING));
+    return sum;
+  }
+
+  private void add(BigDecimal delta) {
+    int index = stripe() * SPACING;
+    BigDecimal current;
+    do {
+      current = cells.get(index);
+    } while (!cells.compareAndSet(index, current, current.add(delta)));
+  }
+
+  private static int stripe() {
+    long id = Thread.currentThread().getId();
+    return (int) ((id * 0x9E3779B97F4A7C15L) >>> 60) & (STRIPES - 1);
+  }
+}
@@ -0,0 +1,99 @@
+package com.bank;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parâmetros do {@link LoadGenerator}, lidos de opções {@code --nome=valor}.
+ * <pre>
+ *   --accounts=1000        contas criadas
+ *   --threads=4            threads geradoras
+ *   --rate=0               transferências/s no total (0 = laço fechado, sem ritmo)
+ *   --duration=10s         duração (ms, s ou m)
+ *   --distribution=uniform uniform | zipf
+ *   --skew=1.0             expoente da Zipf
+ *   --amount=1.00          valor de cada transferência
+ *   --balance=1000000.00   saldo inicial de cada conta
+ *   --seed=42              semente dos sorteios
+ *   --mode=pessimistic     pessimistic | optimistic (ver {@link OptimisticTransferService})
+ * </pre>
+ */
+public final class LoadConfig {
+  int accounts = 1000;
+  int threads = Runtime.getRuntime().availableProcessors();
+  double rate;
+  long durationNanos = TimeUnit.SECONDS.toNanos(10);
+  boolean zipf;
+  double skew = 1.0;
+  BigDecimal amount = new BigDecimal("1.00");
+  BigDecimal balance = new BigDecimal("1000000.00");
+  long seed = 42;
+  boolean optimistic;
+
+  public static LoadConfig parse(String... options) {
+    LoadConfig config = new LoadConfig();
+    if (options == null) return config;
+    for (String option : options) {
+      if (option == null) continue;
+      int eq = option.indexOf('=');
+      if (!option.startsWith("--") || eq < 0) throw new IllegalArgumentException("Opção inválida: " + option);
+      String name = option.substring(2, eq);
+      String value = option.substring(eq + 1);
+      try {
+        switch (name) {
+          case "accounts": config.accounts = positive(Integer.parseInt(value), name); break;
+          case "threads": config.threads = positive(Integer.parseInt(value), name); break;
+          case "rate": config.rate = Double.parseDouble(value); break;
+          case "duration": config.durationNanos = parseDuration(value); break;
+          case "distribution": config.zipf = parseDistribution(value); break;
+          case "skew": config.skew = Double.parseDouble(value); break;
+          case "amount": config.amount = new BigDecimal(value); break;
+          case "balance": config.balance = new BigDecimal(value); break;
+          case "seed": config.seed = Long.parseLong(value); break;
+          case "mode": config.optimistic = parseMode(value); break;
+          default: throw new IllegalArgumentException("Opção desconhecida: " + name);
+        }
+      } catch (NumberFormatException e) {
+        throw new IllegalArgumentException("Valor inválido em " + option, e);
+      }
+    }
+    if (config.accounts < 2) throw new IllegalArgumentException("São necessárias ao menos 2 contas");
+    if (config.rate < 0) throw new IllegalArgumentException("Taxa deve ser >= 0");
+    if (!(config.skew >= 0)) throw new IllegalArgumentException("Expoente deve ser >= 0");
+    if (config.amount.signum() <= 0) throw new IllegalArgumentException("Valor deve ser > 0");
+    if (config.balance.signum() < 0) throw new IllegalArgumentException("Saldo inicial negativo");
+    return config;
+  }
+
+  private static int positive(int value, String name) {
+    if (value <= 0) throw new IllegalArgumentException(name + " deve ser > 0");
+    return value;
+  }
+
+  private static boolean parseDistribution(String value) {
+    if ("zipf".equals(value)) return true;
+    if ("uniform".equals(value)) return false;
+    throw new IllegalArgumentException("Distribuição desconhecida: " + value);
+  }
+
+  private static boolean parseMode(String value) {
+    if ("optimistic".equals(value)) return true;
+    if ("pessimistic".equals(value)) return false;
+    throw new IllegalArgumentException("Modo desconhecido: " + value);
+  }
+
+  static long parseDuration(String value) {
+    long nanos;
+    if (value.endsWith("ms")) {
+      nanos = TimeUnit.MILLISECONDS.toNanos(Long.parseLong(value.substring(0, value.length() - 2)));
+    } else if (value.endsWith("s")) {
+      nanos = TimeUnit.SECONDS.toNanos(Long.parseLong(value.substring(0, value.length() - 1)));
+    } else if (value.endsWith("m")) {
+      nanos = TimeUnit.MINUTES.toNanos(Long.parseLong(value.substring(0, value.length() - 1)));
+    } else {
+      throw new IllegalArgumentException("Duração inválida: " + value);
+    }
+    if (nanos <= 0) throw new IllegalArgumentException("Duração deve ser > 0");
+    return nanos;
+  }
+}
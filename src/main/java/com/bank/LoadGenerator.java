@@ -0,0 +1,195 @@
+package com.bank;
+
+import java.io.PrintStream;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Gerador de carga sintética: abre {@code accounts} contas e dispara transferências entre pares
+ * sorteados (uniforme ou Zipf) a partir de várias threads, por um tempo fixo.
+ * <p>
+ * Com {@code rate > 0} a carga é de laço aberto: cada thread tem um horário previsto para cada
+ * operação e a latência é medida a partir desse horário, não do início efetivo. Assim, uma pausa
+ * no sistema aparece em todas as operações que ficaram esperando por ela (correção de
+ * <i>coordinated omission</i>). O tempo de serviço, medido do início efetivo, é reportado à parte.
+ */
+public final class LoadGenerator {
+  private final LoadConfig config;
+
+  public LoadGenerator(LoadConfig config) {
+    if (config == null) throw new NullPointerException("Configuração nula");
+    this.config = config;
+  }
+
+  /** Resultado de uma execução. Latências em nanossegundos. */
+  public static final class Result {
+    private final long completed;
+    private final long rejected;
+    private final long elapsedNanos;
+    private final LatencyHistogram latency;
+    private final LatencyHistogram service;
+    private final BigDecimal expectedTotal;
+    private final BigDecimal actualTotal;
+
+    Result(long completed, long rejected, long elapsedNanos, LatencyHistogram latency,
+           LatencyHistogram service, BigDecimal expectedTotal, BigDecimal actualTotal) {
+      this.completed = completed;
+      this.rejected = rejected;
+      this.elapsedNanos = elapsedNanos;
+      this.latency = latency;
+      this.service = service;
+      this.expectedTotal = expectedTotal;
+      this.actualTotal = actualTotal;
+    }
+
+    public long getCompleted() { return completed; }
+    public long getRejected() { return rejected; }
+    public long getElapsedNanos() { return elapsedNanos; }
+    /** Latência corrigida: do horário previsto até o fim da operação. */
+    public LatencyHistogram getLatency() { return latency; }
+    /** Tempo de serviço: do início efetivo até o fim da operação. */
+    public LatencyHistogram getServiceTime() { return service; }
+    public BigDecimal getExpectedTotal() { return expectedTotal; }
+    public BigDecimal getActualTotal() { return actualTotal; }
+
+    public double throughput() {
+      return elapsedNanos == 0 ? 0 : (completed + rejected) * 1e9 / elapsedNanos;
+    }
+
+    public void print(PrintStream out) {
+      out.printf(Locale.ROOT, "Operações: %d (rejeitadas: %d) em %.2f s%n",
+          completed + rejected, rejected, elapsedNanos / 1e9);
+      out.printf(Locale.ROOT, "Vazão: %.1f op/s%n", throughput());
+      printPercentiles(out, "Latência (µs)", latency);
+      printPercentiles(out, "Serviço (µs)", service);
+      out.println("Total esperado: " + expectedTotal + " / apurado: " + actualTotal);
+    }
+
+    private static void printPercentiles(PrintStream out, String label, LatencyHistogram h) {
+      out.printf(Locale.ROOT, "%s p50=%.1f p90=%.1f p99=%.1f p99.9=%.1f máx=%.1f%n", label,
+          h.percentile(50) / 1e3, h.percentile(90) / 1e3, h.percentile(99) / 1e3,
+          h.percentile(99.9) / 1e3, h.max() / 1e3);
+    }
+  }
+
+  public Result run() throws InterruptedException {
+    AccountRegistry registry = new AccountRegistry();
+    Account[] accounts = new Account[config.accounts];
+    for (int i = 0; i < accounts.length; i++) accounts[i] = registry.open(i + 1, config.balance);
+    ZipfSampler sampler = new ZipfSampler(accounts.length, config.zipf ? config.skew : 0);
+    TransferService service = config.optimistic ? new OptimisticTransferService() : new TransferService();
+
+    Worker[] workers = new Worker[config.threads];
+    List<Thread> threads = new ArrayList<>(workers.length);
+    CountDownLatch ready = new CountDownLatch(workers.length);
+    CountDownLatch go = new CountDownLatch(1);
+    long interval = config.rate > 0 ? (long) (config.threads * 1e9 / config.rate) : 0;
+    for (int t = 0; t < workers.length; t++) {
+      Worker worker = new Worker(accounts, sampler, service, new SplittableRandom(config.seed + t),
+          config.amount, interval);
+      workers[t] = worker;
+      Thread thread = new Thread(() -> {
+        ready.countDown();
+        try {
+          go.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return;
+        }
+        worker.run();
+      }, "load-" + t);
+      thread.setDaemon(true);
+      threads.add(thread);
+      thread.start();
+    }
+
+    ready.await();
+    long start = System.nanoTime();
+    for (Worker worker : workers) {
+      worker.start = start;
+      worker.end = start + config.durationNanos;
+    }
+    go.countDown();
+    for (Thread thread : threads) thread.join();
+    long elapsed = System.nanoTime() - start;
+
+    long completed = 0;
+    long rejected = 0;
+    LatencyHistogram latency = new LatencyHistogram();
+    LatencyHistogram serviceTime = new LatencyHistogram();
+    for (Worker worker : workers) {
+      completed += worker.completed;
+      rejected += worker.rejected;
+      latency.add(worker.latency);
+      serviceTime.add(worker.service);
+    }
+    BigDecimal actual = BigDecimal.ZERO;
+    for (Account account : accounts) actual = actual.add(account.getBalance());
+    return new Result(completed, rejected, elapsed, latency, serviceTime,
+        registry.liquidity().expectedTotal(), actual);
+  }
+
+  private static final class Worker {
+    private final Account[] accounts;
+    private final ZipfSampler sampler;
+    private final TransferService transfers;
+    private final SplittableRandom random;
+    private final BigDecimal amount;
+    private final long interval;
+    final LatencyHistogram latency = new LatencyHistogram();
+    final LatencyHistogram service = new LatencyHistogram();
+    volatile long start;
+    volatile long end;
+    long completed;
+    long rejected;
+
+    Worker(Account[] accounts, ZipfSampler sampler, TransferService transfers, SplittableRandom random,
+           BigDecimal amount, long interval) {
+      this.accounts = accounts;
+      this.sampler = sampler;
+      this.transfers = transfers;
+      this.random = random;
+      this.amount = amount;
+      this.interval = interval;
+    }
+
+    void run() {
+      long deadline = end;
+      long intended = start;
+      while (true) {
+        long now = System.nanoTime();
+        if (interval > 0) {
+          if (intended - deadline >= 0) return;
+          while (intended - now > 0) {
+            LockSupport.parkNanos(intended - now);
+            now = System.nanoTime();
+          }
+        } else {
+          if (now - deadline >= 0) return;
+          intended = now;
+        }
+
+        // destino sorteado entre as outras n - 1 contas, sem rejeição: com expoente alto a
+        // Zipf devolve sempre o índice 0 e um laço até 'to != from' nunca terminaria
+        int n = accounts.length;
+        int from = sampler.next(random);
+        int to = (from + 1 + sampler.next(random) % (n - 1)) % n;
+        try {
+          transfers.transfer(accounts[from], accounts[to], amount);
+          completed++;
+        } catch (IllegalStateException e) {
+          rejected++;
+        }
+        long done = System.nanoTime();
+        latency.record(done - intended);
+        service.record(done - now);
+        intended += interval;
+      }
+    }
+  }
+}
@@ -1,9 +1,16 @@
 package com.bank;
 
 import java.math.BigDecimal;
+import java.util.Arrays;
 
 public class Main {
     public static void main(String[] args) {
+        // "load --opcao=valor ..." executa o gerador de carga; qualquer outra coisa, a demonstração
+        if (args != null && args.length > 0 && "load".equals(args[0])) {
+            runLoad(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+
         Account contaCorrente = new Account();
         Account contaPoupanca = new Account();
         TransferService servico = new TransferService();
@@ -18,4 +25,12 @@ public class Main {
         System.out.println("Saldo CC após transferência: " + contaCorrente.getBalance());
         System.out.println("Saldo Poupança: " + contaPoupanca.getBalance());
     }
+
+    private static void runLoad(String[] options) {
+        try {
+            new LoadGenerator(LoadConfig.parse(options)).run().print(System.out);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
 }
@@ -0,0 +1,51 @@
+package com.bank;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+
+/**
+ * Conversões entre valores monetários ({@link BigDecimal}) e unidades mínimas (centavos).
+ */
+final class Money {
+  /** Escala das unidades mínimas (2 casas = centavos). */
+  static final int MINOR_SCALE = 2;
+
+  private Money() { }
+
+  /**
+   * Converte para centavos arredondando para cima e saturando em {@code Long.MAX_VALUE}.
+   * Útil para limites: nunca subestima o valor.
+   */
+  static long toMinorUnitsCeiling(BigDecimal amount) {
+    BigInteger minor = amount.setScale(MINOR_SCALE, RoundingMode.CEILING).unscaledValue();
+    if (minor.bitLength() > 63) {
+      return minor.signum() > 0 ? Long.MAX_VALUE : Long.MIN_VALUE;
+    }
+    return minor.longValue();
+  }
+
+  /**
+   * Converte para centavos truncando frações de centavo e saturando nos limites de {@code long}.
+   * Útil para exibir saldos: nunca superestima o valor.
+   */
+  static long toMinorUnitsFloor(BigDecimal amount) {
+    BigInteger minor = amount.setScale(MINOR_SCALE, RoundingMode.FLOOR).unscaledValue();
+    if (minor.bitLength() > 63) {
+      return minor.signum() > 0 ? Long.MAX_VALUE : Long.MIN_VALUE;
+    }
+    return minor.longValue();
+  }
+
+  /**
+   * Converte para centavos sem arredondar.
+   * @throws ArithmeticException se o valor tiver frações de centavo ou não couber num {@code long}
+   */
+  static long toMinorUnits(BigDecimal amount) {
+    return amount.setScale(MINOR_SCALE, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+  }
+
+  static BigDecimal fromMinorUnits(long minor) {
+    return BigDecimal.valueOf(minor, MINOR_SCALE);
+  }
+}
@@ -0,0 +1,173 @@
+package com.bank;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Diário em memória das operações de um {@link AccountRegistry}, em ordem de sequência.
+ * <p>
+ * A sequência é reservada por um contador atômico e o lançamento é gravado em segmentos de
+ * arrays paralelos, sem lock global. Como o cadastro grava cada operação enquanto segura o
+ * lock das contas envolvidas, a ordem da sequência respeita a ordem real em cada conta:
+ * qualquer prefixo publicado ({@link #committed()}) é um estado consistente do cadastro.
+ * <p>
+ * Uma transferência de várias pernas entra como um lote atômico ({@link Batch}): as sequências
+ * são contíguas e o primeiro lançamento só é publicado depois dos demais, então
+ * {@link #committed()} nunca para no meio de um lote. Quem lê em pedaços corta em
+ * {@link #batchEnd} para também não parar.
+ */
+public final class OperationJournal {
+  private static final int SEGMENT_BITS = 12;
+  private static final int SEGMENT_SIZE = 1 << SEGMENT_BITS;
+  private static final int SEGMENT_MASK = SEGMENT_SIZE - 1;
+
+  /** Recebe os lançamentos lidos com {@link #read}. */
+  public interface Visitor {
+    /**
+     * @param counterparty conta de destino em {@link OperationType#TRANSFER}; 0 nos demais tipos
+     */
+    void visit(long seq, OperationType type, long account, long counterparty, BigDecimal amount);
+  }
+
+  private final AtomicLong next = new AtomicLong();
+  private volatile long watermark;
+  private volatile Segment[] segments = new Segment[16];
+
+  long append(OperationType type, long account, long counterparty, BigDecimal amount) {
+    long seq = next.getAndIncrement();
+    write(seq, type, account, counterparty, amount, 1);
+    return seq;
+  }
+
+  /** Grava o lote em sequências contíguas, publicando o primeiro lançamento por último. */
+  void append(Batch batch) {
+    int n = batch.size;
+    if (n == 0) return;
+    long first = next.getAndAdd(n);
+    for (int k = n - 1; k >= 0; k--) {
+      write(first + k, batch.types[k], batch.accounts[k], batch.counterparties[k], batch.amounts[k], n - k);
+    }
+  }
+
+  /** {@code span}: lançamentos do lote a partir deste, inclusive; 1 fora de lote. */
+  private void write(long seq, OperationType type, long account, long counterparty, BigDecimal amount, int span) {
+    Segment segment = segment(seq >>> SEGMENT_BITS);
+    int i = (int) (seq & SEGMENT_MASK);
+    segment.types[i] = (byte) type.ordinal();
+    segment.accounts[i] = account;
+    segment.counterparties[i] = counterparty;
+    segment.amounts[i] = amount;
+    segment.published.lazySet(i, span);
+  }
+
+  /**
+   * Fim (exclusivo) do lote que contém {@code seq}, ou {@code seq + 1} fora de lote; {@code seq}
+   * precisa estar abaixo de {@link #committed()}. Um leitor que para em {@code to} deve parar em
+   * {@code batchEnd(to - 1)}.
+   */
+  public long batchEnd(long seq) {
+    if (seq < 0 || seq >= committed()) throw new IllegalArgumentException("Sequência não publicada: " + seq);
+    return seq + span(seq);
+  }
+
+  /** Lançamentos do lote a partir de {@code seq}, inclusive; sem validar que está publicado. */
+  int span(long seq) {
+    return segments[(int) (seq >>> SEGMENT_BITS)].published.get((int) (seq & SEGMENT_MASK));
+  }
+
+  /** Sequência exclusiva até onde todos os lançamentos estão publicados. */
+  public long committed() {
+    long w = watermark;
+    long limit = next.get();
+    while (w < limit) {
+      // a sequência pode estar reservada num segmento que o diretório ainda não alcançou
+      Segment[] dir = segments;
+      long index = w >>> SEGMENT_BITS;
+      Segment segment = index < dir.length ? dir[(int) index] : null;
+      if (segment == null || segment.published.get((int) (w & SEGMENT_MASK)) == 0) break;
+      w++;
+    }
+    synchronized (this) {
+      if (w > watermark) watermark = w;
+    }
+    return w;
+  }
+
+  /** Total de sequências reservadas (publicadas ou não). */
+  public long size() { return next.get(); }
+
+  /**
+   * Entrega ao {@code visitor} os lançamentos em {@code [from, to)}; {@code to} não pode passar de {@link #committed()}.
+   */
+  public void read(long from, long to, Visitor visitor) {
+    if (from < 0 || to < from) throw new IllegalArgumentException("Intervalo inválido");
+    if (to > committed()) throw new IllegalArgumentException("Intervalo além do publicado");
+    Segment[] dir = segments;
+    for (long seq = from; seq < to; seq++) {
+      Segment segment = dir[(int) (seq >>> SEGMENT_BITS)];
+      int i = (int) (seq & SEGMENT_MASK);
+      visitor.visit(seq, OperationType.of(segment.types[i]), segment.accounts[i], segment.counterparties[i],
+          segment.amounts[i]);
+    }
+  }
+
+  private Segment segment(long index) {
+    Segment[] dir = segments;
+    if (index < dir.length) {
+      Segment segment = dir[(int) index];
+      if (segment != null) return segment;
+    }
+    return createSegment((int) index);
+  }
+
+  private synchronized Segment createSegment(int index) {
+    Segment[] dir = segments;
+    if (index >= dir.length) {
+      Segment[] grown = new Segment[Math.max(dir.length * 2, index + 1)];
+      System.arraycopy(dir, 0, grown, 0, dir.length);
+      dir = grown;
+    }
+    if (dir[index] == null) dir[index] = new Segment();
+    segments = dir;
+    return dir[index];
+  }
+
+  /** Lançamentos gravados juntos por {@link #append(Batch)}. */
+  static final class Batch {
+    private OperationType[] types = new OperationType[4];
+    private long[] accounts = new long[4];
+    private long[] counterparties = new long[4];
+    private BigDecimal[] amounts = new BigDecimal[4];
+    private int size;
+
+    void add(OperationType type, long account, long counterparty, BigDecimal amount) {
+      if (size == types.length) {
+        types = Arrays.copyOf(types, size * 2);
+        accounts = Arrays.copyOf(accounts, size * 2);
+        counterparties = Arrays.copyOf(counterparties, size * 2);
+        amounts = Arrays.copyOf(amounts, size * 2);
+      }
+      types[size] = type;
+      accounts[size] = account;
+      counterparties[size] = counterparty;
+      amounts[size] = amount;
+      size++;
+    }
+
+    int size() { return size; }
+
+    OperationType type(int i) { return types[i]; }
+
+    BigDecimal amount(int i) { return amounts[i]; }
+  }
+
+  private static final class Segment {
+    final byte[] types = new byte[SEGMENT_SIZE];
+    final long[] accounts = new long[SEGMENT_SIZE];
+    final long[] counterparties = new long[SEGMENT_SIZE];
+    final BigDecimal[] amounts = new BigDecimal[SEGMENT_SIZE];
+    final AtomicIntegerArray published = new AtomicIntegerArray(SEGMENT_SIZE);
+  }
+}
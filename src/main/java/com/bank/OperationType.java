@@ -0,0 +1,19 @@
+package com.bank;
+
+/**
+ * Tipos de operação registrados no {@link OperationJournal}.
+ */
+public enum OperationType {
+  /** Abertura de conta (saldo zero). */
+  OPEN,
+  /** Depósito externo. */
+  DEPOSIT,
+  /** Saque externo. */
+  WITHDRAW,
+  /** Transferência entre duas contas do mesmo cadastro. */
+  TRANSFER;
+
+  private static final OperationType[] VALUES = values();
+
+  static OperationType of(int code) { return VALUES[code]; }
+}
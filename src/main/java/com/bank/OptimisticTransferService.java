@@ -0,0 +1,127 @@
+package com.bank;
+
+import java.math.BigDecimal;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Transferência otimista para cargas de baixa contenção.
+ * <p>
+ * Saldo e versão da origem são lidos sem lock e o novo saldo calculado fora de qualquer seção
+ * crítica. A efetivação trava só a origem, valida que a versão não mudou e troca o saldo por
+ * CAS contra o valor lido. O destino não é travado: o crédito comuta com qualquer outra
+ * operação e é publicado por CAS ({@link Account#casCredit}). O lançamento entra no diário
+ * antes do crédito ficar visível, então nenhum prefixo do diário mostra o destino gastando
+ * um dinheiro que ainda não recebeu. Se a origem mudou, houve conflito: a tentativa é
+ * descartada, a thread espera um recuo exponencial aleatório e tenta de novo.
+ * <p>
+ * Cada conflito na origem, e cada CAS perdido no destino, soma na {@code contention} da conta;
+ * cada efetivação desconta. Contas que continuam perdendo disputas (acima de
+ * {@code contentionThreshold}), ou tentativas esgotadas, caem no caminho pessimista de
+ * {@link TransferService}. CASes perdidos no destino também alimentam o
+ * {@link HotAccountDetector} do cadastro. Contas divididas em sub-saldos, destinos que não
+ * aceitam crédito sem lock (com eventos, visões) e origens que são visões vão sempre pelo
+ * caminho pessimista.
+ */
+public class OptimisticTransferService extends TransferService {
+  private final int maxAttempts;
+  private final long backoffNanos;
+  private final int contentionThreshold;
+  private final LongAdder optimistic = new LongAdder();
+  private final LongAdder conflicts = new LongAdder();
+  private final LongAdder fallbacks = new LongAdder();
+
+  public OptimisticTransferService() {
+    this(4, 1_000, 8);
+  }
+
+  /**
+   * @param maxAttempts         tentativas otimistas antes de travar de vez
+   * @param backoffNanos        recuo base; a k-ésima espera é aleatória em {@code [0, base << k)}
+   * @param contentionThreshold conflitos recentes a partir dos quais a conta vai direto ao lock
+   */
+  public OptimisticTransferService(int maxAttempts, long backoffNanos, int contentionThreshold) {
+    if (maxAttempts <= 0) throw new IllegalArgumentException("Tentativas devem ser > 0");
+    if (backoffNanos < 0) throw new IllegalArgumentException("Recuo negativo");
+    if (contentionThreshold <= 0) throw new IllegalArgumentException("Limiar deve ser > 0");
+    this.maxAttempts = maxAttempts;
+    this.backoffNanos = backoffNanos;
+    this.contentionThreshold = contentionThreshold;
+  }
+
+  @Override
+  public void transfer(Account from, Account to, BigDecimal amount) {
+    validate(from, to, amount);
+    if (from.contention < contentionThreshold && to.contention < contentionThreshold
+        && from.guardedByMonitor() && to.creditsWithoutLock()) {
+      for (int attempt = 0; attempt < maxAttempts && !from.isSplit() && !to.isSplit(); attempt++) {
+        if (tryCommit(from, to, amount)) {
+          optimistic.increment();
+          return;
+        }
+        conflicts.increment();
+        backoff(attempt);
+      }
+    }
+    fallbacks.increment();
+    super.transfer(from, to, amount);
+    cool(from, to);
+  }
+
+  /** Transferências efetivadas pelo caminho otimista. */
+  public long optimisticCommits() { return optimistic.sum(); }
+
+  /** Tentativas otimistas descartadas por conflito. */
+  public long conflicts() { return conflicts.sum(); }
+
+  /** Transferências que usaram o caminho pessimista. */
+  public long fallbacks() { return fallbacks.sum(); }
+
+  /** Retorna {@code false} em conflito; exceções de validação valem como resultado. */
+  private boolean tryCommit(Account from, Account to, BigDecimal amount) {
+    long fromVersion = from.version();
+    BigDecimal fromBalance = from.peekBalance();
+    BigDecimal newFrom = fromBalance.subtract(amount);
+    int lost;
+    synchronized (from) {
+      if (from.version() != fromVersion) {
+        from.contention++;
+        return false;
+      }
+      from.limitRate(1);
+      if (newFrom.signum() < 0) throw new IllegalStateException("Saldo insuficiente");
+      VelocityResult result = from.checkVelocity(1, amount);
+      if (result != VelocityResult.ACCEPTED) throw new VelocityLimitExceededException(result);
+      if (!from.replaceBalance(fromBalance, newFrom)) {
+        // crédito sem lock chegou depois da validação
+        from.contention++;
+        return false;
+      }
+      from.recordVelocity(1, amount);
+      recorded(from, to, amount);
+      lost = to.casCredit(amount);
+    }
+    if (from.contention > 0) from.contention--;
+    if (lost > 0) {
+      to.contention += lost;
+      HotAccountDetector detector = to.registry() == null ? null : to.registry().hotAccounts();
+      if (detector != null) detector.conflicted(to);
+    } else if (to.contention > 0) {
+      to.contention--;
+    }
+    return true;
+  }
+
+  /** Sem lock: a contenção é só uma heurística, perder um decremento não afeta a correção. */
+  private static void cool(Account from, Account to) {
+    if (from.contention > 0) from.contention--;
+    if (to.contention > 0) to.contention--;
+  }
+
+  private void backoff(int attempt) {
+    if (backoffNanos == 0) return;
+    long bound = backoffNanos << Math.min(attempt, 20);
+    LockSupport.parkNanos(ThreadLocalRandom.current().nextLong(bound));
+  }
+}
@@ -0,0 +1,204 @@
+package com.bank;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * {@link BalanceStore} em arquivo, para a cauda longa de contas paradas.
+ * <p>
+ * O arquivo é uma sequência de páginas de 4 KB com 512 saldos em centavos cada; a posição
+ * {@code slot} fica na página {@code slot / 512}. Só {@code cachePages} páginas ficam em memória,
+ * em quadros alocados uma vez: a memória usada segue o conjunto de trabalho, não o total de
+ * contas. Uma página ausente é lida sob demanda; para abrir espaço, o ponteiro do relógio
+ * (CLOCK) percorre os quadros dando uma segunda chance aos usados desde a última volta e
+ * despeja o primeiro sem uso, gravando-o antes se estiver sujo. A página entra sem a marca de
+ * uso, que só um novo acesso dá: numa varredura as páginas recém-lidas são as primeiras a sair,
+ * mas o ponteiro também apaga as marcas das quentes, e uma quente sem acesso durante uma volta
+ * inteira é despejada. Escritas só chegam ao disco no despejo, em {@link #flush()} ou em
+ * {@link #close()}.
+ * <p>
+ * O acesso é por posição, com {@link AccountView}, como no {@link BalanceTable}, ou pelo próprio
+ * cadastro: com {@link AccountRegistry#enablePaging} as contas paradas saem da memória e têm o
+ * saldo guardado aqui, na posição da conta, até a próxima busca (ver {@link AccountPager}).
+ * <p>
+ * As operações são serializadas pelo monitor do armazenamento. Erros de E/S durante uma
+ * operação de conta saem como {@link UncheckedIOException}.
+ */
+public final class PagedBalanceStore extends BalanceStore implements Closeable {
+  static final int PAGE_SIZE = 4096;
+  static final int SLOTS_PER_PAGE = PAGE_SIZE / 8;
+
+  private final FileChannel channel;
+  private final int capacity;
+  private final ByteBuffer[] frames;
+  /** Página em cada quadro, ou -1 se livre. */
+  private final int[] framePage;
+  private final boolean[] referenced;
+  private final boolean[] dirty;
+  /** Quadro de cada página, ou -1 se fora da memória. */
+  private final int[] pageFrame;
+  private int hand;
+  private long hits;
+  private long misses;
+  private long evictions;
+  private long writeBacks;
+
+  /**
+   * Abre (ou cria) o arquivo; saldos já gravados nele são mantidos.
+   * @param capacity   quantidade de posições
+   * @param cachePages páginas mantidas em memória
+   */
+  public PagedBalanceStore(Path file, int capacity, int cachePages) throws IOException {
+    if (capacity <= 0) throw new IllegalArgumentException("Capacidade deve ser > 0");
+    if (cachePages <= 0) throw new IllegalArgumentException("Cache deve ter ao menos uma página");
+    int pages = (capacity + SLOTS_PER_PAGE - 1) / SLOTS_PER_PAGE;
+    this.capacity = capacity;
+    this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+        StandardOpenOption.WRITE);
+    int frameCount = Math.min(cachePages, pages);
+    frames = new ByteBuffer[frameCount];
+    for (int i = 0; i < frameCount; i++) frames[i] = ByteBuffer.allocateDirect(PAGE_SIZE);
+    framePage = new int[frameCount];
+    Arrays.fill(framePage, -1);
+    referenced = new boolean[frameCount];
+    dirty = new boolean[frameCount];
+    pageFrame = new int[pages];
+    Arrays.fill(pageFrame, -1);
+  }
+
+  @Override
+  public int capacity() { return capacity; }
+
+  @Override
+  synchronized long cents(int slot) {
+    return frame(slot).getLong(offset(slot));
+  }
+
+  @Override
+  synchronized void credit(int slot, long amount) {
+    ByteBuffer frame = frame(slot);
+    int offset = offset(slot);
+    frame.putLong(offset, Math.addExact(frame.getLong(offset), amount));
+    dirty[pageFrame[slot / SLOTS_PER_PAGE]] = true;
+  }
+
+  @Override
+  synchronized boolean tryDebit(int slot, long amount) {
+    ByteBuffer frame = frame(slot);
+    int offset = offset(slot);
+    long current = frame.getLong(offset);
+    if (current < amount) return false;
+    frame.putLong(offset, current - amount);
+    dirty[pageFrame[slot / SLOTS_PER_PAGE]] = true;
+    return true;
+  }
+
+  /** Substitui o saldo da posição; usado pelo {@link AccountPager} ao rebaixar uma conta. */
+  synchronized void put(int slot, long amount) {
+    frame(slot).putLong(offset(slot), amount);
+    dirty[pageFrame[slot / SLOTS_PER_PAGE]] = true;
+  }
+
+  /** Grava as páginas sujas e força o arquivo ao disco. */
+  public synchronized void flush() throws IOException {
+    for (int f = 0; f < frames.length; f++) {
+      if (dirty[f]) writeBack(f);
+    }
+    channel.force(false);
+  }
+
+  /** Páginas em memória no momento. */
+  public synchronized int residentPages() {
+    int resident = 0;
+    for (int page : framePage) {
+      if (page >= 0) resident++;
+    }
+    return resident;
+  }
+
+  public synchronized long hits() { return hits; }
+
+  public synchronized long misses() { return misses; }
+
+  public synchronized long evictions() { return evictions; }
+
+  /** Páginas sujas gravadas (no despejo ou em {@link #flush()}). */
+  public synchronized long writeBacks() { return writeBacks; }
+
+  private static int offset(int slot) {
+    return (slot % SLOTS_PER_PAGE) * 8;
+  }
+
+  /** Quadro com a página de {@code slot}, carregando-a se preciso; chamado com o monitor. */
+  private ByteBuffer frame(int slot) {
+    if (slot < 0 || slot >= capacity) throw new IndexOutOfBoundsException("Posição inválida: " + slot);
+    int page = slot / SLOTS_PER_PAGE;
+    int f = pageFrame[page];
+    if (f >= 0) {
+      hits++;
+      referenced[f] = true;
+      return frames[f];
+    }
+    misses++;
+    try {
+      f = victim();
+      ByteBuffer frame = frames[f];
+      frame.clear();
+      long position = (long) page * PAGE_SIZE;
+      while (frame.hasRemaining()) {
+        // além do fim do arquivo a página ainda não existe: saldos zero
+        if (channel.read(frame, position + frame.position()) < 0) {
+          while (frame.hasRemaining()) frame.put((byte) 0);
+        }
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    framePage[f] = page;
+    pageFrame[page] = f;
+    return frames[f];
+  }
+
+  /** Quadro livre ou despejado pelo relógio. */
+  private int victim() throws IOException {
+    while (true) {
+      int f = hand;
+      hand = (hand + 1) % frames.length;
+      if (framePage[f] < 0) return f;
+      if (referenced[f]) {
+        referenced[f] = false;
+        continue;
+      }
+      if (dirty[f]) writeBack(f);
+      pageFrame[framePage[f]] = -1;
+      framePage[f] = -1;
+      evictions++;
+      return f;
+    }
+  }
+
+  private void writeBack(int f) throws IOException {
+    ByteBuffer frame = frames[f].duplicate();
+    frame.clear();
+    long position = (long) framePage[f] * PAGE_SIZE;
+    while (frame.hasRemaining()) channel.write(frame, position + frame.position());
+    dirty[f] = false;
+    writeBacks++;
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    if (!channel.isOpen()) return;
+    try {
+      flush();
+    } finally {
+      channel.close();
+    }
+  }
+}
@@ -0,0 +1,24 @@
+package com.bank;
+
+import java.util.List;
+
+/**
+ * Participante do commit em duas fases coordenado por {@link TwoPhaseCoordinator}.
+ * As mensagens são em lote: cada chamada carrega as pernas ou transações de várias
+ * transferências. Implementações locais ({@link PartitionParticipant}) ou remotas
+ * ({@link RemoteParticipant}); falhas de comunicação saem como exceções não verificadas.
+ */
+public interface Participant {
+
+  /**
+   * Primeira fase: reserva os débitos e confere os créditos. O voto de cada perna vem na
+   * mesma posição do array; {@code true} só depois de a reserva estar no log do participante.
+   */
+  boolean[] prepare(List<PreparedLeg> legs);
+
+  /** Segunda fase: efetiva as transações. Ids desconhecidos ou já resolvidos são ignorados. */
+  void commit(long[] txIds);
+
+  /** Segunda fase: libera as reservas. Ids desconhecidos ou já resolvidos são ignorados. */
+  void abort(long[] txIds);
+}
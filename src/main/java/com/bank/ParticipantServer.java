@@ -0,0 +1,94 @@
+package com.bank;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.bank.RemoteParticipant.*;
+
+/**
+ * Expõe um {@link Participant} por socket no protocolo de {@link RemoteParticipant}.
+ * Uma thread por conexão; o participante serializa os lotes.
+ */
+public final class ParticipantServer implements Closeable {
+  private final Participant participant;
+  private final ServerSocket server;
+  private final Set<Socket> connections = ConcurrentHashMap.newKeySet();
+
+  /** Escuta em {@code port} no loopback (0 = porta livre). */
+  public ParticipantServer(Participant participant, int port) throws IOException {
+    if (participant == null) throw new NullPointerException("Participante nulo");
+    this.participant = participant;
+    this.server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+    Thread acceptor = new Thread(this::accept, "participant-accept-" + server.getLocalPort());
+    acceptor.setDaemon(true);
+    acceptor.start();
+  }
+
+  public InetSocketAddress address() {
+    return new InetSocketAddress(server.getInetAddress(), server.getLocalPort());
+  }
+
+  private void accept() {
+    while (!server.isClosed()) {
+      try {
+        Socket socket = server.accept();
+        socket.setTcpNoDelay(true);
+        connections.add(socket);
+        Thread handler = new Thread(() -> serve(socket), "participant-" + socket.getPort());
+        handler.setDaemon(true);
+        handler.start();
+      } catch (IOException e) {
+        // servidor fechado
+      }
+    }
+  }
+
+  private void serve(Socket socket) {
+    try (Socket s = socket) {
+      DataInputStream in = new DataInputStream(new BufferedInputStream(s.getInputStream()));
+      DataOutputStream out = new DataOutputStream(new BufferedOutputStream(s.getOutputStream()));
+      while (true) {
+        byte op = in.readByte();
+        int count = in.readInt();
+        if (op == PREPARE) {
+          List<PreparedLeg> legs = new ArrayList<>(count);
+          for (int i = 0; i < count; i++) legs.add(new PreparedLeg(in.readLong(), in.readLong(), in.readLong()));
+          for (boolean vote : participant.prepare(legs)) out.writeBoolean(vote);
+        } else if (op == COMMIT || op == ABORT) {
+          long[] txIds = new long[count];
+          for (int i = 0; i < count; i++) txIds[i] = in.readLong();
+          if (op == COMMIT) participant.commit(txIds); else participant.abort(txIds);
+          out.writeByte(ACK);
+        } else {
+          throw new IOException("Operação desconhecida: " + op);
+        }
+        out.flush();
+      }
+    } catch (EOFException e) {
+      // cliente desconectou
+    } catch (IOException | RuntimeException e) {
+      // conexão descartada: o coordenador trata como participante inacessível
+    } finally {
+      connections.remove(socket);
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    server.close();
+    for (Socket socket : connections) socket.close();
+  }
+}
@@ -0,0 +1,154 @@
+package com.bank;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongPredicate;
+
+/**
+ * Participante local sobre as contas de um {@link AccountRegistry} (uma partição).
+ * <p>
+ * Preparar um débito já saca o valor da conta (a reserva); efetivar credita as pernas de
+ * crédito; abortar devolve os débitos. O cadastro vê a reserva como saída de dinheiro e o
+ * estorno como entrada, de modo que o total esperado da partição acompanha os saldos.
+ * <p>
+ * Reservas e resoluções vão para o log do participante, gravado no disco antes da resposta.
+ * Ao reabrir o log, as transações preparadas e não resolvidas voltam como pendentes
+ * ("em dúvida") e são resolvidas com {@link #recover}. Os saldos continuam em memória:
+ * o log torna durável o resultado do protocolo, não as contas.
+ */
+public final class PartitionParticipant implements Participant, Closeable {
+  static final byte PREPARED = 1;
+  static final byte COMMITTED = 2;
+  static final byte ABORTED = 3;
+
+  private final AccountRegistry registry;
+  private final TwoPhaseLog log;
+  /** Pernas preparadas por transação, até a resolução. */
+  private final Map<Long, List<PreparedLeg>> pending = new HashMap<>();
+
+  public PartitionParticipant(AccountRegistry registry, Path logFile) throws IOException {
+    if (registry == null) throw new NullPointerException("Cadastro nulo");
+    this.registry = registry;
+    this.log = new TwoPhaseLog(logFile, this::replay);
+  }
+
+  private void replay(byte type, long[] values) {
+    if (type == PREPARED) {
+      for (int i = 0; i + 2 < values.length; i += 3) {
+        pending.computeIfAbsent(values[i], k -> new ArrayList<>())
+            .add(new PreparedLeg(values[i], values[i + 1], values[i + 2]));
+      }
+    } else {
+      for (long txId : values) pending.remove(txId);
+    }
+  }
+
+  @Override
+  public synchronized boolean[] prepare(List<PreparedLeg> legs) {
+    boolean[] votes = new boolean[legs.size()];
+    long[] record = new long[legs.size() * 3];
+    int recorded = 0;
+    for (int i = 0; i < votes.length; i++) {
+      PreparedLeg leg = legs.get(i);
+      votes[i] = reserve(leg);
+      if (!votes[i]) continue;
+      pending.computeIfAbsent(leg.getTxId(), k -> new ArrayList<>()).add(leg);
+      record[recorded++] = leg.getTxId();
+      record[recorded++] = leg.getAccount();
+      record[recorded++] = leg.getAmount();
+    }
+    if (recorded > 0) append(PREPARED, Arrays.copyOf(record, recorded));
+    return votes;
+  }
+
+  private boolean reserve(PreparedLeg leg) {
+    Account account = registry.find(leg.getAccount());
+    if (account == null) return false;
+    if (!leg.isDebit()) return true;
+    try {
+      account.withdraw(Money.fromMinorUnits(-leg.getAmount()));
+      return true;
+    } catch (IllegalStateException e) {
+      // saldo insuficiente ou limite de velocidade: voto contra
+      return false;
+    }
+  }
+
+  @Override
+  public synchronized void commit(long[] txIds) {
+    resolve(txIds, COMMITTED);
+  }
+
+  @Override
+  public synchronized void abort(long[] txIds) {
+    resolve(txIds, ABORTED);
+  }
+
+  private void resolve(long[] txIds, byte outcome) {
+    long[] resolved = new long[txIds.length];
+    int count = 0;
+    for (long txId : txIds) {
+      List<PreparedLeg> legs = pending.remove(txId);
+      if (legs == null) continue;
+      resolved[count++] = txId;
+      for (PreparedLeg leg : legs) {
+        boolean credit = outcome == COMMITTED ? !leg.isDebit() : leg.isDebit();
+        if (credit) registry.get(leg.getAccount()).deposit(Money.fromMinorUnits(Math.abs(leg.getAmount())));
+      }
+    }
+    if (count > 0) append(outcome, Arrays.copyOf(resolved, count));
+  }
+
+  /** Transações preparadas e ainda não resolvidas. */
+  public synchronized int inDoubt() { return pending.size(); }
+
+  /** Soma dos débitos reservados e ainda não resolvidos. */
+  public synchronized BigDecimal reserved() {
+    long cents = 0;
+    for (List<PreparedLeg> legs : pending.values()) {
+      for (PreparedLeg leg : legs) if (leg.isDebit()) cents -= leg.getAmount();
+    }
+    return Money.fromMinorUnits(cents);
+  }
+
+  /**
+   * Resolve as transações em dúvida perguntando o resultado ao coordenador (por exemplo,
+   * {@link TwoPhaseCoordinator#isCommitted}); sem decisão registrada vale aborto presumido.
+   * @return quantidade de transações resolvidas
+   */
+  public synchronized int recover(LongPredicate committed) {
+    List<Long> commit = new ArrayList<>();
+    List<Long> abort = new ArrayList<>();
+    for (Long txId : pending.keySet()) (committed.test(txId) ? commit : abort).add(txId);
+    resolve(toArray(commit), COMMITTED);
+    resolve(toArray(abort), ABORTED);
+    return commit.size() + abort.size();
+  }
+
+  private static long[] toArray(List<Long> ids) {
+    long[] array = new long[ids.size()];
+    for (int i = 0; i < array.length; i++) array[i] = ids.get(i);
+    return array;
+  }
+
+  private void append(byte type, long[] values) {
+    try {
+      log.append(type, values, true);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    log.close();
+  }
+}
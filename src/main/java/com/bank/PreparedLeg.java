@@ -0,0 +1,27 @@
+package com.bank;
+
+/**
+ * Perna de uma transação distribuída enviada a um {@link Participant}: débito (valor negativo)
+ * ou crédito (valor positivo), em centavos, numa conta do participante.
+ */
+public final class PreparedLeg {
+  private final long txId;
+  private final long account;
+  private final long amount;
+
+  public PreparedLeg(long txId, long account, long amount) {
+    if (amount == 0) throw new IllegalArgumentException("Valor deve ser != 0");
+    this.txId = txId;
+    this.account = account;
+    this.amount = amount;
+  }
+
+  public long getTxId() { return txId; }
+
+  public long getAccount() { return account; }
+
+  /** Centavos; negativo para débito. */
+  public long getAmount() { return amount; }
+
+  public boolean isDebit() { return amount < 0; }
+}
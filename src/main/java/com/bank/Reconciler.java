@@ -0,0 +1,201 @@
+package com.bank;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Conciliação do extrato externo com o diário de operações.
+ * <p>
+ * Os dois arquivos usam o formato de {@link LedgerFile} ({@code conta,id,valor}, ordenados por
+ * conta e id). A conciliação é um merge ordenado em streaming: cada lançamento é casado pela
+ * chave (conta, id) e conferido pelo valor, sem carregar os arquivos na memória.
+ * O espaço de contas é dividido em faixas, conciliadas em paralelo.
+ */
+public final class Reconciler {
+
+  /** Recebe as divergências; pode ser chamado por várias threads ao mesmo tempo. */
+  public interface DiscrepancyListener {
+    void onDiscrepancy(Discrepancy discrepancy);
+  }
+
+  private final int parallelism;
+
+  public Reconciler() {
+    this(Runtime.getRuntime().availableProcessors());
+  }
+
+  public Reconciler(int parallelism) {
+    if (parallelism <= 0) throw new IllegalArgumentException("Paralelismo deve ser > 0");
+    this.parallelism = parallelism;
+  }
+
+  public ReconciliationReport reconcile(Path statement, Path journal, DiscrepancyListener listener) throws IOException {
+    Objects.requireNonNull(statement, "Extrato nulo");
+    Objects.requireNonNull(journal, "Diário nulo");
+    Objects.requireNonNull(listener, "Listener nulo");
+    long[] bounds = partitionBounds(statement, journal);
+    if (bounds.length == 2) {
+      return reconcileRange(statement, journal, bounds[0], bounds[1], listener);
+    }
+    ExecutorService pool = Executors.newFixedThreadPool(Math.min(parallelism, bounds.length - 1));
+    try {
+      List<Future<ReconciliationReport>> parts = new ArrayList<>();
+      for (int i = 0; i + 1 < bounds.length; i++) {
+        final long lo = bounds[i];
+        final long hi = bounds[i + 1];
+        parts.add(pool.submit(() -> reconcileRange(statement, journal, lo, hi, listener)));
+      }
+      ReconciliationReport total = new ReconciliationReport();
+      for (Future<ReconciliationReport> part : parts) total.merge(part.get());
+      return total;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Conciliação interrompida", e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) throw (IOException) cause;
+      if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+      throw new IllegalStateException(cause);
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  /**
+   * Fronteiras das faixas de contas, amostradas em offsets igualmente espaçados dos dois arquivos.
+   * A faixa {@code i} cobre as contas em {@code [bounds[i], bounds[i+1])}; a última vai até o fim
+   * do arquivo, de modo que a conta {@code Long.MAX_VALUE} também é conciliada.
+   */
+  private long[] partitionBounds(Path statement, Path journal) throws IOException {
+    TreeSet<Long> cuts = new TreeSet<>();
+    int samples = parallelism * 4;
+    for (Path path : new Path[] {statement, journal}) {
+      try (LedgerFile file = LedgerFile.open(path)) {
+        for (int i = 1; i < samples; i++) {
+          long account = file.accountAtOrAfter(file.size() * i / samples);
+          if (account != Long.MAX_VALUE) cuts.add(account);
+        }
+      }
+    }
+    // reduz as amostras a no máximo 'parallelism' faixas de tamanho parecido
+    List<Long> sorted = new ArrayList<>(cuts);
+    int ranges = Math.min(parallelism, sorted.size() + 1);
+    long[] bounds = new long[ranges + 1];
+    bounds[0] = Long.MIN_VALUE;
+    for (int i = 1; i < ranges; i++) bounds[i] = sorted.get(i * sorted.size() / ranges);
+    bounds[ranges] = Long.MAX_VALUE;
+    return bounds;
+  }
+
+  private static ReconciliationReport reconcileRange(Path statementPath, Path journalPath, long lo, long hi,
+                                                     DiscrepancyListener listener) {
+    ReconciliationReport report = new ReconciliationReport();
+    try (LedgerFile statementFile = LedgerFile.open(statementPath);
+         LedgerFile journalFile = LedgerFile.open(journalPath);
+         LedgerFile.Cursor s = cursor(statementFile, lo, hi);
+         LedgerFile.Cursor j = cursor(journalFile, lo, hi)) {
+      Side statement = new Side(s, Discrepancy.Type.DUPLICATE_IN_STATEMENT, report, listener, true);
+      Side journal = new Side(j, Discrepancy.Type.DUPLICATE_IN_JOURNAL, report, listener, false);
+      statement.advance();
+      journal.advance();
+      while (statement.present || journal.present) {
+        int cmp = !statement.present ? 1 : !journal.present ? -1 : compareKeys(statement, journal);
+        if (cmp == 0) {
+          if (statement.amount.compareTo(journal.amount) == 0) {
+            report.matched();
+          } else {
+            report(report, listener, Discrepancy.Type.AMOUNT_MISMATCH, statement.account, statement.id,
+                statement.amount, journal.amount);
+          }
+          statement.advance();
+          journal.advance();
+        } else if (cmp < 0) {
+          report(report, listener, Discrepancy.Type.MISSING_IN_JOURNAL, statement.account, statement.id,
+              statement.amount, null);
+          statement.advance();
+        } else {
+          report(report, listener, Discrepancy.Type.MISSING_IN_STATEMENT, journal.account, journal.id,
+              null, journal.amount);
+          journal.advance();
+        }
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return report;
+  }
+
+  private static LedgerFile.Cursor cursor(LedgerFile file, long lo, long hi) throws IOException {
+    long offset = file.seek(lo);
+    return hi == Long.MAX_VALUE ? file.cursor(offset) : file.cursor(offset, hi);
+  }
+
+  private static int compareKeys(Side a, Side b) {
+    int cmp = Long.compare(a.account, b.account);
+    return cmp != 0 ? cmp : Long.compare(a.id, b.id);
+  }
+
+  private static void report(ReconciliationReport report, DiscrepancyListener listener, Discrepancy.Type type,
+                             long account, long id, BigDecimal statementAmount, BigDecimal journalAmount) {
+    report.count(type);
+    listener.onDiscrepancy(new Discrepancy(type, account, id, statementAmount, journalAmount));
+  }
+
+  /** Um lado do merge: lançamento corrente, descartando e reportando chaves repetidas. */
+  private static final class Side {
+    private final LedgerFile.Cursor cursor;
+    private final Discrepancy.Type duplicate;
+    private final ReconciliationReport report;
+    private final DiscrepancyListener listener;
+    private final boolean statementSide;
+    boolean present;
+    long account;
+    long id;
+    BigDecimal amount;
+
+    Side(LedgerFile.Cursor cursor, Discrepancy.Type duplicate, ReconciliationReport report,
+         DiscrepancyListener listener, boolean statementSide) {
+      this.cursor = cursor;
+      this.duplicate = duplicate;
+      this.report = report;
+      this.listener = listener;
+      this.statementSide = statementSide;
+    }
+
+    void advance() throws IOException {
+      boolean had = present;
+      long prevAccount = account;
+      long prevId = id;
+      while (cursor.next()) {
+        if (had) {
+          int cmp = prevAccount != cursor.account ? Long.compare(cursor.account, prevAccount)
+              : Long.compare(cursor.id, prevId);
+          if (cmp < 0) {
+            throw new IllegalArgumentException("Arquivo fora de ordem na conta " + cursor.account + ", id " + cursor.id);
+          }
+          if (cmp == 0) {
+            report(report, listener, duplicate, cursor.account, cursor.id,
+                statementSide ? cursor.amount : null, statementSide ? null : cursor.amount);
+            continue;
+          }
+        }
+        present = true;
+        account = cursor.account;
+        id = cursor.id;
+        amount = cursor.amount;
+        return;
+      }
+      present = false;
+    }
+  }
+}
@@ -0,0 +1,44 @@
+package com.bank;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Totais de uma conciliação. As divergências em si são entregues ao listener,
+ * para que o relatório tenha tamanho constante.
+ */
+public final class ReconciliationReport {
+  private long matched;
+  private final Map<Discrepancy.Type, Long> counts = new EnumMap<>(Discrepancy.Type.class);
+
+  ReconciliationReport() {
+    for (Discrepancy.Type type : Discrepancy.Type.values()) counts.put(type, 0L);
+  }
+
+  void matched() { matched++; }
+
+  void count(Discrepancy.Type type) { counts.put(type, counts.get(type) + 1); }
+
+  void merge(ReconciliationReport other) {
+    matched += other.matched;
+    for (Discrepancy.Type type : Discrepancy.Type.values()) counts.put(type, counts.get(type) + other.counts.get(type));
+  }
+
+  /** Lançamentos presentes nos dois lados com o mesmo valor. */
+  public long getMatched() { return matched; }
+
+  public long getCount(Discrepancy.Type type) { return counts.get(type); }
+
+  public long getDiscrepancies() {
+    long total = 0;
+    for (long n : counts.values()) total += n;
+    return total;
+  }
+
+  public boolean isClean() { return getDiscrepancies() == 0; }
+
+  @Override
+  public String toString() {
+    return "Conciliação[conferidos=" + matched + ", divergências=" + counts + "]";
+  }
+}
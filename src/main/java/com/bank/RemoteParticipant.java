@@ -0,0 +1,85 @@
+package com.bank;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.List;
+
+/**
+ * {@link Participant} acessado por socket, servido por {@link ParticipantServer}.
+ * <p>
+ * Cada lote é uma mensagem: {@code byte} operação, {@code int} quantidade e os itens
+ * ({@code txId, conta, centavos} no prepare; {@code txId} no commit e no abort). A resposta do
+ * prepare traz um voto por perna; a de commit e abort, um byte de confirmação. Uma conexão,
+ * uma mensagem por vez; falhas de rede saem como {@link UncheckedIOException}.
+ */
+public final class RemoteParticipant implements Participant, Closeable {
+  static final byte PREPARE = 1;
+  static final byte COMMIT = 2;
+  static final byte ABORT = 3;
+  static final byte ACK = 0x55;
+
+  private final Socket socket;
+  private final DataInputStream in;
+  private final DataOutputStream out;
+
+  public RemoteParticipant(InetSocketAddress address) throws IOException {
+    socket = new Socket();
+    socket.setTcpNoDelay(true);
+    socket.connect(address);
+    in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+    out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+  }
+
+  @Override
+  public synchronized boolean[] prepare(List<PreparedLeg> legs) {
+    try {
+      out.writeByte(PREPARE);
+      out.writeInt(legs.size());
+      for (PreparedLeg leg : legs) {
+        out.writeLong(leg.getTxId());
+        out.writeLong(leg.getAccount());
+        out.writeLong(leg.getAmount());
+      }
+      out.flush();
+      boolean[] votes = new boolean[legs.size()];
+      for (int i = 0; i < votes.length; i++) votes[i] = in.readBoolean();
+      return votes;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  @Override
+  public void commit(long[] txIds) {
+    resolve(COMMIT, txIds);
+  }
+
+  @Override
+  public void abort(long[] txIds) {
+    resolve(ABORT, txIds);
+  }
+
+  private synchronized void resolve(byte op, long[] txIds) {
+    try {
+      out.writeByte(op);
+      out.writeInt(txIds.length);
+      for (long txId : txIds) out.writeLong(txId);
+      out.flush();
+      if (in.readByte() != ACK) throw new IOException("Confirmação inválida");
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    socket.close();
+  }
+}
@@ -0,0 +1,236 @@
+package com.bank;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+
+import static com.bank.ReplicationProtocol.*;
+
+/**
+ * Standby quente: recebe lotes do diário de um {@link JournalReplicator}, aplica cada
+ * operação no próprio {@link AccountRegistry} e confirma até onde aplicou.
+ * <p>
+ * Os lançamentos já foram validados no primário, então são aplicados sem olhar saldo, regras de
+ * velocidade ou taxa: cada lote atômico do diário do primário (um lançamento avulso é um lote de
+ * um) trava as contas envolvidas em ordem global, ajusta os saldos e entra como um lote no
+ * diário do seguidor, que é reconstruído na mesma ordem. Como o primário só envia prefixos
+ * publicados, cortados em fronteira de lote, o seguidor está sempre num estado que o primário
+ * teve. Um lote que não pode ser aplicado (conta inexistente no seguidor, por exemplo) para a
+ * replicação: o seguidor confirma só os lotes anteriores a ele, guarda o erro em
+ * {@link #failure()} e fecha a conexão, e o primário passa a ver o atraso em vez de uma
+ * confirmação de algo que o standby não tem.
+ * Na falha do primário, {@link #promote()} encerra a replicação e entrega o cadastro pronto.
+ */
+public final class ReplicaFollower implements Closeable {
+  private final AccountRegistry registry;
+  /** Reutilizado pela thread de recepção a cada lançamento. */
+  private final BinaryCodec.OperationRecord record = new BinaryCodec.OperationRecord();
+  /** Lote atômico em montagem, também só da thread de recepção. */
+  private OperationType[] types = new OperationType[16];
+  private long[] accounts = new long[16];
+  private long[] counterparties = new long[16];
+  private BigDecimal[] amounts = new BigDecimal[16];
+  private final ServerSocketChannel server;
+  private final Thread receiver;
+  private volatile SocketChannel connection;
+  private volatile boolean closed;
+  private volatile long applied;
+  private volatile Throwable failure;
+
+  /** Escuta em {@code port} no loopback (0 = porta livre). O cadastro deve começar vazio. */
+  public ReplicaFollower(AccountRegistry registry, int port) throws IOException {
+    if (registry == null) throw new NullPointerException("Cadastro nulo");
+    this.registry = registry;
+    this.server = ServerSocketChannel.open();
+    server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+    receiver = new Thread(this::receive, "replica-receive");
+    receiver.setDaemon(true);
+    receiver.start();
+  }
+
+  public InetSocketAddress address() throws IOException {
+    return (InetSocketAddress) server.getLocalAddress();
+  }
+
+  /** Sequência exclusiva até onde o diário do primário foi aplicado. */
+  public long applied() { return applied; }
+
+  /** Erro que parou a replicação (lote que não pôde ser aplicado, protocolo), ou {@code null}. */
+  public Throwable failure() { return failure; }
+
+  /**
+   * Para de replicar e devolve o cadastro para assumir como primário. Lotes recebidos pela
+   * metade são descartados; o estado é o do último lote confirmado.
+   */
+  public AccountRegistry promote() throws IOException {
+    close();
+    return registry;
+  }
+
+  private void receive() {
+    ByteBuffer header = ByteBuffer.allocateDirect(BATCH_HEADER).order(ORDER);
+    ByteBuffer ack = ByteBuffer.allocateDirect(8).order(ORDER);
+    ByteBuffer body = ByteBuffer.allocateDirect(64 * 1024).order(ORDER);
+    while (!closed) {
+      try (SocketChannel channel = server.accept()) {
+        connection = channel;
+        channel.socket().setTcpNoDelay(true);
+        sendAck(channel, ack);
+        while (!closed) {
+          header.clear();
+          readFully(channel, header);
+          header.flip();
+          int length = header.getInt() - (BATCH_HEADER - 4);
+          long first = header.getLong();
+          int count = header.getInt();
+          if (first != applied) throw new IOException("Lote fora de ordem: " + first + " != " + applied);
+          if (body.capacity() < length) body = ByteBuffer.allocateDirect(length).order(ORDER);
+          body.clear().limit(length);
+          readFully(channel, body);
+          body.flip();
+          RuntimeException rejected = null;
+          synchronized (this) {
+            if (closed) return;
+            int done = 0;
+            try {
+              while (done < count) done += applyBatch(body, count - done);
+            } catch (RuntimeException e) {
+              rejected = e;
+            }
+            applied = first + done;
+          }
+          if (rejected != null) {
+            // nada além do último lote aplicado é confirmado: o primário vê o atraso
+            failure = rejected;
+            try {
+              sendAck(channel, ack);
+            } finally {
+              server.close();
+            }
+            return;
+          }
+          sendAck(channel, ack);
+        }
+      } catch (ClosedChannelException e) {
+        return;
+      } catch (IOException e) {
+        // primário caiu ou reconectou: volta a aceitar conexões
+      } catch (RuntimeException e) {
+        failure = e;
+        return;
+      } finally {
+        connection = null;
+      }
+    }
+  }
+
+  private void sendAck(SocketChannel channel, ByteBuffer ack) throws IOException {
+    ack.clear();
+    ack.putLong(applied).flip();
+    writeFully(channel, ack);
+  }
+
+  /**
+   * Decodifica e aplica um lote atômico do primário; retorna quantos lançamentos consumiu.
+   * Lança a exceção, sem efeito no cadastro, se o lote não puder ser aplicado.
+   */
+  private int applyBatch(ByteBuffer body, int remaining) {
+    int span = (int) BinaryCodec.getVarLong(body);
+    if (span <= 0 || span > remaining) throw new IllegalStateException("Lote atômico inválido: " + span);
+    if (span > types.length) {
+      types = Arrays.copyOf(types, span);
+      accounts = Arrays.copyOf(accounts, span);
+      counterparties = Arrays.copyOf(counterparties, span);
+      amounts = Arrays.copyOf(amounts, span);
+    }
+    for (int k = 0; k < span; k++) {
+      if (k > 0) BinaryCodec.getVarLong(body);
+      BinaryCodec.decodeOperation(body, record);
+      types[k] = record.getType();
+      accounts[k] = record.getAccount();
+      counterparties[k] = record.getCounterparty();
+      amounts[k] = record.getAmount();
+    }
+    apply(span);
+    return span;
+  }
+
+  private void apply(int span) {
+    if (types[0] == OperationType.OPEN) {
+      if (span != 1) throw new IllegalStateException("Abertura dentro de lote atômico");
+      registry.open(accounts[0]);
+      return;
+    }
+    Account[] involved = new Account[span * 2];
+    int n = 0;
+    for (int k = 0; k < span; k++) {
+      if (types[k] == OperationType.OPEN) throw new IllegalStateException("Abertura dentro de lote atômico");
+      involved[n++] = registry.get(accounts[k]);
+      if (types[k] == OperationType.TRANSFER) involved[n++] = registry.get(counterparties[k]);
+    }
+    Account[] sorted = Arrays.copyOf(involved, n);
+    Arrays.sort(sorted, Comparator.comparingLong(Account::lockOrder));
+    int distinct = 0;
+    for (Account account : sorted) {
+      if (distinct == 0 || sorted[distinct - 1] != account) sorted[distinct++] = account;
+    }
+    TransferService.lockAll(Arrays.copyOf(sorted, distinct), 0, () -> commit(span, involved));
+  }
+
+  /** Chamado com as contas do lote travadas; {@code involved} na ordem dos lançamentos. */
+  private void commit(int span, Account[] involved) {
+    OperationJournal.Batch batch = new OperationJournal.Batch();
+    int n = 0;
+    for (int k = 0; k < span; k++) {
+      Account account = involved[n++];
+      BigDecimal amount = amounts[k];
+      switch (types[k]) {
+        case DEPOSIT:
+          account.adjust(amount);
+          account.onEvent(AccountEvent.Kind.DEPOSITED, 0, amount);
+          batch.add(OperationType.DEPOSIT, account.getId(), 0, amount);
+          break;
+        case WITHDRAW:
+          account.adjust(amount.negate());
+          account.onEvent(AccountEvent.Kind.WITHDRAWN, 0, amount);
+          batch.add(OperationType.WITHDRAW, account.getId(), 0, amount);
+          break;
+        case TRANSFER:
+          Account to = involved[n++];
+          account.adjust(amount.negate());
+          to.adjust(amount);
+          account.onEvent(AccountEvent.Kind.TRANSFERRED_OUT, to.getId(), amount);
+          to.onEvent(AccountEvent.Kind.TRANSFERRED_IN, account.getId(), amount);
+          batch.add(OperationType.TRANSFER, account.getId(), to.getId(), amount);
+          break;
+        default:
+          throw new IllegalStateException("Tipo desconhecido: " + types[k]);
+      }
+    }
+    registry.recorded(batch);
+  }
+
+  @Override
+  public void close() throws IOException {
+    synchronized (this) {
+      closed = true;
+    }
+    server.close();
+    SocketChannel channel = connection;
+    if (channel != null) channel.close();
+    try {
+      receiver.join(TimeUnit.SECONDS.toMillis(5));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
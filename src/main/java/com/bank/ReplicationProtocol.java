@@ -0,0 +1,37 @@
+package com.bank;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Formato da replicação do {@link OperationJournal} entre {@link JournalReplicator} e
+ * {@link ReplicaFollower} (big-endian).
+ * <pre>
+ *   seguidor -> primário, ao conectar e após cada lote:  long aplicadas (sequência exclusiva)
+ *   primário -> seguidor, lote:  int tamanho do corpo, long primeira sequência, int quantidade,
+ *                                registros: varint lançamentos restantes do lote atômico
+ *                                (1 fora de lote) e o lançamento no formato de {@link BinaryCodec}
+ * </pre>
+ * O valor vai exato, como está no diário. Um lote atômico do diário nunca é dividido entre
+ * duas remessas.
+ */
+final class ReplicationProtocol {
+  static final ByteOrder ORDER = ByteOrder.BIG_ENDIAN;
+  static final int BATCH_HEADER = 4 + 8 + 4;
+
+  private ReplicationProtocol() { }
+
+  static void writeFully(WritableByteChannel channel, ByteBuffer buffer) throws IOException {
+    while (buffer.hasRemaining()) channel.write(buffer);
+  }
+
+  static void readFully(ReadableByteChannel channel, ByteBuffer buffer) throws IOException {
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer) < 0) throw new EOFException("Conexão encerrada");
+    }
+  }
+}
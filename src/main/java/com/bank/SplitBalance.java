@@ -0,0 +1,70 @@
+package com.bank;
+
+import java.math.BigDecimal;
+
+/**
+ * Sub-saldos de uma conta quente (ver {@link HotAccountDetector}). Cada crédito cai no
+ * sub-saldo escolhido pela thread e trava só ele; o saldo da conta é o saldo principal mais a
+ * soma dos sub-saldos, e débitos e leituras travadas juntam tudo no principal antes de olhar.
+ * <p>
+ * O lock de um sub-saldo é sempre o último a ser tomado: quem o segura não trava nenhuma conta
+ * nem outro sub-saldo, então ele não forma ciclo com a ordem global das contas.
+ */
+final class SplitBalance {
+  private final Cell[] cells;
+  private final int mask;
+  /** Janela de créditos amostrados usada no rebaixamento; heurística, sem lock. */
+  volatile long windowStart = System.nanoTime();
+  volatile int windowCredits;
+  /**
+   * Ímpar enquanto uma junção move os sub-saldos para o principal; muda só com a conta travada.
+   * Leituras sem lock ({@link Account#publishedBalance()}) descartam somas feitas no meio.
+   */
+  volatile int drains;
+
+  /** @param stripes sub-saldos, arredondado para a potência de dois seguinte */
+  SplitBalance(int stripes) {
+    int n = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+    cells = new Cell[n];
+    for (int i = 0; i < n; i++) cells[i] = new Cell();
+    mask = n - 1;
+  }
+
+  int stripes() { return cells.length; }
+
+  /** Sub-saldo da thread atual; threads diferentes tendem a cair em sub-saldos diferentes. */
+  Cell cell() {
+    long h = Thread.currentThread().getId() * 0x9E3779B97F4A7C15L;
+    return cells[(int) (h >>> 32) & mask];
+  }
+
+  /**
+   * Zera os sub-saldos, travando um de cada vez, e devolve a soma. Chamado com a conta
+   * travada. Com {@code retire} os sub-saldos ficam fechados e créditos atrasados voltam
+   * para o caminho comum.
+   */
+  BigDecimal drain(boolean retire) {
+    BigDecimal total = BigDecimal.ZERO;
+    for (Cell cell : cells) {
+      synchronized (cell) {
+        total = total.add(cell.balance);
+        cell.balance = BigDecimal.ZERO;
+        if (retire) cell.retired = true;
+      }
+    }
+    return total;
+  }
+
+  /** Soma dos sub-saldos sem travá-los; só é exata junto com {@link #drains} conferido. */
+  BigDecimal sum() {
+    BigDecimal total = BigDecimal.ZERO;
+    for (Cell cell : cells) total = total.add(cell.balance);
+    return total;
+  }
+
+  static final class Cell {
+    /** Escrito só com o sub-saldo travado; volatile para {@link #sum()}. */
+    volatile BigDecimal balance = BigDecimal.ZERO;
+    boolean retired;
+  }
+}
@@ -0,0 +1,119 @@
+package com.bank;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+/**
+ * Balde de tokens por conta, indexado pela posição da conta no cadastro.
+ * <p>
+ * O estado de cada conta é um único {@code long} num {@link AtomicLongArray}: 48 bits com o
+ * instante (µs, quase 9 anos) da última recarga e 16 bits com os tokens que faltam para encher
+ * o balde. O estado zero é um balde cheio, então contas nunca tocadas não custam nada além do
+ * espaço. Não há thread de recarga: cada tentativa calcula quanto o balde encheu desde a
+ * última recarga e consome por CAS, sem lock e sem alocar. Frações de token não se perdem: o
+ * instante da recarga avança só o tempo correspondente aos tokens inteiros creditados.
+ * <p>
+ * As páginas de estado são criadas conforme as posições aparecem, 4096 contas (32 KB) por página.
+ */
+public final class TokenBucketLimiter {
+  private static final int TOKEN_BITS = 16;
+  private static final long TOKEN_MASK = (1L << TOKEN_BITS) - 1;
+  /** Maior balde representável. */
+  public static final int MAX_BURST = (int) TOKEN_MASK;
+  private static final int PAGE_BITS = 12;
+  private static final int PAGE_MASK = (1 << PAGE_BITS) - 1;
+
+  private final long burst;
+  private final long tokensPerSecond;
+  /** Tempo (µs) para encher o balde vazio; recargas maiores que isso são truncadas. */
+  private final long fillMicros;
+  private final LongSupplier clock;
+  private final long origin;
+  private volatile AtomicLongArray[] pages = new AtomicLongArray[16];
+
+  /**
+   * @param burst          tokens do balde cheio (rajada máxima)
+   * @param tokensPerSecond tokens devolvidos por segundo
+   */
+  public TokenBucketLimiter(int burst, long tokensPerSecond) {
+    this(burst, tokensPerSecond, System::nanoTime);
+  }
+
+  TokenBucketLimiter(int burst, long tokensPerSecond, LongSupplier nanoClock) {
+    if (burst <= 0 || burst > MAX_BURST) throw new IllegalArgumentException("Balde deve estar em [1, " + MAX_BURST + "]");
+    if (tokensPerSecond <= 0 || tokensPerSecond > 1_000_000_000L) {
+      throw new IllegalArgumentException("Taxa deve estar em [1, 1e9] por segundo");
+    }
+    this.burst = burst;
+    this.tokensPerSecond = tokensPerSecond;
+    this.fillMicros = (burst * 1_000_000L + tokensPerSecond - 1) / tokensPerSecond;
+    this.clock = nanoClock;
+    this.origin = nanoClock.getAsLong();
+  }
+
+  /** Consome {@code tokens} da conta em {@code slot}; {@code false} se não houver o bastante. */
+  public boolean tryAcquire(int slot, int tokens) {
+    if (tokens <= 0) throw new IllegalArgumentException("Tokens devem ser > 0");
+    if (tokens > burst) return false;
+    AtomicLongArray page = page(slot >>> PAGE_BITS);
+    int i = slot & PAGE_MASK;
+    long now = now();
+    while (true) {
+      long state = page.get(i);
+      long refilled = refill(state, now);
+      long deficit = refilled & TOKEN_MASK;
+      if (burst - deficit < tokens) return false;
+      if (page.compareAndSet(i, state, refilled + tokens)) return true;
+    }
+  }
+
+  /** Tokens disponíveis agora para a conta em {@code slot}. */
+  public long available(int slot) {
+    AtomicLongArray[] dir = pages;
+    int p = slot >>> PAGE_BITS;
+    if (p >= dir.length || dir[p] == null) return burst;
+    return burst - (refill(dir[p].get(slot & PAGE_MASK), now()) & TOKEN_MASK);
+  }
+
+  /** Estado depois de creditar os tokens acumulados até {@code now}. */
+  private long refill(long state, long now) {
+    long last = state >>> TOKEN_BITS;
+    long deficit = state & TOKEN_MASK;
+    if (deficit == 0) return now << TOKEN_BITS;
+    long elapsed = now - last;
+    if (elapsed <= 0) return state;
+    if (elapsed >= fillMicros) return now << TOKEN_BITS;
+    long credited = elapsed * tokensPerSecond / 1_000_000;
+    if (credited >= deficit) return now << TOKEN_BITS;
+    if (credited == 0) return state;
+    // avança só o tempo que produziu os tokens inteiros; o resto fica para a próxima recarga
+    long used = (credited * 1_000_000 + tokensPerSecond - 1) / tokensPerSecond;
+    return ((last + used) << TOKEN_BITS) | (deficit - credited);
+  }
+
+  private long now() {
+    return (clock.getAsLong() - origin) / 1_000;
+  }
+
+  private AtomicLongArray page(int index) {
+    if (index < 0) throw new IllegalArgumentException("Posição negativa");
+    AtomicLongArray[] dir = pages;
+    if (index < dir.length) {
+      AtomicLongArray page = dir[index];
+      if (page != null) return page;
+    }
+    return createPage(index);
+  }
+
+  private synchronized AtomicLongArray createPage(int index) {
+    AtomicLongArray[] dir = pages;
+    if (index >= dir.length) {
+      AtomicLongArray[] grown = new AtomicLongArray[Math.max(dir.length * 2, index + 1)];
+      System.arraycopy(dir, 0, grown, 0, dir.length);
+      dir = grown;
+    }
+    if (dir[index] == null) dir[index] = new AtomicLongArray(1 << PAGE_BITS);
+    pages = dir;
+    return dir[index];
+  }
+}
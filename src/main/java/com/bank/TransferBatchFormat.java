@@ -0,0 +1,42 @@
+package com.bank;
+
+import java.nio.ByteOrder;
+
+/**
+ * Formato binário de largura fixa dos lotes de transferências.
+ * <pre>
+ * cabeçalho (16 bytes): magic int | versão short | tamanho do registro short | quantidade long
+ * registro  (36 bytes): origem long | destino long | valor em centavos long | id da requisição long | checksum int
+ * </pre>
+ * Todos os campos em little-endian. O checksum cobre os quatro campos do registro.
+ */
+final class TransferBatchFormat {
+  static final int MAGIC = 0x46585442; // "BTXF" em little-endian
+  static final short VERSION = 1;
+  static final int HEADER_SIZE = 16;
+  static final int RECORD_SIZE = 36;
+  static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+
+  static final int FROM = 0;
+  static final int TO = 8;
+  static final int AMOUNT = 16;
+  static final int REQUEST_ID = 24;
+  static final int CHECKSUM = 32;
+
+  private TransferBatchFormat() { }
+
+  static int checksum(long from, long to, long amount, long requestId) {
+    long h = 0x9E3779B97F4A7C15L;
+    h = mix(h ^ from);
+    h = mix(h ^ to);
+    h = mix(h ^ amount);
+    h = mix(h ^ requestId);
+    return (int) (h ^ (h >>> 32));
+  }
+
+  private static long mix(long z) {
+    z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+    z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+    return z ^ (z >>> 33);
+  }
+}
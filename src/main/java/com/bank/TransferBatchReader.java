@@ -0,0 +1,149 @@
+package com.bank;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+
+import static com.bank.TransferBatchFormat.*;
+
+/**
+ * Leitura de lotes no formato de {@link TransferBatchFormat} sobre o arquivo mapeado em memória.
+ * <p>
+ * Os registros são lidos por um {@link Cursor} reutilizável, que só muda de posição:
+ * percorrer o lote não aloca. Arquivos maiores que 2 GB são mapeados em janelas de registros inteiros.
+ */
+public final class TransferBatchReader implements Closeable {
+  private static final long WINDOW_RECORDS = Integer.MAX_VALUE / RECORD_SIZE;
+
+  /** Recebe as transferências recusadas em {@link #applyTo}. */
+  public interface RejectionHandler {
+    void onRejected(Cursor record, RuntimeException cause);
+  }
+
+  private final FileChannel channel;
+  private final MappedByteBuffer[] windows;
+  private final long count;
+
+  public TransferBatchReader(Path path) throws IOException {
+    this.channel = FileChannel.open(path, StandardOpenOption.READ);
+    try {
+      long size = channel.size();
+      if (size < HEADER_SIZE) throw new IllegalArgumentException("Arquivo de lote truncado");
+      ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE).order(ORDER);
+      if (header.getInt(0) != MAGIC) throw new IllegalArgumentException("Arquivo não é um lote de transferências");
+      if (header.getShort(4) != VERSION) throw new IllegalArgumentException("Versão de lote não suportada: " + header.getShort(4));
+      if (header.getShort(6) != RECORD_SIZE) throw new IllegalArgumentException("Tamanho de registro inválido");
+      this.count = header.getLong(8);
+      if (count < 0 || size != HEADER_SIZE + count * RECORD_SIZE) {
+        throw new IllegalArgumentException("Arquivo de lote truncado");
+      }
+      int n = (int) ((count + WINDOW_RECORDS - 1) / WINDOW_RECORDS);
+      this.windows = new MappedByteBuffer[n];
+      for (int i = 0; i < n; i++) {
+        long first = i * WINDOW_RECORDS;
+        long records = Math.min(WINDOW_RECORDS, count - first);
+        windows[i] = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE + first * RECORD_SIZE, records * RECORD_SIZE);
+        windows[i].order(ORDER);
+      }
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  /** Quantidade de registros do lote. */
+  public long count() { return count; }
+
+  /** Novo cursor posicionado antes do primeiro registro. */
+  public Cursor cursor() { return new Cursor(); }
+
+  /**
+   * Confere o checksum de todos os registros.
+   * @throws IllegalStateException no primeiro registro corrompido
+   */
+  public void verify() {
+    Cursor record = cursor();
+    while (record.next()) {
+      if (!record.isValid()) throw new IllegalStateException("Registro corrompido: " + record.index());
+    }
+  }
+
+  /**
+   * Confere o lote inteiro e então aplica cada registro com {@code service}, resolvendo as contas
+   * em {@code registry}. Registros recusados (conta inexistente, saldo insuficiente, limites)
+   * vão para {@code rejected} e o lote segue.
+   * @return quantidade de transferências aplicadas
+   */
+  public long applyTo(AccountRegistry registry, TransferService service, RejectionHandler rejected) {
+    Objects.requireNonNull(registry, "Cadastro nulo");
+    Objects.requireNonNull(service, "Serviço nulo");
+    Objects.requireNonNull(rejected, "Handler nulo");
+    verify();
+    long applied = 0;
+    Cursor record = cursor();
+    while (record.next()) {
+      Account from = registry.find(record.from());
+      Account to = registry.find(record.to());
+      if (from == null || to == null) {
+        rejected.onRejected(record, new IllegalArgumentException("Conta inexistente: " + (from == null ? record.from() : record.to())));
+        continue;
+      }
+      try {
+        service.transfer(from, to, Money.fromMinorUnits(record.amount()));
+        applied++;
+      } catch (IllegalArgumentException | IllegalStateException e) {
+        rejected.onRejected(record, e);
+      }
+    }
+    return applied;
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+
+  /** Visão reutilizável de um registro do lote. */
+  public final class Cursor {
+    private long index = -1;
+    private ByteBuffer window;
+    private int offset;
+
+    private Cursor() { }
+
+    /** Avança para o próximo registro; {@code false} no fim do lote. */
+    public boolean next() {
+      if (index + 1 >= count) return false;
+      moveTo(index + 1);
+      return true;
+    }
+
+    /** Posiciona no registro {@code i} (base 0). */
+    public void moveTo(long i) {
+      if (i < 0 || i >= count) throw new IndexOutOfBoundsException("Registro " + i);
+      index = i;
+      window = windows[(int) (i / WINDOW_RECORDS)];
+      offset = (int) (i % WINDOW_RECORDS) * RECORD_SIZE;
+    }
+
+    public long index() { return index; }
+
+    public long from() { return window.getLong(offset + FROM); }
+
+    public long to() { return window.getLong(offset + TO); }
+
+    /** Valor em centavos. */
+    public long amount() { return window.getLong(offset + AMOUNT); }
+
+    public long requestId() { return window.getLong(offset + REQUEST_ID); }
+
+    public boolean isValid() {
+      return window.getInt(offset + CHECKSUM) == checksum(from(), to(), amount(), requestId());
+    }
+  }
+}
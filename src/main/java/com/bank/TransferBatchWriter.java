@@ -0,0 +1,64 @@
+package com.bank;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static com.bank.TransferBatchFormat.*;
+
+/**
+ * Grava lotes no formato de {@link TransferBatchFormat}.
+ * Os registros são acumulados num buffer direto e gravados em blocos; a quantidade
+ * no cabeçalho é preenchida no {@link #close()}.
+ */
+public final class TransferBatchWriter implements Closeable {
+  private static final int RECORDS_PER_FLUSH = 4096;
+
+  private final FileChannel channel;
+  private final ByteBuffer buffer = ByteBuffer.allocateDirect(RECORD_SIZE * RECORDS_PER_FLUSH).order(ORDER);
+  private long count;
+  private boolean closed;
+
+  public TransferBatchWriter(Path path) throws IOException {
+    this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+        StandardOpenOption.TRUNCATE_EXISTING);
+    channel.position(HEADER_SIZE);
+  }
+
+  /**
+   * Acrescenta uma transferência de {@code amount} centavos.
+   */
+  public void write(long requestId, long from, long to, long amount) throws IOException {
+    if (closed) throw new IllegalStateException("Gravador fechado");
+    if (amount <= 0) throw new IllegalArgumentException("Valor deve ser > 0");
+    if (buffer.remaining() < RECORD_SIZE) flush();
+    buffer.putLong(from).putLong(to).putLong(amount).putLong(requestId)
+        .putInt(checksum(from, to, amount, requestId));
+    count++;
+  }
+
+  public long count() { return count; }
+
+  private void flush() throws IOException {
+    buffer.flip();
+    while (buffer.hasRemaining()) channel.write(buffer);
+    buffer.clear();
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (closed) return;
+    closed = true;
+    try {
+      flush();
+      ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ORDER);
+      header.putInt(MAGIC).putShort(VERSION).putShort((short) RECORD_SIZE).putLong(count).flip();
+      while (header.hasRemaining()) channel.write(header, header.position());
+    } finally {
+      channel.close();
+    }
+  }
+}
@@ -0,0 +1,275 @@
+package com.bank;
+
+import java.io.Closeable;
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Despacha transferências por faixas de prioridade para um {@link TransferService}.
+ * <p>
+ * A faixa urgente (pagamentos instantâneos) tem workers só dela. As faixas de lote (folha,
+ * conciliações) dividem outro grupo de workers por Deficit Round Robin: na sua vez, cada faixa
+ * ganha {@code quantum * peso} transferências de crédito e é atendida em lotes de até
+ * {@code quantum}; faixa vazia perde o crédito. Assim cada faixa de lote recebe uma fatia
+ * proporcional ao peso e nenhuma passa fome. Antes de cada lote, o worker de lote esvazia a
+ * fila urgente: uma rajada urgente maior que os workers dedicados espera no máximo um lote.
+ * <p>
+ * Filas são limitadas; submissão com a fila cheia, ou depois de {@link #close()}, lança
+ * {@link RejectedExecutionException}. O resultado de cada transferência chega pelo
+ * {@link CompletableFuture} devolvido, inclusive as exceções de validação.
+ */
+public final class TransferDispatcher implements Closeable {
+  private static final long IDLE_WAIT_MILLIS = 10;
+
+  private final TransferService service;
+  private final int quantum;
+  private final int capacity;
+  private final BlockingQueue<Request> urgent;
+  private final LatencyHistogram urgentLatency = new LatencyHistogram();
+  private final Map<String, Lane> lanesByName = new LinkedHashMap<>();
+  private final List<Lane> lanes = new ArrayList<>();
+  private final List<Thread> workers = new ArrayList<>();
+  private int cursor;
+  private volatile boolean closed;
+
+  /**
+   * @param urgentWorkers threads dedicadas à faixa urgente
+   * @param bulkWorkers   threads das faixas de lote
+   * @param quantum       transferências por lote (e crédito por unidade de peso)
+   * @param capacity      tamanho máximo de cada fila
+   */
+  public TransferDispatcher(TransferService service, int urgentWorkers, int bulkWorkers, int quantum, int capacity) {
+    if (service == null) throw new NullPointerException("Serviço nulo");
+    if (urgentWorkers <= 0 || bulkWorkers <= 0) throw new IllegalArgumentException("Workers devem ser > 0");
+    if (quantum <= 0) throw new IllegalArgumentException("Quantum deve ser > 0");
+    if (capacity <= 0) throw new IllegalArgumentException("Capacidade deve ser > 0");
+    this.service = service;
+    this.quantum = quantum;
+    this.capacity = capacity;
+    this.urgent = new LinkedBlockingQueue<>(capacity);
+    for (int i = 0; i < urgentWorkers; i++) start(this::runUrgent, "dispatch-urgent-" + i);
+    for (int i = 0; i < bulkWorkers; i++) start(this::runBulk, "dispatch-bulk-" + i);
+  }
+
+  /** Cria uma faixa de lote com o peso dado. */
+  public synchronized void addLane(String name, int weight) {
+    if (name == null) throw new NullPointerException("Nome nulo");
+    if (weight <= 0) throw new IllegalArgumentException("Peso deve ser > 0");
+    if (lanesByName.containsKey(name)) throw new IllegalArgumentException("Faixa já existe: " + name);
+    Lane lane = new Lane(weight);
+    lanesByName.put(name, lane);
+    lanes.add(lane);
+  }
+
+  /** Transferência urgente, atendida pelos workers dedicados. */
+  public CompletableFuture<Void> submitUrgent(Account from, Account to, BigDecimal amount) {
+    Request request = new Request(from, to, amount);
+    if (closed || !urgent.offer(request)) throw new RejectedExecutionException("Fila urgente cheia ou fechada");
+    // close() pode ter esvaziado a fila entre a checagem e o offer: quem tirar o pedido o conclui
+    if (closed && urgent.remove(request)) throw new RejectedExecutionException("Fila urgente cheia ou fechada");
+    return request.future;
+  }
+
+  /** Transferência na faixa de lote {@code lane}. */
+  public CompletableFuture<Void> submit(String lane, Account from, Account to, BigDecimal amount) {
+    Request request = new Request(from, to, amount);
+    synchronized (this) {
+      Lane target = lane(lane);
+      if (closed || target.queue.size() >= capacity) {
+        throw new RejectedExecutionException("Faixa cheia ou fechada: " + lane);
+      }
+      target.queue.add(request);
+      notify();
+    }
+    return request.future;
+  }
+
+  /** Transferências na fila urgente. */
+  public int urgentQueued() { return urgent.size(); }
+
+  public synchronized int queued(String lane) { return lane(lane).queue.size(); }
+
+  /** Transferências concluídas (com sucesso ou não) na faixa. */
+  public long completed(String lane) {
+    Lane target;
+    synchronized (this) {
+      target = lane(lane);
+    }
+    return target.completed.sum();
+  }
+
+  /** Cópia das latências urgentes (submissão até conclusão, ns). */
+  public LatencyHistogram urgentLatency() {
+    return snapshot(urgentLatency);
+  }
+
+  /** Cópia das latências da faixa (submissão até conclusão, ns). */
+  public LatencyHistogram latency(String lane) {
+    Lane target;
+    synchronized (this) {
+      target = lane(lane);
+    }
+    return snapshot(target.latency);
+  }
+
+  private static LatencyHistogram snapshot(LatencyHistogram histogram) {
+    LatencyHistogram copy = new LatencyHistogram();
+    synchronized (histogram) {
+      copy.add(histogram);
+    }
+    return copy;
+  }
+
+  private Lane lane(String name) {
+    Lane lane = lanesByName.get(name);
+    if (lane == null) throw new IllegalArgumentException("Faixa inexistente: " + name);
+    return lane;
+  }
+
+  private void start(Runnable worker, String name) {
+    Thread thread = new Thread(worker, name);
+    thread.setDaemon(true);
+    workers.add(thread);
+    thread.start();
+  }
+
+  private void runUrgent() {
+    while (!closed) {
+      try {
+        Request request = urgent.poll(IDLE_WAIT_MILLIS, TimeUnit.MILLISECONDS);
+        if (request != null) execute(request, urgentLatency, null);
+      } catch (InterruptedException e) {
+        return;
+      }
+    }
+  }
+
+  private void runBulk() {
+    List<Request> batch = new ArrayList<>(quantum);
+    while (!closed) {
+      // fronteira de lote: urgentes antes de qualquer transferência de lote
+      Request request;
+      while ((request = urgent.poll()) != null) execute(request, urgentLatency, null);
+      Lane lane;
+      try {
+        lane = nextBatch(batch);
+      } catch (InterruptedException e) {
+        return;
+      }
+      if (lane == null) continue;
+      for (Request r : batch) execute(r, lane.latency, lane);
+      batch.clear();
+    }
+  }
+
+  /**
+   * Escolhe a faixa da vez por Deficit Round Robin e move para {@code batch} até um lote dela;
+   * retorna a faixa, ou {@code null} se não havia nada (depois de esperar um pouco).
+   */
+  private synchronized Lane nextBatch(List<Request> batch) throws InterruptedException {
+    for (int visited = 0; visited <= lanes.size(); visited++) {
+      if (lanes.isEmpty()) break;
+      if (cursor >= lanes.size()) cursor = 0;
+      Lane lane = lanes.get(cursor);
+      if (lane.queue.isEmpty()) {
+        lane.deficit = 0;
+        lane.turn = false;
+        cursor++;
+        continue;
+      }
+      if (!lane.turn) {
+        lane.deficit += (long) quantum * lane.weight;
+        lane.turn = true;
+      }
+      int take = (int) Math.min(Math.min(lane.deficit, quantum), lane.queue.size());
+      for (int i = 0; i < take; i++) batch.add(lane.queue.poll());
+      lane.deficit -= take;
+      if (lane.deficit == 0 || lane.queue.isEmpty()) {
+        if (lane.queue.isEmpty()) lane.deficit = 0;
+        lane.turn = false;
+        cursor++;
+      }
+      return lane;
+    }
+    wait(IDLE_WAIT_MILLIS);
+    return null;
+  }
+
+  /** Executa e contabiliza antes de concluir o future: quem espera por ele já vê as métricas. */
+  private void execute(Request request, LatencyHistogram latency, Lane lane) {
+    RuntimeException failure = null;
+    try {
+      service.transfer(request.from, request.to, request.amount);
+    } catch (RuntimeException e) {
+      failure = e;
+    }
+    long elapsed = System.nanoTime() - request.submitted;
+    synchronized (latency) {
+      latency.record(elapsed);
+    }
+    if (lane != null) lane.completed.increment();
+    if (failure == null) request.future.complete(null);
+    else request.future.completeExceptionally(failure);
+  }
+
+  /** Para os workers; transferências ainda na fila falham com {@link RejectedExecutionException}. */
+  @Override
+  public void close() {
+    closed = true;
+    synchronized (this) {
+      notifyAll();
+    }
+    for (Thread worker : workers) {
+      try {
+        worker.join(TimeUnit.SECONDS.toMillis(5));
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        break;
+      }
+    }
+    RejectedExecutionException rejected = new RejectedExecutionException("Despachante fechado");
+    Request request;
+    while ((request = urgent.poll()) != null) request.future.completeExceptionally(rejected);
+    synchronized (this) {
+      for (Lane lane : lanes) {
+        while ((request = lane.queue.poll()) != null) request.future.completeExceptionally(rejected);
+      }
+    }
+  }
+
+  private static final class Request {
+    final Account from;
+    final Account to;
+    final BigDecimal amount;
+    final CompletableFuture<Void> future = new CompletableFuture<>();
+    final long submitted = System.nanoTime();
+
+    Request(Account from, Account to, BigDecimal amount) {
+      this.from = from;
+      this.to = to;
+      this.amount = amount;
+    }
+  }
+
+  /** Faixa de lote; tudo guardado pelo monitor do despachante, exceto os contadores. */
+  private static final class Lane {
+    final int weight;
+    final ArrayDeque<Request> queue = new ArrayDeque<>();
+    final LatencyHistogram latency = new LatencyHistogram();
+    long deficit;
+    boolean turn;
+    final LongAdder completed = new LongAdder();
+
+    Lane(int weight) { this.weight = weight; }
+  }
+}
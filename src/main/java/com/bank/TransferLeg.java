@@ -0,0 +1,33 @@
+package com.bank;
+
+import java.math.BigDecimal;
+
+/**
+ * Uma perna de uma transferência de várias pernas: {@code amount} sai de {@code from} e
+ * entra em {@code to}. Ver {@link TransferService#transferAll}.
+ */
+public final class TransferLeg {
+  private final Account from;
+  private final Account to;
+  private final BigDecimal amount;
+
+  public TransferLeg(Account from, Account to, BigDecimal amount) {
+    if (from == null || to == null) throw new NullPointerException("Conta nula");
+    if (from == to) throw new IllegalArgumentException("Mesma conta");
+    if (amount == null || amount.signum() <= 0) throw new IllegalArgumentException("Valor inválido");
+    this.from = from;
+    this.to = to;
+    this.amount = amount;
+  }
+
+  public Account getFrom() { return from; }
+
+  public Account getTo() { return to; }
+
+  public BigDecimal getAmount() { return amount; }
+
+  @Override
+  public String toString() {
+    return from.getId() + " -> " + to.getId() + ": " + amount.toPlainString();
+  }
+}
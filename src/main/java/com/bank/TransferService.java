@@ -1,16 +1,206 @@
 package com.bank;
 
 import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Serviço de transferência entre contas.
+ * O saque na origem passa pelas regras de velocidade da conta; se recusado
+ * ({@link VelocityLimitExceededException}), o destino não é creditado.
+ * Entre contas do mesmo {@link AccountRegistry} o total do sistema não muda,
+ * então o {@link LiquidityTracker} não é tocado.
+ * As duas contas são travadas em ordem global, sem risco de deadlock, e a transferência
+ * é vista pelas demais operações como um passo único. {@link #transferAll} estende isso a
+ * transferências de várias pernas.
+ * <p>
+ * Com um {@link HotAccountDetector} no cadastro, transferências amostradas medem a espera pelo
+ * monitor do destino. Para um destino dividido em sub-saldos só a origem é travada: débito,
+ * crédito no sub-saldo e lançamento acontecem com o sub-saldo travado, ainda como um passo único
+ * para a origem e para quem junta os sub-saldos do destino.
  */
 public class TransferService {
   public void transfer(Account from, Account to, BigDecimal amount) {
+    validate(from, to, amount);
+    boolean external = from.registry() == null || from.registry() != to.registry();
+    HotAccountDetector detector = to.registry() == null ? null : to.registry().hotAccounts();
+    boolean sampled = detector != null && detector.sample();
+    if (to.isSplit() && !from.isSplit()) {
+      boolean credited;
+      synchronized (from) {
+        // sub-saldos só se travam um por vez: a origem não pode juntar os dela aqui dentro
+        credited = !from.isSplit() && to.creditSplit(amount, external, from);
+      }
+      if (credited) {
+        if (sampled) detector.credited(to);
+        return;
+      }
+    }
+    Account first = from.lockOrder() < to.lockOrder() ? from : to;
+    Account second = first == from ? to : from;
+    long requested = sampled ? System.nanoTime() : 0;
+    long waited = 0;
+    synchronized (first) {
+      if (sampled) {
+        long now = System.nanoTime();
+        if (first == to) waited = now - requested;
+        requested = now;
+      }
+      synchronized (second) {
+        if (sampled && second == to) waited = System.nanoTime() - requested;
+        from.withdraw(amount, external, to);
+        to.deposit(amount, external, from);
+        if (!external) from.registry().transferred(from, to, amount);
+      }
+    }
+    if (sampled) detector.waited(to, waited);
+  }
+
+  static void validate(Account from, Account to, BigDecimal amount) {
     if (from == null || to == null) throw new NullPointerException("Conta nula");
     if (from == to) throw new IllegalArgumentException("Mesma conta");
     if (amount == null || amount.signum() <= 0) throw new IllegalArgumentException("Valor inválido");
-    from.withdraw(amount);
-    to.deposit(amount);
   }
-}
\ No newline at end of file
+
+  /**
+   * Executa todas as pernas como um passo único: ou todas são aplicadas, ou nenhuma.
+   * <p>
+   * Todas as contas envolvidas são travadas em ordem global antes de qualquer leitura; contas
+   * cujo saldo muda fora do monitor ({@link AccountView}) são recusadas antes disso. Saldos
+   * são validados contra o efeito líquido de todas as pernas (uma conta pode repassar o que
+   * recebe na mesma transação) e as regras de velocidade contra a soma dos débitos de cada conta,
+   * cada perna contando como um saque. Só depois de tudo validado os saldos mudam.
+   * <p>
+   * Uma perna isolada pode não ser viável na ordem dada (A paga B, que repassa a C o que acabou
+   * de receber), então as pernas entram no diário de cada cadastro como um lote atômico.
+   */
+  public void transferAll(List<TransferLeg> legs) {
+    if (legs == null) throw new NullPointerException("Pernas nulas");
+    if (legs.isEmpty()) throw new IllegalArgumentException("Sem pernas");
+    TransferLeg[] plan = legs.toArray(new TransferLeg[0]);
+    Account[] accounts = new Account[plan.length * 2];
+    for (int i = 0; i < plan.length; i++) {
+      if (plan[i] == null) throw new NullPointerException("Perna nula");
+      accounts[2 * i] = plan[i].getFrom();
+      accounts[2 * i + 1] = plan[i].getTo();
+      // recusada antes de travar: a visão não pode receber o ajuste depois das outras contas
+      if (!accounts[2 * i].guardedByMonitor() || !accounts[2 * i + 1].guardedByMonitor()) {
+        throw new IllegalArgumentException("Visão não suporta transferência de várias pernas");
+      }
+    }
+    Arrays.sort(accounts, Comparator.comparingLong(Account::lockOrder));
+    int distinct = 0;
+    for (Account account : accounts) {
+      if (distinct == 0 || accounts[distinct - 1] != account) accounts[distinct++] = account;
+    }
+    Account[] locked = Arrays.copyOf(accounts, distinct);
+    lockAll(locked, 0, () -> apply(plan, locked));
+  }
+
+  /** Trava {@code accounts}, já em ordem de travamento e sem repetição, e executa {@code action}. */
+  static void lockAll(Account[] accounts, int index, Runnable action) {
+    if (index == accounts.length) {
+      action.run();
+      return;
+    }
+    synchronized (accounts[index]) {
+      lockAll(accounts, index + 1, action);
+    }
+  }
+
+  /** Chamado com todas as contas travadas; {@code accounts} em ordem de travamento. */
+  private static void apply(TransferLeg[] plan, Account[] accounts) {
+    BigDecimal[] net = new BigDecimal[accounts.length];
+    BigDecimal[] debited = new BigDecimal[accounts.length];
+    int[] debits = new int[accounts.length];
+    Arrays.fill(net, BigDecimal.ZERO);
+    Arrays.fill(debited, BigDecimal.ZERO);
+    for (TransferLeg leg : plan) {
+      int from = indexOf(accounts, leg.getFrom());
+      int to = indexOf(accounts, leg.getTo());
+      net[from] = net[from].subtract(leg.getAmount());
+      net[to] = net[to].add(leg.getAmount());
+      debited[from] = debited[from].add(leg.getAmount());
+      debits[from]++;
+    }
+
+    for (int i = 0; i < accounts.length; i++) {
+      if (debits[i] > 0) accounts[i].limitRate(debits[i]);
+    }
+    for (int i = 0; i < accounts.length; i++) {
+      if (accounts[i].getBalance().add(net[i]).signum() < 0) {
+        throw new IllegalStateException("Saldo insuficiente");
+      }
+    }
+    for (int i = 0; i < accounts.length; i++) {
+      if (debits[i] == 0) continue;
+      VelocityResult result = accounts[i].checkVelocity(debits[i], debited[i]);
+      if (result != VelocityResult.ACCEPTED) throw new VelocityLimitExceededException(result);
+    }
+
+    for (int i = 0; i < accounts.length; i++) {
+      if (debits[i] > 0) accounts[i].recordVelocity(debits[i], debited[i]);
+      if (net[i].signum() != 0) accounts[i].adjust(net[i]);
+    }
+    // as pernas só são viáveis juntas: cada diário recebe as suas como um lote atômico
+    Map<AccountRegistry, OperationJournal.Batch> batches = new IdentityHashMap<>();
+    for (TransferLeg leg : plan) {
+      Account from = leg.getFrom();
+      Account to = leg.getTo();
+      BigDecimal amount = leg.getAmount();
+      from.onEvent(AccountEvent.Kind.TRANSFERRED_OUT, to.getId(), amount);
+      to.onEvent(AccountEvent.Kind.TRANSFERRED_IN, from.getId(), amount);
+      AccountRegistry source = from.registry();
+      AccountRegistry target = to.registry();
+      if (source != null && source == target) {
+        batch(batches, source).add(OperationType.TRANSFER, from.getId(), to.getId(), amount);
+      } else {
+        if (source != null) batch(batches, source).add(OperationType.WITHDRAW, from.getId(), 0, amount);
+        if (target != null) batch(batches, target).add(OperationType.DEPOSIT, to.getId(), 0, amount);
+      }
+    }
+    for (Map.Entry<AccountRegistry, OperationJournal.Batch> entry : batches.entrySet()) {
+      entry.getKey().recorded(entry.getValue());
+    }
+  }
+
+  private static OperationJournal.Batch batch(Map<AccountRegistry, OperationJournal.Batch> batches,
+                                              AccountRegistry registry) {
+    return batches.computeIfAbsent(registry, r -> new OperationJournal.Batch());
+  }
+
+  /**
+   * Avisa as contas e os cadastros de uma transferência já aplicada aos saldos: eventos nas
+   * duas contas e lançamento de transferência no mesmo cadastro, ou saída e entrada de dinheiro
+   * entre cadastros diferentes. Chamado com a origem travada e, fora do caminho otimista, também
+   * com o destino; no otimista o crédito só fica visível depois deste aviso.
+   */
+  static void recorded(Account from, Account to, BigDecimal amount) {
+    from.onEvent(AccountEvent.Kind.TRANSFERRED_OUT, to.getId(), amount);
+    to.onEvent(AccountEvent.Kind.TRANSFERRED_IN, from.getId(), amount);
+    AccountRegistry source = from.registry();
+    AccountRegistry target = to.registry();
+    if (source != null && source == target) {
+      source.transferred(from, to, amount);
+    } else {
+      if (source != null) source.withdrawn(from, amount);
+      if (target != null) target.deposited(to, amount);
+    }
+  }
+
+  private static int indexOf(Account[] accounts, Account account) {
+    int lo = 0;
+    int hi = accounts.length - 1;
+    while (lo <= hi) {
+      int mid = (lo + hi) >>> 1;
+      long order = accounts[mid].lockOrder();
+      if (order < account.lockOrder()) lo = mid + 1;
+      else if (order > account.lockOrder()) hi = mid - 1;
+      else return mid;
+    }
+    throw new IllegalStateException("Conta não travada");
+  }
+}
@@ -0,0 +1,215 @@
+package com.bank;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Coordenador de commit em duas fases para transferências entre partições, com aborto
+ * presumido: só a decisão de efetivar é registrada; transação sem decisão no log foi abortada.
+ * <p>
+ * Cada chamada de {@link #execute} é um lote. Cada transferência é uma transação independente,
+ * mas as mensagens são agrupadas: um prepare e um commit/abort por participante, e uma
+ * gravação forçada no log por fase. O custo de disco e de rede é dividido pelo lote todo.
+ * <ol>
+ *   <li>BEGIN (forçado) reserva a faixa de ids do lote, que nunca são reutilizados;</li>
+ *   <li>prepare em lote para cada participante envolvido;</li>
+ *   <li>COMMIT (forçado) com as transações que tiveram todos os votos e suas partições;</li>
+ *   <li>commit/abort em lote para cada participante; END (sem forçar) quando todos confirmam.</li>
+ * </ol>
+ * Transações decididas e sem END ficam pendentes: {@link #recover} reenvia o commit, e
+ * participantes reabertos perguntam o resultado por {@link #isCommitted}.
+ */
+public final class TwoPhaseCoordinator implements Closeable {
+  static final byte BEGIN = 1;
+  static final byte COMMIT = 2;
+  static final byte END = 3;
+
+  private final TwoPhaseLog log;
+  private final Map<Integer, Participant> participants = new ConcurrentHashMap<>();
+  /** Transações efetivadas ainda sem confirmação de todos os participantes, com suas partições. */
+  private final Map<Long, int[]> unfinished = new LinkedHashMap<>();
+  private long nextTx = 1;
+
+  public TwoPhaseCoordinator(Path logFile) throws IOException {
+    this.log = new TwoPhaseLog(logFile, this::replay);
+  }
+
+  private void replay(byte type, long[] values) {
+    if (type == BEGIN) {
+      nextTx = Math.max(nextTx, values[1] + 1);
+    } else if (type == COMMIT) {
+      for (int i = 0; i < values.length; ) {
+        long txId = values[i++];
+        int[] partitions = new int[(int) values[i++]];
+        for (int p = 0; p < partitions.length; p++) partitions[p] = (int) values[i++];
+        unfinished.put(txId, partitions);
+      }
+    } else if (type == END) {
+      for (long txId : values) unfinished.remove(txId);
+    }
+  }
+
+  public void register(int partition, Participant participant) {
+    if (participant == null) throw new NullPointerException("Participante nulo");
+    participants.put(partition, participant);
+  }
+
+  /**
+   * Executa o lote.
+   * @return na posição de cada transferência, se ela foi efetivada
+   */
+  public synchronized boolean[] execute(List<CrossTransfer> transfers) {
+    int n = transfers.size();
+    boolean[] committed = new boolean[n];
+    if (n == 0) return committed;
+    long first = nextTx;
+    nextTx += n;
+    append(BEGIN, new long[] {first, first + n - 1}, true);
+
+    // fase 1: pernas agrupadas por participante
+    Map<Integer, List<PreparedLeg>> legs = new TreeMap<>();
+    Arrays.fill(committed, true);
+    for (int i = 0; i < n; i++) {
+      CrossTransfer t = transfers.get(i);
+      if (!participants.containsKey(t.getFromPartition()) || !participants.containsKey(t.getToPartition())) {
+        committed[i] = false;
+        continue;
+      }
+      long txId = first + i;
+      legs.computeIfAbsent(t.getFromPartition(), k -> new ArrayList<>())
+          .add(new PreparedLeg(txId, t.getFromAccount(), -t.amountCents()));
+      legs.computeIfAbsent(t.getToPartition(), k -> new ArrayList<>())
+          .add(new PreparedLeg(txId, t.getToAccount(), t.amountCents()));
+    }
+    for (Map.Entry<Integer, List<PreparedLeg>> entry : legs.entrySet()) {
+      List<PreparedLeg> batch = entry.getValue();
+      boolean[] votes;
+      try {
+        votes = participants.get(entry.getKey()).prepare(batch);
+      } catch (RuntimeException e) {
+        votes = new boolean[batch.size()];
+      }
+      for (int j = 0; j < batch.size(); j++) {
+        if (!votes[j]) committed[(int) (batch.get(j).getTxId() - first)] = false;
+      }
+    }
+
+    // decisão
+    List<Long> decision = new ArrayList<>();
+    for (int i = 0; i < n; i++) {
+      if (!committed[i]) continue;
+      CrossTransfer t = transfers.get(i);
+      int[] partitions = t.getFromPartition() == t.getToPartition()
+          ? new int[] {t.getFromPartition()}
+          : new int[] {t.getFromPartition(), t.getToPartition()};
+      decision.add(first + i);
+      decision.add((long) partitions.length);
+      for (int p : partitions) decision.add((long) p);
+      unfinished.put(first + i, partitions);
+    }
+    if (!decision.isEmpty()) append(COMMIT, toArray(decision), true);
+    List<Long> decided = new ArrayList<>();
+    for (int i = 0; i < n; i++) if (committed[i]) decided.add(first + i);
+
+    // fase 2
+    Set<Integer> unreachable = new HashSet<>();
+    for (Map.Entry<Integer, List<PreparedLeg>> entry : legs.entrySet()) {
+      List<Long> commit = new ArrayList<>();
+      List<Long> abort = new ArrayList<>();
+      long last = -1;
+      for (PreparedLeg leg : entry.getValue()) {
+        if (leg.getTxId() == last) continue;
+        last = leg.getTxId();
+        (committed[(int) (last - first)] ? commit : abort).add(last);
+      }
+      Participant participant = participants.get(entry.getKey());
+      try {
+        if (!commit.isEmpty()) participant.commit(toArray(commit));
+      } catch (RuntimeException e) {
+        unreachable.add(entry.getKey());
+      }
+      try {
+        if (!abort.isEmpty()) participant.abort(toArray(abort));
+      } catch (RuntimeException e) {
+        // aborto presumido: o participante resolve sozinho ao se recuperar
+      }
+    }
+    finish(decided, unreachable);
+    return committed;
+  }
+
+  /**
+   * Reenvia o commit das transações decididas e não confirmadas (após queda do coordenador
+   * ou de participantes).
+   * @return quantidade de transações que continuam pendentes
+   */
+  public synchronized int recover() {
+    Map<Integer, List<Long>> byPartition = new TreeMap<>();
+    for (Map.Entry<Long, int[]> entry : unfinished.entrySet()) {
+      for (int p : entry.getValue()) byPartition.computeIfAbsent(p, k -> new ArrayList<>()).add(entry.getKey());
+    }
+    Set<Integer> unreachable = new HashSet<>();
+    for (Map.Entry<Integer, List<Long>> entry : byPartition.entrySet()) {
+      Participant participant = participants.get(entry.getKey());
+      try {
+        if (participant == null) throw new IllegalStateException("Participante não registrado: " + entry.getKey());
+        participant.commit(toArray(entry.getValue()));
+      } catch (RuntimeException e) {
+        unreachable.add(entry.getKey());
+      }
+    }
+    finish(new ArrayList<>(unfinished.keySet()), unreachable);
+    return unfinished.size();
+  }
+
+  /** Registra END das transações {@code candidates} cujos participantes confirmaram. */
+  private void finish(List<Long> candidates, Set<Integer> unreachable) {
+    List<Long> done = new ArrayList<>();
+    for (Long txId : candidates) {
+      boolean acked = true;
+      for (int p : unfinished.get(txId)) acked &= !unreachable.contains(p);
+      if (acked) done.add(txId);
+    }
+    if (done.isEmpty()) return;
+    append(END, toArray(done), false);
+    for (Long txId : done) unfinished.remove(txId);
+  }
+
+  /** Resultado de uma transação para a recuperação de participantes: sem decisão, abortada. */
+  public synchronized boolean isCommitted(long txId) {
+    return unfinished.containsKey(txId);
+  }
+
+  /** Transações efetivadas e ainda não confirmadas por todos os participantes. */
+  public synchronized int unfinished() { return unfinished.size(); }
+
+  private static long[] toArray(List<Long> values) {
+    long[] array = new long[values.size()];
+    for (int i = 0; i < array.length; i++) array[i] = values.get(i);
+    return array;
+  }
+
+  private void append(byte type, long[] values, boolean force) {
+    try {
+      log.append(type, values, force);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    log.close();
+  }
+}
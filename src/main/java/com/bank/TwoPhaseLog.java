@@ -0,0 +1,89 @@
+package com.bank;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Log durável de coordenador e participantes do commit em duas fases.
+ * <p>
+ * Registro (little-endian): {@code int} quantidade de valores, {@code byte} tipo, os valores
+ * ({@code long}) e um CRC32 de tipo e valores. Na abertura o log é relido do início e um
+ * registro truncado ou corrompido no fim (queda no meio da gravação) é descartado.
+ */
+final class TwoPhaseLog implements Closeable {
+  private static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+  private static final int FRAME = 4 + 1 + 4;
+
+  /** Recebe os registros relidos na abertura. */
+  interface Handler {
+    void record(byte type, long[] values);
+  }
+
+  private final FileChannel channel;
+
+  TwoPhaseLog(Path path, Handler replay) throws IOException {
+    channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+        StandardOpenOption.WRITE);
+    long valid = replay(replay);
+    channel.truncate(valid);
+    channel.position(valid);
+  }
+
+  private long replay(Handler handler) throws IOException {
+    long size = channel.size();
+    if (size > Integer.MAX_VALUE) throw new IOException("Log grande demais");
+    ByteBuffer data = ByteBuffer.allocate((int) size).order(ORDER);
+    while (data.hasRemaining() && channel.read(data, data.position()) >= 0) { }
+    data.flip();
+    CRC32 crc = new CRC32();
+    while (data.remaining() >= FRAME) {
+      int start = data.position();
+      int count = data.getInt();
+      if (count < 0 || count > (data.remaining() - 5) / 8) {
+        // o corte volta ao início do registro: nada do quadro rasgado fica no log
+        data.position(start);
+        break;
+      }
+      byte type = data.get();
+      long[] values = new long[count];
+      for (int i = 0; i < count; i++) values[i] = data.getLong();
+      crc.reset();
+      ByteBuffer body = data.duplicate();
+      body.position(start + 4).limit(data.position());
+      crc.update(body);
+      if ((int) crc.getValue() != data.getInt()) {
+        data.position(start);
+        break;
+      }
+      handler.record(type, values);
+    }
+    return data.position();
+  }
+
+  /**
+   * Acrescenta um registro; com {@code force} só retorna depois de o registro estar no disco.
+   */
+  synchronized void append(byte type, long[] values, boolean force) throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(FRAME + values.length * 8).order(ORDER);
+    buffer.putInt(values.length).put(type);
+    for (long value : values) buffer.putLong(value);
+    CRC32 crc = new CRC32();
+    ByteBuffer body = buffer.duplicate();
+    body.flip().position(4);
+    crc.update(body);
+    buffer.putInt((int) crc.getValue()).flip();
+    while (buffer.hasRemaining()) channel.write(buffer);
+    if (force) channel.force(false);
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+}
@@ -0,0 +1,19 @@
+package com.bank;
+
+/**
+ * Saque recusado por violar uma regra de velocidade da conta.
+ * Estende {@link IllegalStateException}, como o saldo insuficiente, mas carrega
+ * o código do limite violado em {@link #getResult()}.
+ */
+public class VelocityLimitExceededException extends IllegalStateException {
+  private static final long serialVersionUID = 1L;
+
+  private final VelocityResult result;
+
+  public VelocityLimitExceededException(VelocityResult result) {
+    super("Limite de velocidade excedido: " + result);
+    this.result = result;
+  }
+
+  public VelocityResult getResult() { return result; }
+}
@@ -0,0 +1,123 @@
+package com.bank;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Contadores de janela deslizante de uma conta, em anéis de baldes.
+ * <p>
+ * Todo o estado vive em arrays primitivos alocados na construção; verificar e registrar
+ * um saque não aloca. Baldes que saem da janela são descontados preguiçosamente quando
+ * o relógio avança. Não é thread-safe: a conta dona o protege com o seu próprio lock.
+ */
+public final class VelocityLimiter {
+  private final VelocityRule[] rules;
+  private final LongSupplier clock;
+  /** Início de cada regra nos arrays de baldes. */
+  private final int[] offsets;
+  /** Índice absoluto do balde (tempo / largura) guardado em cada posição do anel. */
+  private final long[] bucketIndex;
+  private final long[] bucketCount;
+  private final long[] bucketAmount;
+  /** Último índice absoluto observado por regra. */
+  private final long[] head;
+  private final long[] windowCount;
+  private final long[] windowAmount;
+
+  VelocityLimiter(VelocityRule[] rules, LongSupplier clock) {
+    this.rules = rules;
+    this.clock = clock;
+    this.offsets = new int[rules.length];
+    int total = 0;
+    for (int r = 0; r < rules.length; r++) {
+      offsets[r] = total;
+      total += rules[r].buckets();
+    }
+    this.bucketIndex = new long[total];
+    this.bucketCount = new long[total];
+    this.bucketAmount = new long[total];
+    this.head = new long[rules.length];
+    this.windowCount = new long[rules.length];
+    this.windowAmount = new long[rules.length];
+    long now = clock.getAsLong();
+    for (int r = 0; r < rules.length; r++) {
+      head[r] = Math.floorDiv(now, rules[r].bucketNanos());
+      for (int b = 0; b < rules[r].buckets(); b++) {
+        bucketIndex[offsets[r] + b] = Long.MIN_VALUE;
+      }
+    }
+  }
+
+  /** Verifica sem registrar se um saque de {@code amount} centavos seria aceito. */
+  public VelocityResult check(long amount) {
+    return check(1, amount);
+  }
+
+  /**
+   * Verifica sem registrar {@code count} saques que somam {@code amount} centavos.
+   */
+  public VelocityResult check(int count, long amount) {
+    long now = clock.getAsLong();
+    for (int r = 0; r < rules.length; r++) {
+      advance(r, now);
+      VelocityRule rule = rules[r];
+      if (windowCount[r] + count > rule.maxCount()) return VelocityResult.COUNT_LIMIT_EXCEEDED;
+      if (saturatedAdd(windowAmount[r], amount) > rule.maxAmount()) return VelocityResult.AMOUNT_LIMIT_EXCEEDED;
+    }
+    return VelocityResult.ACCEPTED;
+  }
+
+  /** Registra {@code count} saques que somam {@code amount} centavos, sem verificar. */
+  public void record(int count, long amount) {
+    long now = clock.getAsLong();
+    for (int r = 0; r < rules.length; r++) {
+      advance(r, now);
+      int slot = offsets[r] + (int) Math.floorMod(head[r], (long) rules[r].buckets());
+      if (bucketIndex[slot] != head[r]) {
+        bucketIndex[slot] = head[r];
+        bucketCount[slot] = 0;
+        bucketAmount[slot] = 0;
+      }
+      bucketCount[slot] += count;
+      bucketAmount[slot] = saturatedAdd(bucketAmount[slot], amount);
+      windowCount[r] += count;
+      windowAmount[r] = saturatedAdd(windowAmount[r], amount);
+    }
+  }
+
+  /** Verifica e, se aceito, registra um saque de {@code amount} centavos. */
+  public VelocityResult tryAcquire(long amount) {
+    VelocityResult result = check(1, amount);
+    if (result == VelocityResult.ACCEPTED) record(1, amount);
+    return result;
+  }
+
+  /** Move o anel da regra até o balde de {@code now}, descontando os baldes expirados. */
+  private void advance(int r, long now) {
+    VelocityRule rule = rules[r];
+    long current = Math.floorDiv(now, rule.bucketNanos());
+    long previous = head[r];
+    if (current <= previous) return;
+    int buckets = rule.buckets();
+    long oldest = current - buckets;
+    long from = Math.max(previous + 1, oldest + 1);
+    // expira cada posição do anel que será reutilizada ou cujo balde ficou fora da janela
+    for (long i = from; i <= current; i++) {
+      int slot = offsets[r] + (int) Math.floorMod(i, (long) buckets);
+      long stored = bucketIndex[slot];
+      if (stored != Long.MIN_VALUE && stored <= oldest) {
+        windowCount[r] -= bucketCount[slot];
+        windowAmount[r] -= bucketAmount[slot];
+        bucketIndex[slot] = Long.MIN_VALUE;
+        bucketCount[slot] = 0;
+        bucketAmount[slot] = 0;
+      }
+    }
+    head[r] = current;
+  }
+
+  private static long saturatedAdd(long a, long b) {
+    long sum = a + b;
+    if (((a ^ sum) & (b ^ sum)) < 0) return Long.MAX_VALUE;
+    return sum;
+  }
+}
@@ -0,0 +1,34 @@
+package com.bank;
+
+import java.util.Objects;
+import java.util.function.LongSupplier;
+
+/**
+ * Conjunto de regras de velocidade compartilhado entre contas.
+ * Cada conta recebe o seu próprio {@link VelocityLimiter}; contas distintas não disputam estado.
+ */
+public final class VelocityPolicy {
+  private final VelocityRule[] rules;
+  private final LongSupplier clock;
+
+  public VelocityPolicy(VelocityRule... rules) {
+    this(System::nanoTime, rules);
+  }
+
+  /**
+   * @param clock relógio monotônico em nanossegundos (ex.: {@code System::nanoTime})
+   */
+  public VelocityPolicy(LongSupplier clock, VelocityRule... rules) {
+    Objects.requireNonNull(clock, "Relógio nulo");
+    Objects.requireNonNull(rules, "Regras nulas");
+    if (rules.length == 0) throw new IllegalArgumentException("Ao menos uma regra");
+    for (VelocityRule rule : rules) Objects.requireNonNull(rule, "Regra nula");
+    this.rules = rules.clone();
+    this.clock = clock;
+  }
+
+  /** Cria o estado de janelas de uma conta. */
+  public VelocityLimiter newLimiter() {
+    return new VelocityLimiter(rules, clock);
+  }
+}
@@ -0,0 +1,15 @@
+package com.bank;
+
+/**
+ * Resultado da verificação de limites de velocidade.
+ */
+public enum VelocityResult {
+  /** Operação dentro dos limites. */
+  ACCEPTED,
+  /** Número máximo de saques na janela foi atingido. */
+  COUNT_LIMIT_EXCEEDED,
+  /** Valor máximo sacado na janela seria ultrapassado. */
+  AMOUNT_LIMIT_EXCEEDED,
+  /** Tentativas de débito acima da taxa do {@link TokenBucketLimiter} do cadastro. */
+  RATE_LIMITED
+}
@@ -0,0 +1,55 @@
+package com.bank;
+
+import java.math.BigDecimal;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Regra de velocidade: no máximo {@code maxCount} saques e {@code maxAmount} sacados
+ * numa janela deslizante de duração {@code window}.
+ * A janela é dividida em {@code buckets} baldes; a precisão da janela é de um balde.
+ */
+public final class VelocityRule {
+  private final long windowNanos;
+  private final int buckets;
+  private final long maxCount;
+  private final long maxAmount;
+
+  /**
+   * @param maxCount  número máximo de saques na janela ({@code Long.MAX_VALUE} = sem limite)
+   * @param maxAmount valor máximo sacado na janela ({@code null} = sem limite)
+   */
+  public VelocityRule(long window, TimeUnit unit, int buckets, long maxCount, BigDecimal maxAmount) {
+    Objects.requireNonNull(unit, "Unidade nula");
+    if (window <= 0) throw new IllegalArgumentException("Janela deve ser > 0");
+    if (buckets <= 0) throw new IllegalArgumentException("Baldes devem ser > 0");
+    if (maxCount <= 0) throw new IllegalArgumentException("Quantidade máxima deve ser > 0");
+    if (maxAmount != null && maxAmount.signum() <= 0) throw new IllegalArgumentException("Valor máximo deve ser > 0");
+    this.windowNanos = unit.toNanos(window);
+    if (windowNanos < buckets) throw new IllegalArgumentException("Janela menor que o número de baldes");
+    this.buckets = buckets;
+    this.maxCount = maxCount;
+    this.maxAmount = maxAmount == null ? Long.MAX_VALUE : Money.toMinorUnitsCeiling(maxAmount);
+  }
+
+  /** Janela de uma hora com 60 baldes de um minuto. */
+  public static VelocityRule perHour(long maxCount, BigDecimal maxAmount) {
+    return new VelocityRule(1, TimeUnit.HOURS, 60, maxCount, maxAmount);
+  }
+
+  /** Janela de um dia com 96 baldes de quinze minutos. */
+  public static VelocityRule perDay(long maxCount, BigDecimal maxAmount) {
+    return new VelocityRule(1, TimeUnit.DAYS, 96, maxCount, maxAmount);
+  }
+
+  long windowNanos() { return windowNanos; }
+
+  int buckets() { return buckets; }
+
+  long bucketNanos() { return windowNanos / buckets; }
+
+  long maxCount() { return maxCount; }
+
+  /** Valor máximo em centavos. */
+  long maxAmount() { return maxAmount; }
+}
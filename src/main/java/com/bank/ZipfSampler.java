@@ -0,0 +1,42 @@
+package com.bank;
+
+import java.util.SplittableRandom;
+
+/**
+ * Amostragem de índices {@code [0, n)} com distribuição de Zipf: o índice {@code k} tem peso
+ * {@code 1 / (k + 1)^s}. A distribuição acumulada é pré-calculada; cada amostra é uma busca
+ * binária, sem alocação.
+ */
+public final class ZipfSampler {
+  private final double[] cdf;
+
+  /**
+   * @param n    quantidade de índices
+   * @param skew expoente {@code s}; 0 equivale à distribuição uniforme
+   */
+  public ZipfSampler(int n, double skew) {
+    if (n <= 0) throw new IllegalArgumentException("Quantidade deve ser > 0");
+    if (skew < 0 || Double.isNaN(skew)) throw new IllegalArgumentException("Expoente deve ser >= 0");
+    cdf = new double[n];
+    double sum = 0;
+    for (int k = 0; k < n; k++) {
+      sum += 1.0 / Math.pow(k + 1, skew);
+      cdf[k] = sum;
+    }
+    for (int k = 0; k < n; k++) cdf[k] /= sum;
+    cdf[n - 1] = 1.0;
+  }
+
+  public int size() { return cdf.length; }
+
+  public int next(SplittableRandom random) {
+    double u = random.nextDouble();
+    int lo = 0;
+    int hi = cdf.length - 1;
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (cdf[mid] > u) hi = mid; else lo = mid + 1;
+    }
+    return lo;
+  }
+}
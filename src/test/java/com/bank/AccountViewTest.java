@@ -0,0 +1,108 @@
+package com.bank;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Visões peso-mosca sobre tabela de saldos")
+class AccountViewTest {
+
+    private static BigDecimal money(String value) {
+        return new BigDecimal(value);
+    }
+
+    @Test
+    @DisplayName("Uma visão reposicionada varre um milhão de contas")
+    void singleViewSweepsTable() {
+        BalanceTable table = new BalanceTable(1_000_000);
+        AccountView view = new AccountView(table);
+        for (int slot = 0; slot < table.capacity(); slot++) view.moveTo(slot).deposit(money("1.25"));
+        for (int slot = 0; slot < table.capacity(); slot += 2) view.moveTo(slot).withdraw(money("0.25"));
+        assertEquals(0, money("1125000.00").compareTo(table.total()));
+        assertEquals(0, money("1.00").compareTo(view.moveTo(0).getBalance()));
+        assertEquals(0, money("1.25").compareTo(view.moveTo(1).getBalance()));
+        assertEquals(1, view.getId());
+    }
+
+    @Test
+    @DisplayName("Regras de Account valem na visão")
+    void accountRules() {
+        AccountView view = new AccountView(new BalanceTable(4)).moveTo(3);
+        view.deposit(money("10.00"));
+        assertThrows(IllegalStateException.class, () -> view.withdraw(money("10.01")));
+        assertThrows(IllegalArgumentException.class, () -> view.deposit(BigDecimal.ZERO));
+        assertThrows(IllegalArgumentException.class, () -> view.withdraw(money("-1")));
+        assertThrows(NullPointerException.class, () -> view.deposit(null));
+        assertThrows(IllegalArgumentException.class, () -> view.deposit(money("0.001")));
+        assertEquals(0, money("10.00").compareTo(view.getBalance()));
+        assertThrows(IndexOutOfBoundsException.class, () -> view.moveTo(4));
+    }
+
+    @Test
+    @DisplayName("Transferência simples entre visões e rejeição das multi-perna")
+    void transfersBetweenViews() {
+        BalanceTable table = new BalanceTable(2);
+        AccountView a = new AccountView(table).moveTo(0);
+        AccountView b = new AccountView(table).moveTo(1);
+        a.deposit(money("50.00"));
+        new TransferService().transfer(a, b, money("20.00"));
+        assertEquals(0, money("30.00").compareTo(a.getBalance()));
+        assertEquals(0, money("20.00").compareTo(b.getBalance()));
+        assertThrows(IllegalStateException.class, () -> new TransferService().transfer(b, a, money("20.01")));
+        assertThrows(IllegalArgumentException.class,
+                () -> new TransferService().transferAll(Collections.singletonList(new TransferLeg(a, b, BigDecimal.ONE))));
+        assertEquals(0, money("50.00").compareTo(table.total()));
+    }
+
+    @Test
+    @DisplayName("Conta comum com visão: multi-perna recusada sem efeito, otimista pelo caminho com lock")
+    void viewsMixedWithAccounts() {
+        BalanceTable table = new BalanceTable(1);
+        AccountView view = new AccountView(table).moveTo(0);
+        view.deposit(money("10.00"));
+        Account account = new Account();
+        account.deposit(money("10.00"));
+
+        assertThrows(IllegalArgumentException.class, () -> new TransferService().transferAll(
+                Collections.singletonList(new TransferLeg(account, view, BigDecimal.ONE))));
+        assertThrows(IllegalArgumentException.class, () -> new TransferService().transferAll(
+                Collections.singletonList(new TransferLeg(view, account, BigDecimal.ONE))));
+        assertEquals(0, money("10.00").compareTo(account.getBalance()));
+        assertEquals(0, money("10.00").compareTo(view.getBalance()));
+
+        OptimisticTransferService optimistic = new OptimisticTransferService();
+        optimistic.transfer(account, view, money("4.00"));
+        optimistic.transfer(view, account, money("1.00"));
+        assertEquals(0, optimistic.optimisticCommits());
+        assertEquals(0, money("7.00").compareTo(account.getBalance()));
+        assertEquals(0, money("13.00").compareTo(view.getBalance()));
+    }
+
+    @Test
+    @DisplayName("Visões em threads diferentes na mesma posição não perdem atualizações")
+    void concurrentViewsOnSameSlot() throws Exception {
+        BalanceTable table = new BalanceTable(1);
+        new AccountView(table).moveTo(0).deposit(money("1000.00"));
+        int threads = 4;
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            boolean depositor = t % 2 == 0;
+            new Thread(() -> {
+                AccountView view = new AccountView(table).moveTo(0);
+                for (int i = 0; i < 10_000; i++) {
+                    if (depositor) view.deposit(money("0.01"));
+                    else view.withdraw(money("0.01"));
+                }
+                done.countDown();
+            }).start();
+        }
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        assertEquals(0, money("1000.00").compareTo(table.balance(0)));
+    }
+}
@@ -0,0 +1,247 @@
+package com.bank;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("AdmissionController - limite adaptativo, fila limitada e recusa rápida")
+class AdmissionControllerTest {
+
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final long[] now = {0};
+
+    private AdmissionController controller(AdmissionController.Algorithm algorithm, int initial, int max,
+                                           int maxQueue, long maxWait) {
+        return new AdmissionController(algorithm, initial, max, 10 * MS, maxQueue, maxWait, () -> now[0]);
+    }
+
+    /** Executa {@code count} requisições sequenciais com o tempo de serviço informado. */
+    private void serve(AdmissionController controller, int count, long rtt) throws InterruptedException {
+        for (int i = 0; i < count; i++) {
+            AdmissionController.Permit permit = controller.acquire();
+            now[0] += rtt;
+            permit.release();
+        }
+    }
+
+    @Test
+    @DisplayName("AIMD: cresce devagar com latência boa e recua multiplicativamente com latência ruim")
+    void aimdAdjustsLimit() throws InterruptedException {
+        AdmissionController controller = controller(AdmissionController.Algorithm.AIMD, 2, 100, 0, 0);
+        // com o limite em uso (metade ou mais ocupada), amostras boas somam 1/limite
+        List<AdmissionController.Permit> held = new ArrayList<>();
+        for (int round = 0; round < 200; round++) {
+            held.clear();
+            for (int i = 0; i < controller.limit(); i++) held.add(controller.acquire());
+            now[0] += MS;
+            for (AdmissionController.Permit permit : held) permit.release();
+        }
+        int grown = controller.limit();
+        assertTrue(grown > 10, "limite: " + grown);
+
+        serve(controller, 5, 50 * MS);
+        assertTrue(controller.limit() <= (int) (grown * Math.pow(0.9, 5)) + 1, "limite: " + controller.limit());
+
+        AdmissionController.Permit permit = controller.acquire();
+        int before = controller.limit();
+        permit.dropped();
+        assertTrue(controller.limit() < before);
+    }
+
+    @Test
+    @DisplayName("Vegas: sobe com tempo de serviço estável e desce quando ele infla")
+    void vegasAdjustsLimit() throws InterruptedException {
+        AdmissionController controller = controller(AdmissionController.Algorithm.VEGAS, 10, 50, 0, 0);
+        serve(controller, 30, MS);
+        assertEquals(40, controller.limit());
+        serve(controller, 20, 4 * MS);
+        assertEquals(20, controller.limit());
+    }
+
+    @Test
+    @DisplayName("Fila cheia e sem fila recusam na hora com sugestão de nova tentativa")
+    void fastRejectWithRetryHint() throws InterruptedException {
+        AdmissionController controller = controller(AdmissionController.Algorithm.AIMD, 2, 2, 0, 0);
+        AdmissionController.Permit a = controller.acquire();
+        AdmissionController.Permit b = controller.tryAcquire();
+        long start = System.nanoTime();
+        AdmissionRejectedException e = assertThrows(AdmissionRejectedException.class, controller::acquire);
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+        assertTrue(e.getRetryAfterMillis() >= 1);
+        assertThrows(AdmissionRejectedException.class, controller::tryAcquire);
+        assertEquals(2, controller.rejected());
+        a.release();
+        b.release();
+        assertThrows(IllegalStateException.class, a::release);
+        controller.acquire().release();
+    }
+
+    @Test
+    @DisplayName("Fila: espera é limitada e a ordem de chegada respeitada")
+    void boundedQueueWait() throws Exception {
+        AdmissionController controller = new AdmissionController(AdmissionController.Algorithm.AIMD, 1, 1,
+                TimeUnit.SECONDS.toNanos(1), 2, 50 * MS);
+        AdmissionController.Permit holder = controller.acquire();
+        List<String> order = new CopyOnWriteArrayList<>();
+        Thread first = new Thread(() -> {
+            try {
+                AdmissionController.Permit p = controller.acquire();
+                order.add("primeiro");
+                p.release();
+            } catch (Exception e) {
+                order.add("primeiro: " + e.getMessage());
+            }
+        });
+        first.start();
+        while (controller.queued() < 1) Thread.sleep(1);
+        Thread second = new Thread(() -> {
+            try {
+                AdmissionController.Permit p = controller.acquire();
+                order.add("segundo");
+                p.release();
+            } catch (Exception e) {
+                order.add("segundo: " + e.getMessage());
+            }
+        });
+        second.start();
+        while (controller.queued() < 2) Thread.sleep(1);
+        holder.release();
+        first.join();
+        second.join();
+        assertEquals(2, order.size());
+        assertEquals("primeiro", order.get(0));
+        assertEquals("segundo", order.get(1));
+
+        // sem ninguém liberar, a espera vence no prazo
+        AdmissionController.Permit blocker = controller.acquire();
+        long start = System.nanoTime();
+        assertThrows(AdmissionRejectedException.class, controller::acquire);
+        long waited = System.nanoTime() - start;
+        assertTrue(waited >= 40 * MS && waited < 2_000 * MS, "espera: " + waited);
+        blocker.release();
+    }
+
+    @Test
+    @DisplayName("Sobrecarga: latência dos admitidos limitada, excesso recusado")
+    void overloadKeepsTailLatencyBounded() throws Exception {
+        AdmissionController controller = new AdmissionController(AdmissionController.Algorithm.AIMD, 4, 8,
+                5 * MS, 8, 20 * MS);
+        LatencyHistogram latency = new LatencyHistogram();
+        AtomicLong rejected = new AtomicLong();
+        List<Thread> threads = new ArrayList<>();
+        List<LatencyHistogram> perThread = new CopyOnWriteArrayList<>();
+        for (int t = 0; t < 32; t++) {
+            Thread thread = new Thread(() -> {
+                LatencyHistogram mine = new LatencyHistogram();
+                long end = System.nanoTime() + 300 * MS;
+                while (System.nanoTime() < end) {
+                    long start = System.nanoTime();
+                    try {
+                        AdmissionController.Permit permit = controller.acquire();
+                        try {
+                            Thread.sleep(2);
+                        } finally {
+                            permit.release();
+                        }
+                        mine.record(System.nanoTime() - start);
+                    } catch (AdmissionRejectedException e) {
+                        rejected.incrementAndGet();
+                        try {
+                            Thread.sleep(Math.min(e.getRetryAfterMillis(), 5));
+                        } catch (InterruptedException ie) {
+                            return;
+                        }
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                perThread.add(mine);
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) thread.join();
+        for (LatencyHistogram h : perThread) latency.add(h);
+
+        assertTrue(rejected.get() > 0);
+        assertTrue(latency.count() > 0);
+        assertTrue(controller.limit() <= 8);
+        // espera máxima (20 ms) + serviço (~2 ms) com folga para o agendador
+        assertTrue(latency.percentile(99) < 200 * MS, "p99: " + latency.percentile(99));
+        assertEquals(0, controller.inFlight());
+    }
+
+    @Test
+    @DisplayName("Servidores: transferência recusada vira OVERLOADED com espera sugerida")
+    void serversReportOverload() throws Exception {
+        AdmissionController controller = new AdmissionController(AdmissionController.Algorithm.AIMD, 1, 1,
+                10 * MS, 0, 0);
+        AdmissionControlledTransferService service = new AdmissionControlledTransferService(controller);
+        AccountRegistry registry = new AccountRegistry();
+        registry.open(1, new BigDecimal("10.00"));
+        registry.open(2);
+        try (BankServer server = new BankServer(registry, service,
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1);
+             BankClient client = new BankClient(server.address())) {
+            assertEquals(BankStatus.OK, client.transfer(1, 2, 100));
+            AdmissionController.Permit held = controller.acquire();
+            client.requestTransfer(1, 2, 100);
+            client.flush();
+            BankResponse response = client.read();
+            assertEquals(BankStatus.OVERLOADED, response.getStatus());
+            assertTrue(response.getValue() >= 1);
+            held.release();
+            assertEquals(BankStatus.OK, client.transfer(1, 2, 100));
+        }
+        assertEquals(0, registry.get(1).getBalance().compareTo(new BigDecimal("8.00")));
+        assertEquals(503, BankHttpServer.httpStatus(BankStatus.OVERLOADED));
+    }
+
+    @Test
+    @DisplayName("Thread de seletor não espera na fila: recusa na hora mesmo com fila livre")
+    void selectorThreadNeverQueues() throws Exception {
+        AdmissionController controller = new AdmissionController(AdmissionController.Algorithm.AIMD, 1, 1,
+                10 * MS, 8, TimeUnit.SECONDS.toNanos(30));
+        AdmissionControlledTransferService service = new AdmissionControlledTransferService(controller);
+        AccountRegistry registry = new AccountRegistry();
+        registry.open(1, new BigDecimal("10.00"));
+        registry.open(2);
+        try (BankServer server = new BankServer(registry, service,
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1);
+             BankClient client = new BankClient(server.address())) {
+            AdmissionController.Permit held = controller.acquire();
+            long start = System.nanoTime();
+            client.requestTransfer(1, 2, 100);
+            client.requestBalance(1);
+            client.flush();
+            assertEquals(BankStatus.OVERLOADED, client.read().getStatus());
+            assertEquals(BankStatus.OK, client.read().getStatus());
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(10), "Não esperou os 30 s da fila");
+            assertEquals(0, controller.queued());
+            held.release();
+            assertEquals(BankStatus.OK, client.transfer(1, 2, 100));
+        }
+        assertEquals(0, registry.get(2).getBalance().compareTo(new BigDecimal("1.00")));
+    }
+
+    @Test
+    @DisplayName("Parâmetros inválidos")
+    void rejectsBadParameters() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new AdmissionController(AdmissionController.Algorithm.AIMD, 0, 1, 1, 0, 0));
+        assertThrows(IllegalArgumentException.class,
+                () -> new AdmissionController(AdmissionController.Algorithm.AIMD, 2, 1, 1, 0, 0));
+        assertThrows(NullPointerException.class, () -> new AdmissionController(null, 1, 1, 1, 0, 0));
+    }
+}
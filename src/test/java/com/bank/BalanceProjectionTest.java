@@ -0,0 +1,163 @@
+package com.bank;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Modelo de leitura projetado do diário")
+class BalanceProjectionTest {
+
+    private static final long TIMEOUT_SECONDS = 30;
+
+    private static AccountRegistry registry(int accounts) {
+        AccountRegistry registry = new AccountRegistry(null, new OperationJournal());
+        for (int i = 1; i <= accounts; i++) registry.open(i, new BigDecimal("100.00"));
+        return registry;
+    }
+
+    private static boolean caughtUp(BalanceProjection projection, AccountRegistry registry)
+            throws InterruptedException {
+        return projection.awaitProjected(registry.journal().committed(), TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    @Test
+    @DisplayName("A visão converge para os saldos das contas sob escrita concorrente")
+    void convergesUnderConcurrentWrites() throws Exception {
+        int accounts = 16;
+        AccountRegistry registry = registry(accounts);
+        TransferService service = new TransferService();
+        try (BalanceProjection projection = new BalanceProjection(registry)) {
+            int threads = 4;
+            CountDownLatch done = new CountDownLatch(threads);
+            for (int t = 0; t < threads; t++) {
+                long seed = t;
+                new Thread(() -> {
+                    SplittableRandom random = new SplittableRandom(seed);
+                    for (int i = 0; i < 5_000; i++) {
+                        Account a = registry.get(1 + random.nextInt(accounts));
+                        Account b = registry.get(1 + random.nextInt(accounts));
+                        BigDecimal amount = BigDecimal.valueOf(1 + random.nextInt(3_000), 2);
+                        try {
+                            switch (random.nextInt(3)) {
+                                case 0: a.deposit(amount); break;
+                                case 1: a.withdraw(amount); break;
+                                default: if (a != b) service.transfer(a, b, amount);
+                            }
+                        } catch (IllegalStateException ignored) {
+                            // saldo insuficiente
+                        }
+                    }
+                    done.countDown();
+                }).start();
+            }
+            assertTrue(done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+            assertTrue(caughtUp(projection, registry));
+            assertEquals(0, projection.lag());
+            assertEquals(0, projection.stalenessNanos());
+            for (Account account : registry.accounts()) {
+                assertEquals(0, account.getBalance().compareTo(projection.projectedBalance(account.getId())),
+                        "Conta " + account.getId());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Visão atrasada é servida dentro do limite e trocada pela conta além dele")
+    void boundedStaleness() throws Exception {
+        AccountRegistry registry = registry(1);
+        try (BalanceProjection projection = new BalanceProjection(registry, TimeUnit.MILLISECONDS.toNanos(1))) {
+            assertTrue(caughtUp(projection, registry));
+            // segurar o monitor da projeção impede o projetor de aplicar lançamentos
+            synchronized (projection) {
+                registry.get(1).deposit(new BigDecimal("50.00"));
+                assertEquals(1, projection.lag());
+                assertEquals(0, new BigDecimal("100.00").compareTo(projection.projectedBalance(1)));
+                assertEquals(0, new BigDecimal("100.00").compareTo(projection.balance(1, Long.MAX_VALUE)));
+                Thread.sleep(5);
+                assertTrue(projection.stalenessNanos() >= TimeUnit.MILLISECONDS.toNanos(1));
+                assertEquals(0, new BigDecimal("150.00").compareTo(projection.balance(1)));
+            }
+            assertTrue(caughtUp(projection, registry));
+            assertEquals(0, new BigDecimal("150.00").compareTo(projection.projectedBalance(1)));
+            assertTrue(projection.maxLag() >= 1);
+        }
+    }
+
+    @Test
+    @DisplayName("Conta ainda não projetada é lida da conta; inexistente devolve null")
+    void unprojectedAndUnknownAccounts() throws Exception {
+        AccountRegistry registry = registry(1);
+        try (BalanceProjection projection = new BalanceProjection(registry)) {
+            assertTrue(caughtUp(projection, registry));
+            synchronized (projection) {
+                registry.open(2, new BigDecimal("7.50"));
+                assertNull(projection.projectedBalance(2));
+                assertEquals(0, new BigDecimal("7.50").compareTo(projection.balance(2)));
+            }
+            assertNull(projection.balance(99));
+        }
+    }
+
+    @Test
+    @DisplayName("Fallback numa conta dividida não trava a conta")
+    void splitAccountFallbackDoesNotLock() throws Exception {
+        AccountRegistry registry = registry(1);
+        Account hot = registry.get(1);
+        assertTrue(hot.split(4));
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread holder = new Thread(() -> {
+            synchronized (hot) {
+                locked.countDown();
+                try {
+                    release.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        try (BalanceProjection projection = new BalanceProjection(registry)) {
+            holder.start();
+            assertTrue(locked.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+            hot.deposit(new BigDecimal("5.00"));
+            long start = System.nanoTime();
+            // atraso negativo força a leitura da conta
+            assertEquals(0, new BigDecimal("105.00").compareTo(projection.balance(1, -1)));
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5), "Leitura esperou o monitor");
+        } finally {
+            release.countDown();
+            holder.join();
+        }
+        assertEquals(0, new BigDecimal("105.00").compareTo(hot.getBalance()));
+    }
+
+    @Test
+    @DisplayName("Consultas dos servidores passam pela projeção")
+    void serverReadsGoThroughProjection() throws Exception {
+        AccountRegistry registry = registry(2);
+        try (BalanceProjection projection = new BalanceProjection(registry, Long.MAX_VALUE)) {
+            BankOperations operations = new BankOperations(registry, new TransferService(), projection);
+            assertTrue(caughtUp(projection, registry));
+            synchronized (projection) {
+                assertEquals(BankStatus.OK, operations.transfer(1, 2, 2_500));
+                assertEquals(10_000, operations.balance(1));
+            }
+            assertTrue(caughtUp(projection, registry));
+            assertEquals(7_500, operations.balance(1));
+            assertEquals(12_500, operations.balance(2));
+            assertEquals(BankOperations.NO_ACCOUNT, operations.balance(3));
+        }
+    }
+
+    @Test
+    @DisplayName("Cadastro sem diário é rejeitado")
+    void requiresJournal() {
+        assertThrows(IllegalArgumentException.class, () -> new BalanceProjection(new AccountRegistry()));
+    }
+}
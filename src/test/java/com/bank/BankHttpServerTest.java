@@ -0,0 +1,210 @@
+package com.bank;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("BankHttpServer - API HTTP/JSON e codec de fluxo")
+class BankHttpServerTest {
+
+    private AccountRegistry registry;
+    private ExecutorService executor;
+    private BankHttpServer server;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        registry = new AccountRegistry();
+        for (int i = 1; i <= 5; i++) registry.open(i, new BigDecimal("100.00"));
+        executor = Executors.newFixedThreadPool(4);
+        server = new BankHttpServer(registry, new TransferService(),
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), executor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+        executor.shutdownNow();
+    }
+
+    /** Resposta: código HTTP e corpo. */
+    private static final class Reply {
+        final int code;
+        final String body;
+
+        Reply(int code, String body) {
+            this.code = code;
+            this.body = body;
+        }
+    }
+
+    private Reply call(String method, String path, String body) throws IOException {
+        URL url = new URL("http", server.address().getHostString(), server.address().getPort(), path);
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setRequestMethod(method);
+        if (body != null) {
+            connection.setDoOutput(true);
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(body.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        int code = connection.getResponseCode();
+        InputStream in = code < 400 ? connection.getInputStream() : connection.getErrorStream();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] chunk = new byte[4096];
+        for (int n; in != null && (n = in.read(chunk)) > 0; ) bytes.write(chunk, 0, n);
+        return new Reply(code, new String(bytes.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("Saldo, depósito, saque e transferência")
+    void singleOperations() throws IOException {
+        Reply balance = call("GET", "/accounts/1/balance", null);
+        assertEquals(200, balance.code);
+        assertEquals("{\"status\":\"OK\",\"account\":1,\"balance\":100.00}", balance.body);
+
+        assertEquals(200, call("POST", "/accounts/1/deposit", "{\"amount\": \"10.50\"}").code);
+        assertEquals(200, call("POST", "/accounts/1/withdraw", "{\"amount\": 0.50}").code);
+        assertEquals(200, call("POST", "/transfers", "{\"from\":1,\"to\":2,\"amount\":\"60.00\", \"memo\":{\"x\":[1,2]}}").code);
+        assertEquals(0, registry.get(1).getBalance().compareTo(new BigDecimal("50.00")));
+        assertEquals(0, registry.get(2).getBalance().compareTo(new BigDecimal("160.00")));
+    }
+
+    @Test
+    @DisplayName("Erros viram códigos HTTP coerentes")
+    void errorCodes() throws IOException {
+        assertEquals(404, call("GET", "/accounts/99/balance", null).code);
+        assertEquals(409, call("POST", "/transfers", "{\"from\":1,\"to\":2,\"amount\":\"1000.00\"}").code);
+        assertEquals(400, call("POST", "/transfers", "{\"from\":1,\"to\":2,\"amount\":\"0.001\"}").code);
+        assertEquals(400, call("POST", "/transfers", "{\"from\":1,\"to\":2,\"amount\":1e999999999}").code);
+        assertEquals(400, call("POST", "/transfers", "{\"from\":1,\"to\":2,\"amount\":\"1e-999999999\"}").code);
+        assertEquals(400, call("POST", "/transfers", "{\"from\":1,\"to\":1,\"amount\":\"1.00\"}").code);
+        assertEquals(405, call("GET", "/transfers", null).code);
+        Reply malformed = call("POST", "/transfers", "{\"from\":1,");
+        assertEquals(400, malformed.code);
+        assertTrue(malformed.body.contains("\"error\""), malformed.body);
+        assertEquals(400, call("POST", "/transfers", "{\"from\":1,\"to\":2,\"amount\":1} trailing").code);
+    }
+
+    @Test
+    @DisplayName("Lote: cada transferência com o seu resultado, numa ida e volta")
+    void batchEndpoint() throws IOException {
+        StringBuilder body = new StringBuilder("[");
+        for (int i = 0; i < 500; i++) {
+            if (i > 0) body.append(',');
+            body.append("{\"from\":").append(1 + i % 5).append(",\"to\":").append(1 + (i + 1) % 5)
+                    .append(",\"amount\":\"1.00\"}");
+        }
+        body.append(",{\"from\":1,\"to\":2,\"amount\":\"999.00\"},{\"from\":1,\"to\":42,\"amount\":\"1.00\"}]");
+
+        Reply reply = call("POST", "/transfers/batch", body.toString());
+        assertEquals(200, reply.code);
+        assertTrue(reply.body.endsWith("{\"status\":\"INSUFFICIENT_FUNDS\"},{\"status\":\"UNKNOWN_ACCOUNT\"}],\"ok\":500}"),
+                reply.body.substring(Math.max(0, reply.body.length() - 120)));
+        BigDecimal total = BigDecimal.ZERO;
+        for (Account account : registry.accounts()) total = total.add(account.getBalance());
+        assertEquals(0, total.compareTo(new BigDecimal("500.00")));
+    }
+
+    @Test
+    @DisplayName("Lote atômico: todas as pernas ou nenhuma")
+    void atomicBatch() throws IOException {
+        Reply failed = call("POST", "/transfers/batch?atomic=true",
+                "[{\"from\":1,\"to\":2,\"amount\":\"80.00\"},{\"from\":1,\"to\":3,\"amount\":\"30.00\"}]");
+        assertEquals(200, failed.code);
+        assertEquals("{\"results\":[{\"status\":\"INSUFFICIENT_FUNDS\"},{\"status\":\"INSUFFICIENT_FUNDS\"}],\"ok\":0}",
+                failed.body);
+        assertEquals(0, registry.get(1).getBalance().compareTo(new BigDecimal("100.00")));
+
+        Reply ok = call("POST", "/transfers/batch?atomic=true",
+                "[{\"from\":1,\"to\":2,\"amount\":\"80.00\"},{\"from\":2,\"to\":3,\"amount\":\"180.00\"}]");
+        assertTrue(ok.body.endsWith("\"ok\":2}"), ok.body);
+        assertEquals(0, registry.get(3).getBalance().compareTo(new BigDecimal("280.00")));
+
+        Reply notAtomic = call("POST", "/transfers/batch?notatomic=true&atomic=trueish",
+                "[{\"from\":3,\"to\":1,\"amount\":\"1.00\"},{\"from\":1,\"to\":2,\"amount\":\"999.00\"}]");
+        assertTrue(notAtomic.body.endsWith("\"ok\":1}"), notAtomic.body);
+        assertEquals("true", BankHttpServer.queryParameter("x=1&atomic=true", "atomic"));
+        assertNull(BankHttpServer.queryParameter("notatomic=true", "atomic"));
+        assertEquals("", BankHttpServer.queryParameter("atomic", "atomic"));
+    }
+
+    @Test
+    @DisplayName("Lote malformado é rejeitado antes de qualquer efeito")
+    void malformedBatchHasNoEffect() throws IOException {
+        Reply reply = call("POST", "/transfers/batch", "[{\"from\":1,\"to\":2,\"amount\":\"1.00\"},{\"from\":");
+        assertEquals(400, reply.code);
+        assertEquals(0, registry.get(1).getBalance().compareTo(new BigDecimal("100.00")));
+    }
+
+    @Test
+    @DisplayName("Codec: leitura e escrita de fluxo com escapes e números exatos")
+    void jsonCodecRoundTrip() throws IOException {
+        StringWriter text = new StringWriter();
+        JsonWriter writer = new JsonWriter(text);
+        writer.beginObject()
+                .name("s").value("aspas \" barra \\ quebra \n tab \t ctrl \u0001 ção")
+                .name("n").value(new BigDecimal("12345678901234567890.000000001"))
+                .name("l").value(-42)
+                .name("a").beginArray().value(true).value(false).nullValue().beginObject().endObject().endArray()
+                .endObject();
+        writer.flush();
+
+        JsonReader reader = new JsonReader(new StringReader(text.toString()));
+        reader.beginObject();
+        assertEquals("s", reader.nextName());
+        assertEquals("aspas \" barra \\ quebra \n tab \t ctrl \u0001 ção", reader.nextString());
+        assertEquals("n", reader.nextName());
+        assertEquals(new BigDecimal("12345678901234567890.000000001"), reader.nextDecimal());
+        assertEquals("l", reader.nextName());
+        assertEquals(-42, reader.nextLong());
+        assertEquals("a", reader.nextName());
+        reader.beginArray();
+        assertTrue(reader.nextBoolean());
+        assertFalse(reader.nextBoolean());
+        assertEquals(JsonReader.Token.NULL, reader.peek());
+        reader.skipValue();
+        reader.skipValue();
+        assertFalse(reader.hasNext());
+        reader.endArray();
+        reader.endObject();
+        assertEquals(JsonReader.Token.END, reader.peek());
+
+        List<String> invalid = new ArrayList<>();
+        invalid.add("[1,]");
+        invalid.add("[{\"a\" 1}]");
+        invalid.add("[\"\\x\"]");
+        invalid.add("[tru]");
+        for (String json : invalid) {
+            JsonReader bad = new JsonReader(new StringReader(json));
+            assertThrows(JsonReader.JsonException.class, () -> {
+                bad.beginArray();
+                while (bad.hasNext()) bad.skipValue();
+                bad.endArray();
+            }, json);
+        }
+        StringBuilder deep = new StringBuilder();
+        for (int i = 0; i < 100; i++) deep.append('[');
+        JsonReader nested = new JsonReader(new StringReader(deep.toString()));
+        assertThrows(JsonReader.JsonException.class, nested::skipValue);
+    }
+}
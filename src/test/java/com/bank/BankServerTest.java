@@ -0,0 +1,183 @@
+package com.bank;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("BankServer - protocolo binário NIO")
+class BankServerTest {
+
+    private AccountRegistry registry;
+    private BankServer server;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        registry = new AccountRegistry();
+        for (int i = 1; i <= 10; i++) registry.open(i, new BigDecimal("100.00"));
+        server = new BankServer(registry, new TransferService(),
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 2);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        server.close();
+    }
+
+    @Test
+    @DisplayName("Operações básicas e tradução de erros em status")
+    void basicOperations() throws IOException {
+        try (BankClient client = new BankClient(server.address())) {
+            assertEquals(BankStatus.OK, client.deposit(1, 1_000));
+            assertEquals(11_000, client.balance(1));
+            assertEquals(BankStatus.OK, client.withdraw(1, 500));
+            assertEquals(BankStatus.OK, client.transfer(1, 2, 2_500));
+            assertEquals(8_000, client.balance(1));
+            assertEquals(12_500, client.balance(2));
+            assertEquals(BankStatus.INSUFFICIENT_FUNDS, client.withdraw(3, 10_001));
+            assertEquals(BankStatus.UNKNOWN_ACCOUNT, client.deposit(99, 1));
+            assertEquals(BankStatus.INVALID_REQUEST, client.transfer(1, 1, 1));
+            assertEquals(BankStatus.INVALID_REQUEST, client.deposit(1, 0));
+            assertThrows(IllegalArgumentException.class, () -> client.balance(99));
+        }
+    }
+
+    @Test
+    @DisplayName("Regras de velocidade viram LIMIT_EXCEEDED")
+    void velocityLimit() throws IOException {
+        AccountRegistry limited = new AccountRegistry(new VelocityPolicy(() -> 0L, VelocityRule.perHour(1, null)));
+        limited.open(1, new BigDecimal("10.00"));
+        try (BankServer other = new BankServer(limited, new TransferService(),
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1);
+             BankClient client = new BankClient(other.address())) {
+            assertEquals(BankStatus.OK, client.withdraw(1, 100));
+            assertEquals(BankStatus.LIMIT_EXCEEDED, client.withdraw(1, 100));
+        }
+    }
+
+    @Test
+    @DisplayName("Pipelining: milhares de requisições num envio, respostas em ordem")
+    void pipelinedRequests() throws IOException {
+        try (BankClient client = new BankClient(server.address())) {
+            List<Long> ids = new ArrayList<>();
+            for (int round = 0; round < 5; round++) {
+                ids.clear();
+                for (int i = 0; i < 1_000; i++) {
+                    ids.add(i % 2 == 0 ? client.requestTransfer(1, 2, 1) : client.requestTransfer(2, 1, 1));
+                }
+                ids.add(client.requestBalance(1));
+                client.flush();
+                for (long id : ids) {
+                    BankResponse response = client.read();
+                    assertEquals(id, response.getRequestId());
+                    assertEquals(BankStatus.OK, response.getStatus());
+                }
+            }
+            assertEquals(10_000, client.balance(1));
+        }
+        assertTrue(server.requests() >= 5_005);
+    }
+
+    @Test
+    @DisplayName("Quadros fragmentados byte a byte são remontados")
+    void fragmentedFrames() throws Exception {
+        ByteBuffer frame = ByteBuffer.allocate(4 + 25 + 4 + 17).order(BankProtocol.ORDER);
+        frame.putInt(25).put(BankProtocol.DEPOSIT).putLong(42).putLong(3).putLong(700);
+        frame.putInt(17).put(BankProtocol.BALANCE).putLong(43).putLong(3);
+        frame.flip();
+        try (SocketChannel channel = SocketChannel.open(server.address())) {
+            channel.socket().setTcpNoDelay(true);
+            while (frame.hasRemaining()) {
+                ByteBuffer one = frame.slice();
+                one.limit(1);
+                channel.write(one);
+                frame.position(frame.position() + 1);
+                Thread.sleep(1);
+            }
+            ByteBuffer responses = ByteBuffer.allocate(2 * BankProtocol.RESPONSE_SIZE).order(BankProtocol.ORDER);
+            while (responses.hasRemaining()) assertTrue(channel.read(responses) >= 0);
+            responses.flip();
+            assertEquals(BankProtocol.RESPONSE_BODY, responses.getInt());
+            assertEquals(42, responses.getLong());
+            assertEquals(BankStatus.OK.ordinal(), responses.get());
+            responses.getLong();
+            responses.getInt();
+            assertEquals(43, responses.getLong());
+            assertEquals(BankStatus.OK.ordinal(), responses.get());
+            assertEquals(10_700, responses.getLong());
+        }
+    }
+
+    @Test
+    @DisplayName("Quadro inválido encerra só a conexão ofensora")
+    void invalidFrameClosesConnection() throws IOException {
+        try (SocketChannel channel = SocketChannel.open(server.address())) {
+            ByteBuffer bad = ByteBuffer.allocate(4).order(BankProtocol.ORDER);
+            bad.putInt(1 << 20).flip();
+            channel.write(bad);
+            assertEquals(-1, channel.read(ByteBuffer.allocate(1)));
+        }
+        try (BankClient client = new BankClient(server.address())) {
+            assertEquals(10_000, client.balance(5));
+        }
+    }
+
+    @Test
+    @DisplayName("Muitas conexões simultâneas: dinheiro conservado")
+    void manyConnectionsConserveMoney() throws Exception {
+        List<Throwable> failures = new CopyOnWriteArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            final long seed = t;
+            Thread thread = new Thread(() -> {
+                SplittableRandom random = new SplittableRandom(seed);
+                List<BankClient> clients = new ArrayList<>();
+                try {
+                    for (int c = 0; c < 25; c++) clients.add(new BankClient(server.address()));
+                    for (int round = 0; round < 20; round++) {
+                        for (BankClient client : clients) {
+                            for (int i = 0; i < 10; i++) {
+                                int from = 1 + random.nextInt(10);
+                                int to = 1 + (from + random.nextInt(9)) % 10;
+                                client.requestTransfer(from, to, 1 + random.nextInt(500));
+                            }
+                            client.flush();
+                        }
+                        for (BankClient client : clients) {
+                            for (int i = 0; i < 10; i++) {
+                                BankStatus status = client.read().getStatus();
+                                if (status != BankStatus.OK && status != BankStatus.INSUFFICIENT_FUNDS) {
+                                    failures.add(new AssertionError(status));
+                                }
+                            }
+                        }
+                    }
+                    for (BankClient client : clients) client.close();
+                } catch (Throwable e) {
+                    failures.add(e);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) thread.join(60_000);
+        assertTrue(failures.isEmpty(), () -> failures.toString());
+
+        BigDecimal total = BigDecimal.ZERO;
+        for (Account account : registry.accounts()) total = total.add(account.getBalance());
+        assertEquals(0, total.compareTo(new BigDecimal("1000.00")));
+    }
+}
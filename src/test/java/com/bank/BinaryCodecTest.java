@@ -0,0 +1,111 @@
+package com.bank;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Codificação binária com varints")
+class BinaryCodecTest {
+
+    @Test
+    @DisplayName("Varints e zigzag preservam qualquer long e usam o tamanho previsto")
+    void varintRoundTrip() {
+        long[] values = {0, 1, -1, 63, -64, 64, 127, 128, 16_383, 16_384, Integer.MAX_VALUE, Integer.MIN_VALUE,
+                Long.MAX_VALUE, Long.MIN_VALUE};
+        ByteBuffer buffer = ByteBuffer.allocate(BinaryCodec.MAX_VARINT);
+        for (long value : values) {
+            for (long encoded : new long[] {value, BinaryCodec.zigZag(value)}) {
+                buffer.clear();
+                BinaryCodec.putVarLong(buffer, encoded);
+                assertEquals(BinaryCodec.varLongSize(encoded), buffer.position(), "Valor " + encoded);
+                buffer.flip();
+                assertEquals(encoded, BinaryCodec.getVarLong(buffer));
+            }
+            assertEquals(value, BinaryCodec.unZigZag(BinaryCodec.zigZag(value)));
+        }
+        assertEquals(1, BinaryCodec.varLongSize(BinaryCodec.zigZag(-1)));
+        assertEquals(10, BinaryCodec.varLongSize(-1));
+    }
+
+    @Test
+    @DisplayName("Lançamentos voltam exatos, inclusive valores acima de 64 bits")
+    void operationRoundTrip() {
+        SplittableRandom random = new SplittableRandom(43);
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        BigDecimal[] amounts = new BigDecimal[1_000];
+        for (int i = 0; i < amounts.length; i++) {
+            amounts[i] = BigDecimal.valueOf(random.nextLong(1, Long.MAX_VALUE) >>> random.nextInt(64), random.nextInt(-3, 8));
+        }
+        amounts[0] = new BigDecimal("123456789012345678901234567890.12");
+        amounts[1] = new BigDecimal("0.01");
+        OperationType[] types = OperationType.values();
+        for (int i = 0; i < amounts.length; i++) {
+            BinaryCodec.encodeOperation(buffer, types[i % types.length], i, -i, amounts[i]);
+        }
+        buffer.flip();
+        BinaryCodec.OperationRecord record = new BinaryCodec.OperationRecord();
+        for (int i = 0; i < amounts.length; i++) {
+            BinaryCodec.decodeOperation(buffer, record);
+            assertEquals(types[i % types.length], record.getType());
+            assertEquals(i, record.getAccount());
+            assertEquals(-i, record.getCounterparty());
+            assertEquals(amounts[i], record.getAmount());
+        }
+        assertFalse(buffer.hasRemaining());
+    }
+
+    @Test
+    @DisplayName("Estado da conta cabe em poucos bytes e volta igual")
+    void accountRoundTrip() {
+        AccountRegistry registry = new AccountRegistry();
+        Account account = registry.open(42, new BigDecimal("100.00"));
+        account.withdraw(new BigDecimal("0.50"));
+        ByteBuffer buffer = ByteBuffer.allocateDirect(64);
+        BinaryCodec.encodeAccount(buffer, account);
+        assertTrue(buffer.position() < 10, "Tamanho " + buffer.position());
+        buffer.flip();
+        BinaryCodec.AccountState state = new BinaryCodec.AccountState();
+        BinaryCodec.decodeAccount(buffer, state);
+        assertEquals(42, state.getId());
+        assertEquals(account.version(), state.getVersion());
+        assertEquals(new BigDecimal("99.50"), state.getBalance());
+    }
+
+    @Test
+    @DisplayName("Sem espaço nada é escrito; dados incompletos restauram a posição")
+    void partialBuffers() {
+        BigDecimal amount = new BigDecimal("1234.56");
+        int size = BinaryCodec.operationSize(1, 2, amount);
+        ByteBuffer small = ByteBuffer.allocate(size - 1);
+        assertThrows(BufferOverflowException.class,
+                () -> BinaryCodec.encodeOperation(small, OperationType.TRANSFER, 1, 2, amount));
+        assertEquals(0, small.position());
+
+        ByteBuffer full = ByteBuffer.allocate(size);
+        BinaryCodec.encodeOperation(full, OperationType.TRANSFER, 1, 2, amount);
+        full.flip().limit(size - 1);
+        BinaryCodec.OperationRecord record = new BinaryCodec.OperationRecord();
+        assertThrows(BufferUnderflowException.class, () -> BinaryCodec.decodeOperation(full, record));
+        assertEquals(0, full.position());
+        full.limit(size);
+        BinaryCodec.decodeOperation(full, record);
+        assertEquals(amount, record.getAmount());
+    }
+
+    @Test
+    @DisplayName("Versão de esquema desconhecida é rejeitada")
+    void unknownSchemaVersion() {
+        ByteBuffer buffer = ByteBuffer.allocate(32);
+        BinaryCodec.encodeAccount(buffer, 1, BigDecimal.TEN, 0);
+        buffer.put(0, (byte) (BinaryCodec.SCHEMA_VERSION + 1)).flip();
+        assertThrows(IllegalArgumentException.class,
+                () -> BinaryCodec.decodeAccount(buffer, new BinaryCodec.AccountState()));
+    }
+}
@@ -0,0 +1,78 @@
+package com.bank;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Filtro de Bloom de ids de conta")
+class BloomFilterTest {
+
+    @Test
+    @DisplayName("Sem falsos negativos e falsos positivos perto da taxa pedida")
+    void falsePositiveRate() {
+        int items = 100_000;
+        BloomFilter filter = new BloomFilter(items, 0.01);
+        for (long id = 1; id <= items; id++) filter.add(id * 7);
+        for (long id = 1; id <= items; id++) assertTrue(filter.mightContain(id * 7));
+        int falsePositives = 0;
+        int probes = 200_000;
+        for (long id = 1; id <= probes; id++) {
+            if (filter.mightContain(-id)) falsePositives++;
+        }
+        double rate = (double) falsePositives / probes;
+        assertTrue(rate < 0.02, "Taxa " + rate);
+        assertEquals(7, filter.hashCount());
+        assertTrue(filter.bitSize() >= 958_505);
+    }
+
+    @Test
+    @DisplayName("Parâmetros inválidos são rejeitados")
+    void invalidParameters() {
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(0, 0.01));
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(10, 0));
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(10, 1));
+    }
+
+    @Test
+    @DisplayName("Cadastro recusa ids desconhecidos e aceita contas abertas depois")
+    void registryRejectsUnknownIds() {
+        AccountRegistry registry = new AccountRegistry();
+        for (int i = 1; i <= 1_000; i++) registry.open(i, BigDecimal.TEN);
+        registry.enableIdFilter(10_000, 0.001);
+        assertNotNull(registry.find(500));
+        assertNull(registry.find(5_000));
+        assertThrows(IllegalArgumentException.class, () -> registry.get(5_000));
+        registry.open(5_000);
+        assertNotNull(registry.find(5_000));
+        assertNotNull(registry.idFilter());
+        BankOperations operations = new BankOperations(registry, new TransferService(), null);
+        assertEquals(BankStatus.UNKNOWN_ACCOUNT, operations.transfer(1, 123_456, 100));
+    }
+
+    @Test
+    @DisplayName("Ligar o filtro com aberturas concorrentes não gera falso negativo")
+    void enableWhileOpening() throws Exception {
+        AccountRegistry registry = new AccountRegistry();
+        int threads = 4;
+        int perThread = 20_000;
+        CountDownLatch started = new CountDownLatch(threads);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            int base = t * perThread;
+            new Thread(() -> {
+                started.countDown();
+                for (int i = 1; i <= perThread; i++) registry.open(base + i);
+                done.countDown();
+            }).start();
+        }
+        started.await();
+        registry.enableIdFilter(threads * perThread, 0.01);
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        for (int id = 1; id <= threads * perThread; id++) assertNotNull(registry.find(id), "Conta " + id);
+    }
+}
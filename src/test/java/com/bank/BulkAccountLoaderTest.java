@@ -0,0 +1,115 @@
+package com.bank;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes da carga em massa de saldos iniciais via arquivo mapeado.
+ */
+@DisplayName("BulkAccountLoader - Carga em massa de contas")
+class BulkAccountLoaderTest {
+
+    @TempDir
+    Path dir;
+
+    private Path write(String content) throws IOException {
+        Path file = dir.resolve("contas.csv");
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    @Test
+    @DisplayName("Formato: cabeçalho, comentários, CRLF e espaços são aceitos")
+    void load_formatVariants() throws IOException {
+        AccountRegistry registry = new AccountRegistry();
+        Path csv = write("id,saldo\r\n# abertura\r\n1,100.50\r\n 2 , 0\r\n\r\n3,7\r\n-4,0.010");
+        assertEquals(4, new BulkAccountLoader(registry, 2).load(csv));
+        assertEquals(new BigDecimal("100.50"), registry.get(1).getBalance());
+        assertEquals(0, registry.get(2).getBalance().signum());
+        assertEquals(new BigDecimal("7"), registry.get(3).getBalance());
+        assertEquals(new BigDecimal("0.010"), registry.get(-4).getBalance());
+    }
+
+    @Test
+    @DisplayName("Paralelo: muitas linhas em várias faixas carregam todas as contas e o total")
+    void load_manyLines_parallel() throws IOException {
+        Path csv = dir.resolve("grande.csv");
+        BigDecimal expected = BigDecimal.ZERO;
+        try (BufferedWriter w = Files.newBufferedWriter(csv)) {
+            w.write("id,saldo\n");
+            for (int id = 1; id <= 20000; id++) {
+                BigDecimal amount = BigDecimal.valueOf(id * 37L % 100000, 2);
+                expected = expected.add(amount);
+                w.write(id + "," + amount.toPlainString() + "\n");
+            }
+        }
+        AccountRegistry registry = new AccountRegistry();
+        assertEquals(20000, new BulkAccountLoader(registry, 8).load(csv));
+        assertEquals(20000, registry.size());
+        assertEquals(BigDecimal.valueOf(1234 * 37L % 100000, 2), registry.get(1234).getBalance());
+        assertEquals(0, expected.compareTo(registry.liquidity().expectedTotal()));
+    }
+
+    @Test
+    @DisplayName("Precisão: valores com mais de 18 dígitos são lidos sem perda")
+    void load_hugeAmount_exact() throws IOException {
+        AccountRegistry registry = new AccountRegistry();
+        new BulkAccountLoader(registry, 1).load(write("9,9999999999999999999999999999.99\n"));
+        assertEquals(new BigDecimal("9999999999999999999999999999.99"), registry.get(9).getBalance());
+    }
+
+    @Test
+    @DisplayName("Erros: linha malformada, valor negativo, fração de centavo e id duplicado são rejeitados")
+    void load_invalidInput_rejected() throws IOException {
+        assertThrows(IllegalArgumentException.class,
+                () -> new BulkAccountLoader(new AccountRegistry(), 1).load(write("1,10.00\nx,1\n")));
+        assertThrows(IllegalArgumentException.class,
+                () -> new BulkAccountLoader(new AccountRegistry(), 1).load(write("1,-10.00\n")));
+        assertThrows(IllegalArgumentException.class,
+                () -> new BulkAccountLoader(new AccountRegistry(), 1).load(write("1,1.2.3\n")));
+        assertThrows(IllegalArgumentException.class,
+                () -> new BulkAccountLoader(new AccountRegistry(), 1).load(write("1,1.00\n2,0.001\n")));
+        assertThrows(IllegalArgumentException.class,
+                () -> new BulkAccountLoader(new AccountRegistry(), 1).load(write("1,1\n1,2\n")));
+    }
+
+    @Test
+    @DisplayName("Erros: arquivo inválido é recusado antes de abrir qualquer conta")
+    void load_invalidInput_leavesRegistryUntouched() throws IOException {
+        OperationJournal journal = new OperationJournal();
+        AccountRegistry registry = new AccountRegistry(null, journal);
+        registry.open(7, new BigDecimal("1.00"));
+        long journaled = journal.size();
+        StringBuilder csv = new StringBuilder();
+        for (int i = 100; i < 5000; i++) csv.append(i).append(",1.00\n");
+        String valid = csv.toString();
+
+        assertThrows(IllegalArgumentException.class,
+                () -> new BulkAccountLoader(registry, 4).load(write(valid + "x,1\n")));
+        assertThrows(IllegalArgumentException.class,
+                () -> new BulkAccountLoader(registry, 4).load(write(valid + "7,1.00\n")));
+        assertThrows(IllegalArgumentException.class,
+                () -> new BulkAccountLoader(registry, 4).load(write(valid + "100,1.00\n")));
+        assertEquals(1, registry.size());
+        assertEquals(journaled, journal.size());
+        assertEquals(0, new BigDecimal("1.00").compareTo(registry.liquidity().expectedTotal()));
+
+        assertEquals(4900, new BulkAccountLoader(registry, 4).load(write(valid)));
+    }
+
+    @Test
+    @DisplayName("Arquivo vazio: nenhuma conta")
+    void load_empty() throws IOException {
+        AccountRegistry registry = new AccountRegistry();
+        assertEquals(0, new BulkAccountLoader(registry).load(write("")));
+        assertEquals(0, registry.size());
+    }
+}
@@ -0,0 +1,238 @@
+package com.bank;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Checkpoints incrementais com contas marcadas")
+class CheckpointerTest {
+
+    private static final long TIMEOUT_SECONDS = 30;
+
+    @TempDir
+    Path dir;
+
+    private static AccountRegistry registry(int accounts) {
+        AccountRegistry registry = new AccountRegistry();
+        for (int i = 1; i <= accounts; i++) registry.open(i, new BigDecimal("100.00"));
+        return registry;
+    }
+
+    private static void assertSameBalances(AccountRegistry expected, AccountRegistry actual) {
+        assertEquals(expected.size(), actual.size());
+        for (Account account : expected.accounts()) {
+            assertEquals(0, account.getBalance().compareTo(actual.get(account.getId()).getBalance()),
+                    "Conta " + account.getId());
+        }
+    }
+
+    private List<String> files() throws IOException {
+        List<String> names = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+            for (Path file : stream) names.add(file.getFileName().toString());
+        }
+        return names;
+    }
+
+    @Test
+    @DisplayName("Incremental grava só as contas alteradas e o restore junta tudo")
+    void incrementalWritesOnlyDirtyAccounts() throws Exception {
+        AccountRegistry registry = new AccountRegistry();
+        try (Checkpointer checkpointer = new Checkpointer(registry, dir, 0, 100)) {
+            for (int i = 1; i <= 1_000; i++) registry.open(i, new BigDecimal("10.00"));
+            assertEquals(1_000, checkpointer.checkpoint());
+            assertEquals(0, checkpointer.checkpoint());
+
+            registry.get(7).deposit(new BigDecimal("5.00"));
+            new TransferService().transfer(registry.get(8), registry.get(9), new BigDecimal("1.00"));
+            registry.get(7).withdraw(new BigDecimal("2.00"));
+            registry.open(1_001, new BigDecimal("3.00"));
+            assertEquals(4, checkpointer.checkpoint());
+            assertEquals(2, checkpointer.checkpoints() - checkpointer.fullCheckpoints());
+            assertEquals(1_004, checkpointer.accountsWritten());
+        }
+        AccountRegistry restored = new AccountRegistry();
+        assertEquals(1_001, Checkpointer.restore(dir, restored));
+        assertSameBalances(registry, restored);
+    }
+
+    @Test
+    @DisplayName("Checkpoint completo periódico consolida e apaga os anteriores")
+    void periodicFullCheckpointConsolidates() throws Exception {
+        AccountRegistry registry = registry(50);
+        try (Checkpointer checkpointer = new Checkpointer(registry, dir, 0, 3)) {
+            for (int round = 0; round < 7; round++) {
+                registry.get(1 + round).deposit(BigDecimal.ONE);
+                checkpointer.checkpoint();
+            }
+            // completos na 1ª, 4ª e 7ª rodadas; só o último sobra
+            assertEquals(3, checkpointer.fullCheckpoints());
+            assertEquals(1, files().size());
+            assertTrue(files().get(0).endsWith(".full"));
+            registry.get(20).withdraw(BigDecimal.TEN);
+            checkpointer.checkpoint();
+            assertEquals(2, files().size());
+        }
+        AccountRegistry restored = new AccountRegistry();
+        Checkpointer.restore(dir, restored);
+        assertSameBalances(registry, restored);
+    }
+
+    @Test
+    @DisplayName("Checkpoints em segundo plano não param depósitos e saques")
+    void backgroundCheckpointsUnderLoad() throws Exception {
+        int accounts = 2_000;
+        AccountRegistry registry = registry(accounts);
+        Checkpointer checkpointer = new Checkpointer(registry, dir, 1, 5);
+        try {
+            int threads = 4;
+            CountDownLatch done = new CountDownLatch(threads);
+            for (int t = 0; t < threads; t++) {
+                long seed = t;
+                new Thread(() -> {
+                    SplittableRandom random = new SplittableRandom(seed);
+                    TransferService service = new TransferService();
+                    for (int i = 0; i < 20_000; i++) {
+                        Account a = registry.get(1 + random.nextInt(accounts));
+                        Account b = registry.get(1 + random.nextInt(accounts));
+                        try {
+                            if (random.nextBoolean()) a.deposit(BigDecimal.ONE);
+                            else if (a != b) service.transfer(a, b, new BigDecimal("0.50"));
+                        } catch (IllegalStateException ignored) {
+                            // saldo insuficiente
+                        }
+                    }
+                    done.countDown();
+                }).start();
+            }
+            assertTrue(done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+            checkpointer.close();
+            assertNull(checkpointer.failure());
+            assertTrue(checkpointer.checkpoints() > 1);
+            checkpointer.checkpoint();
+        } finally {
+            checkpointer.close();
+        }
+        AccountRegistry restored = new AccountRegistry();
+        assertEquals(accounts, Checkpointer.restore(dir, restored));
+        assertSameBalances(registry, restored);
+    }
+
+    @Test
+    @DisplayName("Com diário, cada checkpoint é um corte consistente e o restore refaz o resto")
+    void journalCheckpointsAreConsistentCuts() throws Exception {
+        int accounts = 50;
+        OperationJournal journal = new OperationJournal();
+        AccountRegistry registry = new AccountRegistry(null, journal);
+        for (int i = 1; i <= accounts; i++) registry.open(i, new BigDecimal("100.00"));
+        BigDecimal total = new BigDecimal("5000.00");
+        try (Checkpointer checkpointer = new Checkpointer(registry, dir, 0, 4)) {
+            int threads = 4;
+            CountDownLatch done = new CountDownLatch(threads);
+            for (int t = 0; t < threads; t++) {
+                long seed = t;
+                new Thread(() -> {
+                    SplittableRandom random = new SplittableRandom(seed);
+                    TransferService service = new TransferService();
+                    for (int i = 0; i < 20_000; i++) {
+                        Account a = registry.get(1 + random.nextInt(accounts));
+                        Account b = registry.get(1 + random.nextInt(accounts));
+                        Account c = registry.get(1 + random.nextInt(accounts));
+                        try {
+                            if (i % 2 == 0 && a != b) {
+                                service.transfer(a, b, new BigDecimal("0.50"));
+                            } else if (a != b && b != c && a != c) {
+                                List<TransferLeg> legs = new ArrayList<>();
+                                legs.add(new TransferLeg(a, b, new BigDecimal("1.00")));
+                                legs.add(new TransferLeg(b, c, new BigDecimal("1.00")));
+                                service.transferAll(legs);
+                            }
+                        } catch (IllegalStateException ignored) {
+                            // saldo insuficiente
+                        }
+                    }
+                    done.countDown();
+                }).start();
+            }
+            // transferências não mudam o total: toda imagem consistente soma o mesmo
+            while (done.getCount() > 0) {
+                checkpointer.checkpoint();
+                AccountRegistry restored = new AccountRegistry();
+                assertEquals(accounts, Checkpointer.restore(dir, restored));
+                BigDecimal sum = BigDecimal.ZERO;
+                for (Account account : restored.accounts()) sum = sum.add(account.getBalance());
+                assertEquals(0, total.compareTo(sum), "Checkpoint " + checkpointer.checkpoints());
+            }
+            assertTrue(done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        }
+        registry.get(1).deposit(new BigDecimal("7.00"));
+        AccountRegistry restored = new AccountRegistry();
+        assertEquals(accounts, Checkpointer.restore(dir, journal, restored));
+        assertSameBalances(registry, restored);
+
+        AccountRegistry fuzzy = registry(1);
+        Path other = dir.resolve("fuzzy");
+        try (Checkpointer checkpointer = new Checkpointer(fuzzy, other, 0, 1)) {
+            checkpointer.checkpoint();
+        }
+        assertThrows(IOException.class, () -> Checkpointer.restore(other, journal, new AccountRegistry()));
+    }
+
+    @Test
+    @DisplayName("Checkpoint corrompido é detectado no restore")
+    void corruptedCheckpointIsRejected() throws Exception {
+        AccountRegistry registry = registry(10);
+        try (Checkpointer checkpointer = new Checkpointer(registry, dir, 0, 10)) {
+            checkpointer.checkpoint();
+        }
+        Path file = dir.resolve(files().get(0));
+        byte[] data = Files.readAllBytes(file);
+        data[30] ^= 1;
+        Files.write(file, data);
+        assertThrows(IOException.class, () -> Checkpointer.restore(dir, new AccountRegistry()));
+    }
+
+    @Test
+    @DisplayName("Marcas concorrentes nunca se perdem na drenagem")
+    void bitSetNeverLosesMarks() throws Exception {
+        ConcurrentBitSet set = new ConcurrentBitSet();
+        int threads = 4;
+        int perThread = 50_000;
+        BitSet seen = new BitSet();
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread drainer = new Thread(() -> {
+            while (running.get()) set.drain(seen::set);
+        });
+        drainer.start();
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            int offset = t * perThread;
+            new Thread(() -> {
+                for (int i = 0; i < perThread; i++) set.set(offset + i);
+                done.countDown();
+            }).start();
+        }
+        assertTrue(done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        running.set(false);
+        drainer.join();
+        set.drain(seen::set);
+        assertEquals(threads * perThread, seen.cardinality());
+        assertEquals(0, set.drain(i -> { }));
+        assertFalse(set.get(0));
+    }
+}
@@ -0,0 +1,135 @@
+package com.bank;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes da exportação colunar do snapshot do cadastro.
+ */
+@DisplayName("ColumnarExporter - Exportação colunar para análise")
+class ColumnarExporterTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    @DisplayName("Snapshot: saldos e operações exportados conferem com o cadastro")
+    void export_matchesRegistry() throws IOException {
+        OperationJournal journal = new OperationJournal();
+        AccountRegistry registry = new AccountRegistry(null, journal);
+        TransferService service = new TransferService();
+        for (int i = 0; i < 300; i++) registry.open(i, new BigDecimal("100.00"));
+        Random rnd = new Random(7);
+        for (int i = 0; i < 2000; i++) {
+            int from = rnd.nextInt(300);
+            int to = (from + 1 + rnd.nextInt(299)) % 300;
+            try {
+                service.transfer(registry.get(from), registry.get(to), BigDecimal.valueOf(rnd.nextInt(5000) + 1, 2));
+            } catch (IllegalStateException insufficient) {
+                // ignorado
+            }
+        }
+        Path out = dir.resolve("ledger.col");
+        long watermark = new ColumnarExporter(128).export(journal, out);
+
+        try (ColumnarReader reader = new ColumnarReader(out)) {
+            assertEquals(watermark, reader.watermark());
+            assertEquals(300, reader.rowCount("balances"));
+            assertEquals(watermark, reader.rowCount("operations"));
+            assertEquals(3, reader.rowGroups("balances"));
+            for (int g = 0; g < reader.rowGroups("balances"); g++) {
+                long[] accounts = reader.read("balances", g, "account");
+                long[] balances = reader.read("balances", g, "balance");
+                for (int r = 0; r < accounts.length; r++) {
+                    BigDecimal expected = registry.get(accounts[r]).getBalance();
+                    assertEquals(0, expected.compareTo(BigDecimal.valueOf(balances[r], 2)));
+                }
+            }
+            long[] types = reader.read("operations", 0, "type");
+            assertEquals(OperationType.OPEN.ordinal(), types[0]);
+        }
+    }
+
+    @Test
+    @DisplayName("Estatísticas: mín/máx por grupo permitem pular grupos na varredura")
+    void scan_skipsRowGroupsByStats() throws IOException {
+        OperationJournal journal = new OperationJournal();
+        AccountRegistry registry = new AccountRegistry(null, journal);
+        for (int i = 0; i < 1000; i++) registry.open(i);
+        Path out = dir.resolve("contas.col");
+        new ColumnarExporter(100).export(journal, out);
+        try (ColumnarReader reader = new ColumnarReader(out)) {
+            assertArrayEquals(new int[] {4, 5}, reader.candidateRowGroups("balances", "account", 450, 520));
+            long[] sum = new long[1];
+            assertEquals(71, reader.scan("balances", "account", 450, 520, v -> sum[0] += v));
+            assertEquals((450 + 520) * 71 / 2, sum[0]);
+            assertEquals(100, reader.min("balances", 1, "account"));
+            assertEquals(199, reader.max("balances", 1, "account"));
+        }
+    }
+
+    @Test
+    @DisplayName("Consistência: exportar durante transferências concorrentes preserva o total do snapshot")
+    void export_duringLiveTraffic_isConsistent() throws Exception {
+        OperationJournal journal = new OperationJournal();
+        AccountRegistry registry = new AccountRegistry(null, journal);
+        TransferService service = new TransferService();
+        for (int i = 0; i < 50; i++) registry.open(i, new BigDecimal("10.00"));
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread traffic = new Thread(() -> {
+            Random rnd = new Random(1);
+            while (running.get()) {
+                int from = rnd.nextInt(50);
+                int to = (from + 1 + rnd.nextInt(49)) % 50;
+                try {
+                    service.transfer(registry.get(from), registry.get(to), new BigDecimal("0.37"));
+                } catch (IllegalStateException insufficient) {
+                    // ignorado
+                }
+            }
+        });
+        traffic.start();
+        try {
+            for (int round = 0; round < 5; round++) {
+                Path out = dir.resolve("snap" + round + ".col");
+                new ColumnarExporter(16).export(journal, out);
+                try (ColumnarReader reader = new ColumnarReader(out)) {
+                    long total = 0;
+                    for (int g = 0; g < reader.rowGroups("balances"); g++) {
+                        for (long balance : reader.read("balances", g, "balance")) {
+                            assertTrue(balance >= 0, "Saldo negativo no snapshot");
+                            total += balance;
+                        }
+                    }
+                    assertEquals(50 * 1000, total);
+                }
+            }
+        } finally {
+            running.set(false);
+            traffic.join();
+        }
+    }
+
+    @Test
+    @DisplayName("Precisão: fração de centavo interrompe a exportação sem deixar arquivo truncado")
+    void export_subCentAmount_rejected() throws IOException {
+        OperationJournal journal = new OperationJournal();
+        AccountRegistry registry = new AccountRegistry(null, journal);
+        registry.open(1, new BigDecimal("5.00"));
+        Path out = dir.resolve("x.col");
+        new ColumnarExporter().export(journal, out);
+        byte[] previous = Files.readAllBytes(out);
+        registry.get(1).deposit(new BigDecimal("0.001"));
+        assertThrows(ArithmeticException.class, () -> new ColumnarExporter().export(journal, out));
+        assertArrayEquals(previous, Files.readAllBytes(out), "Exportação anterior deve ficar intacta");
+        assertFalse(Files.exists(dir.resolve("x.col.tmp")));
+    }
+}
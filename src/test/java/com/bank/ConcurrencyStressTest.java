@@ -0,0 +1,320 @@
+package com.bank;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.IntConsumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes de estresse no estilo jcstress: vários atores disparam operações ao mesmo tempo,
+ * rodada após rodada, e um árbitro confere o resultado de cada rodada contra os resultados
+ * permitidos. Foco:
+ *  - Nenhuma atualização perdida (depósitos e saques concorrentes)
+ *  - Conservação do dinheiro e saldos nunca negativos em transferências cruzadas
+ *  - Ausência de deadlock (transferências em sentidos opostos)
+ *  - Linearizabilidade dos resultados observados numa conta
+ */
+@DisplayName("Concorrência - Estresse de Account e TransferService")
+class ConcurrencyStressTest {
+
+    private static final long DEADLINE_SECONDS = 60;
+
+    private static void assertBD(String esperado, BigDecimal atual) {
+        assertEquals(0, atual.compareTo(new BigDecimal(esperado)),
+                () -> "Esperado: " + esperado + " | Obtido: " + atual.toPlainString());
+    }
+
+    /**
+     * Executa {@code rounds} rodadas com {@code actors} threads. Antes de cada rodada e depois da
+     * última, o {@code arbiter} roda sozinho (ação da barreira): confere a rodada anterior e
+     * prepara a próxima. Falhas de qualquer thread são relançadas; threads presas acusam deadlock.
+     */
+    private static void stress(int actors, int rounds, Runnable arbiter, IntConsumer actor) throws Exception {
+        List<Throwable> failures = new CopyOnWriteArrayList<>();
+        CyclicBarrier barrier = new CyclicBarrier(actors, () -> {
+            try {
+                arbiter.run();
+            } catch (Throwable t) {
+                failures.add(t);
+                throw t;
+            }
+        });
+        List<Thread> threads = new ArrayList<>();
+        for (int a = 0; a < actors; a++) {
+            final int id = a;
+            Thread thread = new Thread(() -> {
+                try {
+                    for (int r = 0; r < rounds; r++) {
+                        barrier.await();
+                        actor.accept(id);
+                    }
+                    barrier.await();
+                } catch (Throwable t) {
+                    failures.add(t);
+                    barrier.reset();
+                }
+            }, "actor-" + a);
+            thread.setDaemon(true);
+            threads.add(thread);
+            thread.start();
+        }
+        joinAll(threads);
+        if (!failures.isEmpty()) {
+            Throwable first = failures.get(0);
+            for (Throwable t : failures) {
+                if (t instanceof AssertionError) throw (AssertionError) t;
+            }
+            throw new AssertionError(first);
+        }
+    }
+
+    private static void joinAll(List<Thread> threads) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(DEADLINE_SECONDS);
+        for (Thread thread : threads) {
+            thread.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+            assertFalse(thread.isAlive(), "Thread presa (possível deadlock): " + thread.getName());
+        }
+    }
+
+    private static void run(int threads, IntConsumer body) throws InterruptedException {
+        List<Thread> list = new ArrayList<>();
+        List<Throwable> failures = new CopyOnWriteArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            final int id = t;
+            Thread thread = new Thread(() -> {
+                try {
+                    body.accept(id);
+                } catch (Throwable e) {
+                    failures.add(e);
+                }
+            });
+            thread.setDaemon(true);
+            list.add(thread);
+            thread.start();
+        }
+        joinAll(list);
+        if (!failures.isEmpty()) throw new AssertionError(failures.get(0));
+    }
+
+    @Test
+    @DisplayName("Depósitos concorrentes não se perdem")
+    void concurrentDepositsAreNotLost() throws Exception {
+        Account account = new Account();
+        BigDecimal cent = new BigDecimal("0.01");
+        run(8, id -> {
+            for (int i = 0; i < 10_000; i++) account.deposit(cent);
+        });
+        assertBD("800.00", account.getBalance());
+    }
+
+    @Test
+    @DisplayName("Depósitos e saques intercalados preservam o saldo")
+    void interleavedDepositsAndWithdrawals() throws Exception {
+        Account account = new Account();
+        account.deposit(new BigDecimal("10.00"));
+        BigDecimal one = BigDecimal.ONE;
+        run(8, id -> {
+            for (int i = 0; i < 10_000; i++) {
+                if ((id & 1) == 0) {
+                    account.deposit(one);
+                } else {
+                    // saques só depois de depósitos próprios: o saldo nunca pode faltar
+                    account.deposit(one);
+                    account.withdraw(one);
+                }
+            }
+        });
+        assertBD("40010.00", account.getBalance());
+    }
+
+    @Test
+    @DisplayName("Dois saques de 60 sobre 100: exatamente um vence")
+    void racingWithdrawalsExactlyOneWins() throws Exception {
+        Account[] account = new Account[1];
+        String[] outcome = new String[2];
+        Map<String, Integer> outcomes = new TreeMap<>();
+        BigDecimal sixty = new BigDecimal("60.00");
+        int[] round = {0};
+        stress(2, 5_000, () -> {
+            if (round[0]++ > 0) {
+                String key = outcome[0] + "," + outcome[1];
+                outcomes.merge(key, 1, Integer::sum);
+                assertEquals(0, account[0].getBalance().compareTo(new BigDecimal("40.00")),
+                        "Saldo inconsistente: " + key + " -> " + account[0].getBalance());
+            }
+            account[0] = new Account();
+            account[0].deposit(new BigDecimal("100.00"));
+        }, id -> {
+            try {
+                account[0].withdraw(sixty);
+                outcome[id] = "ok";
+            } catch (IllegalStateException e) {
+                outcome[id] = "falha";
+            }
+        });
+        assertEquals(Collections.emptySet(), filter(outcomes, "ok,ok", "falha,falha"), outcomes.toString());
+        assertEquals(5_000, outcomes.values().stream().mapToInt(Integer::intValue).sum());
+    }
+
+    private static Set<String> filter(Map<String, Integer> outcomes, String... forbidden) {
+        Set<String> found = new TreeSet<>();
+        for (String key : forbidden) if (outcomes.containsKey(key)) found.add(key);
+        return found;
+    }
+
+    @Test
+    @DisplayName("Transferências em sentidos opostos: sem deadlock e total conservado")
+    void opposingTransfersNeverDeadlock() throws Exception {
+        TransferService service = new TransferService();
+        Account a = new Account();
+        Account b = new Account();
+        a.deposit(new BigDecimal("1.00"));
+        b.deposit(new BigDecimal("1.00"));
+        BigDecimal one = new BigDecimal("1.00");
+        stress(2, 5_000, () -> {
+            assertTrue(a.getBalance().signum() >= 0 && b.getBalance().signum() >= 0);
+            assertBD("2.00", a.getBalance().add(b.getBalance()));
+        }, id -> {
+            try {
+                if (id == 0) service.transfer(a, b, one);
+                else service.transfer(b, a, one);
+            } catch (IllegalStateException ignored) {
+                // saldo insuficiente é um resultado permitido
+            }
+        });
+    }
+
+    @Test
+    @DisplayName("Transferências aleatórias entre muitas contas conservam o dinheiro")
+    void randomTransfersConserveMoney() throws Exception {
+        AccountRegistry registry = new AccountRegistry();
+        int n = 16;
+        Account[] accounts = new Account[n];
+        for (int i = 0; i < n; i++) accounts[i] = registry.open(i + 1, new BigDecimal("100.00"));
+        TransferService service = new TransferService();
+        AtomicBoolean running = new AtomicBoolean(true);
+        List<String> negatives = new CopyOnWriteArrayList<>();
+
+        Thread observer = new Thread(() -> {
+            while (running.get()) {
+                for (Account account : accounts) {
+                    if (account.getBalance().signum() < 0) negatives.add(account.getBalance().toPlainString());
+                }
+            }
+        });
+        observer.setDaemon(true);
+        observer.start();
+
+        Map<Integer, Integer> applied = new ConcurrentHashMap<>();
+        run(8, id -> {
+            SplittableRandom random = new SplittableRandom(id);
+            int ok = 0;
+            for (int i = 0; i < 20_000; i++) {
+                int from = random.nextInt(n);
+                int to = random.nextInt(n - 1);
+                if (to >= from) to++;
+                BigDecimal amount = BigDecimal.valueOf(1 + random.nextInt(5_000), 2);
+                try {
+                    service.transfer(accounts[from], accounts[to], amount);
+                    ok++;
+                } catch (IllegalStateException ignored) {
+                    // saldo insuficiente
+                }
+            }
+            applied.put(id, ok);
+        });
+        running.set(false);
+        observer.join();
+
+        assertTrue(negatives.isEmpty(), "Saldos negativos observados: " + negatives);
+        BigDecimal total = BigDecimal.ZERO;
+        for (Account account : accounts) total = total.add(account.getBalance());
+        assertBD("1600.00", total);
+        assertBD("1600.00", registry.liquidity().expectedTotal());
+        assertTrue(applied.values().stream().mapToInt(Integer::intValue).sum() > 0);
+    }
+
+    @Test
+    @DisplayName("Históricos concorrentes de uma conta são linearizáveis")
+    void historiesAreLinearizable() throws Exception {
+        int actors = 3;
+        int opsPerActor = 4;
+        Account[] account = new Account[1];
+        List<List<LinearizabilityChecker.Op>> perActor = new ArrayList<>();
+        for (int a = 0; a < actors; a++) perActor.add(new ArrayList<>());
+        SplittableRandom seeds = new SplittableRandom(7);
+        long[] actorSeeds = new long[actors];
+        int[] round = {0};
+
+        stress(actors, 1_500, () -> {
+            if (round[0]++ > 0) {
+                List<LinearizabilityChecker.Op> history = new ArrayList<>();
+                for (List<LinearizabilityChecker.Op> ops : perActor) history.addAll(ops);
+                long expectedFinal = 300;
+                for (LinearizabilityChecker.Op op : history) {
+                    if (op.ok) expectedFinal += op.deposit ? op.amount : -op.amount;
+                }
+                long linearized = LinearizabilityChecker.check(300, history);
+                assertTrue(linearized >= 0, "Histórico não linearizável: " + history);
+                assertEquals(expectedFinal, linearized);
+                assertEquals(expectedFinal, Money.toMinorUnits(account[0].getBalance()), history.toString());
+            }
+            account[0] = new Account();
+            account[0].deposit(new BigDecimal("3.00"));
+            for (int a = 0; a < actors; a++) {
+                perActor.get(a).clear();
+                actorSeeds[a] = seeds.nextLong();
+            }
+        }, id -> {
+            SplittableRandom random = new SplittableRandom(actorSeeds[id]);
+            List<LinearizabilityChecker.Op> ops = perActor.get(id);
+            for (int i = 0; i < opsPerActor; i++) {
+                boolean deposit = random.nextInt(3) == 0;
+                long cents = 50 + 50 * random.nextInt(4);
+                BigDecimal amount = Money.fromMinorUnits(cents);
+                long invoked = System.nanoTime();
+                boolean ok = true;
+                try {
+                    if (deposit) account[0].deposit(amount);
+                    else account[0].withdraw(amount);
+                } catch (IllegalStateException e) {
+                    ok = false;
+                }
+                ops.add(new LinearizabilityChecker.Op(deposit, cents, invoked, System.nanoTime(), ok));
+            }
+        });
+    }
+
+    @Test
+    @DisplayName("Verificador rejeita histórico impossível")
+    void checkerRejectsImpossibleHistory() {
+        List<LinearizabilityChecker.Op> history = new ArrayList<>();
+        // saque de 100 sobre saldo 100 falhou, sem nenhuma operação concorrente que explique
+        history.add(new LinearizabilityChecker.Op(false, 100, 0, 10, false));
+        assertEquals(-1, LinearizabilityChecker.check(100, history));
+        // dois saques sequenciais de 60 sobre 100 não podem ambos ter sucesso
+        history.clear();
+        history.add(new LinearizabilityChecker.Op(false, 60, 0, 10, true));
+        history.add(new LinearizabilityChecker.Op(false, 60, 5, 15, true));
+        assertEquals(-1, LinearizabilityChecker.check(100, history));
+        // concorrentes, um sucesso e uma falha: linearizável
+        history.set(1, new LinearizabilityChecker.Op(false, 60, 5, 15, false));
+        assertEquals(40, LinearizabilityChecker.check(100, history));
+    }
+}
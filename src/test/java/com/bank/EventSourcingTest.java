@@ -0,0 +1,267 @@
+package com.bank;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Conta com eventos e barramento de eventos")
+class EventSourcingTest {
+
+    private static final long TIMEOUT_SECONDS = 30;
+
+    /** Guarda tudo o que recebe, conferindo offsets consecutivos. */
+    private static final class Collector implements EventBus.Subscriber {
+        final List<AccountEvent> received = Collections.synchronizedList(new ArrayList<>());
+        volatile long expected;
+        volatile boolean gap;
+
+        Collector(long from) { expected = from; }
+
+        @Override
+        public void onEvents(long firstOffset, List<AccountEvent> events) {
+            if (firstOffset != expected) gap = true;
+            received.addAll(events);
+            expected = firstOffset + events.size();
+        }
+    }
+
+    private static BigDecimal money(String value) {
+        return new BigDecimal(value);
+    }
+
+    @Test
+    @DisplayName("O saldo é a dobra dos eventos em todos os caminhos de transferência")
+    void balanceIsFoldOfEvents() {
+        EventSourcedAccount a = new EventSourcedAccount(1, null, null);
+        EventSourcedAccount b = new EventSourcedAccount(2, null, null);
+        a.deposit(money("100.00"));
+        a.withdraw(money("10.00"));
+        new TransferService().transfer(a, b, money("20.00"));
+        new TransferService().transferAll(Arrays.asList(
+                new TransferLeg(a, b, money("5.00")), new TransferLeg(b, a, money("1.00"))));
+        new OptimisticTransferService().transfer(b, a, money("2.00"));
+
+        assertEquals(0, money("68.00").compareTo(a.getBalance()));
+        assertEquals(0, money("22.00").compareTo(b.getBalance()));
+        assertEquals(0, a.getBalance().compareTo(EventSourcedAccount.fold(a.events())));
+        assertEquals(0, b.getBalance().compareTo(EventSourcedAccount.fold(b.events())));
+
+        List<AccountEvent> events = a.events();
+        assertEquals(6, events.size());
+        assertEquals(AccountEvent.Kind.DEPOSITED, events.get(0).getKind());
+        assertEquals(AccountEvent.Kind.WITHDRAWN, events.get(1).getKind());
+        assertEquals(AccountEvent.Kind.TRANSFERRED_OUT, events.get(2).getKind());
+        assertEquals(2, events.get(2).getCounterparty());
+        assertEquals(AccountEvent.Kind.TRANSFERRED_IN, events.get(5).getKind());
+    }
+
+    @Test
+    @DisplayName("Operação recusada não gera evento")
+    void rejectedOperationHasNoEvent() {
+        EventSourcedAccount a = new EventSourcedAccount(null);
+        assertThrows(IllegalStateException.class, () -> a.withdraw(money("1.00")));
+        assertTrue(a.events().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Replay reconstrói a conta a partir do histórico")
+    void replayRebuildsAccount() {
+        EventSourcedAccount a = new EventSourcedAccount(7, null, null);
+        a.deposit(money("50.00"));
+        a.withdraw(money("12.50"));
+        EventSourcedAccount rebuilt = EventSourcedAccount.replay(7, null, null, a.events());
+        assertEquals(0, money("37.50").compareTo(rebuilt.getBalance()));
+        assertEquals(a.events().size(), rebuilt.events().size());
+        rebuilt.withdraw(money("37.50"));
+        assertEquals(0, rebuilt.getBalance().signum());
+
+        assertThrows(IllegalArgumentException.class, () -> EventSourcedAccount.replay(8, null, null, a.events()));
+    }
+
+    @Test
+    @DisplayName("Assinante lento não trava transferências e recebe tudo em ordem depois")
+    void slowSubscriberNeverStallsTransfers() throws Exception {
+        EventBus bus = new EventBus();
+        CountDownLatch release = new CountDownLatch(1);
+        Collector slow = new Collector(0);
+        Collector fast = new Collector(0);
+        EventBus.Subscription stalled = bus.subscribe((first, events) -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            slow.onEvents(first, events);
+        }, 0, 4, 64);
+        EventBus.Subscription healthy = bus.subscribe(fast, 0, 1024, 64);
+        try {
+            EventSourcedAccount a = new EventSourcedAccount(1, null, bus);
+            EventSourcedAccount b = new EventSourcedAccount(2, null, bus);
+            a.deposit(money("1000.00"));
+            TransferService service = new TransferService();
+            long start = System.nanoTime();
+            for (int i = 0; i < 5_000; i++) service.transfer(i % 2 == 0 ? a : b, i % 2 == 0 ? b : a, money("1.00"));
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS));
+
+            long total = bus.published();
+            assertEquals(1 + 2 * 5_000, total);
+            assertTrue(healthy.awaitPosition(total, TIMEOUT_SECONDS, TimeUnit.SECONDS));
+            assertTrue(stalled.lag() > 0);
+            assertTrue(stalled.overflows() > 0);
+
+            release.countDown();
+            assertTrue(stalled.awaitPosition(total, TIMEOUT_SECONDS, TimeUnit.SECONDS));
+            assertTrue(stalled.replayed() > 0);
+            assertFalse(slow.gap);
+            assertFalse(fast.gap);
+            List<AccountEvent> log = new ArrayList<>();
+            bus.read(0, total, log);
+            assertEquals(log, slow.received);
+            assertEquals(log, fast.received);
+        } finally {
+            release.countDown();
+            bus.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Assinatura tardia reprocessa o histórico a partir de um offset")
+    void lateSubscriberReplaysFromOffset() throws Exception {
+        EventBus bus = new EventBus();
+        EventSourcedAccount a = new EventSourcedAccount(1, null, bus);
+        for (int i = 0; i < 100; i++) a.deposit(money("1.00"));
+        Collector collector = new Collector(40);
+        try (EventBus.Subscription subscription = bus.subscribe(collector, 40, 8, 16)) {
+            a.withdraw(money("3.00"));
+            assertTrue(subscription.awaitPosition(101, TIMEOUT_SECONDS, TimeUnit.SECONDS));
+            assertEquals(61, collector.received.size());
+            assertEquals(AccountEvent.Kind.WITHDRAWN, collector.received.get(60).getKind());
+            assertFalse(collector.gap);
+        }
+        assertThrows(IllegalArgumentException.class, () -> bus.subscribe(collector, 500, 8, 16));
+    }
+
+    @Test
+    @DisplayName("Eventos concorrentes chegam ao assinante na ordem de cada conta")
+    void concurrentPublishersKeepPerAccountOrder() throws Exception {
+        int accounts = 8;
+        EventBus bus = new EventBus();
+        EventSourcedAccount[] all = new EventSourcedAccount[accounts];
+        for (int i = 0; i < accounts; i++) {
+            all[i] = new EventSourcedAccount(i + 1, null, bus);
+            all[i].deposit(money("100.00"));
+        }
+        Collector collector = new Collector(0);
+        try (EventBus.Subscription subscription = bus.subscribe(collector, 0, 64, 32)) {
+            int threads = 4;
+            CountDownLatch done = new CountDownLatch(threads);
+            for (int t = 0; t < threads; t++) {
+                long seed = t;
+                new Thread(() -> {
+                    SplittableRandom random = new SplittableRandom(seed);
+                    TransferService service = new TransferService();
+                    for (int i = 0; i < 5_000; i++) {
+                        Account from = all[random.nextInt(accounts)];
+                        Account to = all[random.nextInt(accounts)];
+                        try {
+                            if (from != to) service.transfer(from, to, BigDecimal.valueOf(1 + random.nextInt(500), 2));
+                        } catch (IllegalStateException ignored) {
+                            // saldo insuficiente
+                        }
+                    }
+                    done.countDown();
+                }).start();
+            }
+            assertTrue(done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+            assertTrue(subscription.awaitPosition(bus.published(), TIMEOUT_SECONDS, TimeUnit.SECONDS));
+            assertFalse(collector.gap);
+
+            Map<Long, List<AccountEvent>> perAccount = new HashMap<>();
+            for (AccountEvent event : collector.received) {
+                perAccount.computeIfAbsent(event.getAccount(), k -> new ArrayList<>()).add(event);
+            }
+            for (EventSourcedAccount account : all) {
+                assertEquals(account.events(), perAccount.get(account.getId()));
+                assertEquals(0, account.getBalance().compareTo(EventSourcedAccount.fold(perAccount.get(account.getId()))));
+            }
+        } finally {
+            bus.close();
+        }
+    }
+
+    @Test
+    @DisplayName("published() acompanha o diretório enquanto ele cresce")
+    void publishedWhileDirectoryGrows() throws Exception {
+        EventBus bus = new EventBus();
+        AccountEvent event = new AccountEvent(1, AccountEvent.Kind.DEPOSITED, 0, money("1.00"));
+        int threads = 4;
+        int perThread = 25_000;
+        CountDownLatch done = new CountDownLatch(threads);
+        List<Throwable> failures = Collections.synchronizedList(new ArrayList<>());
+        for (int t = 0; t < threads; t++) {
+            new Thread(() -> {
+                for (int i = 0; i < perThread; i++) bus.publish(event);
+                done.countDown();
+            }).start();
+        }
+        while (done.getCount() > 0) {
+            try {
+                bus.published();
+            } catch (Throwable e) {
+                failures.add(e);
+                break;
+            }
+        }
+        assertTrue(done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertEquals(Collections.emptyList(), failures);
+        assertEquals(threads * perThread, bus.published());
+    }
+
+    @Test
+    @DisplayName("Poda descarta segmentos inteiros e não passa da assinatura mais atrasada")
+    void trimRespectsSubscriptions() throws Exception {
+        EventBus bus = new EventBus();
+        AccountEvent event = new AccountEvent(1, AccountEvent.Kind.DEPOSITED, 0, money("1.00"));
+        for (int i = 0; i < 10_000; i++) bus.publish(event);
+
+        CountDownLatch release = new CountDownLatch(1);
+        EventBus.Subscription stalled = bus.subscribe((first, events) -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, 0, 8, 16);
+        try {
+            assertEquals(0, bus.trim(9_000), "Assinatura ainda no offset 0");
+            release.countDown();
+            assertTrue(stalled.awaitPosition(10_000, TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        } finally {
+            stalled.close();
+        }
+
+        assertEquals(8_192, bus.trim(9_000));
+        assertEquals(8_192, bus.start());
+        assertEquals(8_192, bus.trim(100), "Poda não volta atrás");
+        List<AccountEvent> out = new ArrayList<>();
+        bus.read(8_192, 10_000, out);
+        assertEquals(1_808, out.size());
+        assertThrows(IllegalArgumentException.class, () -> bus.read(8_000, 10_000, new ArrayList<>()));
+        assertThrows(IllegalArgumentException.class, () -> bus.subscribe(new Collector(0), 8_000, 8, 16));
+        assertEquals(8_192, bus.trim(Long.MAX_VALUE), "Nada além do publicado");
+        bus.publish(event);
+        assertEquals(10_001, bus.published());
+    }
+}
@@ -0,0 +1,261 @@
+package com.bank;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Divisão automática de contas quentes")
+class HotAccountDetectorTest {
+
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private static BigDecimal bd(String v) { return new BigDecimal(v); }
+
+    @Test
+    @DisplayName("Espera sustentada pelo monitor divide a conta; picos isolados não")
+    void sustainedWaitPromotes() {
+        HotAccountDetector detector = new HotAccountDetector(1, 1_000, 0, 100, 4);
+        AccountRegistry registry = new AccountRegistry();
+        registry.setHotAccountDetector(detector);
+        Account hot = registry.open(1, bd("100.00"));
+
+        detector.waited(hot, 4_000);
+        assertFalse(hot.isSplit(), "Uma espera só não basta");
+        for (int i = 0; i < 20 && !hot.isSplit(); i++) detector.waited(hot, 4_000);
+        assertTrue(hot.isSplit());
+        assertEquals(1, detector.promotions());
+        assertEquals(4, hot.splitBalance().stripes());
+        assertEquals(0, bd("100.00").compareTo(hot.getBalance()));
+    }
+
+    @Test
+    @DisplayName("Conta dividida mantém as regras e o saldo exato")
+    void splitAccountKeepsSemantics() {
+        OperationJournal journal = new OperationJournal();
+        AccountRegistry registry = new AccountRegistry(null, journal);
+        Account hot = registry.open(1, bd("10.00"));
+        Account payer = registry.open(2, bd("50.00"));
+        assertTrue(hot.split(4));
+        assertFalse(hot.split(4), "Já dividida");
+
+        hot.deposit(bd("5.00"));
+        new TransferService().transfer(payer, hot, bd("20.00"));
+        assertEquals(0, bd("35.00").compareTo(hot.getBalance()));
+        assertEquals(0, bd("30.00").compareTo(payer.getBalance()));
+
+        assertThrows(IllegalArgumentException.class, () -> hot.deposit(BigDecimal.ZERO));
+        assertThrows(NullPointerException.class, () -> hot.deposit(null));
+        assertThrows(IllegalStateException.class, () -> new TransferService().transfer(payer, hot, bd("30.01")));
+        assertEquals(0, bd("30.00").compareTo(payer.getBalance()), "Débito recusado não credita o destino");
+
+        assertThrows(IllegalStateException.class, () -> hot.withdraw(bd("35.01")));
+        hot.withdraw(bd("35.00"));
+        assertEquals(0, BigDecimal.ZERO.compareTo(hot.getBalance()));
+
+        assertEquals(0, bd("30.00").compareTo(registry.liquidity().expectedTotal()));
+        assertEquals(0, bd("30.00").compareTo(replay(journal).get(2L)));
+        assertTrue(hot.merge());
+        assertFalse(hot.isSplit());
+        assertEquals(0, BigDecimal.ZERO.compareTo(hot.getBalance()));
+    }
+
+    @Test
+    @DisplayName("Tráfego que esfria junta a conta de volta")
+    void coolingDemotes() {
+        AtomicLong clock = new AtomicLong(1_000 * MS);
+        HotAccountDetector detector = new HotAccountDetector(1, 1_000, 100, 100, 2, clock::get);
+        AccountRegistry registry = new AccountRegistry();
+        registry.setHotAccountDetector(detector);
+        Account hot = registry.open(1);
+        for (int i = 0; i < 40 && !hot.isSplit(); i++) detector.waited(hot, 10_000);
+        assertTrue(hot.isSplit());
+
+        // 50 créditos em 100 ms = 500/s, acima do limiar de 100/s
+        for (int i = 0; i < 50; i++) {
+            hot.deposit(bd("1.00"));
+            clock.addAndGet(2 * MS);
+        }
+        hot.deposit(bd("1.00"));
+        assertTrue(hot.isSplit());
+
+        clock.addAndGet(1_000 * MS);
+        hot.deposit(bd("1.00"));
+        assertFalse(hot.isSplit());
+        assertEquals(1, detector.demotions());
+        assertEquals(0, bd("52.00").compareTo(hot.getBalance()));
+    }
+
+    @Test
+    @DisplayName("Conta dividida que para de receber tráfego é juntada pela varredura")
+    void idleSplitAccountDemotes() {
+        AtomicLong clock = new AtomicLong(1_000 * MS);
+        HotAccountDetector detector = new HotAccountDetector(1, 1_000, 100, 100, 2, clock::get);
+        AccountRegistry registry = new AccountRegistry();
+        registry.setHotAccountDetector(detector);
+        Account idle = registry.open(1);
+        Account other = registry.open(2);
+        Account quiet = registry.open(3);
+        for (int i = 0; i < 40 && !idle.isSplit(); i++) detector.waited(idle, 10_000);
+        for (int i = 0; i < 40 && !quiet.isSplit(); i++) detector.waited(quiet, 10_000);
+        idle.deposit(bd("3.00"));
+        assertTrue(idle.isSplit());
+        assertTrue(quiet.isSplit());
+
+        // nenhum crédito em 'idle': só esperas amostradas de outra conta, depois da janela
+        clock.addAndGet(500 * MS);
+        detector.waited(other, 0);
+        assertFalse(idle.isSplit());
+        assertFalse(quiet.isSplit());
+        assertEquals(2, detector.demotions());
+        assertEquals(0, bd("3.00").compareTo(idle.getBalance()));
+
+        // sem tráfego nenhum, a varredura explícita faz o mesmo
+        for (int i = 0; i < 40 && !idle.isSplit(); i++) detector.waited(idle, 10_000);
+        assertTrue(idle.isSplit());
+        assertEquals(0, detector.sweep(), "Janela ainda aberta");
+        clock.addAndGet(500 * MS);
+        assertEquals(1, detector.sweep());
+        assertFalse(idle.isSplit());
+        assertEquals(0, bd("3.00").compareTo(idle.getBalance()));
+    }
+
+    @Test
+    @DisplayName("Contas com histórico de eventos não são divididas")
+    void eventSourcedAccountsStayWhole() {
+        EventSourcedAccount account = new EventSourcedAccount(7, null, null);
+        assertFalse(account.split(4));
+        assertFalse(new AccountView(new BalanceTable(4)).split(4));
+    }
+
+    @Test
+    @DisplayName("Conflitos otimistas no destino também dividem a conta")
+    void optimisticConflictsPromote() {
+        HotAccountDetector detector = new HotAccountDetector(1, 1_000, 0, 100, 2);
+        AccountRegistry registry = new AccountRegistry();
+        registry.setHotAccountDetector(detector);
+        Account hot = registry.open(1);
+        for (int i = 0; i < 16 && !hot.isSplit(); i++) detector.conflicted(hot);
+        assertTrue(hot.isSplit());
+
+        Account payer = registry.open(2, bd("3.00"));
+        OptimisticTransferService service = new OptimisticTransferService();
+        service.transfer(payer, hot, bd("3.00"));
+        assertEquals(0, service.optimisticCommits(), "Conta dividida vai pelo caminho pessimista");
+        assertEquals(0, bd("3.00").compareTo(hot.getBalance()));
+    }
+
+    @Test
+    @DisplayName("Desligar o detector junta as contas divididas")
+    void disablingMergesEverything() {
+        AccountRegistry registry = new AccountRegistry();
+        registry.setHotAccountDetector(new HotAccountDetector());
+        Account a = registry.open(1, bd("1.00"));
+        Account b = registry.open(2, bd("2.00"));
+        a.split(2);
+        b.split(2);
+        a.deposit(bd("1.00"));
+        registry.setHotAccountDetector(null);
+        assertFalse(a.isSplit());
+        assertFalse(b.isSplit());
+        assertEquals(0, bd("2.00").compareTo(a.getBalance()));
+    }
+
+    @Test
+    @DisplayName("Sob carga concorrente o total fica exato e o diário continua consistente")
+    void concurrentLoadKeepsTotalsExact() throws Exception {
+        OperationJournal journal = new OperationJournal();
+        AccountRegistry registry = new AccountRegistry(null, journal);
+        HotAccountDetector detector = new HotAccountDetector(4, 1, 1_000_000_000L, 1, 4);
+        registry.setHotAccountDetector(detector);
+        Account hot = registry.open(0);
+        int payers = 8;
+        int rounds = 2_000;
+        List<Account> accounts = new ArrayList<>();
+        for (int i = 1; i <= payers; i++) accounts.add(registry.open(i, bd("1000.00")));
+        TransferService service = new TransferService();
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Thread> threads = new ArrayList<>();
+        for (Account payer : accounts) {
+            threads.add(new Thread(() -> {
+                try {
+                    start.await();
+                    for (int r = 0; r < rounds; r++) {
+                        if (r % 100 == 99) payer.deposit(bd("0.01"));
+                        else service.transfer(payer, hot, bd("0.05"));
+                    }
+                } catch (Throwable t) {
+                    failure.compareAndSet(null, t);
+                }
+            }));
+        }
+        // o destino também paga: débitos juntam os sub-saldos enquanto os créditos chegam
+        threads.add(new Thread(() -> {
+            try {
+                start.await();
+                for (int r = 0; r < rounds; r++) {
+                    try {
+                        service.transfer(hot, accounts.get(r % payers), bd("0.10"));
+                    } catch (IllegalStateException e) {
+                        // saldo ainda não chegou
+                    }
+                    if (r % 500 == 0) hot.merge();
+                }
+            } catch (Throwable t) {
+                failure.compareAndSet(null, t);
+            }
+        }));
+        for (Thread t : threads) t.start();
+        start.countDown();
+        for (Thread t : threads) t.join(TimeUnit.SECONDS.toMillis(60));
+        assertNull(failure.get());
+        assertTrue(detector.promotions() > 0);
+
+        BigDecimal total = hot.getBalance();
+        for (Account account : accounts) total = total.add(account.getBalance());
+        BigDecimal deposits = bd("0.01").multiply(BigDecimal.valueOf(payers * (rounds / 100)));
+        assertEquals(0, bd("8000.00").add(deposits).compareTo(total));
+        assertEquals(0, total.compareTo(registry.liquidity().expectedTotal()));
+
+        Map<Long, BigDecimal> replayed = replay(journal);
+        assertEquals(0, hot.getBalance().compareTo(replayed.get(0L)));
+        for (Account account : accounts) {
+            assertEquals(0, account.getBalance().compareTo(replayed.get(account.getId())));
+        }
+    }
+
+    /** Refaz o diário exigindo que nenhum saldo fique negativo em nenhum prefixo. */
+    private static Map<Long, BigDecimal> replay(OperationJournal journal) {
+        Map<Long, BigDecimal> balances = new HashMap<>();
+        journal.read(0, journal.committed(), (seq, type, account, counterparty, amount) -> {
+            switch (type) {
+                case OPEN:
+                    balances.putIfAbsent(account, BigDecimal.ZERO);
+                    break;
+                case DEPOSIT:
+                    balances.merge(account, amount, BigDecimal::add);
+                    break;
+                case WITHDRAW:
+                    balances.merge(account, amount.negate(), BigDecimal::add);
+                    break;
+                case TRANSFER:
+                    balances.merge(account, amount.negate(), BigDecimal::add);
+                    balances.merge(counterparty, amount, BigDecimal::add);
+                    break;
+            }
+            assertTrue(balances.get(account).signum() >= 0, "Saldo negativo no lançamento " + seq);
+        });
+        return balances;
+    }
+}
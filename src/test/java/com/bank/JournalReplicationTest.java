@@ -0,0 +1,235 @@
+package com.bank;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Replicação do diário para standby quente")
+class JournalReplicationTest {
+
+    private static final long TIMEOUT_SECONDS = 30;
+
+    private static AccountRegistry primary(OperationJournal journal, int accounts) {
+        AccountRegistry registry = new AccountRegistry(null, journal);
+        for (int i = 1; i <= accounts; i++) registry.open(i, new BigDecimal("100.00"));
+        return registry;
+    }
+
+    private static void randomOperations(AccountRegistry registry, int accounts, int operations, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        TransferService service = new TransferService();
+        for (int i = 0; i < operations; i++) {
+            Account a = registry.get(1 + random.nextInt(accounts));
+            BigDecimal amount = BigDecimal.valueOf(1 + random.nextInt(2_000), 2);
+            try {
+                switch (random.nextInt(4)) {
+                    case 0: a.deposit(amount); break;
+                    case 1: a.withdraw(amount); break;
+                    default:
+                        Account b = registry.get(1 + random.nextInt(accounts));
+                        if (a != b) service.transfer(a, b, amount);
+                }
+            } catch (IllegalStateException ignored) {
+                // saldo insuficiente: não entra no diário
+            }
+        }
+    }
+
+    private static void assertSameBalances(AccountRegistry expected, AccountRegistry actual) {
+        assertEquals(expected.size(), actual.size());
+        for (Account account : expected.accounts()) {
+            assertEquals(0, account.getBalance().compareTo(actual.get(account.getId()).getBalance()),
+                    "Conta " + account.getId());
+        }
+        assertEquals(0, expected.liquidity().expectedTotal().compareTo(actual.liquidity().expectedTotal()));
+    }
+
+    @Test
+    @DisplayName("Síncrono: cada operação confirmada pelo seguidor antes de seguir")
+    void synchronousReplication() throws Exception {
+        OperationJournal journal = new OperationJournal();
+        AccountRegistry registry = primary(journal, 10);
+        AccountRegistry standby = new AccountRegistry(null, new OperationJournal());
+        try (ReplicaFollower follower = new ReplicaFollower(standby, 0);
+             JournalReplicator replicator = new JournalReplicator(journal, follower.address(),
+                     JournalReplicator.Mode.SYNC, 64)) {
+            Account a = registry.get(1);
+            for (int i = 0; i < 50; i++) {
+                a.deposit(BigDecimal.ONE);
+                assertTrue(replicator.awaitReplicated(journal.committed(), TIMEOUT_SECONDS, TimeUnit.SECONDS));
+                assertEquals(0, a.getBalance().compareTo(standby.get(1).getBalance()));
+            }
+            assertEquals(0, replicator.lag());
+            assertTrue(replicator.lastAckNanos() > 0);
+        }
+    }
+
+    @Test
+    @DisplayName("Assíncrono com carga concorrente: o seguidor converge para o mesmo estado")
+    void asynchronousReplicationConverges() throws Exception {
+        OperationJournal journal = new OperationJournal();
+        AccountRegistry registry = primary(journal, 20);
+        AccountRegistry standby = new AccountRegistry(null, new OperationJournal());
+        try (ReplicaFollower follower = new ReplicaFollower(standby, 0);
+             JournalReplicator replicator = new JournalReplicator(journal, follower.address(),
+                     JournalReplicator.Mode.ASYNC, 256)) {
+            Thread[] threads = new Thread[4];
+            for (int t = 0; t < threads.length; t++) {
+                final long seed = t;
+                threads[t] = new Thread(() -> randomOperations(registry, 20, 5_000, seed));
+                threads[t].start();
+            }
+            for (Thread thread : threads) thread.join();
+
+            assertTrue(replicator.awaitReplicated(journal.committed(), TIMEOUT_SECONDS, TimeUnit.SECONDS));
+            assertNull(follower.failure());
+            assertEquals(journal.committed(), follower.applied());
+            assertSameBalances(registry, standby);
+            assertEquals(journal.committed(), standby.journal().committed());
+        }
+    }
+
+    @Test
+    @DisplayName("Lotes de várias pernas e regras próprias do seguidor não param a replicação")
+    void multiLegBatchesAndFollowerRulesDoNotHaltReplication() throws Exception {
+        OperationJournal journal = new OperationJournal();
+        AccountRegistry registry = new AccountRegistry(null, journal);
+        Account a = registry.open(1, new BigDecimal("10.00"));
+        Account b = registry.open(2);
+        Account c = registry.open(3);
+        OperationJournal standbyJournal = new OperationJournal();
+        // o seguidor só permitiria um débito por hora: lançamentos do primário não são revalidados
+        AccountRegistry standby = new AccountRegistry(
+                new VelocityPolicy(() -> 0L, VelocityRule.perHour(1, null)), standbyJournal);
+        try (ReplicaFollower follower = new ReplicaFollower(standby, 0);
+             JournalReplicator replicator = new JournalReplicator(journal, follower.address(),
+                     JournalReplicator.Mode.ASYNC, 1)) {
+            new TransferService().transferAll(Arrays.asList(
+                    new TransferLeg(a, b, new BigDecimal("10.00")),
+                    new TransferLeg(b, c, new BigDecimal("10.00"))));
+            c.withdraw(new BigDecimal("1.00"));
+            c.withdraw(new BigDecimal("1.00"));
+            assertTrue(replicator.awaitReplicated(journal.committed(), TIMEOUT_SECONDS, TimeUnit.SECONDS));
+            assertEquals(journal.committed(), follower.applied());
+            assertNull(follower.failure());
+            assertSameBalances(registry, standby);
+            // o lote continua atômico no diário do seguidor
+            long transfer = standbyJournal.committed() - 4;
+            assertEquals(transfer + 2, standbyJournal.batchEnd(transfer));
+        }
+    }
+
+    @Test
+    @DisplayName("Lote que o seguidor não consegue aplicar para a replicação sem ser confirmado")
+    void unappliableBatchStopsReplication() throws Exception {
+        OperationJournal journal = new OperationJournal();
+        AccountRegistry registry = primary(journal, 2);
+        AccountRegistry standby = new AccountRegistry();
+        try (ReplicaFollower follower = new ReplicaFollower(standby, 0)) {
+            standby.open(3);
+            long duplicate = journal.committed();
+            registry.open(3);
+            registry.get(3).deposit(new BigDecimal("5.00"));
+            registry.get(1).deposit(new BigDecimal("1.00"));
+            try (JournalReplicator replicator = new JournalReplicator(journal, follower.address(),
+                    JournalReplicator.Mode.SYNC, 64)) {
+                assertFalse(replicator.awaitReplicated(journal.committed(), TIMEOUT_SECONDS, TimeUnit.SECONDS));
+                assertEquals(journal.committed() - duplicate, replicator.lag());
+                assertNotNull(replicator.failure());
+            }
+            assertEquals(duplicate, follower.applied(), "Abertura repetida da conta 3 não é confirmada");
+            assertTrue(follower.failure() instanceof IllegalArgumentException, String.valueOf(follower.failure()));
+            assertEquals(0, new BigDecimal("100.00").compareTo(standby.get(1).getBalance()));
+            assertEquals(0, BigDecimal.ZERO.compareTo(standby.get(3).getBalance()));
+        }
+    }
+
+    @Test
+    @DisplayName("Reconexão retoma de onde o seguidor parou")
+    void reconnectResumesFromFollowerWatermark() throws Exception {
+        OperationJournal journal = new OperationJournal();
+        AccountRegistry registry = primary(journal, 5);
+        AccountRegistry standby = new AccountRegistry();
+        try (ReplicaFollower follower = new ReplicaFollower(standby, 0)) {
+            try (JournalReplicator first = new JournalReplicator(journal, follower.address(),
+                    JournalReplicator.Mode.ASYNC, 16)) {
+                randomOperations(registry, 5, 500, 1);
+                assertTrue(first.awaitReplicated(journal.committed(), TIMEOUT_SECONDS, TimeUnit.SECONDS));
+            }
+            long before = follower.applied();
+            randomOperations(registry, 5, 500, 2);
+            try (JournalReplicator second = new JournalReplicator(journal, follower.address(),
+                    JournalReplicator.Mode.ASYNC, 16)) {
+                assertTrue(second.acked() >= before);
+                assertTrue(second.awaitReplicated(journal.committed(), TIMEOUT_SECONDS, TimeUnit.SECONDS));
+            }
+            assertSameBalances(registry, standby);
+        }
+    }
+
+    @Test
+    @DisplayName("Failover: promover o standby leva milissegundos e ele replica adiante")
+    void failoverPromotesStandby() throws Exception {
+        OperationJournal journal = new OperationJournal();
+        AccountRegistry registry = primary(journal, 10);
+        OperationJournal standbyJournal = new OperationJournal();
+        AccountRegistry standby = new AccountRegistry(null, standbyJournal);
+        ReplicaFollower follower = new ReplicaFollower(standby, 0);
+        JournalReplicator replicator = new JournalReplicator(journal, follower.address(),
+                JournalReplicator.Mode.SYNC, 128);
+        randomOperations(registry, 10, 2_000, 3);
+        assertTrue(replicator.awaitReplicated(journal.committed(), TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+        // queda do primário
+        replicator.close();
+        long start = System.nanoTime();
+        AccountRegistry promoted = follower.promote();
+        long failover = System.nanoTime() - start;
+        assertTrue(failover < TimeUnit.SECONDS.toNanos(5), "failover: " + failover + " ns");
+        assertSameBalances(registry, promoted);
+
+        // o novo primário aceita operações e replica para um novo standby
+        promoted.get(1).deposit(new BigDecimal("7.00"));
+        AccountRegistry next = new AccountRegistry();
+        try (ReplicaFollower nextFollower = new ReplicaFollower(next, 0);
+             JournalReplicator nextReplicator = new JournalReplicator(standbyJournal, nextFollower.address(),
+                     JournalReplicator.Mode.ASYNC, 128)) {
+            assertTrue(nextReplicator.awaitReplicated(standbyJournal.committed(), TIMEOUT_SECONDS, TimeUnit.SECONDS));
+            assertSameBalances(promoted, next);
+        }
+    }
+
+    @Test
+    @DisplayName("Valores com qualquer escala são replicados exatamente")
+    void exactAmounts() throws Exception {
+        OperationJournal journal = new OperationJournal();
+        AccountRegistry registry = new AccountRegistry(null, journal);
+        registry.open(1, new BigDecimal("12345678901234567890.123456789"));
+        registry.get(1).withdraw(new BigDecimal("0.000000001"));
+        AccountRegistry standby = new AccountRegistry();
+        try (ReplicaFollower follower = new ReplicaFollower(standby, 0);
+             JournalReplicator replicator = new JournalReplicator(journal, follower.address(),
+                     JournalReplicator.Mode.SYNC, 8)) {
+            assertTrue(replicator.awaitReplicated(journal.committed(), TIMEOUT_SECONDS, TimeUnit.SECONDS));
+            assertEquals(new BigDecimal("12345678901234567890.123456788"), standby.get(1).getBalance());
+        }
+    }
+
+    @Test
+    @DisplayName("Parâmetros inválidos")
+    void rejectsBadParameters() throws IOException {
+        try (ReplicaFollower follower = new ReplicaFollower(new AccountRegistry(), 0)) {
+            assertThrows(IllegalArgumentException.class, () -> new JournalReplicator(new OperationJournal(),
+                    follower.address(), JournalReplicator.Mode.SYNC, 0));
+            assertThrows(NullPointerException.class, () -> new JournalReplicator(null,
+                    follower.address(), JournalReplicator.Mode.SYNC, 1));
+        }
+    }
+}
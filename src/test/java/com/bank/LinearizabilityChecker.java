@@ -0,0 +1,80 @@
+package com.bank;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Verificador de linearizabilidade (Wing &amp; Gong, com memoização) para históricos curtos de
+ * depósitos e saques numa única conta. Cada operação registra o instante de invocação, o de
+ * resposta e o resultado observado; o histórico é linearizável se existir uma ordem sequencial
+ * que respeite a ordem de tempo real e reproduza todos os resultados a partir do saldo inicial.
+ */
+final class LinearizabilityChecker {
+
+    /** Operação observada. Valores em centavos. */
+    static final class Op {
+        final boolean deposit;
+        final long amount;
+        final long invoked;
+        final long returned;
+        final boolean ok;
+
+        Op(boolean deposit, long amount, long invoked, long returned, boolean ok) {
+            this.deposit = deposit;
+            this.amount = amount;
+            this.invoked = invoked;
+            this.returned = returned;
+            this.ok = ok;
+        }
+
+        @Override
+        public String toString() {
+            return (deposit ? "D" : "W") + amount + (ok ? "" : "!") + "[" + invoked + "," + returned + "]";
+        }
+    }
+
+    private final List<Op> ops;
+    private final Set<String> visited = new HashSet<>();
+
+    private LinearizabilityChecker(List<Op> ops) {
+        this.ops = new ArrayList<>(ops);
+    }
+
+    /** Verifica o histórico e retorna o saldo final da linearização encontrada, ou -1. */
+    static long check(long initialBalance, List<Op> history) {
+        if (history.size() > 63) throw new IllegalArgumentException("Histórico longo demais");
+        return new LinearizabilityChecker(history).search(0L, initialBalance);
+    }
+
+    private long search(long done, long balance) {
+        if (Long.bitCount(done) == ops.size()) return balance;
+        if (!visited.add(done + ":" + balance)) return -1;
+
+        // candidatas: operações pendentes invocadas antes da primeira resposta pendente
+        long firstReturn = Long.MAX_VALUE;
+        for (int i = 0; i < ops.size(); i++) {
+            if ((done & (1L << i)) == 0) firstReturn = Math.min(firstReturn, ops.get(i).returned);
+        }
+        for (int i = 0; i < ops.size(); i++) {
+            if ((done & (1L << i)) != 0) continue;
+            Op op = ops.get(i);
+            if (op.invoked > firstReturn) continue;
+            long next;
+            if (op.deposit) {
+                if (!op.ok) continue;
+                next = balance + op.amount;
+            } else if (balance >= op.amount) {
+                if (!op.ok) continue;
+                next = balance - op.amount;
+            } else {
+                if (op.ok) continue;
+                next = balance;
+            }
+            long result = search(done | (1L << i), next);
+            if (result >= 0) return result;
+        }
+        return -1;
+    }
+}
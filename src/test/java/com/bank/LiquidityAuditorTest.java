@@ -0,0 +1,160 @@
+package com.bank;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import java.math.BigDecimal;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes do total incremental de liquidez e do auditor que o compara com a soma dos saldos.
+ */
+@DisplayName("LiquidityAuditor - Invariante global de liquidez")
+class LiquidityAuditorTest {
+
+    private AccountRegistry registry;
+    private TransferService service;
+
+    @BeforeEach
+    void setUp() {
+        registry = new AccountRegistry();
+        service = new TransferService();
+    }
+
+    private static void assertBD(String expected, BigDecimal actual) {
+        assertEquals(0, actual.compareTo(new BigDecimal(expected)),
+                () -> "Esperado: " + expected + " | Obtido: " + actual);
+    }
+
+    @Test
+    @DisplayName("Total: depósitos e saques externos movem o total; transferências internas não")
+    void tracker_followsExternalFlowsOnly() {
+        Account a = registry.open(1);
+        Account b = registry.open(2);
+        a.deposit(new BigDecimal("100.00"));
+        b.deposit(new BigDecimal("50.00"));
+        service.transfer(a, b, new BigDecimal("30.00"));
+        b.withdraw(new BigDecimal("20.00"));
+        assertBD("130.00", registry.liquidity().expectedTotal());
+    }
+
+    @Test
+    @DisplayName("Total: transferência para conta fora do cadastro conta como saída")
+    void tracker_transferOutsideRegistry_isExternal() {
+        Account a = registry.open(1);
+        Account outside = new Account();
+        a.deposit(new BigDecimal("10.00"));
+        service.transfer(a, outside, new BigDecimal("4.00"));
+        assertBD("6.00", registry.liquidity().expectedTotal());
+    }
+
+    @Test
+    @DisplayName("Auditoria: sem desvio, nenhuma rodada alerta")
+    void audit_consistent_noAlert() {
+        Account a = registry.open(1);
+        Account b = registry.open(2);
+        a.deposit(new BigDecimal("10.00"));
+        service.transfer(a, b, new BigDecimal("2.50"));
+        LiquidityAuditor auditor = new LiquidityAuditor(registry, (e, x) -> fail("Alerta inesperado"));
+        assertEquals(0, auditor.audit().signum());
+        assertEquals(0, auditor.audit().signum());
+        assertEquals(0, auditor.alerts());
+    }
+
+    @Test
+    @DisplayName("Auditoria: desvio persistente gera alerta após as confirmações")
+    void audit_persistentDrift_alertsOnce() {
+        Account a = registry.open(1);
+        a.deposit(new BigDecimal("10.00"));
+        a.deposit(new BigDecimal("1.00"), false); // crédito que não passou pelo total
+        AtomicReference<BigDecimal> seen = new AtomicReference<>();
+        LiquidityAuditor auditor = new LiquidityAuditor(registry, 2, (expected, actual) -> seen.set(actual.subtract(expected)));
+        assertBD("1.00", auditor.audit());
+        assertNull(seen.get(), "Primeira observação ainda não confirma o desvio");
+        auditor.audit();
+        assertBD("1.00", seen.get());
+        auditor.audit();
+        assertEquals(1, auditor.alerts());
+    }
+
+    @Test
+    @DisplayName("Auditoria: transferências concorrentes não geram alerta falso e o total bate ao final")
+    void audit_concurrentTransfers_conserveTotal() throws Exception {
+        int n = 32;
+        for (int i = 0; i < n; i++) registry.open(i).deposit(new BigDecimal("1000.00"));
+        LiquidityAuditor auditor = new LiquidityAuditor(registry, 50, (e, x) -> { });
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        CountDownLatch done = new CountDownLatch(4);
+        for (int t = 0; t < 4; t++) {
+            final int seed = t;
+            pool.execute(() -> {
+                java.util.Random rnd = new java.util.Random(seed);
+                for (int i = 0; i < 5000; i++) {
+                    int from = rnd.nextInt(n);
+                    int to = (from + 1 + rnd.nextInt(n - 1)) % n;
+                    try {
+                        service.transfer(registry.get(from), registry.get(to), new BigDecimal("1.25"));
+                    } catch (IllegalStateException insufficient) {
+                        // saldo insuficiente é aceitável aqui
+                    }
+                }
+                done.countDown();
+            });
+        }
+        while (!done.await(1, TimeUnit.MILLISECONDS)) auditor.audit();
+        pool.shutdown();
+        assertEquals(0, auditor.audit().signum());
+        assertBD("32000.00", registry.liquidity().expectedTotal());
+    }
+
+    @Test
+    @DisplayName("Auditoria periódica: roda em segundo plano e dispara o alerta")
+    void start_background_alerts() throws Exception {
+        Account a = registry.open(7);
+        a.deposit(new BigDecimal("3.00"), false);
+        CountDownLatch alerted = new CountDownLatch(1);
+        try (LiquidityAuditor auditor = new LiquidityAuditor(registry, (e, x) -> alerted.countDown())) {
+            auditor.start(5, TimeUnit.MILLISECONDS);
+            assertTrue(alerted.await(5, TimeUnit.SECONDS));
+            assertThrows(IllegalStateException.class, () -> auditor.start(5, TimeUnit.MILLISECONDS));
+        }
+    }
+
+    @Test
+    @DisplayName("Auditoria periódica: exceção do listener é contada e as rodadas continuam")
+    void start_listenerThrows_keepsRunning() throws Exception {
+        Account a = registry.open(8);
+        a.deposit(new BigDecimal("3.00"), false);
+        CountDownLatch failed = new CountDownLatch(1);
+        CountDownLatch alerted = new CountDownLatch(1);
+        try (LiquidityAuditor auditor = new LiquidityAuditor(registry, 1, (e, x) -> {
+            if (failed.getCount() > 0) {
+                failed.countDown();
+                throw new IllegalStateException("listener falhou");
+            }
+            alerted.countDown();
+        })) {
+            auditor.start(5, TimeUnit.MILLISECONDS);
+            assertTrue(failed.await(5, TimeUnit.SECONDS));
+            a.deposit(new BigDecimal("1.00"), false); // novo desvio, novo alerta
+            assertTrue(alerted.await(5, TimeUnit.SECONDS), "Agendamento parou após a falha do listener");
+            assertEquals(1, auditor.failures());
+            assertEquals("listener falhou", auditor.lastFailure().getMessage());
+        }
+    }
+
+    @Test
+    @DisplayName("Cadastro: id duplicado é rejeitado e conta inexistente é reportada")
+    void registry_duplicateAndMissing() {
+        registry.open(1);
+        assertThrows(IllegalArgumentException.class, () -> registry.open(1));
+        assertNull(registry.find(2));
+        assertThrows(IllegalArgumentException.class, () -> registry.get(2));
+        assertEquals(1, registry.size());
+    }
+}
@@ -0,0 +1,104 @@
+package com.bank;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("LoadGenerator - carga sintética, Zipf e histograma")
+class LoadGeneratorTest {
+
+    @Test
+    @DisplayName("Histograma: percentis com erro relativo abaixo de 1%")
+    void histogramPercentiles() {
+        LatencyHistogram h = new LatencyHistogram();
+        for (long v = 1; v <= 100_000; v++) h.record(v * 1_000);
+        assertEquals(100_000, h.count());
+        assertEquals(100_000_000L, h.max());
+        assertEquals(50_000_000L, h.percentile(50), 500_000);
+        assertEquals(99_000_000L, h.percentile(99), 990_000);
+        assertEquals(h.max(), h.percentile(100));
+        for (long v : new long[] {0, 255, 256, 1_000, 123_456_789, Long.MAX_VALUE}) {
+            long top = LatencyHistogram.highestEquivalent(LatencyHistogram.index(v));
+            assertTrue(top >= v && top - v <= v / 128, "valor " + v);
+        }
+    }
+
+    @Test
+    @DisplayName("Zipf: índices baixos dominam; expoente 0 é uniforme")
+    void zipfSkew() {
+        SplittableRandom random = new SplittableRandom(1);
+        ZipfSampler zipf = new ZipfSampler(100, 1.2);
+        ZipfSampler uniform = new ZipfSampler(100, 0);
+        int[] z = new int[100];
+        int[] u = new int[100];
+        for (int i = 0; i < 100_000; i++) {
+            z[zipf.next(random)]++;
+            u[uniform.next(random)]++;
+        }
+        assertTrue(z[0] > z[1] && z[1] > z[10] && z[10] > z[99]);
+        assertTrue(z[0] > 20_000);
+        for (int c : u) assertEquals(1_000, c, 200);
+    }
+
+    @Test
+    @DisplayName("Laço aberto: taxa respeitada e dinheiro conservado")
+    void openLoopConservesMoney() throws InterruptedException {
+        LoadConfig config = LoadConfig.parse("--accounts=50", "--threads=2", "--rate=2000",
+                "--duration=300ms", "--distribution=zipf", "--balance=5.00");
+        LoadGenerator.Result result = new LoadGenerator(config).run();
+
+        long ops = result.getCompleted() + result.getRejected();
+        assertTrue(ops > 300 && ops <= 600, "operações: " + ops);
+        assertEquals(ops, result.getLatency().count());
+        assertEquals(0, result.getExpectedTotal().compareTo(result.getActualTotal()));
+        assertEquals(0, result.getActualTotal().compareTo(new BigDecimal("250.00")));
+        assertTrue(result.getLatency().percentile(99) >= result.getServiceTime().percentile(50));
+    }
+
+    @Test
+    @DisplayName("Zipf: expoente alto concentra tudo numa conta e o laço ainda termina")
+    void extremeSkewTerminates() {
+        LoadConfig config = LoadConfig.parse("--accounts=10", "--threads=1", "--duration=100ms",
+                "--distribution=zipf", "--skew=100");
+        LoadGenerator.Result result = assertTimeoutPreemptively(Duration.ofSeconds(10),
+                () -> new LoadGenerator(config).run());
+        assertTrue(result.getCompleted() > 0);
+        assertEquals(0, result.getExpectedTotal().compareTo(result.getActualTotal()));
+    }
+
+    @Test
+    @DisplayName("Main load: imprime vazão e percentis")
+    void mainLoadMode() {
+        PrintStream original = System.out;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(out));
+        try {
+            Main.main(new String[] {"load", "--accounts=10", "--threads=1", "--duration=100ms"});
+        } finally {
+            System.setOut(original);
+        }
+        String text = out.toString();
+        assertTrue(text.contains("Vazão:"), text);
+        assertTrue(text.contains("p99.9="), text);
+        assertFalse(text.contains("Saldo CC"), text);
+    }
+
+    @Test
+    @DisplayName("Opções inválidas são rejeitadas")
+    void rejectsBadOptions() {
+        assertThrows(IllegalArgumentException.class, () -> LoadConfig.parse("--accounts=1"));
+        assertThrows(IllegalArgumentException.class, () -> LoadConfig.parse("--duration=10h"));
+        assertThrows(IllegalArgumentException.class, () -> LoadConfig.parse("--distribution=normal"));
+        assertThrows(IllegalArgumentException.class, () -> LoadConfig.parse("--skew=-1"));
+        assertThrows(IllegalArgumentException.class, () -> LoadConfig.parse("--skew=NaN"));
+        assertThrows(IllegalArgumentException.class, () -> LoadConfig.parse("--nope=1"));
+        assertThrows(IllegalArgumentException.class, () -> LoadConfig.parse("accounts"));
+    }
+}
@@ -0,0 +1,229 @@
+package com.bank;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("TransferService - transferências de várias pernas")
+class MultiLegTransferTest {
+
+    private final TransferService service = new TransferService();
+
+    private static void assertBD(String esperado, BigDecimal atual) {
+        assertEquals(0, atual.compareTo(new BigDecimal(esperado)),
+                () -> "Esperado: " + esperado + " | Obtido: " + atual.toPlainString());
+    }
+
+    private static TransferLeg leg(Account from, Account to, String amount) {
+        return new TransferLeg(from, to, new BigDecimal(amount));
+    }
+
+    @Test
+    @DisplayName("Pagamento com taxa e imposto: o lojista repassa o que recebe na mesma transação")
+    void paymentWithFeeAndTax() {
+        OperationJournal journal = new OperationJournal();
+        AccountRegistry registry = new AccountRegistry(null, journal);
+        Account customer = registry.open(1, new BigDecimal("150.00"));
+        Account merchant = registry.open(2);
+        Account fee = registry.open(3);
+        Account tax = registry.open(4);
+        long before = journal.size();
+
+        service.transferAll(Arrays.asList(
+                leg(customer, merchant, "100.00"),
+                leg(merchant, fee, "2.00"),
+                leg(merchant, tax, "5.00")));
+
+        assertBD("50.00", customer.getBalance());
+        assertBD("93.00", merchant.getBalance());
+        assertBD("2.00", fee.getBalance());
+        assertBD("5.00", tax.getBalance());
+        assertBD("150.00", registry.liquidity().expectedTotal());
+        assertEquals(before + 3, journal.size());
+        List<OperationType> types = new ArrayList<>();
+        journal.read(before, journal.committed(), (seq, type, account, counterparty, amount) -> types.add(type));
+        assertEquals(Collections.nCopies(3, OperationType.TRANSFER), types);
+    }
+
+    @Test
+    @DisplayName("Diário: as pernas entram como lote atômico e nenhum prefixo fica no negativo")
+    void legsAreJournaledAsAtomicBatch() {
+        OperationJournal journal = new OperationJournal();
+        AccountRegistry registry = new AccountRegistry(null, journal);
+        Account a = registry.open(1, new BigDecimal("10.00"));
+        Account b = registry.open(2);
+        Account c = registry.open(3);
+        long before = journal.committed();
+
+        service.transferAll(Arrays.asList(leg(a, b, "10.00"), leg(b, c, "10.00")));
+
+        assertEquals(before + 2, journal.committed());
+        assertEquals(before + 2, journal.batchEnd(before));
+        assertEquals(before + 2, journal.batchEnd(before + 1));
+        assertEquals(before, journal.batchEnd(before - 1), "Lançamento fora de lote");
+        // um leitor que corta o intervalo em batchEnd só vê estados viáveis
+        long cut = journal.batchEnd(before);
+        BigDecimal[] balances = {BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO};
+        journal.read(0, cut, (seq, type, account, counterparty, amount) -> {
+            if (type == OperationType.DEPOSIT) balances[(int) account] = balances[(int) account].add(amount);
+            if (type == OperationType.TRANSFER) {
+                balances[(int) account] = balances[(int) account].subtract(amount);
+                balances[(int) counterparty] = balances[(int) counterparty].add(amount);
+            }
+        });
+        assertBD("0.00", balances[1]);
+        assertBD("0.00", balances[2]);
+        assertBD("10.00", balances[3]);
+    }
+
+    @Test
+    @DisplayName("Uma perna sem saldo cancela todas")
+    void insufficientFundsRollsBackEverything() {
+        Account customer = new Account();
+        Account merchant = new Account();
+        Account fee = new Account();
+        customer.deposit(new BigDecimal("100.00"));
+
+        assertThrows(IllegalStateException.class, () -> service.transferAll(Arrays.asList(
+                leg(customer, merchant, "100.00"),
+                leg(merchant, fee, "101.00"))));
+
+        assertBD("100.00", customer.getBalance());
+        assertBD("0", merchant.getBalance());
+        assertBD("0", fee.getBalance());
+    }
+
+    @Test
+    @DisplayName("Regras de velocidade contam cada perna de débito")
+    void velocityCountsEveryDebitLeg() {
+        long[] now = {0};
+        VelocityPolicy policy = new VelocityPolicy(() -> now[0], VelocityRule.perHour(2, null));
+        Account source = new Account(policy);
+        Account a = new Account();
+        Account b = new Account();
+        Account c = new Account();
+        source.deposit(new BigDecimal("30.00"));
+
+        VelocityLimitExceededException e = assertThrows(VelocityLimitExceededException.class,
+                () -> service.transferAll(Arrays.asList(
+                        leg(source, a, "1.00"), leg(source, b, "1.00"), leg(source, c, "1.00"))));
+        assertEquals(VelocityResult.COUNT_LIMIT_EXCEEDED, e.getResult());
+        assertBD("30.00", source.getBalance());
+
+        service.transferAll(Arrays.asList(leg(source, a, "1.00"), leg(source, b, "1.00")));
+        assertBD("28.00", source.getBalance());
+        assertThrows(VelocityLimitExceededException.class, () -> source.withdraw(BigDecimal.ONE));
+    }
+
+    @Test
+    @DisplayName("Entre cadastros diferentes o total de cada cadastro acompanha as pernas")
+    void crossRegistryLegsUpdateLiquidity() {
+        AccountRegistry left = new AccountRegistry();
+        AccountRegistry right = new AccountRegistry();
+        Account l1 = left.open(1, new BigDecimal("10.00"));
+        Account l2 = left.open(2);
+        Account r1 = right.open(1);
+
+        service.transferAll(Arrays.asList(leg(l1, l2, "4.00"), leg(l1, r1, "3.00")));
+
+        assertBD("7.00", left.liquidity().expectedTotal());
+        assertBD("3.00", right.liquidity().expectedTotal());
+    }
+
+    @Test
+    @DisplayName("Validações de argumentos")
+    void validation() {
+        Account a = new Account();
+        assertThrows(NullPointerException.class, () -> service.transferAll(null));
+        assertThrows(IllegalArgumentException.class, () -> service.transferAll(Collections.emptyList()));
+        assertThrows(NullPointerException.class, () -> service.transferAll(Collections.singletonList(null)));
+        assertThrows(IllegalArgumentException.class, () -> leg(a, a, "1.00"));
+        assertThrows(IllegalArgumentException.class, () -> leg(a, new Account(), "0"));
+        assertThrows(NullPointerException.class, () -> new TransferLeg(null, a, BigDecimal.ONE));
+    }
+
+    @Test
+    @DisplayName("Concorrência: sem deadlock, dinheiro conservado e nenhum estado intermediário visível")
+    void concurrentCyclesAreAtomic() throws InterruptedException {
+        int n = 6;
+        Account[] accounts = new Account[n];
+        for (int i = 0; i < n; i++) {
+            accounts[i] = new Account();
+            accounts[i].deposit(new BigDecimal("10.00"));
+        }
+        Account[] byLockOrder = accounts.clone();
+        Arrays.sort(byLockOrder, (x, y) -> Long.compare(x.lockOrder(), y.lockOrder()));
+        AtomicBoolean running = new AtomicBoolean(true);
+        List<String> anomalies = new CopyOnWriteArrayList<>();
+
+        // ciclos a -> b -> c -> a têm efeito líquido zero: com todas as contas travadas,
+        // o observador nunca pode ver um saldo diferente de 10.00
+        Thread observer = new Thread(() -> {
+            while (running.get()) {
+                synchronizedSnapshot(byLockOrder, 0, anomalies);
+            }
+        });
+        observer.setDaemon(true);
+        observer.start();
+
+        List<Thread> workers = new ArrayList<>();
+        List<Throwable> failures = new CopyOnWriteArrayList<>();
+        for (int t = 0; t < 6; t++) {
+            final long seed = t;
+            Thread worker = new Thread(() -> {
+                SplittableRandom random = new SplittableRandom(seed);
+                try {
+                    for (int i = 0; i < 5_000; i++) {
+                        int a = random.nextInt(n);
+                        int b = (a + 1 + random.nextInt(n - 1)) % n;
+                        int c = random.nextInt(n);
+                        while (c == a || c == b) c = random.nextInt(n);
+                        service.transferAll(Arrays.asList(
+                                leg(accounts[a], accounts[b], "7.00"),
+                                leg(accounts[b], accounts[c], "7.00"),
+                                leg(accounts[c], accounts[a], "7.00")));
+                    }
+                } catch (Throwable e) {
+                    failures.add(e);
+                }
+            });
+            worker.setDaemon(true);
+            workers.add(worker);
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join(60_000);
+            assertFalse(worker.isAlive(), "Possível deadlock");
+        }
+        running.set(false);
+        observer.join();
+
+        assertTrue(failures.isEmpty(), () -> failures.toString());
+        assertTrue(anomalies.isEmpty(), () -> anomalies.subList(0, Math.min(5, anomalies.size())).toString());
+        for (Account account : accounts) assertBD("10.00", account.getBalance());
+    }
+
+    private static void synchronizedSnapshot(Account[] accounts, int index, List<String> anomalies) {
+        if (index == accounts.length) {
+            for (Account account : accounts) {
+                if (account.getBalance().compareTo(new BigDecimal("10.00")) != 0) {
+                    anomalies.add(account.getBalance().toPlainString());
+                }
+            }
+            return;
+        }
+        synchronized (accounts[index]) {
+            synchronizedSnapshot(accounts, index + 1, anomalies);
+        }
+    }
+}
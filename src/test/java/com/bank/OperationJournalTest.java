@@ -0,0 +1,92 @@
+package com.bank;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes do diário de operações do cadastro.
+ */
+@DisplayName("OperationJournal - Diário de operações")
+class OperationJournalTest {
+
+    @Test
+    @DisplayName("Registro: abertura, depósito, saque e transferência entram em ordem")
+    void registry_recordsEveryOperation() {
+        OperationJournal journal = new OperationJournal();
+        AccountRegistry registry = new AccountRegistry(null, journal);
+        Account a = registry.open(1);
+        Account b = registry.open(2);
+        a.deposit(new BigDecimal("10.00"));
+        new TransferService().transfer(a, b, new BigDecimal("4.00"));
+        b.withdraw(new BigDecimal("1.00"));
+        assertThrows(IllegalStateException.class, () -> b.withdraw(new BigDecimal("99.00")));
+
+        List<String> seen = new ArrayList<>();
+        journal.read(0, journal.committed(), (seq, type, account, counterparty, amount) ->
+                seen.add(seq + ":" + type + ":" + account + ":" + counterparty + ":" + amount));
+        assertEquals(java.util.Arrays.asList(
+                "0:OPEN:1:0:0", "1:OPEN:2:0:0", "2:DEPOSIT:1:0:10.00",
+                "3:TRANSFER:1:2:4.00", "4:WITHDRAW:2:0:1.00"), seen);
+    }
+
+    @Test
+    @DisplayName("Concorrência: todas as operações são publicadas com sequência contínua")
+    void concurrentAppends_allPublished() throws Exception {
+        OperationJournal journal = new OperationJournal();
+        AccountRegistry registry = new AccountRegistry(null, journal);
+        for (int i = 0; i < 8; i++) registry.open(i);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        for (int t = 0; t < 4; t++) {
+            final int account = t;
+            pool.execute(() -> {
+                for (int i = 0; i < 5000; i++) registry.get(account).deposit(BigDecimal.ONE);
+            });
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+        assertEquals(8 + 20000, journal.committed());
+        long[] deposits = new long[1];
+        journal.read(0, journal.committed(), (seq, type, account, counterparty, amount) -> {
+            if (type == OperationType.DEPOSIT) deposits[0]++;
+        });
+        assertEquals(20000, deposits[0]);
+    }
+
+    @Test
+    @DisplayName("Concorrência: leitores não falham enquanto o diretório de segmentos cresce")
+    void committed_whileDirectoryGrows() throws Exception {
+        OperationJournal journal = new OperationJournal();
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        List<Future<?>> writers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            writers.add(pool.submit(() -> {
+                for (int i = 0; i < 50_000; i++) journal.append(OperationType.DEPOSIT, 1, 0, BigDecimal.ONE);
+            }));
+        }
+        pool.shutdown();
+        long seen = 0;
+        while (!pool.isTerminated()) {
+            long committed = journal.committed();
+            assertTrue(committed >= seen);
+            seen = committed;
+        }
+        for (Future<?> writer : writers) writer.get();
+        assertEquals(200_000, journal.committed());
+    }
+
+    @Test
+    @DisplayName("Leitura: intervalo além do publicado é rejeitado")
+    void read_beyondCommitted_rejected() {
+        OperationJournal journal = new OperationJournal();
+        assertThrows(IllegalArgumentException.class, () -> journal.read(0, 1, (s, t, a, c, v) -> { }));
+        assertThrows(IllegalArgumentException.class, () -> journal.read(1, 0, (s, t, a, c, v) -> { }));
+    }
+}
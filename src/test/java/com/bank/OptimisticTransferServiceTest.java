@@ -0,0 +1,195 @@
+package com.bank;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("OptimisticTransferService - versões, conflitos e recuo para lock")
+class OptimisticTransferServiceTest {
+
+    private static void assertBD(String esperado, BigDecimal atual) {
+        assertEquals(0, atual.compareTo(new BigDecimal(esperado)),
+                () -> "Esperado: " + esperado + " | Obtido: " + atual.toPlainString());
+    }
+
+    @Test
+    @DisplayName("Sem disputa: efetiva pelo caminho otimista e avança as versões")
+    void uncontendedTransferIsOptimistic() {
+        OptimisticTransferService service = new OptimisticTransferService();
+        Account from = new Account();
+        Account to = new Account();
+        from.deposit(new BigDecimal("100.00"));
+        long fromVersion = from.version();
+        long toVersion = to.version();
+
+        service.transfer(from, to, new BigDecimal("30.00"));
+
+        assertBD("70.00", from.getBalance());
+        assertBD("30.00", to.getBalance());
+        assertTrue(from.version() > fromVersion && to.version() > toVersion);
+        assertEquals(1, service.optimisticCommits());
+        assertEquals(0, service.fallbacks());
+    }
+
+    @Test
+    @DisplayName("Só a origem é travada: o crédito é publicado com o destino travado por outra thread")
+    void creditDoesNotLockTarget() throws Exception {
+        OptimisticTransferService service = new OptimisticTransferService();
+        Account from = new Account();
+        Account to = new Account();
+        from.deposit(new BigDecimal("10.00"));
+        CountDownLatch held = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread holder = new Thread(() -> {
+            synchronized (to) {
+                held.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        holder.start();
+        held.await();
+        try {
+            assertTimeoutPreemptively(Duration.ofSeconds(5), () -> service.transfer(from, to, new BigDecimal("4.00")));
+        } finally {
+            release.countDown();
+            holder.join();
+        }
+        assertEquals(1, service.optimisticCommits());
+        assertBD("6.00", from.getBalance());
+        assertBD("4.00", to.getBalance());
+    }
+
+    @Test
+    @DisplayName("Mesmas validações do caminho pessimista, sem efeitos parciais")
+    void validationsMatchPessimisticPath() {
+        OptimisticTransferService service = new OptimisticTransferService();
+        Account from = new Account();
+        Account to = new Account();
+        from.deposit(new BigDecimal("10.00"));
+
+        assertThrows(NullPointerException.class, () -> service.transfer(null, to, BigDecimal.ONE));
+        assertThrows(IllegalArgumentException.class, () -> service.transfer(from, from, BigDecimal.ONE));
+        assertThrows(IllegalArgumentException.class, () -> service.transfer(from, to, BigDecimal.ZERO));
+        assertThrows(IllegalStateException.class, () -> service.transfer(from, to, new BigDecimal("10.01")));
+        assertBD("10.00", from.getBalance());
+        assertBD("0", to.getBalance());
+
+        VelocityPolicy policy = new VelocityPolicy(() -> 0L, VelocityRule.perHour(1, null));
+        Account limited = new Account(policy);
+        limited.deposit(new BigDecimal("5.00"));
+        service.transfer(limited, to, BigDecimal.ONE);
+        assertThrows(VelocityLimitExceededException.class, () -> service.transfer(limited, to, BigDecimal.ONE));
+        assertBD("4.00", limited.getBalance());
+        assertBD("1.00", to.getBalance());
+    }
+
+    @Test
+    @DisplayName("Conta disputada vai direto ao lock e esfria a cada transferência")
+    void hotAccountFallsBackToLocking() {
+        OptimisticTransferService service = new OptimisticTransferService(4, 0, 3);
+        Account from = new Account();
+        Account to = new Account();
+        from.deposit(new BigDecimal("10.00"));
+        from.contention = 4;
+
+        service.transfer(from, to, BigDecimal.ONE);
+        service.transfer(from, to, BigDecimal.ONE);
+        assertEquals(2, service.fallbacks());
+        assertEquals(2, from.contention);
+
+        service.transfer(from, to, BigDecimal.ONE);
+        assertEquals(1, service.optimisticCommits());
+        assertBD("7.00", from.getBalance());
+    }
+
+    @Test
+    @DisplayName("Cadastro: lançamento de transferência e total inalterado")
+    void registryHooks() {
+        OperationJournal journal = new OperationJournal();
+        AccountRegistry registry = new AccountRegistry(null, journal);
+        Account a = registry.open(1, new BigDecimal("20.00"));
+        Account b = registry.open(2);
+        long before = journal.size();
+
+        new OptimisticTransferService().transfer(a, b, new BigDecimal("5.00"));
+
+        assertEquals(before + 1, journal.size());
+        List<OperationType> types = new ArrayList<>();
+        journal.read(before, journal.committed(), (seq, type, account, counterparty, amount) -> types.add(type));
+        assertEquals(OperationType.TRANSFER, types.get(0));
+        assertBD("20.00", registry.liquidity().expectedTotal());
+    }
+
+    @Test
+    @DisplayName("Concorrência alta: conflitos não perdem dinheiro e toda transferência é contada")
+    void contendedTransfersConserveMoney() throws InterruptedException {
+        OptimisticTransferService service = new OptimisticTransferService(3, 200, 4);
+        int n = 4;
+        Account[] accounts = new Account[n];
+        for (int i = 0; i < n; i++) {
+            accounts[i] = new Account();
+            accounts[i].deposit(new BigDecimal("50.00"));
+        }
+        AtomicLong succeeded = new AtomicLong();
+        List<Throwable> failures = new CopyOnWriteArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            final long seed = t;
+            Thread thread = new Thread(() -> {
+                SplittableRandom random = new SplittableRandom(seed);
+                try {
+                    for (int i = 0; i < 20_000; i++) {
+                        int from = random.nextInt(n);
+                        int to = (from + 1 + random.nextInt(n - 1)) % n;
+                        try {
+                            service.transfer(accounts[from], accounts[to], BigDecimal.valueOf(1 + random.nextInt(300), 2));
+                            succeeded.incrementAndGet();
+                        } catch (IllegalStateException ignored) {
+                            // saldo insuficiente
+                        }
+                    }
+                } catch (Throwable e) {
+                    failures.add(e);
+                }
+            });
+            thread.setDaemon(true);
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join(60_000);
+            assertFalse(thread.isAlive(), "Possível deadlock");
+        }
+
+        assertTrue(failures.isEmpty(), () -> failures.toString());
+        BigDecimal total = BigDecimal.ZERO;
+        for (Account account : accounts) {
+            assertTrue(account.getBalance().signum() >= 0);
+            total = total.add(account.getBalance());
+        }
+        assertBD("200.00", total);
+        assertTrue(service.optimisticCommits() + service.fallbacks() >= succeeded.get());
+    }
+
+    @Test
+    @DisplayName("Parâmetros inválidos")
+    void rejectsBadParameters() {
+        assertThrows(IllegalArgumentException.class, () -> new OptimisticTransferService(0, 1, 1));
+        assertThrows(IllegalArgumentException.class, () -> new OptimisticTransferService(1, -1, 1));
+        assertThrows(IllegalArgumentException.class, () -> new OptimisticTransferService(1, 1, 0));
+    }
+}
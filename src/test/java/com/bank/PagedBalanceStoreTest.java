@@ -0,0 +1,231 @@
+package com.bank;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.lang.ref.WeakReference;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Saldos paginados em disco com cache CLOCK")
+class PagedBalanceStoreTest {
+
+    private static final int SLOTS = PagedBalanceStore.SLOTS_PER_PAGE;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    @DisplayName("Varredura com cache pequeno fica limitada e persiste ao reabrir")
+    void boundedCacheAndPersistence() throws Exception {
+        Path file = dir.resolve("balances.dat");
+        int capacity = 100_000;
+        try (PagedBalanceStore store = new PagedBalanceStore(file, capacity, 4)) {
+            AccountView view = new AccountView(store);
+            for (int slot = 0; slot < capacity; slot++) view.moveTo(slot).deposit(BigDecimal.valueOf(1 + slot % 1000, 2));
+            assertTrue(store.residentPages() <= 4);
+            assertTrue(store.evictions() > 0);
+            assertTrue(store.writeBacks() > 0);
+            view.moveTo(5).withdraw(new BigDecimal("0.05"));
+        }
+        try (PagedBalanceStore store = new PagedBalanceStore(file, capacity, 2)) {
+            AccountView view = new AccountView(store);
+            assertEquals(0, new BigDecimal("0.01").compareTo(view.moveTo(5).getBalance()));
+            assertEquals(0, new BigDecimal("10.00").compareTo(view.moveTo(99_999).getBalance()));
+            assertEquals(0, new BigDecimal("4.57").compareTo(view.moveTo(50_456).getBalance()));
+            long expected = 0;
+            for (int slot = 0; slot < capacity; slot++) expected += 1 + slot % 1000;
+            assertEquals(0, BigDecimal.valueOf(expected - 5, 2).compareTo(store.total()));
+        }
+    }
+
+    @Test
+    @DisplayName("Página usada com frequência sobrevive às voltas do relógio")
+    void clockKeepsHotPage() throws Exception {
+        try (PagedBalanceStore store = new PagedBalanceStore(dir.resolve("hot.dat"), 64 * SLOTS, 4)) {
+            AccountView hot = new AccountView(store).moveTo(0);
+            AccountView cold = new AccountView(store);
+            hot.deposit(BigDecimal.ONE);
+            long missesBefore = store.misses();
+            for (int page = 1; page < 64; page++) {
+                cold.moveTo(page * SLOTS).deposit(BigDecimal.ONE);
+                hot.getBalance();
+            }
+            // só as páginas frias foram lidas do disco
+            assertEquals(63, store.misses() - missesBefore);
+            assertEquals(0, new BigDecimal("1.00").compareTo(hot.getBalance()));
+
+            // sem acesso durante uma volta inteira, a página quente também sai
+            for (int page = 1; page < 9; page++) cold.moveTo(page * SLOTS).getBalance();
+            missesBefore = store.misses();
+            assertEquals(0, new BigDecimal("1.00").compareTo(hot.getBalance()));
+            assertEquals(1, store.misses() - missesBefore);
+        }
+    }
+
+    @Test
+    @DisplayName("Página nunca gravada lê saldo zero e regras de Account valem")
+    void unwrittenPagesAndRules() throws Exception {
+        try (PagedBalanceStore store = new PagedBalanceStore(dir.resolve("empty.dat"), 10 * SLOTS, 1)) {
+            AccountView view = new AccountView(store).moveTo(9 * SLOTS + 1);
+            assertEquals(0, view.getBalance().signum());
+            assertThrows(IllegalStateException.class, () -> view.withdraw(BigDecimal.ONE));
+            assertThrows(IndexOutOfBoundsException.class, () -> store.balance(10 * SLOTS));
+            store.flush();
+            assertEquals(0, store.writeBacks());
+        }
+    }
+
+    @Test
+    @DisplayName("Threads concorrentes com cache menor que o conjunto de trabalho")
+    void concurrentAccessWithEviction() throws Exception {
+        int capacity = 16 * SLOTS;
+        try (PagedBalanceStore store = new PagedBalanceStore(dir.resolve("concurrent.dat"), capacity, 3)) {
+            AccountView seed = new AccountView(store);
+            for (int slot = 0; slot < capacity; slot++) seed.moveTo(slot).deposit(BigDecimal.TEN);
+            int threads = 4;
+            CountDownLatch done = new CountDownLatch(threads);
+            for (int t = 0; t < threads; t++) {
+                long s = t;
+                new Thread(() -> {
+                    SplittableRandom random = new SplittableRandom(s);
+                    AccountView from = new AccountView(store);
+                    AccountView to = new AccountView(store);
+                    TransferService service = new TransferService();
+                    for (int i = 0; i < 20_000; i++) {
+                        from.moveTo(random.nextInt(capacity));
+                        to.moveTo(random.nextInt(capacity));
+                        try {
+                            service.transfer(from, to, new BigDecimal("0.37"));
+                        } catch (IllegalStateException ignored) {
+                            // saldo insuficiente
+                        }
+                    }
+                    done.countDown();
+                }).start();
+            }
+            assertTrue(done.await(30, TimeUnit.SECONDS));
+            assertEquals(0, BigDecimal.valueOf(10L * capacity).compareTo(store.total()));
+        }
+    }
+
+    private static BigDecimal total(AccountRegistry registry) {
+        BigDecimal total = BigDecimal.ZERO;
+        for (Account account : registry.accounts()) total = total.add(account.getBalance());
+        return total;
+    }
+
+    /** Roda o coletor até uma conta sem referências fortes ser descartada. */
+    private static void collect() {
+        WeakReference<Object> probe = new WeakReference<>(new Object());
+        for (int i = 0; i < 20 && probe.get() != null; i++) System.gc();
+        assertNull(probe.get(), "Coletor não rodou");
+    }
+
+    @Test
+    @DisplayName("Cadastro paginado: só o conjunto de trabalho fica em memória e as buscas recarregam do disco")
+    void registryKeepsWorkingSetOnly() throws Exception {
+        int accounts = 5_000;
+        try (PagedBalanceStore store = new PagedBalanceStore(dir.resolve("registry.dat"), 16 * SLOTS, 2)) {
+            AccountRegistry registry = new AccountRegistry();
+            registry.enablePaging(store, 64);
+            for (int id = 1; id <= accounts; id++) registry.open(id, BigDecimal.valueOf(id % 100 + 1));
+            AccountPager pager = registry.pager();
+            assertEquals(accounts, registry.size());
+            assertTrue(pager.residentAccounts() <= 64, "residentes: " + pager.residentAccounts());
+            assertTrue(pager.evictions() >= accounts - 64);
+
+            collect();
+            registry.get(7).withdraw(new BigDecimal("3.00"));
+            registry.get(4_321).deposit(new BigDecimal("0.25"));
+            assertTrue(pager.pageIns() >= 2, "contas paradas devem voltar do disco");
+            collect();
+            assertEquals(0, new BigDecimal("5.00").compareTo(registry.get(7).getBalance()));
+            assertEquals(0, new BigDecimal("22.25").compareTo(registry.get(4_321).getBalance()));
+            assertNull(registry.find(accounts + 1));
+
+            BigDecimal total = total(registry);
+            assertEquals(0, registry.liquidity().expectedTotal().compareTo(total));
+            assertTrue(pager.residentAccounts() <= 64, "residentes: " + pager.residentAccounts());
+            assertThrows(IllegalArgumentException.class, () -> registry.open(7));
+        }
+    }
+
+    @Test
+    @DisplayName("Cadastro paginado: quem guarda a conta rebaixada continua com a mesma conta")
+    void demotedAccountKeepsIdentity() throws Exception {
+        try (PagedBalanceStore store = new PagedBalanceStore(dir.resolve("identity.dat"), 4 * SLOTS, 1)) {
+            AccountRegistry registry = new AccountRegistry();
+            registry.enablePaging(store, 8);
+            Account kept = registry.open(1, new BigDecimal("10.00"));
+            for (int id = 2; id <= 200; id++) registry.open(id);
+            long evictions = registry.pager().evictions();
+            assertTrue(evictions > 0);
+
+            // rebaixada mas viva: a busca devolve o mesmo objeto, e o saldo novo não se perde
+            kept.deposit(new BigDecimal("5.00"));
+            for (int id = 201; id <= 400; id++) registry.open(id);
+            collect();
+            assertSame(kept, registry.get(1));
+            assertEquals(0, new BigDecimal("15.00").compareTo(registry.get(1).getBalance()));
+            assertEquals(0, registry.liquidity().expectedTotal().compareTo(total(registry)));
+        }
+    }
+
+    @Test
+    @DisplayName("Cadastro paginado: transferências concorrentes com poucas contas residentes conservam o total")
+    void registryConcurrentTransfers() throws Exception {
+        int accounts = 2_000;
+        try (PagedBalanceStore store = new PagedBalanceStore(dir.resolve("transfers.dat"), 4 * SLOTS, 2)) {
+            AccountRegistry registry = new AccountRegistry();
+            registry.enablePaging(store, 16);
+            for (int id = 0; id < accounts; id++) registry.open(id, BigDecimal.TEN);
+            int threads = 4;
+            CountDownLatch done = new CountDownLatch(threads);
+            for (int t = 0; t < threads; t++) {
+                long s = t;
+                new Thread(() -> {
+                    SplittableRandom random = new SplittableRandom(s);
+                    TransferService service = new TransferService();
+                    for (int i = 0; i < 20_000; i++) {
+                        int from = random.nextInt(accounts);
+                        int to = random.nextInt(accounts);
+                        if (from == to) continue;
+                        try {
+                            service.transfer(registry.get(from), registry.get(to), new BigDecimal("0.37"));
+                        } catch (IllegalStateException ignored) {
+                            // saldo insuficiente
+                        }
+                        if (i % 5_000 == 0) System.gc();
+                    }
+                    done.countDown();
+                }).start();
+            }
+            assertTrue(done.await(60, TimeUnit.SECONDS));
+            assertTrue(registry.pager().pageIns() > 0);
+            assertEquals(0, BigDecimal.valueOf(10L * accounts).compareTo(total(registry)));
+        }
+    }
+
+    @Test
+    @DisplayName("Cadastro paginado: só pode ser ligado vazio e sem regras de velocidade")
+    void pagingPreconditions() throws Exception {
+        try (PagedBalanceStore store = new PagedBalanceStore(dir.resolve("pre.dat"), SLOTS, 1)) {
+            AccountRegistry used = new AccountRegistry();
+            used.open(1);
+            assertThrows(IllegalStateException.class, () -> used.enablePaging(store, 8));
+            AccountRegistry limited = new AccountRegistry(new VelocityPolicy(() -> 0L, VelocityRule.perHour(1, null)));
+            assertThrows(IllegalStateException.class, () -> limited.enablePaging(store, 8));
+            AccountRegistry small = new AccountRegistry();
+            small.enablePaging(store, 8);
+            for (int id = 0; id < SLOTS; id++) small.open(id);
+            assertThrows(IllegalStateException.class, () -> small.open(SLOTS));
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.bank;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes da conciliação em merge ordenado entre extrato e diário.
+ */
+@DisplayName("Reconciler - Conciliação em streaming")
+class ReconcilerTest {
+
+    @TempDir
+    Path dir;
+
+    private Path write(String name, String... lines) throws IOException {
+        Path file = dir.resolve(name);
+        Files.write(file, java.util.Arrays.asList(lines), StandardCharsets.UTF_8);
+        return file;
+    }
+
+    private static List<Discrepancy> sink() {
+        return Collections.synchronizedList(new ArrayList<>());
+    }
+
+    @Test
+    @DisplayName("Arquivos idênticos: todos os lançamentos conferem")
+    void identical_allMatched() throws IOException {
+        Path s = write("s.csv", "1,10,5.00", "1,11,2.50", "2,12,1.00");
+        Path j = write("j.csv", "1,10,5.00", "1,11,2.5", "2,12,1.00");
+        ReconciliationReport report = new Reconciler(2).reconcile(s, j, d -> fail("Divergência inesperada: " + d));
+        assertEquals(3, report.getMatched());
+        assertTrue(report.isClean());
+    }
+
+    @Test
+    @DisplayName("Divergências: valor, ausências e duplicados são reportados com o tipo correto")
+    void discrepancies_classified() throws IOException {
+        Path s = write("s.csv",
+                "# conta,id,valor",
+                "1,10,5.00",
+                "1,11,2.50",
+                "1,11,2.50",
+                "2,20,9.00",
+                "3,30,1.00");
+        Path j = write("j.csv",
+                "1,10,5.01",
+                "1,11,2.50",
+                "2,21,4.00",
+                "3,30,1.00",
+                "3,30,1.00",
+                "4,40,7.00");
+        List<Discrepancy> found = sink();
+        ReconciliationReport report = new Reconciler(1).reconcile(s, j, found::add);
+        assertEquals(2, report.getMatched());
+        assertEquals(1, report.getCount(Discrepancy.Type.AMOUNT_MISMATCH));
+        assertEquals(1, report.getCount(Discrepancy.Type.DUPLICATE_IN_STATEMENT));
+        assertEquals(1, report.getCount(Discrepancy.Type.DUPLICATE_IN_JOURNAL));
+        assertEquals(1, report.getCount(Discrepancy.Type.MISSING_IN_JOURNAL));
+        assertEquals(2, report.getCount(Discrepancy.Type.MISSING_IN_STATEMENT));
+        assertEquals(6, found.size());
+        Discrepancy mismatch = found.stream()
+                .filter(d -> d.getType() == Discrepancy.Type.AMOUNT_MISMATCH).findFirst().get();
+        assertEquals(1, mismatch.getAccount());
+        assertEquals(10, mismatch.getId());
+        assertEquals(0, mismatch.getJournalAmount().compareTo(new BigDecimal("5.01")));
+    }
+
+    @Test
+    @DisplayName("Paralelo: resultado com várias faixas é igual ao sequencial")
+    void parallel_matchesSequential() throws IOException {
+        Path s = dir.resolve("s.csv");
+        Path j = dir.resolve("j.csv");
+        int expectedMissing = 0;
+        int expectedMismatch = 0;
+        try (BufferedWriter ws = Files.newBufferedWriter(s); BufferedWriter wj = Files.newBufferedWriter(j)) {
+            for (int account = 0; account < 500; account++) {
+                for (int id = 0; id < 8; id++) {
+                    String amount = (account + id) + ".00";
+                    ws.write(account + "," + id + "," + amount + "\n");
+                    if ((account * 8 + id) % 97 == 0) {
+                        expectedMissing++;
+                    } else if ((account * 8 + id) % 89 == 0) {
+                        expectedMismatch++;
+                        wj.write(account + "," + id + "," + amount + "1\n");
+                    } else {
+                        wj.write(account + "," + id + "," + amount + "\n");
+                    }
+                }
+            }
+        }
+        ReconciliationReport sequential = new Reconciler(1).reconcile(s, j, d -> { });
+        List<Discrepancy> found = sink();
+        ReconciliationReport parallel = new Reconciler(4).reconcile(s, j, found::add);
+        assertEquals(4000 - expectedMissing - expectedMismatch, parallel.getMatched());
+        assertEquals(expectedMissing, parallel.getCount(Discrepancy.Type.MISSING_IN_JOURNAL));
+        assertEquals(expectedMismatch, parallel.getCount(Discrepancy.Type.AMOUNT_MISMATCH));
+        assertEquals(sequential.getMatched(), parallel.getMatched());
+        assertEquals(sequential.getDiscrepancies(), parallel.getDiscrepancies());
+        assertEquals(parallel.getDiscrepancies(), found.size());
+    }
+
+    @Test
+    @DisplayName("Fronteira: a conta Long.MAX_VALUE é conciliada, com uma ou várias faixas")
+    void maxAccount_reconciled() throws IOException {
+        long max = Long.MAX_VALUE;
+        Path s = write("s.csv", "1,1,1.00", "2,1,2.00", "3,1,3.00", max + ",1,4.00", max + ",2,5.00");
+        Path j = write("j.csv", "1,1,1.00", "2,1,2.00", "3,1,3.00", max + ",1,4.00", max + ",3,6.00");
+        for (int parallelism : new int[] {1, 3}) {
+            List<Discrepancy> found = sink();
+            ReconciliationReport report = new Reconciler(parallelism).reconcile(s, j, found::add);
+            assertEquals(4, report.getMatched());
+            assertEquals(1, report.getCount(Discrepancy.Type.MISSING_IN_JOURNAL));
+            assertEquals(1, report.getCount(Discrepancy.Type.MISSING_IN_STATEMENT));
+            assertTrue(found.stream().allMatch(d -> d.getAccount() == max));
+        }
+    }
+
+    @Test
+    @DisplayName("Ordem: arquivo fora de ordem é rejeitado")
+    void unsorted_rejected() throws IOException {
+        Path s = write("s.csv", "2,1,1.00", "1,1,1.00");
+        Path j = write("j.csv", "2,1,1.00");
+        assertThrows(IllegalArgumentException.class, () -> new Reconciler(1).reconcile(s, j, d -> { }));
+    }
+
+    @Test
+    @DisplayName("Arquivos vazios: relatório limpo")
+    void empty_clean() throws IOException {
+        Path s = write("s.csv");
+        Path j = write("j.csv");
+        assertTrue(new Reconciler(3).reconcile(s, j, d -> fail()).isClean());
+    }
+}
@@ -0,0 +1,110 @@
+package com.bank;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Balde de tokens por conta")
+class TokenBucketLimiterTest {
+
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    @DisplayName("Rajada até o balde e recarga preguiçosa pelo tempo")
+    void burstAndLazyRefill() {
+        AtomicLong clock = new AtomicLong(1_000 * MS);
+        TokenBucketLimiter limiter = new TokenBucketLimiter(5, 10, clock::get);
+        assertEquals(5, limiter.available(7));
+        for (int i = 0; i < 5; i++) assertTrue(limiter.tryAcquire(7, 1));
+        assertFalse(limiter.tryAcquire(7, 1));
+        assertTrue(limiter.tryAcquire(8, 5), "Outra conta tem seu próprio balde");
+
+        clock.addAndGet(99 * MS);
+        assertFalse(limiter.tryAcquire(7, 1));
+        clock.addAndGet(MS);
+        assertTrue(limiter.tryAcquire(7, 1));
+        assertFalse(limiter.tryAcquire(7, 1));
+
+        clock.addAndGet(10_000 * MS);
+        assertEquals(5, limiter.available(7));
+        assertFalse(limiter.tryAcquire(7, 6));
+    }
+
+    @Test
+    @DisplayName("Frações de token se acumulam entre recargas")
+    void fractionalRefillIsCarried() {
+        AtomicLong clock = new AtomicLong();
+        TokenBucketLimiter limiter = new TokenBucketLimiter(3, 3, clock::get);
+        assertTrue(limiter.tryAcquire(0, 3));
+        // 3 tokens/s = um a cada 333,3 ms; consultas no meio não podem perder o tempo acumulado
+        int granted = 0;
+        for (int step = 0; step < 101; step++) {
+            clock.addAndGet(10 * MS);
+            if (limiter.tryAcquire(0, 1)) granted++;
+        }
+        assertEquals(3, granted);
+    }
+
+    @Test
+    @DisplayName("Threads concorrentes nunca passam do balde")
+    void concurrentAcquireNeverExceedsBurst() throws Exception {
+        AtomicLong clock = new AtomicLong();
+        TokenBucketLimiter limiter = new TokenBucketLimiter(1_000, 1, clock::get);
+        int threads = 4;
+        AtomicInteger granted = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    if (limiter.tryAcquire(123_456, 1)) granted.incrementAndGet();
+                }
+                done.countDown();
+            }).start();
+        }
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        assertEquals(1_000, granted.get());
+    }
+
+    @Test
+    @DisplayName("Cadastro recusa tentativas de débito acima da taxa, com ou sem saldo")
+    void registryLimitsDebitAttempts() {
+        AtomicLong clock = new AtomicLong();
+        AccountRegistry registry = new AccountRegistry();
+        registry.setRateLimiter(new TokenBucketLimiter(3, 1, clock::get));
+        Account a = registry.open(1, new BigDecimal("1.00"));
+        Account b = registry.open(2, new BigDecimal("100.00"));
+
+        a.withdraw(new BigDecimal("0.50"));
+        assertThrows(IllegalStateException.class, () -> a.withdraw(new BigDecimal("5.00")));
+        a.deposit(new BigDecimal("10.00"));
+        new TransferService().transfer(a, b, new BigDecimal("0.10"));
+        VelocityLimitExceededException e = assertThrows(VelocityLimitExceededException.class,
+                () -> a.withdraw(new BigDecimal("0.01")));
+        assertEquals(VelocityResult.RATE_LIMITED, e.getResult());
+        assertEquals(0, new BigDecimal("10.40").compareTo(a.getBalance()));
+
+        BankOperations operations = new BankOperations(registry, new TransferService(), null);
+        assertEquals(BankStatus.LIMIT_EXCEEDED, operations.withdraw(1, 1));
+        assertEquals(BankStatus.OK, operations.deposit(1, 1));
+
+        // duas pernas de débito de b contam como duas tentativas
+        assertThrows(VelocityLimitExceededException.class, () -> new TransferService().transferAll(Arrays.asList(
+                new TransferLeg(b, a, BigDecimal.ONE), new TransferLeg(b, a, BigDecimal.ONE),
+                new TransferLeg(b, a, BigDecimal.ONE), new TransferLeg(b, a, BigDecimal.ONE))));
+        new TransferService().transferAll(Arrays.asList(
+                new TransferLeg(b, a, BigDecimal.ONE), new TransferLeg(b, a, BigDecimal.ONE)));
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        a.withdraw(new BigDecimal("0.01"));
+        registry.setRateLimiter(null);
+        for (int i = 0; i < 10; i++) a.withdraw(new BigDecimal("0.01"));
+    }
+}
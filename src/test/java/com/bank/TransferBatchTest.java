@@ -0,0 +1,123 @@
+package com.bank;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes do formato binário de lotes de transferências (gravação, leitura e aplicação).
+ */
+@DisplayName("TransferBatch - Lote binário de largura fixa")
+class TransferBatchTest {
+
+    @TempDir
+    Path dir;
+
+    private Path file;
+
+    @BeforeEach
+    void setUp() {
+        file = dir.resolve("lote.bin");
+    }
+
+    @Test
+    @DisplayName("Ida e volta: registros gravados são lidos com os mesmos campos")
+    void roundTrip_preservesFields() throws IOException {
+        try (TransferBatchWriter writer = new TransferBatchWriter(file)) {
+            for (long i = 0; i < 10000; i++) writer.write(1000 + i, i, i + 1, 100 + i);
+        }
+        assertEquals(16 + 10000L * 36, Files.size(file));
+        try (TransferBatchReader reader = new TransferBatchReader(file)) {
+            assertEquals(10000, reader.count());
+            reader.verify();
+            TransferBatchReader.Cursor record = reader.cursor();
+            long n = 0;
+            while (record.next()) {
+                assertEquals(1000 + n, record.requestId());
+                assertEquals(n, record.from());
+                assertEquals(n + 1, record.to());
+                assertEquals(100 + n, record.amount());
+                n++;
+            }
+            assertEquals(10000, n);
+            record.moveTo(42);
+            assertEquals(1042, record.requestId());
+            assertThrows(IndexOutOfBoundsException.class, () -> record.moveTo(10000));
+        }
+    }
+
+    @Test
+    @DisplayName("Aplicação: transferências válidas movem saldo e as recusadas são reportadas")
+    void applyTo_appliesAndReportsRejections() throws IOException {
+        AccountRegistry registry = new AccountRegistry();
+        registry.open(1, new BigDecimal("10.00"));
+        registry.open(2);
+        try (TransferBatchWriter writer = new TransferBatchWriter(file)) {
+            writer.write(1, 1, 2, 250);   // 2.50
+            writer.write(2, 1, 99, 100);  // destino inexistente
+            writer.write(3, 1, 2, 5000);  // saldo insuficiente
+            writer.write(4, 2, 1, 50);    // 0.50 de volta
+        }
+        List<Long> rejected = new ArrayList<>();
+        try (TransferBatchReader reader = new TransferBatchReader(file)) {
+            long applied = reader.applyTo(registry, new TransferService(), (record, cause) -> rejected.add(record.requestId()));
+            assertEquals(2, applied);
+        }
+        assertEquals(java.util.Arrays.asList(2L, 3L), rejected);
+        assertEquals(new BigDecimal("8.00"), registry.get(1).getBalance());
+        assertEquals(new BigDecimal("2.00"), registry.get(2).getBalance());
+    }
+
+    @Test
+    @DisplayName("Integridade: registro corrompido é detectado antes de aplicar qualquer transferência")
+    void corruptedRecord_rejectsWholeBatch() throws IOException {
+        AccountRegistry registry = new AccountRegistry();
+        registry.open(1, new BigDecimal("10.00"));
+        registry.open(2);
+        try (TransferBatchWriter writer = new TransferBatchWriter(file)) {
+            writer.write(1, 1, 2, 100);
+            writer.write(2, 1, 2, 100);
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            raf.seek(16 + 36 + 16); // valor do segundo registro
+            raf.write(0x7f);
+        }
+        try (TransferBatchReader reader = new TransferBatchReader(file)) {
+            assertThrows(IllegalStateException.class,
+                    () -> reader.applyTo(registry, new TransferService(), (r, c) -> { }));
+        }
+        assertEquals(new BigDecimal("10.00"), registry.get(1).getBalance());
+    }
+
+    @Test
+    @DisplayName("Cabeçalho: arquivo truncado ou de outro formato é rejeitado")
+    void invalidHeader_rejected() throws IOException {
+        try (TransferBatchWriter writer = new TransferBatchWriter(file)) {
+            writer.write(1, 1, 2, 100);
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            raf.setLength(raf.length() - 1);
+        }
+        assertThrows(IllegalArgumentException.class, () -> new TransferBatchReader(file));
+        Files.write(file, new byte[32]);
+        assertThrows(IllegalArgumentException.class, () -> new TransferBatchReader(file));
+    }
+
+    @Test
+    @DisplayName("Gravação: valor não positivo é rejeitado")
+    void write_nonPositiveAmount_rejected() throws IOException {
+        try (TransferBatchWriter writer = new TransferBatchWriter(file)) {
+            assertThrows(IllegalArgumentException.class, () -> writer.write(1, 1, 2, 0));
+            assertEquals(0, writer.count());
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.bank;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Despachante com faixas de prioridade")
+class TransferDispatcherTest {
+
+    private static final long TIMEOUT_SECONDS = 30;
+    /** Valor que faz o serviço travado segurar o worker até a liberação. */
+    private static final BigDecimal GATE = new BigDecimal("0.99");
+
+    /** Segura as transferências de valor {@link #GATE} até {@code release}. */
+    private static final class GatedService extends TransferService {
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch entered = new CountDownLatch(1);
+        final List<Object> order = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public void transfer(Account from, Account to, BigDecimal amount) {
+            if (amount.compareTo(GATE) == 0) {
+                entered.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            super.transfer(from, to, amount);
+            order.add(from);
+        }
+    }
+
+    private static Account funded() {
+        Account account = new Account();
+        account.deposit(new BigDecimal("1000000.00"));
+        return account;
+    }
+
+    @Test
+    @DisplayName("Faixas de lote recebem fatias proporcionais ao peso")
+    void weightedFairShare() throws Exception {
+        GatedService service = new GatedService();
+        Account payroll = funded();
+        Account reports = funded();
+        Account sink = new Account();
+        try (TransferDispatcher dispatcher = new TransferDispatcher(service, 1, 1, 10, 10_000)) {
+            dispatcher.addLane("payroll", 3);
+            dispatcher.addLane("reports", 1);
+            dispatcher.submit("reports", reports, sink, GATE);
+            assertTrue(service.entered.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+            List<CompletableFuture<Void>> all = new ArrayList<>();
+            for (int i = 0; i < 3_000; i++) {
+                all.add(dispatcher.submit("payroll", payroll, sink, BigDecimal.ONE));
+                all.add(dispatcher.submit("reports", reports, sink, BigDecimal.ONE));
+            }
+            service.release.countDown();
+            CompletableFuture.allOf(all.toArray(new CompletableFuture<?>[0])).get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+            // enquanto as duas faixas têm fila, a cada 4 transferências 3 são da folha
+            List<Object> window = service.order.subList(1, 2_001);
+            long fromPayroll = window.stream().filter(a -> a == payroll).count();
+            assertEquals(1_500, fromPayroll, 20);
+            assertEquals(3_000, dispatcher.completed("payroll"));
+            assertEquals(3_001, dispatcher.completed("reports"));
+        }
+    }
+
+    @Test
+    @DisplayName("Urgentes seguem rápidas com um lote grande em andamento")
+    void urgentLatencyUnderBulkLoad() throws Exception {
+        Account bulkFrom = funded();
+        Account bulkTo = new Account();
+        Account instantFrom = funded();
+        Account instantTo = new Account();
+        try (TransferDispatcher dispatcher = new TransferDispatcher(new TransferService(), 1, 3, 64, 1_000_000)) {
+            dispatcher.addLane("payroll", 1);
+            for (int i = 0; i < 300_000; i++) dispatcher.submit("payroll", bulkFrom, bulkTo, new BigDecimal("0.01"));
+            List<CompletableFuture<Void>> instant = new ArrayList<>();
+            for (int i = 0; i < 500; i++) {
+                instant.add(dispatcher.submitUrgent(instantFrom, instantTo, BigDecimal.ONE));
+                TimeUnit.MICROSECONDS.sleep(200);
+            }
+            CompletableFuture.allOf(instant.toArray(new CompletableFuture<?>[0])).get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            LatencyHistogram urgent = dispatcher.urgentLatency();
+            assertEquals(500, urgent.count());
+            assertTrue(urgent.percentile(99) < TimeUnit.MILLISECONDS.toNanos(50), "p99 " + urgent.percentile(99));
+            assertEquals(0, new BigDecimal("500.00").compareTo(instantTo.getBalance()));
+        }
+    }
+
+    @Test
+    @DisplayName("Com os workers urgentes ocupados, os de lote atendem urgentes na fronteira do lote")
+    void bulkWorkersPreemptForUrgent() throws Exception {
+        GatedService service = new GatedService();
+        Account from = funded();
+        Account to = new Account();
+        try (TransferDispatcher dispatcher = new TransferDispatcher(service, 1, 1, 8, 100_000)) {
+            dispatcher.addLane("payroll", 1);
+            dispatcher.submitUrgent(from, to, GATE);
+            assertTrue(service.entered.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+            for (int i = 0; i < 50_000; i++) dispatcher.submit("payroll", from, to, new BigDecimal("0.01"));
+            CompletableFuture<Void> urgent = dispatcher.submitUrgent(from, to, BigDecimal.TEN);
+            urgent.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            assertTrue(dispatcher.queued("payroll") > 0, "Urgente atendida antes de esvaziar o lote");
+            service.release.countDown();
+        }
+    }
+
+    @Test
+    @DisplayName("Erros chegam pelo future; fila cheia e despachante fechado recusam")
+    void failuresAndRejections() throws Exception {
+        GatedService service = new GatedService();
+        Account poor = new Account();
+        Account rich = funded();
+        TransferDispatcher dispatcher = new TransferDispatcher(service, 1, 1, 4, 2);
+        dispatcher.addLane("bulk", 1);
+        ExecutionException e = assertThrows(ExecutionException.class,
+                () -> dispatcher.submitUrgent(poor, rich, BigDecimal.ONE).get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertTrue(e.getCause() instanceof IllegalStateException);
+        assertThrows(IllegalArgumentException.class, () -> dispatcher.submit("none", rich, poor, BigDecimal.ONE));
+        assertThrows(IllegalArgumentException.class, () -> dispatcher.addLane("bulk", 2));
+
+        dispatcher.submit("bulk", rich, poor, GATE);
+        assertTrue(service.entered.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        CompletableFuture<Void> pending = dispatcher.submit("bulk", rich, poor, BigDecimal.ONE);
+        dispatcher.submit("bulk", rich, poor, BigDecimal.ONE);
+        assertThrows(RejectedExecutionException.class, () -> dispatcher.submit("bulk", rich, poor, BigDecimal.ONE));
+        service.release.countDown();
+        pending.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        dispatcher.close();
+        assertThrows(RejectedExecutionException.class, () -> dispatcher.submitUrgent(rich, poor, BigDecimal.ONE));
+    }
+
+    @Test
+    @DisplayName("Submissão concorrente com o fechamento: todo future aceito é concluído")
+    void submitRacingCloseAlwaysCompletes() throws Exception {
+        for (int round = 0; round < 20; round++) {
+            Account from = funded();
+            Account to = new Account();
+            TransferDispatcher dispatcher = new TransferDispatcher(new TransferService(), 1, 1, 4, 1_000_000);
+            dispatcher.addLane("bulk", 1);
+            List<CompletableFuture<Void>> accepted = Collections.synchronizedList(new ArrayList<>());
+            CountDownLatch started = new CountDownLatch(2);
+            List<Thread> submitters = new ArrayList<>();
+            for (int t = 0; t < 2; t++) {
+                boolean urgent = t == 0;
+                submitters.add(new Thread(() -> {
+                    started.countDown();
+                    try {
+                        while (true) {
+                            accepted.add(urgent ? dispatcher.submitUrgent(from, to, BigDecimal.ONE)
+                                    : dispatcher.submit("bulk", from, to, BigDecimal.ONE));
+                        }
+                    } catch (RejectedExecutionException e) {
+                        // fechado
+                    }
+                }));
+            }
+            for (Thread t : submitters) t.start();
+            started.await();
+            dispatcher.close();
+            for (Thread t : submitters) t.join(TimeUnit.SECONDS.toMillis(TIMEOUT_SECONDS));
+            for (CompletableFuture<Void> future : accepted) {
+                try {
+                    future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                } catch (ExecutionException e) {
+                    assertTrue(e.getCause() instanceof RejectedExecutionException);
+                }
+            }
+        }
+    }
+}
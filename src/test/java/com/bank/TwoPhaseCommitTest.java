@@ -0,0 +1,251 @@
+package com.bank;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Commit em duas fases - coordenador, participantes e recuperação")
+class TwoPhaseCommitTest {
+
+    @TempDir
+    Path dir;
+
+    private static void assertBD(String esperado, BigDecimal atual) {
+        assertEquals(0, atual.compareTo(new BigDecimal(esperado)),
+                () -> "Esperado: " + esperado + " | Obtido: " + atual.toPlainString());
+    }
+
+    private static CrossTransfer transfer(int fromPartition, long from, int toPartition, long to, String amount) {
+        return new CrossTransfer(fromPartition, from, toPartition, to, new BigDecimal(amount));
+    }
+
+    private static AccountRegistry partition(String... balances) {
+        AccountRegistry registry = new AccountRegistry();
+        for (int i = 0; i < balances.length; i++) registry.open(i + 1, new BigDecimal(balances[i]));
+        return registry;
+    }
+
+    /** Participante que aceita o prepare e perde a conexão na segunda fase. */
+    private static final class FailingCommit implements Participant {
+        private final Participant delegate;
+
+        FailingCommit(Participant delegate) { this.delegate = delegate; }
+
+        @Override public boolean[] prepare(List<PreparedLeg> legs) { return delegate.prepare(legs); }
+        @Override public void commit(long[] txIds) { throw new UncheckedIOException(new IOException("queda")); }
+        @Override public void abort(long[] txIds) { throw new UncheckedIOException(new IOException("queda")); }
+    }
+
+    @Test
+    @DisplayName("Lote: efetiva as transferências válidas e aborta as demais sem efeito parcial")
+    void batchCommitsValidAndAbortsInvalid() throws IOException {
+        AccountRegistry a = partition("100.00", "10.00");
+        AccountRegistry b = partition("0", "0");
+        try (TwoPhaseCoordinator coordinator = new TwoPhaseCoordinator(dir.resolve("coord.log"));
+             PartitionParticipant pa = new PartitionParticipant(a, dir.resolve("a.log"));
+             PartitionParticipant pb = new PartitionParticipant(b, dir.resolve("b.log"))) {
+            coordinator.register(1, pa);
+            coordinator.register(2, pb);
+
+            boolean[] result = coordinator.execute(Arrays.asList(
+                    transfer(1, 1, 2, 1, "60.00"),
+                    transfer(1, 2, 2, 2, "10.01"),   // saldo insuficiente
+                    transfer(1, 1, 2, 99, "1.00"),   // conta inexistente no destino
+                    transfer(1, 1, 3, 1, "1.00"),    // partição desconhecida
+                    transfer(1, 1, 1, 2, "5.00")));  // mesma partição
+
+            assertArrayEquals(new boolean[] {true, false, false, false, true}, result);
+            assertBD("35.00", a.get(1).getBalance());
+            assertBD("15.00", a.get(2).getBalance());
+            assertBD("60.00", b.get(1).getBalance());
+            assertBD("0", b.get(2).getBalance());
+            assertBD("50.00", a.liquidity().expectedTotal());
+            assertBD("60.00", b.liquidity().expectedTotal());
+            assertEquals(0, pa.inDoubt());
+            assertEquals(0, pb.inDoubt());
+            assertEquals(0, coordinator.unfinished());
+        }
+    }
+
+    @Test
+    @DisplayName("Queda na segunda fase: o participante reaberto pergunta e efetiva")
+    void participantRecoversInDoubtCommit() throws IOException {
+        AccountRegistry a = partition("100.00");
+        AccountRegistry b = partition("0");
+        Path bLog = dir.resolve("b.log");
+        try (TwoPhaseCoordinator coordinator = new TwoPhaseCoordinator(dir.resolve("coord.log"));
+             PartitionParticipant pa = new PartitionParticipant(a, dir.resolve("a.log"))) {
+            PartitionParticipant pb = new PartitionParticipant(b, bLog);
+            coordinator.register(1, pa);
+            coordinator.register(2, new FailingCommit(pb));
+
+            assertArrayEquals(new boolean[] {true}, coordinator.execute(
+                    Collections.singletonList(transfer(1, 1, 2, 1, "40.00"))));
+            assertBD("60.00", a.get(1).getBalance());
+            assertBD("0", b.get(1).getBalance());
+            assertEquals(1, coordinator.unfinished());
+            pb.close();
+
+            try (PartitionParticipant reopened = new PartitionParticipant(b, bLog)) {
+                assertEquals(1, reopened.inDoubt());
+                assertEquals(1, reopened.recover(coordinator::isCommitted));
+                assertBD("40.00", b.get(1).getBalance());
+                // a confirmação reenviada pelo coordenador é ignorada pelo participante
+                coordinator.register(2, reopened);
+                assertEquals(0, coordinator.recover());
+                assertBD("40.00", b.get(1).getBalance());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Coordenador reaberto reenvia commits decididos e não confirmados")
+    void coordinatorRecoversFromLog() throws IOException {
+        AccountRegistry a = partition("100.00");
+        AccountRegistry b = partition("0");
+        Path coordLog = dir.resolve("coord.log");
+        try (PartitionParticipant pa = new PartitionParticipant(a, dir.resolve("a.log"));
+             PartitionParticipant pb = new PartitionParticipant(b, dir.resolve("b.log"))) {
+            try (TwoPhaseCoordinator coordinator = new TwoPhaseCoordinator(coordLog)) {
+                coordinator.register(1, pa);
+                coordinator.register(2, new FailingCommit(pb));
+                coordinator.execute(Collections.singletonList(transfer(1, 1, 2, 1, "25.00")));
+                assertEquals(1, pb.inDoubt());
+            }
+
+            try (TwoPhaseCoordinator restarted = new TwoPhaseCoordinator(coordLog)) {
+                assertEquals(1, restarted.unfinished());
+                restarted.register(1, pa);
+                restarted.register(2, pb);
+                assertEquals(0, restarted.recover());
+                assertBD("25.00", b.get(1).getBalance());
+                assertEquals(0, pb.inDoubt());
+
+                // ids de transação não são reaproveitados depois de reabrir
+                restarted.execute(Collections.singletonList(transfer(1, 1, 2, 1, "1.00")));
+                assertBD("26.00", b.get(1).getBalance());
+            }
+            try (TwoPhaseCoordinator again = new TwoPhaseCoordinator(coordLog)) {
+                assertEquals(0, again.unfinished());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Aborto presumido: reserva sem decisão é devolvida na recuperação")
+    void presumedAbortReleasesReservation() throws IOException {
+        AccountRegistry a = partition("100.00");
+        Path aLog = dir.resolve("a.log");
+        try (PartitionParticipant pa = new PartitionParticipant(a, aLog)) {
+            assertArrayEquals(new boolean[] {true},
+                    pa.prepare(Collections.singletonList(new PreparedLeg(7, 1, -3_000))));
+            assertBD("70.00", a.get(1).getBalance());
+            assertBD("30.00", pa.reserved());
+        }
+        try (PartitionParticipant reopened = new PartitionParticipant(a, aLog);
+             TwoPhaseCoordinator coordinator = new TwoPhaseCoordinator(dir.resolve("coord.log"))) {
+            assertEquals(1, reopened.inDoubt());
+            reopened.recover(coordinator::isCommitted);
+            assertBD("100.00", a.get(1).getBalance());
+            assertBD("100.00", a.liquidity().expectedTotal());
+        }
+    }
+
+    @Test
+    @DisplayName("Registro truncado no fim do log é descartado")
+    void tornLogTailIsIgnored() throws IOException {
+        AccountRegistry a = partition("100.00");
+        Path aLog = dir.resolve("a.log");
+        try (PartitionParticipant pa = new PartitionParticipant(a, aLog)) {
+            pa.prepare(Collections.singletonList(new PreparedLeg(1, 1, -1_000)));
+        }
+        long valid = Files.size(aLog);
+        Files.write(aLog, new byte[] {3, 0, 0, 0, 2, 1, 2}, StandardOpenOption.APPEND);
+        try (PartitionParticipant reopened = new PartitionParticipant(a, aLog)) {
+            assertEquals(1, reopened.inDoubt());
+            assertEquals(valid, Files.size(aLog));
+            reopened.abort(new long[] {1});
+            assertEquals(0, reopened.inDoubt());
+        }
+    }
+
+    @Test
+    @DisplayName("Cabeçalho inteiro com corpo truncado: o corte volta ao início do registro")
+    void tornBodyIsCutAtFrameStart() throws IOException {
+        AccountRegistry a = partition("100.00");
+        Path aLog = dir.resolve("a.log");
+        try (PartitionParticipant pa = new PartitionParticipant(a, aLog)) {
+            pa.prepare(Collections.singletonList(new PreparedLeg(1, 1, -1_000)));
+        }
+        long valid = Files.size(aLog);
+        // 2 valores anunciados, só 8 dos 16 bytes e sem CRC
+        Files.write(aLog, new byte[] {2, 0, 0, 0, 2, 1, 2, 3, 4, 5, 6, 7, 8}, StandardOpenOption.APPEND);
+        try (PartitionParticipant reopened = new PartitionParticipant(a, aLog)) {
+            assertEquals(valid, Files.size(aLog));
+            assertEquals(1, reopened.inDoubt());
+            reopened.abort(new long[] {1});
+        }
+        try (PartitionParticipant again = new PartitionParticipant(a, aLog)) {
+            assertEquals(0, again.inDoubt(), "O registro gravado depois do corte é relido");
+        }
+        assertBD("100.00", a.get(1).getBalance());
+    }
+
+    @Test
+    @DisplayName("Sockets no loopback: lotes grandes conservam o dinheiro entre partições")
+    void loopbackSocketsConserveMoney() throws IOException {
+        AccountRegistry a = partition("1000.00", "1000.00", "1000.00");
+        AccountRegistry b = partition("1000.00", "1000.00", "1000.00");
+        try (PartitionParticipant pa = new PartitionParticipant(a, dir.resolve("a.log"));
+             PartitionParticipant pb = new PartitionParticipant(b, dir.resolve("b.log"));
+             ParticipantServer sa = new ParticipantServer(pa, 0);
+             ParticipantServer sb = new ParticipantServer(pb, 0);
+             RemoteParticipant ra = new RemoteParticipant(sa.address());
+             RemoteParticipant rb = new RemoteParticipant(sb.address());
+             TwoPhaseCoordinator coordinator = new TwoPhaseCoordinator(dir.resolve("coord.log"))) {
+            coordinator.register(1, ra);
+            coordinator.register(2, rb);
+
+            int committed = 0;
+            for (int batch = 0; batch < 10; batch++) {
+                List<CrossTransfer> transfers = new ArrayList<>();
+                for (int i = 0; i < 100; i++) {
+                    int from = 1 + (i + batch) % 2;
+                    transfers.add(transfer(from, 1 + i % 3, 3 - from, 1 + (i + 1) % 3, (1 + i % 50) + ".00"));
+                }
+                for (boolean ok : coordinator.execute(transfers)) if (ok) committed++;
+            }
+
+            assertTrue(committed > 0);
+            BigDecimal total = BigDecimal.ZERO;
+            for (AccountRegistry registry : Arrays.asList(a, b)) {
+                for (Account account : registry.accounts()) total = total.add(account.getBalance());
+            }
+            assertBD("6000.00", total);
+            assertBD("6000.00", a.liquidity().expectedTotal().add(b.liquidity().expectedTotal()));
+            assertEquals(0, pa.inDoubt() + pb.inDoubt());
+        }
+    }
+
+    @Test
+    @DisplayName("Validações de CrossTransfer")
+    void crossTransferValidation() {
+        assertThrows(IllegalArgumentException.class, () -> transfer(1, 1, 1, 1, "1.00"));
+        assertThrows(IllegalArgumentException.class, () -> transfer(1, 1, 2, 1, "0"));
+        assertThrows(IllegalArgumentException.class, () -> transfer(1, 1, 2, 1, "0.001"));
+        assertThrows(IllegalArgumentException.class, () -> new CrossTransfer(1, 1, 2, 1, null));
+    }
+}
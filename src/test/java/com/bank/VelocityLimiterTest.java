@@ -0,0 +1,123 @@
+package com.bank;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes dos limites de velocidade por conta.
+ * Usa um relógio manual para avançar as janelas deslizantes de forma determinística.
+ */
+@DisplayName("VelocityLimiter - Janelas deslizantes por conta")
+class VelocityLimiterTest {
+
+    private static final long MINUTE = TimeUnit.MINUTES.toNanos(1);
+
+    private long now;
+
+    @BeforeEach
+    void setUp() {
+        now = 0;
+    }
+
+    private VelocityPolicy policy(VelocityRule... rules) {
+        return new VelocityPolicy(() -> now, rules);
+    }
+
+    @Test
+    @DisplayName("Quantidade: o (N+1)-ésimo saque na janela é recusado com COUNT_LIMIT_EXCEEDED")
+    void count_limitReached_rejects() {
+        VelocityLimiter limiter = policy(VelocityRule.perHour(3, null)).newLimiter();
+        assertEquals(VelocityResult.ACCEPTED, limiter.tryAcquire(100));
+        assertEquals(VelocityResult.ACCEPTED, limiter.tryAcquire(100));
+        assertEquals(VelocityResult.ACCEPTED, limiter.tryAcquire(100));
+        assertEquals(VelocityResult.COUNT_LIMIT_EXCEEDED, limiter.tryAcquire(100));
+    }
+
+    @Test
+    @DisplayName("Valor: saque que ultrapassa o total da janela é recusado com AMOUNT_LIMIT_EXCEEDED")
+    void amount_limitReached_rejects() {
+        VelocityLimiter limiter = policy(VelocityRule.perHour(100, new BigDecimal("10.00"))).newLimiter();
+        assertEquals(VelocityResult.ACCEPTED, limiter.tryAcquire(600));
+        assertEquals(VelocityResult.AMOUNT_LIMIT_EXCEEDED, limiter.tryAcquire(401));
+        assertEquals(VelocityResult.ACCEPTED, limiter.tryAcquire(400));
+    }
+
+    @Test
+    @DisplayName("Janela: baldes que saem da janela deixam de contar")
+    void window_slides_expiresOldBuckets() {
+        VelocityLimiter limiter = policy(new VelocityRule(10, TimeUnit.MINUTES, 10, 2, null)).newLimiter();
+        assertEquals(VelocityResult.ACCEPTED, limiter.tryAcquire(1));
+        now += 5 * MINUTE;
+        assertEquals(VelocityResult.ACCEPTED, limiter.tryAcquire(1));
+        assertEquals(VelocityResult.COUNT_LIMIT_EXCEEDED, limiter.tryAcquire(1));
+        now += 5 * MINUTE; // o primeiro saque sai da janela
+        assertEquals(VelocityResult.ACCEPTED, limiter.tryAcquire(1));
+        assertEquals(VelocityResult.COUNT_LIMIT_EXCEEDED, limiter.tryAcquire(1));
+        now += 60 * MINUTE; // salto maior que a janela inteira
+        assertEquals(VelocityResult.ACCEPTED, limiter.tryAcquire(1));
+        assertEquals(VelocityResult.ACCEPTED, limiter.tryAcquire(1));
+    }
+
+    @Test
+    @DisplayName("Várias regras: a mais restritiva decide")
+    void multipleRules_strictestWins() {
+        VelocityLimiter limiter = policy(
+                VelocityRule.perHour(100, new BigDecimal("5.00")),
+                VelocityRule.perDay(1000, new BigDecimal("8.00"))).newLimiter();
+        assertEquals(VelocityResult.ACCEPTED, limiter.tryAcquire(500));
+        now += 2 * TimeUnit.HOURS.toNanos(1);
+        assertEquals(VelocityResult.AMOUNT_LIMIT_EXCEEDED, limiter.tryAcquire(400));
+        assertEquals(VelocityResult.ACCEPTED, limiter.tryAcquire(300));
+    }
+
+    @Test
+    @DisplayName("Account: saque acima do limite lança VelocityLimitExceededException e não altera o saldo")
+    void account_breach_throwsAndKeepsBalance() {
+        Account account = new Account(policy(VelocityRule.perHour(1, null)));
+        account.deposit(new BigDecimal("100.00"));
+        account.withdraw(new BigDecimal("10.00"));
+        VelocityLimitExceededException ex = assertThrows(VelocityLimitExceededException.class,
+                () -> account.withdraw(new BigDecimal("10.00")));
+        assertEquals(VelocityResult.COUNT_LIMIT_EXCEEDED, ex.getResult());
+        assertEquals(0, account.getBalance().compareTo(new BigDecimal("90.00")));
+    }
+
+    @Test
+    @DisplayName("Account: saque recusado por saldo insuficiente não consome a cota")
+    void account_insufficientFunds_doesNotConsumeQuota() {
+        Account account = new Account(policy(VelocityRule.perHour(1, null)));
+        assertThrows(IllegalStateException.class, () -> account.withdraw(BigDecimal.ONE));
+        account.deposit(BigDecimal.TEN);
+        account.withdraw(BigDecimal.ONE);
+        assertEquals(0, account.getBalance().compareTo(new BigDecimal("9")));
+    }
+
+    @Test
+    @DisplayName("TransferService: transferência recusada por velocidade não credita o destino")
+    void transfer_breach_noPartialEffect() {
+        Account from = new Account(policy(VelocityRule.perHour(100, new BigDecimal("50.00"))));
+        Account to = new Account();
+        from.deposit(new BigDecimal("200.00"));
+        TransferService service = new TransferService();
+        service.transfer(from, to, new BigDecimal("50.00"));
+        VelocityLimitExceededException ex = assertThrows(VelocityLimitExceededException.class,
+                () -> service.transfer(from, to, new BigDecimal("0.01")));
+        assertEquals(VelocityResult.AMOUNT_LIMIT_EXCEEDED, ex.getResult());
+        assertEquals(0, from.getBalance().compareTo(new BigDecimal("150.00")));
+        assertEquals(0, to.getBalance().compareTo(new BigDecimal("50.00")));
+    }
+
+    @Test
+    @DisplayName("Validação: regras inválidas são rejeitadas")
+    void rule_invalidArguments_throwIAE() {
+        assertThrows(IllegalArgumentException.class, () -> new VelocityRule(0, TimeUnit.HOURS, 10, 1, null));
+        assertThrows(IllegalArgumentException.class, () -> new VelocityRule(1, TimeUnit.HOURS, 0, 1, null));
+        assertThrows(IllegalArgumentException.class, () -> new VelocityRule(1, TimeUnit.HOURS, 10, 0, null));
+        assertThrows(IllegalArgumentException.class, () -> VelocityRule.perHour(1, BigDecimal.ZERO));
+        assertThrows(IllegalArgumentException.class, () -> new VelocityPolicy(() -> 0L));
+    }
+}